@@ -0,0 +1,118 @@
+package rut.miit.airportweb;
+
+import rut.miit.airportweb.dao.entity.FlightEntity;
+import rut.miit.airportweb.dao.entity.PassengerEntity;
+import rut.miit.airportweb.dao.entity.TicketEntity;
+import rut.miit.airportweb.dao.entity.UserEntity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Детерминированные данные для микробенчмарков: рейс с size билетами,
+ * у каждого билета свой пассажир и пользователь
+ */
+public final class BenchmarkData {
+
+    private static final LocalDateTime DEPARTURE = LocalDateTime.of(2025, 6, 1, 8, 0);
+    private static final char[] SEAT_LETTERS = {'A', 'B', 'C', 'D', 'E', 'F'};
+
+    private BenchmarkData() {
+    }
+
+    public static UserEntity admin() {
+        UserEntity admin = UserEntity.builder()
+                .username("admin")
+                .password("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z5HnXsxuj1p4Jw9WyGvPq8aG")
+                .role(UserEntity.Role.ADMIN)
+                .firstName("Иван")
+                .lastName("Петров")
+                .createdAt(DEPARTURE.minusYears(1))
+                .build();
+        admin.setId(1);
+        return admin;
+    }
+
+    public static List<FlightEntity> flights(int size) {
+        UserEntity admin = admin();
+        List<FlightEntity> flights = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            flights.add(flight(i, admin));
+        }
+        return flights;
+    }
+
+    public static List<TicketEntity> tickets(int size) {
+        FlightEntity flight = flight(0, admin());
+        List<TicketEntity> tickets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            TicketEntity ticket = TicketEntity.builder()
+                    .flight(flight)
+                    .passenger(passenger(i))
+                    .seatNumber(seat(i))
+                    .price(BigDecimal.valueOf(5000))
+                    .ticketNumber(String.format("TKT-%08d", i))
+                    .status(TicketEntity.TicketStatus.BOOKED)
+                    .bookingDate(DEPARTURE.minusDays(7))
+                    .build();
+            ticket.setId(i + 1);
+            tickets.add(ticket);
+        }
+        return tickets;
+    }
+
+    public static List<UserEntity> passengerUsers(int size) {
+        List<UserEntity> users = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            users.add(passenger(i).getUser());
+        }
+        return users;
+    }
+
+    /**
+     * Место с номером i: 1A, 1B, ... 1F, 2A, ...
+     */
+    public static String seat(int i) {
+        return (i / SEAT_LETTERS.length + 1) + String.valueOf(SEAT_LETTERS[i % SEAT_LETTERS.length]);
+    }
+
+    private static FlightEntity flight(int i, UserEntity createdBy) {
+        FlightEntity flight = FlightEntity.builder()
+                .flightNumber(String.format("SU%04d", i))
+                .departureCity("Москва")
+                .arrivalCity("Санкт-Петербург")
+                .departureTime(DEPARTURE.plusMinutes(i))
+                .arrivalTime(DEPARTURE.plusMinutes(i + 90))
+                .totalSeats(180)
+                .availableSeats(180 - i % 180)
+                .status(FlightEntity.FlightStatus.SCHEDULED)
+                .createdBy(createdBy)
+                .build();
+        flight.setId(i + 1);
+        return flight;
+    }
+
+    private static PassengerEntity passenger(int i) {
+        UserEntity user = UserEntity.builder()
+                .username("passenger" + i)
+                .password("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z5HnXsxuj1p4Jw9WyGvPq8aG")
+                .role(UserEntity.Role.PASSENGER)
+                .firstName("Пассажир" + i)
+                .lastName("Тестовый")
+                .createdAt(DEPARTURE.minusMonths(1))
+                .build();
+        user.setId(i + 100);
+
+        PassengerEntity passenger = PassengerEntity.builder()
+                .user(user)
+                .passportNumber(String.format("AB%07d", i))
+                .phone("+7900" + String.format("%07d", i))
+                .email("passenger" + i + "@example.com")
+                .build();
+        passenger.setId(i + 1);
+        user.setPassenger(passenger);
+        return passenger;
+    }
+}
@@ -0,0 +1,59 @@
+package rut.miit.airportweb.mapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import rut.miit.airportweb.BenchmarkData;
+import rut.miit.airportweb.dao.entity.FlightEntity;
+import rut.miit.airportweb.dao.entity.TicketEntity;
+import rut.miit.airportweb.dao.entity.UserEntity;
+import rut.miit.airportweb.dto.FlightDto;
+import rut.miit.airportweb.dto.TicketDto;
+import rut.miit.airportweb.dto.UserDto;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Преобразование списков сущностей в DTO — то, что делает каждый сервис
+ * перед отдачей списка в контроллер
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MapperBenchmarks {
+
+    @Param({"10", "100", "1000"})
+    private int listSize;
+
+    private List<FlightEntity> flights;
+    private List<TicketEntity> tickets;
+    private List<UserEntity> users;
+
+    @Setup
+    public void setUp() {
+        flights = BenchmarkData.flights(listSize);
+        tickets = BenchmarkData.tickets(listSize);
+        users = BenchmarkData.passengerUsers(listSize);
+    }
+
+    @Benchmark
+    public List<FlightDto> mapFlights() {
+        return flights.stream().map(FlightMapper::map).toList();
+    }
+
+    @Benchmark
+    public List<TicketDto> mapTickets() {
+        return tickets.stream().map(TicketMapper::map).toList();
+    }
+
+    @Benchmark
+    public List<UserDto> mapUsers() {
+        return users.stream().map(UserMapper::map).toList();
+    }
+}
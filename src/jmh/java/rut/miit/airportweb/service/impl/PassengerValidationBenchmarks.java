@@ -0,0 +1,64 @@
+package rut.miit.airportweb.service.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Регулярные выражения PassengerServiceImpl на корректных и некорректных данных
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PassengerValidationBenchmarks {
+
+    @Param({"10", "100", "1000"})
+    private int listSize;
+
+    private String[] emails;
+    private String[] passports;
+    private String[] phones;
+
+    @Setup
+    public void setUp() {
+        emails = new String[listSize];
+        passports = new String[listSize];
+        phones = new String[listSize];
+        for (int i = 0; i < listSize; i++) {
+            // Каждое четвертое значение некорректно
+            boolean invalid = i % 4 == 3;
+            emails[i] = invalid ? "passenger" + i + ".example.com" : "passenger" + i + "@example.com";
+            passports[i] = invalid ? "ab-" + i : String.format("AB%07d", i);
+            phones[i] = invalid ? "8 (900) " + i : "+7900" + String.format("%07d", i);
+        }
+    }
+
+    @Benchmark
+    public void validateEmails(Blackhole blackhole) {
+        for (String email : emails) {
+            blackhole.consume(PassengerServiceImpl.validateEmail(email));
+        }
+    }
+
+    @Benchmark
+    public void validatePassports(Blackhole blackhole) {
+        for (String passport : passports) {
+            blackhole.consume(PassengerServiceImpl.validatePassport(passport));
+        }
+    }
+
+    @Benchmark
+    public void validatePhones(Blackhole blackhole) {
+        for (String phone : phones) {
+            blackhole.consume(PassengerServiceImpl.validatePhone(phone));
+        }
+    }
+}
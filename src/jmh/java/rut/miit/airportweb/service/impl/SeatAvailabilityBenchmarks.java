@@ -0,0 +1,67 @@
+package rut.miit.airportweb.service.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import rut.miit.airportweb.BenchmarkData;
+import rut.miit.airportweb.dao.entity.TicketEntity;
+import rut.miit.airportweb.dao.repository.TicketRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TicketServiceImpl.isSeatAvailable без базы: репозиторий подменен заглушкой,
+ * которая сразу отдает готовый список билетов рейса. Измеряется только
+ * работа сервиса — маппинг билетов в DTO и поиск места в списке
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SeatAvailabilityBenchmarks {
+
+    private static final String FLIGHT_NUMBER = "SU0000";
+
+    // Количество проданных билетов на рейс
+    @Param({"10", "100", "1000"})
+    private int listSize;
+
+    private TicketServiceImpl ticketService;
+    private String occupiedSeat;
+    private String freeSeat;
+
+    @Setup
+    public void setUp() {
+        List<TicketEntity> tickets = BenchmarkData.tickets(listSize);
+        TicketRepository ticketRepository = (TicketRepository) Proxy.newProxyInstance(
+                TicketRepository.class.getClassLoader(),
+                new Class<?>[]{TicketRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findAllByFlight")) {
+                        return tickets;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+
+        ticketService = new TicketServiceImpl(ticketRepository, null, null, null, null, null, null);
+        // Занятое место в середине списка, свободное — полный проход
+        occupiedSeat = BenchmarkData.seat(listSize / 2);
+        freeSeat = BenchmarkData.seat(listSize);
+    }
+
+    @Benchmark
+    public boolean occupiedSeat() {
+        return ticketService.isSeatAvailable(FLIGHT_NUMBER, occupiedSeat);
+    }
+
+    @Benchmark
+    public boolean freeSeat() {
+        return ticketService.isSeatAvailable(FLIGHT_NUMBER, freeSeat);
+    }
+}
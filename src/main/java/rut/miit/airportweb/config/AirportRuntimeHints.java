@@ -0,0 +1,98 @@
+package rut.miit.airportweb.config;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.util.ClassUtils;
+import rut.miit.airportweb.config.security.CustomUserDetails;
+import rut.miit.airportweb.diagnostics.QueryCountingStatementInspector;
+
+import java.util.List;
+
+/**
+ * Подсказки для native-image: то, к чему приложение обращается через рефлексию или как к ресурсам
+ * и что AOT Spring не выводит сам.
+ * <ul>
+ *     <li>DTO и сущности — шаблоны Thymeleaf читают их свойства через SpEL, а экспорт сериализует DTO в JSON;
+ *     вложенные перечисления сущностей шаблоны упоминают через {@code T(...)};</li>
+ *     <li>вспомогательные объекты выражений Thymeleaf ({@code #temporals}, {@code #dates} и другие);</li>
+ *     <li>методы интерфейсов репозиториев — прогрев читает с них {@code @Query};</li>
+ *     <li>классы, которые Hibernate создает по имени из настроек;</li>
+ *     <li>шаблоны, changelog Liquibase, настройки логирования и JFR, а также class-файлы сущностей —
+ *     по ним вместе с changelog считается отпечаток схемы ({@link SchemaFastPath}).</li>
+ * </ul>
+ * Сборщики Lombok ({@code @Builder}) — обычный код, сгенерированный при компиляции, подсказок не требуют.
+ */
+class AirportRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final String APPLICATION_PACKAGE = "rut.miit.airportweb";
+
+    private static final List<String> THYMELEAF_EXPRESSION_OBJECTS = List.of(
+            "org.thymeleaf.expression.Temporals",
+            "org.thymeleaf.expression.Dates",
+            "org.thymeleaf.expression.Aggregates",
+            "org.thymeleaf.expression.Strings",
+            "org.thymeleaf.expression.Lists",
+            "org.thymeleaf.expression.Numbers",
+            "org.thymeleaf.spring6.expression.Fields"
+    );
+
+    private static final List<String> RESOURCE_PATTERNS = List.of(
+            "templates/**",
+            "db/changelog/**",
+            "rut/miit/airportweb/dao/entity/*.class",
+            "jfr/*",
+            "log4j2-spring.xml",
+            "log4j2.component.properties",
+            "EcsLayout.json"
+    );
+
+    private final BindingReflectionHintsRegistrar bindingHints = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (Class<?> type : classesIn(APPLICATION_PACKAGE + ".dto", classLoader)) {
+            bindingHints.registerReflectionHints(hints.reflection(), type);
+        }
+        for (Class<?> type : classesIn(APPLICATION_PACKAGE + ".dao.entity", classLoader)) {
+            bindingHints.registerReflectionHints(hints.reflection(), type);
+            if (type.isEnum()) {
+                hints.reflection().registerType(type, MemberCategory.ACCESS_PUBLIC_FIELDS);
+            }
+        }
+        for (Class<?> type : classesIn(APPLICATION_PACKAGE + ".dao.repository", classLoader)) {
+            hints.reflection().registerType(type, MemberCategory.INTROSPECT_PUBLIC_METHODS);
+        }
+
+        hints.reflection().registerType(CustomUserDetails.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+        hints.reflection().registerType(QueryCountingStatementInspector.class,
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        for (String className : THYMELEAF_EXPRESSION_OBJECTS) {
+            if (ClassUtils.isPresent(className, classLoader)) {
+                hints.reflection().registerType(ClassUtils.resolveClassName(className, classLoader),
+                        MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+        }
+
+        RESOURCE_PATTERNS.forEach(pattern -> hints.resources().registerPattern(pattern));
+    }
+
+    // Все классы пакета, включая вложенные; подсказки собираются при сборке, поэтому сканирование здесь допустимо
+    private static List<Class<?>> classesIn(String packageName, ClassLoader classLoader) {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false) {
+            @Override
+            protected boolean isCandidateComponent(AnnotatedBeanDefinition beanDefinition) {
+                return true;
+            }
+        };
+        scanner.addIncludeFilter((metadataReader, metadataReaderFactory) -> true);
+        return scanner.findCandidateComponents(packageName).stream()
+                .map(BeanDefinition::getBeanClassName)
+                .<Class<?>>map(className -> ClassUtils.resolveClassName(className, classLoader))
+                .toList();
+    }
+}
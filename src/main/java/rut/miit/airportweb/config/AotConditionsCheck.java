@@ -0,0 +1,58 @@
+package rut.miit.airportweb.config;
+
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
+import rut.miit.airportweb.config.datasource.ReplicaRoutingDataSource;
+import rut.miit.airportweb.config.session.PostgresSessionRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Проверка настроек, которые выбирают набор бинов. Под AOT ({@code -Dspring.aot.enabled=true})
+ * условия {@code @ConditionalOnProperty} вычислены при сборке, и свойство, заданное при запуске,
+ * молча не действует. Хранилище сессий и реплики так переключить нельзя: если набор бинов
+ * не совпадает со свойствами запуска, приложение не стартует. Слушатель уведомлений и ретранслятор
+ * outbox регистрируются всегда и читают свои {@code enabled} при запуске
+ */
+class AotConditionsCheck implements SmartInitializingSingleton {
+
+    private final ListableBeanFactory beanFactory;
+    private final Environment environment;
+
+    AotConditionsCheck(ListableBeanFactory beanFactory, Environment environment) {
+        this.beanFactory = beanFactory;
+        this.environment = environment;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<String> mismatches = new ArrayList<>();
+
+        boolean jdbcSessions = "jdbc".equals(environment.getProperty("airport.session.store"));
+        if (jdbcSessions != hasBean(PostgresSessionRepository.class)) {
+            mismatches.add("airport.session.store=" + environment.getProperty("airport.session.store")
+                    + (jdbcSessions ? ", but JDBC sessions are not configured" : ", but JDBC sessions are configured"));
+        }
+
+        boolean replicas = StringUtils.hasText(environment.getProperty("airport.datasource.replica-urls"));
+        if (replicas != hasBean(ReplicaRoutingDataSource.class)) {
+            mismatches.add(replicas
+                    ? "airport.datasource.replica-urls is set, but replica routing is not configured"
+                    : "airport.datasource.replica-urls is not set, but replica routing is configured");
+        }
+
+        if (!mismatches.isEmpty()) {
+            throw new IllegalStateException("Bean set does not match runtime properties: "
+                    + String.join("; ", mismatches)
+                    + ". With spring.aot.enabled=true these conditions are fixed at build time: "
+                    + "rebuild with the same properties or start without AOT");
+        }
+    }
+
+    private boolean hasBean(Class<?> type) {
+        return beanFactory.getBeanNamesForType(type, true, false).length > 0;
+    }
+}
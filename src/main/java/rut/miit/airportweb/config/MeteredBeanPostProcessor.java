@@ -0,0 +1,204 @@
+package rut.miit.airportweb.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.SmartInstantiationAwareBeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.data.repository.Repository;
+import org.springframework.util.ClassUtils;
+import rut.miit.airportweb.diagnostics.SyntheticTraffic;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Оборачивает сервисы и репозитории таймером: каждый вызов метода пишется в
+ * {@code airport.service} или {@code airport.repository} с тегами компонента, метода и исхода.
+ * Успешные вызовы ключевых операций дополнительно увеличивают бизнес-счетчики.
+ * Теги берутся только из имен классов, методов и исключений, поэтому их число ограничено кодом.
+ * Вызовы прогрева ({@link SyntheticTraffic}) не измеряются и бизнес-счетчики не увеличивают.
+ * Работает после создателя AOP-прокси: к уже существующему прокси (например, транзакционному)
+ * таймер добавляется первым советником и измеряет вызов вместе с фиксацией транзакции.
+ * Класс нового прокси для сервиса сообщается AOT через {@link #determineBeanType}: в native-image
+ * классы CGLIB во время работы не генерируются
+ */
+class MeteredBeanPostProcessor implements SmartInstantiationAwareBeanPostProcessor, Ordered {
+
+    static final String SERVICE_TIMER = "airport.service";
+    static final String REPOSITORY_TIMER = "airport.repository";
+
+    private static final String APPLICATION_PACKAGE = "rut.miit.airportweb.";
+
+    private static final Set<String> METERED_SERVICES = Set.of(
+            "FlightService", "TicketService", "PassengerService", "BoardingPassService",
+            "UserService", "BorderCheckService", "CustomsCheckService"
+    );
+
+    // Компонент.метод -> бизнес-счетчик, увеличиваемый при успешном вызове
+    private static final Map<String, BusinessEvent> BUSINESS_EVENTS = Map.of(
+            "TicketService.createTicket", new BusinessEvent("airport.bookings"),
+            "TicketService.checkInPassenger", new BusinessEvent("airport.check.ins"),
+            "TicketService.boardPassenger", new BusinessEvent("airport.boardings"),
+            "BorderCheckService.markAsBorderCleared", new BusinessEvent("airport.clearances", "control", "border"),
+            "CustomsCheckService.markAsCustomsCleared", new BusinessEvent("airport.clearances", "control", "customs")
+    );
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    MeteredBeanPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        String repository = repositoryName(bean);
+        if (repository != null) {
+            return withTimer(bean, new TimingInterceptor(REPOSITORY_TIMER, "repository", repository));
+        }
+        String service = serviceName(bean);
+        if (service != null) {
+            return withTimer(bean, new TimingInterceptor(SERVICE_TIMER, "service", service));
+        }
+        return bean;
+    }
+
+    // Вызывается и при AOT-обработке: сгенерированный здесь класс прокси попадает в сборку
+    @Override
+    public Class<?> determineBeanType(Class<?> beanClass, String beanName) {
+        if (Advised.class.isAssignableFrom(beanClass) || Proxy.isProxyClass(beanClass) || beanClass.isInterface()) {
+            return beanClass;
+        }
+        String service = serviceName(beanClass);
+        if (service == null) {
+            return beanClass;
+        }
+        // Та же конфигурация, что у new ProxyFactory(bean) в withTimer
+        ProxyFactory proxyFactory = new ProxyFactory();
+        proxyFactory.setTargetClass(beanClass);
+        proxyFactory.setInterfaces(ClassUtils.getAllInterfacesForClass(beanClass));
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvisor(new DefaultPointcutAdvisor(new TimingInterceptor(SERVICE_TIMER, "service", service)));
+        return proxyFactory.getProxyClass(beanClass.getClassLoader());
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+
+    private static Object withTimer(Object bean, TimingInterceptor interceptor) {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(interceptor);
+        if (bean instanceof Advised advised && !advised.isFrozen()) {
+            advised.addAdvisor(0, advisor);
+            return bean;
+        }
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        // JDK-прокси нельзя унаследовать, его оборачиваем по интерфейсам
+        proxyFactory.setProxyTargetClass(!Proxy.isProxyClass(bean.getClass()));
+        proxyFactory.addAdvisor(advisor);
+        return proxyFactory.getProxy(bean.getClass().getClassLoader());
+    }
+
+    private static String repositoryName(Object bean) {
+        if (!(bean instanceof Repository<?, ?>)) {
+            return null;
+        }
+        for (Class<?> type : AopProxyUtils.proxiedUserInterfaces(bean)) {
+            if (Repository.class.isAssignableFrom(type) && type.getName().startsWith(APPLICATION_PACKAGE)) {
+                return type.getSimpleName();
+            }
+        }
+        return null;
+    }
+
+    private static String serviceName(Object bean) {
+        return serviceName(AopProxyUtils.ultimateTargetClass(bean));
+    }
+
+    private static String serviceName(Class<?> beanClass) {
+        Class<?> type = ClassUtils.getUserClass(beanClass);
+        if (!type.getName().startsWith(APPLICATION_PACKAGE)) {
+            return null;
+        }
+        if (METERED_SERVICES.contains(type.getSimpleName())) {
+            return type.getSimpleName();
+        }
+        for (Class<?> serviceInterface : type.getInterfaces()) {
+            if (METERED_SERVICES.contains(serviceInterface.getSimpleName())) {
+                return serviceInterface.getSimpleName();
+            }
+        }
+        return null;
+    }
+
+    private record BusinessEvent(String counterName, String... tags) {
+    }
+
+    private final class TimingInterceptor implements MethodInterceptor {
+
+        private final String timerName;
+        private final String componentTag;
+        private final String component;
+        private final Map<Method, Timer> successTimers = new ConcurrentHashMap<>();
+
+        private TimingInterceptor(String timerName, String componentTag, String component) {
+            this.timerName = timerName;
+            this.componentTag = componentTag;
+            this.component = component;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            Method method = invocation.getMethod();
+            if (method.getDeclaringClass() == Object.class) {
+                return invocation.proceed();
+            }
+
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            if (registry == null || SyntheticTraffic.isActive()) {
+                return invocation.proceed();
+            }
+
+            long start = System.nanoTime();
+            try {
+                Object result = invocation.proceed();
+                successTimers.computeIfAbsent(method, m -> timer(registry, m, "success", "none"))
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                countBusinessEvent(registry, method);
+                return result;
+            } catch (Throwable e) {
+                timer(registry, method, "error", e.getClass().getSimpleName())
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                throw e;
+            }
+        }
+
+        private Timer timer(MeterRegistry registry, Method method, String outcome, String exception) {
+            return Timer.builder(timerName)
+                    .tag(componentTag, component)
+                    .tag("method", method.getName())
+                    .tag("outcome", outcome)
+                    .tag("exception", exception)
+                    .register(registry);
+        }
+
+        private void countBusinessEvent(MeterRegistry registry, Method method) {
+            BusinessEvent event = BUSINESS_EVENTS.get(component + "." + method.getName());
+            if (event != null) {
+                Counter.builder(event.counterName()).tags(event.tags()).register(registry).increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package rut.miit.airportweb.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import rut.miit.airportweb.config.concurrency.AdaptiveConcurrencyLimiter;
+import rut.miit.airportweb.config.concurrency.RequestPriority;
+import rut.miit.airportweb.config.security.RateLimitRule;
+import rut.miit.airportweb.config.security.RateLimiter;
+import rut.miit.airportweb.service.impl.TripServiceImpl;
+
+/**
+ * Метрики Micrometer: таймеры сервисов и репозиториев, бизнес-счетчики, адаптивный лимит запросов,
+ * лимиты частоты и кэш поездок пассажиров.
+ * Снимаются Prometheus с /actuator/prometheus (HTTP Basic, роль METRICS — см. WebSecurityConfig)
+ */
+@Configuration
+public class MetricsConfig {
+
+    // Статический метод: пост-процессор создается раньше остальных бинов конфигурации,
+    // а реестр метрик запрашивается лениво при первом вызове
+    @Bean
+    static MeteredBeanPostProcessor meteredBeanPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new MeteredBeanPostProcessor(meterRegistry);
+    }
+
+    @Bean
+    MeterBinder concurrencyLimiterMetrics(AdaptiveConcurrencyLimiter limiter) {
+        return registry -> {
+            Gauge.builder("airport.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .register(registry);
+            Gauge.builder("airport.concurrency.in.flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .register(registry);
+            for (RequestPriority priority : RequestPriority.values()) {
+                if (priority != RequestPriority.EXEMPT) {
+                    FunctionCounter.builder("airport.concurrency.rejected", limiter, l -> l.getRejectedCount(priority))
+                            .tag("priority", priority.name().toLowerCase())
+                            .register(registry);
+                }
+            }
+        };
+    }
+
+    // Счетчики регистрируются по всем правилам сразу, чтобы ряды с нулем были видны до первого отказа
+    @Bean
+    MeterBinder rateLimiterMetrics(RateLimiter rateLimiter) {
+        return registry -> {
+            for (RateLimitRule rule : WebSecurityConfig.RATE_LIMIT_RULES) {
+                FunctionCounter.builder("airport.ratelimit.allowed", rateLimiter, l -> l.getAllowedCount(rule.name()))
+                        .tag("rule", rule.name())
+                        .register(registry);
+                FunctionCounter.builder("airport.ratelimit.throttled", rateLimiter, l -> l.getThrottledCount(rule.name()))
+                        .tag("rule", rule.name())
+                        .register(registry);
+            }
+            Gauge.builder("airport.ratelimit.buckets", rateLimiter, RateLimiter::getBucketCount)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    MeterBinder tripCacheMetrics(TripServiceImpl tripService) {
+        return registry -> {
+            FunctionCounter.builder("airport.trips.cache", tripService, TripServiceImpl::getCacheHits)
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("airport.trips.cache", tripService, TripServiceImpl::getCacheMisses)
+                    .tag("result", "miss")
+                    .register(registry);
+            Gauge.builder("airport.trips.cache.size", tripService, TripServiceImpl::getCacheSize)
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,146 @@
+package rut.miit.airportweb.config;
+
+import liquibase.integration.spring.SpringLiquibase;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Быстрый путь старта: если changelog Liquibase и классы сущностей не менялись с последнего
+ * успешного старта, Liquibase не запускается, а Hibernate не проверяет схему ({@code ddl-auto: none}).
+ * Отпечаток — SHA-256 этих ресурсов; он хранится в таблице schema_fingerprint и обновляется
+ * только после старта, на котором миграции и проверка схемы прошли полностью
+ */
+@Slf4j
+class SchemaFastPath implements BeanPostProcessor, ApplicationListener<ApplicationStartedEvent> {
+
+    private static final List<String> FINGERPRINT_ROOTS = List.of(
+            "db/changelog/",
+            "rut/miit/airportweb/dao/entity/"
+    );
+    private static final String HBM2DDL_AUTO = "hibernate.hbm2ddl.auto";
+
+    private final boolean enabled;
+    private final ObjectProvider<DataSource> dataSource;
+
+    private String fingerprint;
+    private Boolean unchanged;
+
+    SchemaFastPath(boolean enabled, ObjectProvider<DataSource> dataSource) {
+        this.enabled = enabled;
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (!enabled) {
+            return bean;
+        }
+        if (bean instanceof SpringLiquibase liquibase && isUnchanged()) {
+            liquibase.setShouldRun(false);
+            log.info("Schema fingerprint unchanged, skipping Liquibase update");
+        } else if (bean instanceof LocalContainerEntityManagerFactoryBean entityManagerFactory && isUnchanged()) {
+            entityManagerFactory.getJpaPropertyMap().put(HBM2DDL_AUTO, "none");
+            log.info("Schema fingerprint unchanged, skipping Hibernate schema validation");
+        }
+        return bean;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationStartedEvent event) {
+        if (!enabled || isUnchanged() || fingerprint == null) {
+            return;
+        }
+        try {
+            new JdbcTemplate(dataSource.getObject()).update("""
+                    INSERT INTO schema_fingerprint (id, fingerprint, updated_at) VALUES (1, ?, CURRENT_TIMESTAMP)
+                    ON CONFLICT (id) DO UPDATE SET fingerprint = EXCLUDED.fingerprint, updated_at = EXCLUDED.updated_at
+                    """, fingerprint);
+            log.info("Schema fingerprint {} recorded", fingerprint);
+        } catch (DataAccessException e) {
+            log.warn("Failed to record schema fingerprint: {}", e.getMessage());
+        }
+    }
+
+    private synchronized boolean isUnchanged() {
+        if (unchanged == null) {
+            fingerprint = computeFingerprint();
+            unchanged = fingerprint != null && fingerprint.equals(storedFingerprint());
+        }
+        return unchanged;
+    }
+
+    private String storedFingerprint() {
+        try {
+            return new JdbcTemplate(dataSource.getObject())
+                    .queryForList("SELECT fingerprint FROM schema_fingerprint WHERE id = 1", String.class)
+                    .stream().findFirst().orElse(null);
+        } catch (DataAccessException e) {
+            // Таблицы еще нет: база новая или миграции до нее не дошли
+            return null;
+        }
+    }
+
+    private static String computeFingerprint() {
+        try {
+            PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String root : FINGERPRINT_ROOTS) {
+                List<NamedResource> resources = Arrays.stream(resolver.getResources("classpath*:" + root + "**/*"))
+                        .filter(Resource::isReadable)
+                        .map(resource -> NamedResource.of(root, resource))
+                        .filter(Objects::nonNull)
+                        .sorted(Comparator.comparing(NamedResource::name))
+                        .toList();
+                if (resources.isEmpty()) {
+                    // Без ресурсов отпечаток не отличил бы одну схему от другой
+                    log.warn("No resources found under {}, running full schema checks", root);
+                    return null;
+                }
+                for (NamedResource resource : resources) {
+                    digest.update(resource.name().getBytes(StandardCharsets.UTF_8));
+                    try (InputStream in = resource.resource().getInputStream()) {
+                        digest.update(in.readAllBytes());
+                    }
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            log.warn("Failed to compute schema fingerprint, running full schema checks: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // Имя ресурса относительно корня, чтобы отпечаток не зависел от пути к jar или каталогу классов
+    private record NamedResource(String name, Resource resource) {
+
+        static NamedResource of(String root, Resource resource) {
+            try {
+                String url = resource.getURL().toString();
+                int index = url.lastIndexOf(root);
+                return index < 0 ? null : new NamedResource(url.substring(index), resource);
+            } catch (IOException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package rut.miit.airportweb.config;
+
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Настройки быстрого старта: пропуск миграций и проверки схемы, если они не менялись с прошлого
+ * старта (профиль fast-start), подсказки для сборки native-image ({@link AirportRuntimeHints})
+ * и проверка, что набор бинов, зафиксированный AOT, совпадает со свойствами запуска ({@link AotConditionsCheck})
+ */
+@Configuration
+@ImportRuntimeHints(AirportRuntimeHints.class)
+public class StartupConfig {
+
+    // Статический метод: пост-процессор нужен до создания Liquibase и фабрики EntityManager,
+    // источник данных запрашивается лениво
+    @Bean
+    static SchemaFastPath schemaFastPath(Environment environment, ObjectProvider<DataSource> dataSource) {
+        boolean enabled = environment.getProperty("airport.startup.schema-fast-path", Boolean.class, false);
+        return new SchemaFastPath(enabled, dataSource);
+    }
+
+    @Bean
+    AotConditionsCheck aotConditionsCheck(ListableBeanFactory beanFactory, Environment environment) {
+        return new AotConditionsCheck(beanFactory, environment);
+    }
+}
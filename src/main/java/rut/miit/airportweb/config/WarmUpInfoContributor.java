@@ -0,0 +1,37 @@
+package rut.miit.airportweb.config;
+
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.boot.actuate.info.InfoContributor;
+import org.springframework.stereotype.Component;
+import rut.miit.airportweb.service.WarmUpService;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Отчет о прогреве в /actuator/info (раздел warmUp)
+ */
+@Component
+class WarmUpInfoContributor implements InfoContributor {
+
+    private final WarmUpService warmUpService;
+
+    WarmUpInfoContributor(WarmUpService warmUpService) {
+        this.warmUpService = warmUpService;
+    }
+
+    @Override
+    public void contribute(Info.Builder builder) {
+        warmUpService.getLastReport().ifPresent(report -> {
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("durationMs", report.duration().toMillis());
+            details.put("flights", report.flights());
+            details.put("queries", report.queries());
+            details.put("templates", report.templates());
+            details.put("iterations", report.iterations());
+            details.put("coldProbeMs", report.coldProbe().toNanos() / 1e6);
+            details.put("warmProbeMs", report.warmProbe().toNanos() / 1e6);
+            builder.withDetail("warmUp", details);
+        });
+    }
+}
@@ -1,25 +1,112 @@
 package rut.miit.airportweb.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import rut.miit.airportweb.config.concurrency.AdaptiveConcurrencyLimiter;
+import rut.miit.airportweb.config.concurrency.ConcurrencyLimitFilter;
+import rut.miit.airportweb.config.concurrency.PriorityRule;
+import rut.miit.airportweb.config.concurrency.RequestPriority;
+import rut.miit.airportweb.config.security.RateLimitFilter;
+import rut.miit.airportweb.config.security.RateLimitRule;
+import rut.miit.airportweb.config.security.RateLimiter;
+
+import java.time.Duration;
+import java.util.List;
 
 @Configuration
 @EnableWebSecurity
 public class WebSecurityConfig {
 
+    // Бюджеты запросов: поиск рейсов ходит в базу на каждый запрос, вход — проверка BCrypt
+    static final List<RateLimitRule> RATE_LIMIT_RULES = List.of(
+            new RateLimitRule("passenger-flight-search", "GET", "/passenger/flights/search",
+                    20, Duration.ofMillis(500), false),
+            new RateLimitRule("admin-flight-search", "GET", "/admin/flights/search",
+                    30, Duration.ofMillis(200), false),
+            new RateLimitRule("login", "POST", "/login",
+                    5, Duration.ofSeconds(12), true)
+    );
+
+    // Приоритеты при перегрузке: посадка и пограничная проверка получают резерв лимита,
+    // отчеты, дашборды и выгрузки отбрасываются первыми; остальные маршруты — NORMAL.
+    // Выгрузки и JFR длятся столько, сколько клиент скачивает файл, поэтому их длительность
+    // не учитывается в задержке, по которой подстраивается лимит
+    private static final List<PriorityRule> PRIORITY_RULES = List.of(
+            new PriorityRule("/css/", RequestPriority.EXEMPT),
+            new PriorityRule("/js/", RequestPriority.EXEMPT),
+            new PriorityRule("/actuator/", RequestPriority.EXEMPT),
+            new PriorityRule("/staff/boarding", RequestPriority.CRITICAL),
+            new PriorityRule("/border/check", RequestPriority.CRITICAL),
+            new PriorityRule("/admin/reports", RequestPriority.LOW),
+            new PriorityRule("/admin/export/", RequestPriority.LOW, false),
+            new PriorityRule("/admin/diagnostics/jfr", RequestPriority.LOW, false),
+            new PriorityRule("/admin/dashboard", RequestPriority.LOW),
+            new PriorityRule("/passenger/dashboard", RequestPriority.LOW),
+            new PriorityRule("/staff/dashboard", RequestPriority.LOW),
+            new PriorityRule("/border/dashboard", RequestPriority.LOW),
+            new PriorityRule("/border/statistics", RequestPriority.LOW),
+            new PriorityRule("/customs/dashboard", RequestPriority.LOW)
+    );
+
+    // Prometheus снимает метрики по HTTP Basic отдельной учетной записью с ролью METRICS
+    // (airport.metrics.scrape-*); пока пароль не задан, эндпоинт закрыт для всех
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    @Order(1)
+    public SecurityFilterChain metricsScrapeFilterChain(HttpSecurity http, PasswordEncoder passwordEncoder,
+                                                        @Value("${airport.metrics.scrape-username:prometheus}") String username,
+                                                        @Value("${airport.metrics.scrape-password:}") String password)
+            throws Exception {
+        boolean enabled = !password.isBlank();
+        if (enabled) {
+            http.userDetailsService(new InMemoryUserDetailsManager(User.withUsername(username)
+                    .password(passwordEncoder.encode(password))
+                    .roles("METRICS")
+                    .build()));
+        }
         http
+                .securityMatcher("/actuator/prometheus")
+                .authorizeHttpRequests(authz -> {
+                    if (enabled) {
+                        authz.anyRequest().hasRole("METRICS");
+                    } else {
+                        authz.anyRequest().denyAll();
+                    }
+                })
+                .httpBasic(Customizer.withDefaults())
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .csrf(AbstractHttpConfigurer::disable);
+
+        return http.build();
+    }
+
+    @Bean
+    @Order(2)
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, RateLimiter rateLimiter,
+                                                   AdaptiveConcurrencyLimiter concurrencyLimiter) throws Exception {
+        http
+                .addFilterBefore(new RateLimitFilter(rateLimiter, RATE_LIMIT_RULES), UsernamePasswordAuthenticationFilter.class)
+                .addFilterBefore(new ConcurrencyLimitFilter(concurrencyLimiter, PRIORITY_RULES), RateLimitFilter.class)
                 .authorizeHttpRequests(authz -> authz
                         // Public pages
                         .requestMatchers("/", "/login", "/register", "/css/**", "/js/**").permitAll()
 
+                        // Проверка живости без входа; остальное Actuator — администраторам
+                        .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
+
                         // Role-based access
                         .requestMatchers("/admin/**").hasRole("ADMIN")
                         .requestMatchers("/passenger/**").hasRole("PASSENGER")
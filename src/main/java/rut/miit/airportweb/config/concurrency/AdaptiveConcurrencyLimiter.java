@@ -0,0 +1,213 @@
+package rut.miit.airportweb.config.concurrency;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Адаптивный лимит одновременных запросов, работающих с базой.
+ * Лимит пересчитывается раз в окно по градиенту задержки: пока средняя задержка окна
+ * не выше долгосрочной с допуском, лимит растет на sqrt(лимит); когда запросы начинают
+ * ждать (в том числе соединение из пула), лимит сжимается пропорционально росту задержки.
+ * Очередь за соединением в пуле сразу считается перегрузкой.
+ * <p>
+ * Часть лимита зарезервирована за критичными операциями (посадка, пограничная проверка),
+ * запросы низкого приоритета получают долю оставшегося и отбрасываются первыми
+ */
+@Component
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    private static final int MIN_WINDOW_SAMPLES = 10;
+
+    // Рост задержки относительно долгосрочной, который еще не считается перегрузкой
+    private static final double RTT_TOLERANCE = 1.5;
+    // Сильнее чем вдвое за одно окно лимит не сжимается
+    private static final double MIN_GRADIENT = 0.5;
+    // Доля нового значения лимита при сглаживании
+    private static final double SMOOTHING = 0.2;
+    // Скорость, с которой долгосрочная задержка следует за ростом и падением задержки окна
+    private static final double LONG_RTT_RISE = 0.05;
+    private static final double LONG_RTT_FALL = 0.5;
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double reservedFraction;
+    private final double lowPriorityShare;
+    private final ConnectionPoolMonitor poolMonitor;
+    private final LongSupplier nanoClock;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger windowPeakInFlight = new AtomicInteger();
+    private final LongAdder windowRttNanos = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final AtomicLong windowEnd;
+    private final Map<RequestPriority, LongAdder> rejected = new EnumMap<>(RequestPriority.class);
+
+    private volatile double limit;
+    // Изменяется только в updateLimit
+    private double longRttNanos;
+
+    @Autowired
+    public AdaptiveConcurrencyLimiter(@Value("${airport.concurrency.enabled:true}") boolean enabled,
+                                      @Value("${airport.concurrency.initial-limit:20}") int initialLimit,
+                                      @Value("${airport.concurrency.min-limit:4}") int minLimit,
+                                      @Value("${airport.concurrency.max-limit:200}") int maxLimit,
+                                      @Value("${airport.concurrency.reserved-fraction:0.2}") double reservedFraction,
+                                      @Value("${airport.concurrency.low-priority-share:0.5}") double lowPriorityShare,
+                                      ConnectionPoolMonitor poolMonitor) {
+        this(enabled, initialLimit, minLimit, maxLimit, reservedFraction, lowPriorityShare, poolMonitor, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(boolean enabled, int initialLimit, int minLimit, int maxLimit,
+                               double reservedFraction, double lowPriorityShare,
+                               ConnectionPoolMonitor poolMonitor, LongSupplier nanoClock) {
+        if (minLimit < 2 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Concurrency limits must satisfy 2 <= min <= initial <= max, got "
+                    + minLimit + ", " + initialLimit + ", " + maxLimit);
+        }
+        if (reservedFraction < 0 || reservedFraction >= 1 || lowPriorityShare <= 0 || lowPriorityShare > 1) {
+            throw new IllegalArgumentException("Reserved fraction must be in [0, 1) and low priority share in (0, 1]");
+        }
+        this.enabled = enabled;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.reservedFraction = reservedFraction;
+        this.lowPriorityShare = lowPriorityShare;
+        this.poolMonitor = poolMonitor;
+        this.nanoClock = nanoClock;
+        this.windowEnd = new AtomicLong(nanoClock.getAsLong() + WINDOW_NANOS);
+        this.limit = initialLimit;
+        for (RequestPriority priority : RequestPriority.values()) {
+            rejected.put(priority, new LongAdder());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Занять место под запрос. Каждое успешное занятие должно завершаться {@link #release(long)}
+     * @param priority приоритет запроса
+     * @return false, если запрос нужно отбросить
+     */
+    public boolean tryAcquire(RequestPriority priority) {
+        if (priority == RequestPriority.LOW && poolMonitor.isSaturated()) {
+            rejected.get(priority).increment();
+            return false;
+        }
+
+        int ceiling = ceiling(priority);
+        while (true) {
+            int current = inFlight.get();
+            if (current >= ceiling) {
+                rejected.get(priority).increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                windowPeakInFlight.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Освободить место, не учитывая задержку запроса (длинные выгрузки)
+     */
+    public void releaseUnsampled() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Освободить место и учесть задержку запроса
+     * @param rttNanos время обработки запроса
+     */
+    public void release(long rttNanos) {
+        inFlight.decrementAndGet();
+        windowRttNanos.add(rttNanos);
+        windowSamples.increment();
+
+        long now = nanoClock.getAsLong();
+        long end = windowEnd.get();
+        if (now - end >= 0 && windowEnd.compareAndSet(end, now + WINDOW_NANOS)) {
+            updateLimit();
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejectedCount(RequestPriority priority) {
+        return rejected.get(priority).sum();
+    }
+
+    private int ceiling(RequestPriority priority) {
+        int current = (int) limit;
+        int shared = current - Math.max(1, (int) Math.ceil(current * reservedFraction));
+        return switch (priority) {
+            case CRITICAL, EXEMPT -> current;
+            case NORMAL -> shared;
+            case LOW -> Math.max(1, (int) (shared * lowPriorityShare));
+        };
+    }
+
+    // Вызывается одним потоком на окно: окно захватывается CAS в release
+    private synchronized void updateLimit() {
+        long samples = windowSamples.sumThenReset();
+        long rttSum = windowRttNanos.sumThenReset();
+        if (samples < MIN_WINDOW_SAMPLES) {
+            // Мало запросов для оценки — копим дальше
+            windowSamples.add(samples);
+            windowRttNanos.add(rttSum);
+            return;
+        }
+        int peakInFlight = windowPeakInFlight.getAndSet(inFlight.get());
+
+        double shortRtt = (double) rttSum / samples;
+        if (longRttNanos == 0) {
+            longRttNanos = shortRtt;
+        } else {
+            double rate = shortRtt < longRttNanos ? LONG_RTT_FALL : LONG_RTT_RISE;
+            longRttNanos += (shortRtt - longRttNanos) * rate;
+        }
+
+        boolean poolSaturated = poolMonitor.isSaturated();
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, RTT_TOLERANCE * longRttNanos / shortRtt));
+        double current = limit;
+        double growth = Math.sqrt(current);
+        if (poolSaturated) {
+            gradient = Math.min(gradient, 0.9);
+            growth = 0;
+        } else if (peakInFlight < current / 2) {
+            // Лимит, который не выбирается даже наполовину, не проверен нагрузкой — не растим его
+            growth = 0;
+        }
+
+        double target = current * gradient + growth;
+        double next = Math.max(minLimit, Math.min(maxLimit, current * (1 - SMOOTHING) + target * SMOOTHING));
+        limit = next;
+
+        if ((int) next != (int) current) {
+            log.debug("Concurrency limit {} -> {} (rtt {} ms, long rtt {} ms, peak in flight {}, pool saturated {})",
+                    (int) current, (int) next, String.format("%.1f", shortRtt / 1e6),
+                    String.format("%.1f", longRttNanos / 1e6), peakInFlight, poolSaturated);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package rut.miit.airportweb.config.concurrency;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Отбрасывает запросы сверх адаптивного лимита ответом 503 с Retry-After,
+ * не дожидаясь соединения из пула. Приоритет берется по первому подходящему
+ * префиксу пути, по умолчанию {@link RequestPriority#NORMAL}
+ */
+@Slf4j
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final int RETRY_AFTER_SECONDS = 1;
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final List<PriorityRule> rules;
+
+    private static final PriorityRule DEFAULT_RULE = new PriorityRule("/", RequestPriority.NORMAL);
+
+    public ConcurrencyLimitFilter(AdaptiveConcurrencyLimiter limiter, List<PriorityRule> rules) {
+        this.limiter = limiter;
+        this.rules = List.copyOf(rules);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        PriorityRule rule = findRule(request);
+        RequestPriority priority = rule.priority();
+        if (priority == RequestPriority.EXEMPT || !limiter.isEnabled()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (!limiter.tryAcquire(priority)) {
+            // Отказы идут пачками при перегрузке, поэтому не warn на каждый
+            log.debug("Request {} {} shed at priority {}, limit {}",
+                    request.getMethod(), request.getRequestURI(), priority, limiter.getLimit());
+
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(RETRY_AFTER_SECONDS));
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.setContentType("text/plain");
+            response.getWriter().write("Сервис перегружен. Повторите через " + RETRY_AFTER_SECONDS + " с.");
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (rule.sampled()) {
+                limiter.release(System.nanoTime() - start);
+            } else {
+                limiter.releaseUnsampled();
+            }
+        }
+    }
+
+    private PriorityRule findRule(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (PriorityRule rule : rules) {
+            if (rule.matches(path)) {
+                return rule;
+            }
+        }
+        return DEFAULT_RULE;
+    }
+}
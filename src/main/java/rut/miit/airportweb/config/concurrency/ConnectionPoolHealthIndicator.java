@@ -0,0 +1,56 @@
+package rut.miit.airportweb.config.concurrency;
+
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.boot.health.contributor.Status;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Состояние пула соединений и адаптивного лимита (/actuator/health, компонент connectionPool).
+ * Статус SATURATED означает, что запросы стоят в очереди за соединением:
+ * приложение живо, но уже отбрасывает запросы низкого приоритета
+ */
+@Component
+public class ConnectionPoolHealthIndicator implements HealthIndicator {
+
+    public static final Status SATURATED = new Status("SATURATED", "Requests are waiting for a database connection");
+
+    private final ConnectionPoolMonitor poolMonitor;
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public ConnectionPoolHealthIndicator(ConnectionPoolMonitor poolMonitor, AdaptiveConcurrencyLimiter limiter) {
+        this.poolMonitor = poolMonitor;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public Health health() {
+        Optional<ConnectionPoolMonitor.PoolSnapshot> snapshot = poolMonitor.snapshot();
+        if (snapshot.isEmpty()) {
+            return Health.unknown().withDetail("reason", "Connection pool is not started").build();
+        }
+
+        ConnectionPoolMonitor.PoolSnapshot pool = snapshot.get();
+        Map<String, Long> rejected = new TreeMap<>();
+        for (RequestPriority priority : RequestPriority.values()) {
+            if (priority != RequestPriority.EXEMPT) {
+                rejected.put(priority.name().toLowerCase(), limiter.getRejectedCount(priority));
+            }
+        }
+
+        return Health.status(pool.saturated() ? SATURATED : Status.UP)
+                .withDetail("active", pool.active())
+                .withDetail("idle", pool.idle())
+                .withDetail("total", pool.total())
+                .withDetail("max", pool.max())
+                .withDetail("awaiting", pool.awaiting())
+                .withDetail("concurrencyLimit", limiter.getLimit())
+                .withDetail("inFlight", limiter.getInFlight())
+                .withDetail("rejected", rejected)
+                .build();
+    }
+}
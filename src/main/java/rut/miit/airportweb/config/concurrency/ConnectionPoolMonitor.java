@@ -0,0 +1,89 @@
+package rut.miit.airportweb.config.concurrency;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.stereotype.Component;
+import rut.miit.airportweb.config.datasource.ReplicaRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Optional;
+
+/**
+ * Снимок состояния пула соединений Hikari. Счетчики пула читаются без блокировок,
+ * поэтому снимок можно брать на каждом запросе. При чтении из реплик смотрит на пул основной базы:
+ * в него идут все записи
+ */
+@Component
+public class ConnectionPoolMonitor {
+
+    private final DataSource dataSource;
+
+    private volatile HikariDataSource hikariDataSource;
+
+    public ConnectionPoolMonitor(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Текущее состояние пула
+     * @return пусто, если пул еще не запущен или источник данных не Hikari
+     */
+    public Optional<PoolSnapshot> snapshot() {
+        HikariDataSource hikari = hikari();
+        HikariPoolMXBean pool = hikari != null ? hikari.getHikariPoolMXBean() : null;
+        if (pool == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new PoolSnapshot(
+                pool.getActiveConnections(),
+                pool.getIdleConnections(),
+                pool.getTotalConnections(),
+                hikari.getMaximumPoolSize(),
+                pool.getThreadsAwaitingConnection()
+        ));
+    }
+
+    /**
+     * Есть ли потоки, ожидающие соединения
+     */
+    public boolean isSaturated() {
+        return snapshot().map(PoolSnapshot::saturated).orElse(false);
+    }
+
+    private HikariDataSource hikari() {
+        HikariDataSource hikari = hikariDataSource;
+        if (hikari == null) {
+            try {
+                DataSource target = dataSource;
+                if (target.isWrapperFor(ReplicaRoutingDataSource.class)) {
+                    target = target.unwrap(ReplicaRoutingDataSource.class).getPrimaryDataSource();
+                }
+                if (target.isWrapperFor(HikariDataSource.class)) {
+                    hikari = target.unwrap(HikariDataSource.class);
+                    hikariDataSource = hikari;
+                }
+            } catch (SQLException e) {
+                return null;
+            }
+        }
+        return hikari;
+    }
+
+    /**
+     * @param active занятые соединения
+     * @param idle свободные соединения
+     * @param total все открытые соединения
+     * @param max размер пула
+     * @param awaiting потоки, ожидающие соединения
+     */
+    public record PoolSnapshot(int active, int idle, int total, int max, int awaiting) {
+
+        /**
+         * Пул насыщен, когда запросы уже стоят в очереди за соединением
+         */
+        public boolean saturated() {
+            return awaiting > 0;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package rut.miit.airportweb.config.concurrency;
+
+/**
+ * Приоритет для маршрутов с общим префиксом пути
+ * @param pathPrefix префикс пути без context path
+ * @param priority приоритет запросов по этому префиксу
+ * @param sampled учитывать ли длительность запросов в задержке лимита; выключается для потоковых выгрузок,
+ *                длительность которых задают объем данных и скорость клиента, а не нагрузка на сервер
+ */
+public record PriorityRule(String pathPrefix, RequestPriority priority, boolean sampled) {
+
+    public PriorityRule(String pathPrefix, RequestPriority priority) {
+        this(pathPrefix, priority, true);
+    }
+
+    public PriorityRule {
+        if (pathPrefix == null || !pathPrefix.startsWith("/")) {
+            throw new IllegalArgumentException("Priority rule path must start with '/': " + pathPrefix);
+        }
+    }
+
+    boolean matches(String path) {
+        return path.startsWith(pathPrefix);
+    }
+}
@@ -0,0 +1,27 @@
+package rut.miit.airportweb.config.concurrency;
+
+/**
+ * Приоритет запроса для адаптивного лимита одновременных запросов
+ */
+public enum RequestPriority {
+
+    /**
+     * Операции у выхода на посадку и на границе: им доступен весь лимит, включая резерв
+     */
+    CRITICAL,
+
+    /**
+     * Остальные страницы и формы: весь лимит, кроме резерва критичных операций
+     */
+    NORMAL,
+
+    /**
+     * Отчеты и дашборды: отбрасываются первыми и при очереди за соединениями с базой
+     */
+    LOW,
+
+    /**
+     * Статика и проверки живости: не ходят в базу и лимитом не считаются
+     */
+    EXEMPT
+}
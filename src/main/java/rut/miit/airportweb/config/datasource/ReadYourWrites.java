@@ -0,0 +1,75 @@
+package rut.miit.airportweb.config.datasource;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Чтение своих записей: после фиксации пишущей транзакции чтения той же HTTP-сессии
+ * какое-то время идут в основную базу, пока реплики не догонят.
+ * Срок хранится в атрибуте сессии, на время запроса — в потоке вместе с запросом ({@link ReadYourWritesFilter});
+ * вне HTTP-запроса срок действует только в пределах потока
+ */
+final class ReadYourWrites {
+
+    static final String SESSION_ATTRIBUTE = ReadYourWrites.class.getName() + ".primaryUntil";
+
+    private static final ThreadLocal<State> STATE = ThreadLocal.withInitial(State::new);
+
+    private ReadYourWrites() {
+    }
+
+    static void bind(HttpServletRequest request) {
+        State state = STATE.get();
+        state.request = request;
+        HttpSession session = request.getSession(false);
+        Object primaryUntil = session != null ? session.getAttribute(SESSION_ATTRIBUTE) : null;
+        state.primaryUntilMillis = primaryUntil instanceof Long millis ? millis : 0;
+    }
+
+    static void clear() {
+        STATE.remove();
+    }
+
+    /**
+     * Нужно ли читать из основной базы: срок после последней записи еще не истек
+     */
+    static boolean isSticky() {
+        return System.currentTimeMillis() < STATE.get().primaryUntilMillis;
+    }
+
+    /**
+     * Запомнить запись пишущей транзакции. Срок отсчитывается от фиксации, откат срок не продлевает
+     */
+    static void recordWrite(Duration stickyFor) {
+        State state = STATE.get();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                state.stickUntil(System.currentTimeMillis() + stickyFor.toMillis());
+            }
+        });
+    }
+
+    private static final class State {
+
+        private HttpServletRequest request;
+        private long primaryUntilMillis;
+
+        // Сессия берется в момент записи: она могла появиться или смениться (вход) в этом же запросе
+        private void stickUntil(long millis) {
+            primaryUntilMillis = Math.max(primaryUntilMillis, millis);
+            HttpSession session = request != null ? request.getSession(false) : null;
+            if (session != null) {
+                try {
+                    session.setAttribute(SESSION_ATTRIBUTE, primaryUntilMillis);
+                } catch (IllegalStateException e) {
+                    // Сессия завершена в этом же запросе (выход)
+                }
+            }
+        }
+    }
+}
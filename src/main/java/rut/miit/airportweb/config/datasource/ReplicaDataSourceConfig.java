@@ -0,0 +1,122 @@
+package rut.miit.airportweb.config.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Чтение из реплик: включается, если задан {@code airport.datasource.replica-urls}.
+ * Основной пул настраивается как раньше, из {@code spring.datasource.hikari}; пулы реплик копируют
+ * его настройки, кроме адреса, имени пула и размера. Без реплик источник данных создает Spring Boot
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "airport.datasource", name = "replica-urls")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource primaryDataSource() {
+        return new HikariDataSource();
+    }
+
+    @Bean
+    ReplicaRoutingDataSource replicaRoutingDataSource(
+            HikariDataSource primaryDataSource,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${airport.datasource.replica-urls}") List<String> replicaUrls,
+            @Value("${airport.datasource.replica-username:${spring.datasource.hikari.username}}") String username,
+            @Value("${airport.datasource.replica-password:${spring.datasource.hikari.password}}") String password,
+            @Value("${airport.datasource.replica-pool-size:0}") int poolSize,
+            @Value("${airport.datasource.replica-max-lag:PT1S}") Duration maxLag,
+            @Value("${airport.datasource.read-your-writes:PT3S}") Duration stickyFor) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            String name = "replica-" + (i + 1);
+            HikariConfig config = new HikariConfig();
+            primaryDataSource.copyStateTo(config);
+            config.setJdbcUrl(replicaUrls.get(i).trim());
+            config.setUsername(username);
+            config.setPassword(password);
+            config.setPoolName("[HikariPool-airport-web-" + name + "]");
+            config.setReadOnly(true);
+            // Реплика может быть недоступна при старте: пул создается, чтение идет в основную базу
+            config.setInitializationFailTimeout(-1);
+            if (poolSize > 0) {
+                config.setMaximumPoolSize(poolSize);
+            }
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            if (registry != null) {
+                config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            }
+            replicas.put(name, new HikariDataSource(config));
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, maxLag, stickyFor);
+    }
+
+    /**
+     * Источник данных приложения: JPA, Liquibase и JdbcTemplate получают соединения через него
+     */
+    @Bean
+    @Primary
+    DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+        // Иначе прокси возьмет настоящее соединение ради настроек по умолчанию, и оно пойдет мимо маршрутизации
+        dataSource.setDefaultAutoCommit(true);
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        return dataSource;
+    }
+
+    @Bean
+    FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter() {
+        return new FilterRegistrationBean<>(new ReadYourWritesFilter());
+    }
+
+    @Bean
+    MeterBinder replicaRoutingMetrics(ReplicaRoutingDataSource routingDataSource) {
+        return registry -> {
+            for (ReplicaRoutingDataSource.Route route : ReplicaRoutingDataSource.Route.values()) {
+                FunctionCounter.builder("airport.datasource.routed", routingDataSource, r -> r.getRoutedCount(route))
+                        .tag("route", route.name().toLowerCase())
+                        .register(registry);
+            }
+            for (ReplicaRoutingDataSource.ReplicaState replica : routingDataSource.getReplicaStates()) {
+                String name = replica.name();
+                Gauge.builder("airport.datasource.replica.lag", routingDataSource, r -> state(r, name).lagMillis())
+                        .tag("replica", name)
+                        .baseUnit("milliseconds")
+                        .register(registry);
+                Gauge.builder("airport.datasource.replica.available", routingDataSource,
+                                r -> state(r, name).available() ? 1 : 0)
+                        .tag("replica", name)
+                        .register(registry);
+            }
+        };
+    }
+
+    private static ReplicaRoutingDataSource.ReplicaState state(ReplicaRoutingDataSource routingDataSource, String name) {
+        return routingDataSource.getReplicaStates().stream()
+                .filter(replica -> replica.name().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+}
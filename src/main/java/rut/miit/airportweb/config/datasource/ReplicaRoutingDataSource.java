@@ -0,0 +1,277 @@
+package rut.miit.airportweb.config.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Направляет транзакции только на чтение ({@code @Transactional(readOnly = true)}) в реплики,
+ * все остальное — в основную базу. Реплики выбираются по кругу среди доступных; реплика исключается,
+ * если отстает больше {@code maxLag} или не отвечает. Если доступных реплик нет, чтение идет в основную базу.
+ * После записи чтения той же сессии идут в основную базу еще {@code stickyFor} ({@link ReadYourWrites}).
+ * Решение принимается при получении соединения, поэтому источник данных оборачивается в
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: соединение берется
+ * при первом запросе, когда признак readOnly транзакции уже установлен
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    static final String PRIMARY = "primary";
+
+    // Отставание реплики в миллисекундах; 0 для основной базы и для реплики, применившей все полученное.
+    // NULL — реплика не получает WAL от основной (обрыв связи, восстановление из архива): все полученное
+    // применено, но новых данных нет. Разрыв без закрытия соединения виден через wal_receiver_timeout.
+    // Статус приемника WAL виден суперпользователю и ролям с pg_read_all_stats (например, pg_monitor)
+    private static final String LAG_QUERY = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() THEN 0
+                WHEN NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver WHERE status = 'streaming') THEN NULL
+                WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+            END::bigint
+            """;
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Duration maxLag;
+    private final Duration stickyFor;
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Map<Route, AtomicLong> routed = new EnumMap<>(Route.class);
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                    Duration maxLag, Duration stickyFor) {
+        this.primary = primary;
+        this.replicas = replicas.entrySet().stream()
+                .map(replica -> new Replica(replica.getKey(), replica.getValue()))
+                .toList();
+        this.maxLag = maxLag;
+        this.stickyFor = stickyFor;
+        for (Route route : Route.values()) {
+            routed.put(route, new AtomicLong());
+        }
+
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    // Первая проверка реплик до того, как источник данных начнет выдавать соединения
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        checkReplicas();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return target(route()).getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return target(route()).getConnection(username, password);
+    }
+
+    // Для unwrap и isWrapperFor: без учета записей и счетчиков
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || ReadYourWrites.isSticky()) {
+            return PRIMARY;
+        }
+        Replica replica = nextAvailableReplica();
+        return replica != null ? replica.name() : PRIMARY;
+    }
+
+    /**
+     * Проверка отставания реплик. Запрос отдельный для каждой реплики; недоступная реплика
+     * исключается до следующей успешной проверки
+     */
+    @Scheduled(fixedDelayString = "${airport.datasource.replica-check-interval:PT1S}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            Long result;
+            try {
+                JdbcTemplate jdbcTemplate = new JdbcTemplate(replica.dataSource());
+                jdbcTemplate.setQueryTimeout(1);
+                result = jdbcTemplate.queryForObject(LAG_QUERY, Long.class);
+            } catch (RuntimeException e) {
+                if (replica.available || !replica.checked) {
+                    log.warn("Replica {} is unreachable, reads fall back to other replicas or primary: {}",
+                            replica.name(), e.getMessage());
+                }
+                replica.available = false;
+                replica.lagMillis = -1;
+                replica.checked = true;
+                continue;
+            }
+            if (result == null) {
+                if (replica.available || !replica.checked) {
+                    log.warn("Replica {} is not streaming WAL from primary, excluded from reads", replica.name());
+                }
+                replica.available = false;
+                replica.lagMillis = -1;
+                replica.checked = true;
+                continue;
+            }
+
+            long lag = result;
+            boolean available = lag <= maxLag.toMillis();
+            if (available != replica.available || !replica.checked) {
+                if (available) {
+                    log.info("Replica {} is in rotation, lag {} ms", replica.name(), lag);
+                } else {
+                    log.warn("Replica {} lags {} ms (limit {} ms), excluded from reads",
+                            replica.name(), lag, maxLag.toMillis());
+                }
+            }
+            replica.lagMillis = lag;
+            replica.available = available;
+            replica.checked = true;
+        }
+    }
+
+    /**
+     * Состояние реплик для метрик и диагностики
+     */
+    public List<ReplicaState> getReplicaStates() {
+        return replicas.stream()
+                .map(replica -> new ReplicaState(replica.name(), replica.available, replica.lagMillis))
+                .toList();
+    }
+
+    /**
+     * Сколько соединений выдано по каждой причине
+     */
+    public long getRoutedCount(Route route) {
+        return routed.get(route).get();
+    }
+
+    public DataSource getPrimaryDataSource() {
+        return primary;
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        // Основной пул — отдельный бин, его закрывает контейнер
+        for (Replica replica : replicas) {
+            if (replica.dataSource() instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
+    private Object route() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            // Запросы вне транзакции (например, хранилище сессий) идут в основную базу, но чтения не привязывают
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                ReadYourWrites.recordWrite(stickyFor);
+            }
+            return count(Route.WRITE, PRIMARY);
+        }
+        if (ReadYourWrites.isSticky()) {
+            return count(Route.STICKY, PRIMARY);
+        }
+        Replica replica = nextAvailableReplica();
+        return replica != null ? count(Route.REPLICA, replica.name()) : count(Route.FALLBACK, PRIMARY);
+    }
+
+    private Object count(Route route, Object key) {
+        routed.get(route).incrementAndGet();
+        return key;
+    }
+
+    private DataSource target(Object key) {
+        return getResolvedDataSources().get(key);
+    }
+
+    private Replica nextAvailableReplica() {
+        int size = replicas.size();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.available) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Почему соединение выдано из основной базы или реплики
+     */
+    public enum Route {
+
+        /**
+         * Пишущая транзакция или запрос вне транзакции
+         */
+        WRITE,
+
+        /**
+         * Чтение после недавней записи той же сессии
+         */
+        STICKY,
+
+        /**
+         * Чтение из реплики
+         */
+        REPLICA,
+
+        /**
+         * Чтение из основной базы: все реплики отстают или недоступны
+         */
+        FALLBACK
+    }
+
+    /**
+     * @param name имя реплики
+     * @param available участвует ли реплика в чтении
+     * @param lagMillis отставание при последней проверке, -1 — реплика не ответила
+     */
+    public record ReplicaState(String name, boolean available, long lagMillis) {
+    }
+
+    private static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+
+        // До первой проверки реплика в чтении не участвует
+        private volatile boolean available;
+        private volatile boolean checked;
+        private volatile long lagMillis = -1;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        private String name() {
+            return name;
+        }
+
+        private DataSource dataSource() {
+            return dataSource;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package rut.miit.airportweb.config.invalidation;
+
+/**
+ * Изменение сущности, о котором узнают локальные кэши всех экземпляров приложения
+ * @param type тип сущности
+ * @param key ключ сущности в кэше (номер рейса, идентификатор сессии, имя пользователя)
+ * @param version порядковый номер уведомления, в котором пришло изменение, у узла-источника
+ */
+public record EntityChange(Type type, String key, long version) {
+
+    public enum Type {
+
+        /**
+         * Рейс: статус, время, количество свободных мест. Ключ — номер рейса
+         */
+        FLIGHT,
+
+        /**
+         * HTTP-сессия: изменены атрибуты, сменился идентификатор или сессия удалена. Ключ — идентификатор сессии
+         */
+        SESSION,
+
+        /**
+         * Поездки пассажира: бронирование, отмена, регистрация или посадка по его билетам. Ключ — имя пользователя
+         */
+        TRIPS
+    }
+}
@@ -0,0 +1,85 @@
+package rut.miit.airportweb.config.invalidation;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import rut.miit.airportweb.config.datasource.ReplicaRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Сброс локальных кэшей на всех экземплярах приложения через PostgreSQL LISTEN/NOTIFY.
+ * При {@code airport.invalidation.enabled=false} уведомления не отправляются и не принимаются:
+ * так можно запускать один экземпляр без лишней работы
+ */
+@Configuration
+public class InvalidationConfig {
+
+    @Bean
+    InvalidationPublisher invalidationPublisher(JdbcTemplate jdbcTemplate,
+                                                @Value("${airport.invalidation.enabled:true}") boolean enabled) {
+        return new InvalidationPublisher(jdbcTemplate, enabled);
+    }
+
+    // Без условия на свойство: под AOT оно вычислялось бы при сборке, enabled проверяет сам слушатель
+    @Bean
+    InvalidationListener invalidationListener(
+            DataSource dataSource,
+            @Value("${airport.invalidation.enabled:true}") boolean enabled,
+            PlatformTransactionManager transactionManager,
+            ObjectProvider<InvalidationHandler> handlers,
+            @Value("${airport.invalidation.coalesce-window:PT0.05S}") Duration coalesceWindow,
+            @Value("${airport.invalidation.gap-timeout:PT5S}") Duration gapTimeout,
+            @Value("${airport.invalidation.max-batch:500}") int maxBatch,
+            @Value("${airport.invalidation.retry-delay:PT5S}") Duration retryDelay) throws SQLException {
+        return new InvalidationListener(listenDataSource(dataSource), enabled, () -> handlers.orderedStream().toList(),
+                new TransactionTemplate(transactionManager), coalesceWindow, gapTimeout, maxBatch, retryDelay);
+    }
+
+    @Bean
+    MeterBinder invalidationMetrics(InvalidationPublisher publisher, InvalidationListener listener) {
+        return registry -> {
+            FunctionCounter.builder("airport.invalidation.published", publisher,
+                            InvalidationPublisher::getPublishedCount)
+                    .register(registry);
+            FunctionCounter.builder("airport.invalidation.publish.failed", publisher,
+                            InvalidationPublisher::getFailedCount)
+                    .register(registry);
+            if (!listener.isAutoStartup()) {
+                return;
+            }
+            FunctionCounter.builder("airport.invalidation.received", listener, InvalidationListener::getReceivedCount)
+                    .register(registry);
+            FunctionCounter.builder("airport.invalidation.applied", listener, InvalidationListener::getAppliedCount)
+                    .register(registry);
+            FunctionCounter.builder("airport.invalidation.refreshes", listener, InvalidationListener::getRefreshCount)
+                    .register(registry);
+            Gauge.builder("airport.invalidation.connected", listener, l -> l.isConnected() ? 1 : 0)
+                    .register(registry);
+        };
+    }
+
+    // Соединения для LISTEN открываются напрямую к основной базе, с настройками ее пула
+    private static DataSource listenDataSource(DataSource dataSource) throws SQLException {
+        DataSource target = dataSource;
+        if (target.isWrapperFor(ReplicaRoutingDataSource.class)) {
+            target = target.unwrap(ReplicaRoutingDataSource.class).getPrimaryDataSource();
+        }
+        if (target.isWrapperFor(HikariDataSource.class)) {
+            HikariDataSource hikari = target.unwrap(HikariDataSource.class);
+            return new DriverManagerDataSource(hikari.getJdbcUrl(), hikari.getUsername(), hikari.getPassword());
+        }
+        return target;
+    }
+}
@@ -0,0 +1,28 @@
+package rut.miit.airportweb.config.invalidation;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Локальный кэш, который обновляется по изменениям с любого узла ({@link InvalidationPublisher}).
+ * Методы вызываются из потока слушателя уведомлений внутри пишущей транзакции,
+ * поэтому перечитанные из базы данные берутся из основной базы, а не из реплики
+ */
+public interface InvalidationHandler {
+
+    /**
+     * Типы сущностей, которые кэширует обработчик
+     */
+    Set<EntityChange.Type> invalidationTypes();
+
+    /**
+     * Обновить или выбросить из кэша измененные сущности. Изменения одной сущности уже схлопнуты:
+     * на каждый ключ приходит одно изменение с последней версией
+     */
+    void invalidate(Collection<EntityChange> changes);
+
+    /**
+     * Перестроить кэш целиком: уведомления могли быть потеряны
+     */
+    void refreshAll();
+}
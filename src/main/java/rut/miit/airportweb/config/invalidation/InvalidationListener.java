@@ -0,0 +1,253 @@
+package rut.miit.airportweb.config.invalidation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Прием уведомлений {@link InvalidationPublisher} на отдельном соединении с LISTEN (не из пула: оно занято
+ * все время работы). Уведомления, пришедшие в пределах {@code coalesceWindow}, схлопываются по сущности и
+ * применяются к обработчикам одной пачкой. Свои уведомления узел применяет так же, как чужие.
+ * Полная перестройка кэшей ({@link InvalidationHandler#refreshAll()}) — если пропал номер уведомления,
+ * пачка больше {@code maxBatch}, после переподключения (пока соединения не было, уведомления не копились)
+ * и после ошибки обработчика. При {@code enabled=false} слушатель не запускается (бин регистрируется всегда:
+ * под AOT условие на свойство вычислялось бы при сборке)
+ */
+@Slf4j
+class InvalidationListener implements SmartLifecycle {
+
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(500);
+
+    private final DataSource listenDataSource;
+    private final boolean enabled;
+    private final Supplier<List<InvalidationHandler>> handlers;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration coalesceWindow;
+    private final int maxBatch;
+    private final Duration retryDelay;
+    private final SequenceTracker sequenceTracker;
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+
+    private volatile boolean running;
+    private volatile boolean connected;
+    private Thread thread;
+
+    // Только поток слушателя
+    private boolean refreshPending;
+
+    InvalidationListener(DataSource listenDataSource, boolean enabled, Supplier<List<InvalidationHandler>> handlers,
+                         TransactionTemplate transactionTemplate, Duration coalesceWindow,
+                         Duration gapTimeout, int maxBatch, Duration retryDelay) {
+        this.listenDataSource = listenDataSource;
+        this.enabled = enabled;
+        this.handlers = handlers;
+        this.transactionTemplate = transactionTemplate;
+        this.coalesceWindow = coalesceWindow;
+        this.maxBatch = maxBatch;
+        this.retryDelay = retryDelay;
+        this.sequenceTracker = new SequenceTracker(gapTimeout.toNanos());
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return enabled;
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        thread = Thread.ofPlatform().name("invalidation-listener").daemon().start(this::run);
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            try {
+                thread.join(POLL_INTERVAL.multipliedBy(4));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public long getReceivedCount() {
+        return received.get();
+    }
+
+    public long getAppliedCount() {
+        return applied.get();
+    }
+
+    public long getRefreshCount() {
+        return refreshes.get();
+    }
+
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
+    private void run() {
+        boolean connectedBefore = false;
+        boolean failureReported = false;
+        while (running) {
+            try (Connection connection = listenDataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + InvalidationPublisher.CHANNEL);
+                }
+                connected = true;
+                failureReported = false;
+                if (connectedBefore) {
+                    log.info("Invalidation listener reconnected, refreshing local caches");
+                    refreshPending = true;
+                } else {
+                    log.info("Invalidation listener started on channel {}", InvalidationPublisher.CHANNEL);
+                }
+                connectedBefore = true;
+                listen(connection.unwrap(PGConnection.class));
+            } catch (SQLException | RuntimeException e) {
+                // Пока база недоступна, предупреждение пишется один раз, а не на каждую попытку
+                if (!failureReported) {
+                    log.warn("Invalidation listener has no connection, retrying every {}: {}", retryDelay, e.getMessage());
+                    failureReported = true;
+                }
+                connected = false;
+                sleep(retryDelay);
+            }
+        }
+        connected = false;
+    }
+
+    private void listen(PGConnection connection) throws SQLException {
+        while (running) {
+            PGNotification[] notifications = connection.getNotifications((int) POLL_INTERVAL.toMillis());
+            if (notifications != null && notifications.length > 0) {
+                Map<InvalidationMessage.Key, EntityChange> pending = new LinkedHashMap<>();
+                collect(notifications, pending);
+                // Пока уведомления идут, копим их не дольше окна схлопывания
+                long deadline = System.nanoTime() + coalesceWindow.toNanos();
+                long remainingMillis;
+                while ((remainingMillis = (deadline - System.nanoTime()) / 1_000_000) > 0) {
+                    notifications = connection.getNotifications((int) remainingMillis);
+                    if (notifications == null || notifications.length == 0) {
+                        break;
+                    }
+                    collect(notifications, pending);
+                }
+                apply(pending);
+            }
+            if (sequenceTracker.hasLostMessages(System.nanoTime())) {
+                log.warn("Invalidation messages were lost, refreshing local caches");
+                refreshPending = true;
+            }
+            if (refreshPending) {
+                refreshAll();
+            }
+        }
+    }
+
+    private void collect(PGNotification[] notifications, Map<InvalidationMessage.Key, EntityChange> pending) {
+        long now = System.nanoTime();
+        for (PGNotification notification : notifications) {
+            received.incrementAndGet();
+            InvalidationMessage message;
+            try {
+                message = InvalidationMessage.parse(notification.getParameter());
+            } catch (IllegalArgumentException e) {
+                // Например, новый тип сущности от узла более новой версии
+                log.warn("Unreadable invalidation message, refreshing local caches: {}", e.getMessage());
+                refreshPending = true;
+                continue;
+            }
+            sequenceTracker.accept(message.origin(), message.sequence(), now);
+            for (EntityChange change : message.changes()) {
+                pending.merge(new InvalidationMessage.Key(change.type(), change.key()), change,
+                        (previous, next) -> next.version() >= previous.version() ? next : previous);
+            }
+        }
+    }
+
+    private void apply(Map<InvalidationMessage.Key, EntityChange> pending) {
+        if (pending.isEmpty() || refreshPending) {
+            // Полная перестройка ниже покроет и эти изменения
+            return;
+        }
+        if (pending.size() > maxBatch) {
+            log.info("{} entity changes at once, refreshing local caches instead", pending.size());
+            refreshPending = true;
+            return;
+        }
+        for (InvalidationHandler handler : handlers.get()) {
+            List<EntityChange> changes = new ArrayList<>();
+            for (EntityChange change : pending.values()) {
+                if (handler.invalidationTypes().contains(change.type())) {
+                    changes.add(change);
+                }
+            }
+            if (!changes.isEmpty() && !inTransaction(() -> handler.invalidate(changes), handler)) {
+                refreshPending = true;
+                return;
+            }
+        }
+        applied.addAndGet(pending.size());
+    }
+
+    private void refreshAll() {
+        // Изменения, пришедшие во время перестройки, применятся после нее: перестройка их не потеряет
+        sequenceTracker.reset();
+        for (InvalidationHandler handler : handlers.get()) {
+            if (!inTransaction(handler::refreshAll, handler)) {
+                return;
+            }
+        }
+        refreshPending = false;
+        refreshes.incrementAndGet();
+    }
+
+    // Пишущая транзакция направляет чтение обработчика в основную базу: реплика может еще не содержать изменение
+    private boolean inTransaction(Runnable action, InvalidationHandler handler) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> action.run());
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Cache invalidation failed in {}, will refresh it: {}",
+                    handler.getClass().getSimpleName(), e.getMessage());
+            sleep(retryDelay);
+            return false;
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package rut.miit.airportweb.config.invalidation;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.function.LongSupplier;
+
+/**
+ * Текст уведомления NOTIFY: {@code узел|номер|ТИП:ключ,ТИП:ключ}. Ключи кодируются как в URL,
+ * поэтому разделители в них не встречаются, а текст остается ASCII
+ * @param origin узел-источник
+ * @param sequence порядковый номер уведомления у источника, без пропусков
+ * @param changes изменения; версия каждого — номер уведомления
+ */
+record InvalidationMessage(String origin, long sequence, List<EntityChange> changes) {
+
+    // Предел PostgreSQL — 8000 байт на уведомление, с запасом на узел и номер
+    static final int MAX_PAYLOAD_BYTES = 7000;
+
+    /**
+     * Разбить изменения на уведомления не длиннее {@link #MAX_PAYLOAD_BYTES}; каждое получает следующий номер
+     */
+    static List<String> payloads(String origin, Collection<Key> changes, LongSupplier nextSequence) {
+        List<String> payloads = new ArrayList<>();
+        StringJoiner entries = new StringJoiner(",");
+        for (Key change : changes) {
+            String entry = change.type().name() + ":" + URLEncoder.encode(change.key(), StandardCharsets.UTF_8);
+            if (entries.length() > 0 && entries.length() + entry.length() + 1 > MAX_PAYLOAD_BYTES) {
+                payloads.add(origin + "|" + nextSequence.getAsLong() + "|" + entries);
+                entries = new StringJoiner(",");
+            }
+            entries.add(entry);
+        }
+        if (entries.length() > 0) {
+            payloads.add(origin + "|" + nextSequence.getAsLong() + "|" + entries);
+        }
+        return payloads;
+    }
+
+    /**
+     * @throws IllegalArgumentException если текст не в формате уведомления
+     */
+    static InvalidationMessage parse(String payload) {
+        String[] parts = payload.split("\\|", 3);
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Malformed invalidation message: " + payload);
+        }
+        long sequence = Long.parseLong(parts[1]);
+        List<EntityChange> changes = new ArrayList<>();
+        for (String entry : parts[2].split(",")) {
+            int separator = entry.indexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Malformed invalidation entry: " + entry);
+            }
+            changes.add(new EntityChange(
+                    EntityChange.Type.valueOf(entry.substring(0, separator)),
+                    URLDecoder.decode(entry.substring(separator + 1), StandardCharsets.UTF_8),
+                    sequence));
+        }
+        return new InvalidationMessage(parts[0], sequence, changes);
+    }
+
+    /**
+     * Измененная сущность без версии: по нему схлопываются повторные изменения
+     */
+    record Key(EntityChange.Type type, String key) {
+    }
+}
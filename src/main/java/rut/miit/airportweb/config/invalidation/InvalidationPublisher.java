@@ -0,0 +1,119 @@
+package rut.miit.airportweb.config.invalidation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Рассылка изменений сущностей всем экземплярам приложения через PostgreSQL NOTIFY, без внешнего брокера.
+ * В транзакции изменения копятся и схлопываются, а перед фиксацией уходят одним-несколькими NOTIFY
+ * на соединении этой же транзакции: PostgreSQL доставляет их только после фиксации, откат их отменяет.
+ * Вне транзакции уведомление отправляется сразу. Каждое уведомление несет номер узла без пропусков —
+ * по разрыву в номерах получатель понимает, что сообщение потеряно ({@link InvalidationListener})
+ */
+@Slf4j
+public class InvalidationPublisher {
+
+    static final String CHANNEL = "airport_invalidation";
+
+    private static final String NOTIFY = "SELECT pg_notify(?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+
+    // Новый идентификатор при каждом запуске: у перезапущенного узла номера начинаются заново
+    private final String origin = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public InvalidationPublisher(JdbcTemplate jdbcTemplate, boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Сообщить об изменении сущности. В транзакции уведомление уходит при фиксации,
+     * повторные изменения одной сущности в ней схлопываются
+     */
+    public void publish(EntityChange.Type type, String key) {
+        if (!enabled) {
+            return;
+        }
+        InvalidationMessage.Key change = new InvalidationMessage.Key(type, key);
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isSynchronizationActive()) {
+            pendingChanges().add(change);
+            return;
+        }
+        try {
+            send(List.of(change));
+        } catch (DataAccessException e) {
+            // Вне транзакции рассылка — лучшее усилие: другие узлы обновятся по сроку кэша или при полной перестройке
+            failed.incrementAndGet();
+            log.warn("Failed to publish invalidation of {} {}: {}", type, key, e.getMessage());
+        }
+    }
+
+    String getOrigin() {
+        return origin;
+    }
+
+    public long getPublishedCount() {
+        return published.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
+    // Изменения текущей транзакции; при первом изменении регистрируется отправка перед фиксацией
+    @SuppressWarnings("unchecked")
+    private Set<InvalidationMessage.Key> pendingChanges() {
+        Set<InvalidationMessage.Key> pending = (Set<InvalidationMessage.Key>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Set<InvalidationMessage.Key> changes = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(this, changes);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                // Ошибка NOTIFY откатывает транзакцию: изменение без уведомления оставило бы чужие кэши устаревшими
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    send(changes);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(InvalidationPublisher.this);
+                }
+            });
+            pending = changes;
+        }
+        return pending;
+    }
+
+    private void send(Collection<InvalidationMessage.Key> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        for (String payload : InvalidationMessage.payloads(origin, changes, sequence::incrementAndGet)) {
+            jdbcTemplate.execute(NOTIFY, (PreparedStatementCallback<Boolean>) statement -> {
+                statement.setString(1, CHANNEL);
+                statement.setString(2, payload);
+                return statement.execute();
+            });
+            published.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package rut.miit.airportweb.config.invalidation;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Поиск потерянных уведомлений по номерам узлов-источников. Транзакции фиксируются не в порядке
+ * получения номеров, поэтому разрыв не считается потерей сразу: пропущенный номер ждет {@code gapTimeout}.
+ * Первое уведомление нового узла задает точку отсчета. Используется только потоком слушателя
+ */
+final class SequenceTracker {
+
+    // Больше пропусков подряд не ждем по одному: сразу считаем сообщения потерянными
+    static final int MAX_MISSING = 1000;
+
+    // Узел без пропусков, молчащий дольше этого, забывается (например, остановлен)
+    private static final long IDLE_ORIGIN_NANOS = 3_600_000_000_000L;
+
+    private final long gapTimeoutNanos;
+    private final Map<String, Origin> origins = new HashMap<>();
+    private boolean overflow;
+
+    SequenceTracker(long gapTimeoutNanos) {
+        this.gapTimeoutNanos = gapTimeoutNanos;
+    }
+
+    void accept(String origin, long sequence, long nowNanos) {
+        Origin state = origins.get(origin);
+        if (state == null) {
+            origins.put(origin, new Origin(sequence, nowNanos));
+            return;
+        }
+        state.lastSeenNanos = nowNanos;
+        if (sequence <= state.highest) {
+            state.missingSince.remove(sequence);
+            return;
+        }
+        if (sequence - state.highest - 1 > MAX_MISSING) {
+            overflow = true;
+        } else {
+            for (long missing = state.highest + 1; missing < sequence; missing++) {
+                state.missingSince.put(missing, nowNanos);
+            }
+        }
+        state.highest = sequence;
+    }
+
+    /**
+     * Есть ли номер, пропущенный дольше {@code gapTimeout}, или слишком большой разрыв
+     */
+    boolean hasLostMessages(long nowNanos) {
+        if (overflow) {
+            return true;
+        }
+        Iterator<Origin> iterator = origins.values().iterator();
+        while (iterator.hasNext()) {
+            Origin state = iterator.next();
+            if (!state.missingSince.isEmpty()) {
+                // Номера добавляются по возрастанию времени: самый старый пропуск — первый
+                if (nowNanos - state.missingSince.firstEntry().getValue() > gapTimeoutNanos) {
+                    return true;
+                }
+            } else if (nowNanos - state.lastSeenNanos > IDLE_ORIGIN_NANOS) {
+                iterator.remove();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Забыть пропуски после полной перестройки кэшей: все, что было до нее, уже учтено
+     */
+    void reset() {
+        overflow = false;
+        origins.values().forEach(state -> state.missingSince.clear());
+    }
+
+    private static final class Origin {
+
+        private long highest;
+        private long lastSeenNanos;
+        private final NavigableMap<Long, Long> missingSince = new TreeMap<>();
+
+        private Origin(long highest, long lastSeenNanos) {
+            this.highest = highest;
+            this.lastSeenNanos = lastSeenNanos;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package rut.miit.airportweb.config.outbox;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Доменное событие из ленты outbox
+ * @param id номер события; внутри одной транзакции возрастает в порядке записи
+ * @param type тип события
+ * @param aggregateId ключ сущности (см. {@link DomainEventType.Aggregate})
+ * @param data атрибуты события — номера рейса и билета, новые статусы; без пустых значений
+ * @param occurredAt время транзакции, записавшей событие
+ */
+public record DomainEvent(long id, DomainEventType type, String aggregateId,
+                          Map<String, String> data, LocalDateTime occurredAt) {
+}
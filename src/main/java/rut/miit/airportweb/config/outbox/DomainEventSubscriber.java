@@ -0,0 +1,24 @@
+package rut.miit.airportweb.config.outbox;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Получатель ленты доменных событий ({@link OutboxRelay}). События приходят пачками в порядке
+ * номеров записавших их транзакций, внутри транзакции — в порядке записи.
+ * Пачка обрабатывается в одной транзакции с продвижением позиции ленты: запись проекции в базу
+ * фиксируется ровно один раз. Ошибка откатывает пачку, и она приходит снова, поэтому внешние
+ * действия (уведомления) должны переносить повтор
+ */
+public interface DomainEventSubscriber {
+
+    /**
+     * Типы событий, которые нужны получателю
+     */
+    Set<DomainEventType> eventTypes();
+
+    /**
+     * Обработать события; в списке только типы из {@link #eventTypes()}, список не пустой
+     */
+    void onEvents(List<DomainEvent> events);
+}
@@ -0,0 +1,66 @@
+package rut.miit.airportweb.config.outbox;
+
+/**
+ * Тип доменного события в ленте outbox. Имя константы хранится в базе:
+ * переименование ломает чтение уже записанных событий
+ */
+public enum DomainEventType {
+
+    TICKET_BOOKED(Aggregate.TICKET),
+    TICKET_UPDATED(Aggregate.TICKET),
+    TICKET_CANCELLED(Aggregate.TICKET),
+    TICKET_STATUS_CHANGED(Aggregate.TICKET),
+    PASSENGER_CHECKED_IN(Aggregate.TICKET),
+    PASSENGER_BOARDED(Aggregate.TICKET),
+
+    FLIGHT_CREATED(Aggregate.FLIGHT),
+    FLIGHT_DELETED(Aggregate.FLIGHT),
+    FLIGHT_STATUS_CHANGED(Aggregate.FLIGHT),
+    FLIGHT_SEATS_CHANGED(Aggregate.FLIGHT),
+
+    BOARDING_PASS_ISSUED(Aggregate.BOARDING_PASS),
+    BOARDING_PASS_DELETED(Aggregate.BOARDING_PASS),
+    PASSPORT_VERIFIED(Aggregate.BOARDING_PASS),
+    LUGGAGE_VERIFIED(Aggregate.BOARDING_PASS),
+    BOARDING_STATUS_CHANGED(Aggregate.BOARDING_PASS),
+
+    PASSENGER_CREATED(Aggregate.PASSENGER),
+    PASSENGER_DELETED(Aggregate.PASSENGER),
+    PASSENGER_LUGGAGE_CHANGED(Aggregate.PASSENGER);
+
+    private final Aggregate aggregate;
+
+    DomainEventType(Aggregate aggregate) {
+        this.aggregate = aggregate;
+    }
+
+    public Aggregate aggregate() {
+        return aggregate;
+    }
+
+    /**
+     * Сущность, к которой относится событие, и ее ключ в {@link DomainEvent#aggregateId()}
+     */
+    public enum Aggregate {
+
+        /**
+         * Билет, ключ — номер билета
+         */
+        TICKET,
+
+        /**
+         * Рейс, ключ — номер рейса
+         */
+        FLIGHT,
+
+        /**
+         * Посадочный талон, ключ — идентификатор талона
+         */
+        BOARDING_PASS,
+
+        /**
+         * Пассажир, ключ — номер паспорта
+         */
+        PASSENGER
+    }
+}
@@ -0,0 +1,65 @@
+package rut.miit.airportweb.config.outbox;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+/**
+ * Лента доменных событий через transactional outbox: сервисы пишут события в транзакции изменения,
+ * ретранслятор отдает их получателям в процессе. При {@code airport.outbox.enabled=false}
+ * события не пишутся и не ретранслируются
+ */
+@Configuration
+public class OutboxConfig {
+
+    @Bean
+    OutboxWriter outboxWriter(JdbcTemplate jdbcTemplate,
+                              @Value("${airport.outbox.enabled:true}") boolean enabled) {
+        return new OutboxWriter(jdbcTemplate, enabled);
+    }
+
+    // Без условия на свойство: под AOT оно вычислялось бы при сборке, enabled проверяет сам ретранслятор
+    @Bean
+    OutboxRelay outboxRelay(
+            JdbcTemplate jdbcTemplate,
+            @Value("${airport.outbox.enabled:true}") boolean enabled,
+            PlatformTransactionManager transactionManager,
+            ObjectProvider<DomainEventSubscriber> subscribers,
+            @Value("${airport.outbox.consumer:relay}") String consumer,
+            @Value("${airport.outbox.batch-size:200}") int batchSize,
+            @Value("${airport.outbox.max-batches-per-poll:10}") int maxBatchesPerPoll,
+            @Value("${airport.outbox.retry-delay:PT5S}") Duration retryDelay,
+            @Value("${airport.outbox.retention:P7D}") Duration retention,
+            @Value("${airport.outbox.purge-batch-size:1000}") int purgeBatchSize) {
+        return new OutboxRelay(jdbcTemplate, enabled, new TransactionTemplate(transactionManager),
+                () -> subscribers.orderedStream().toList(), consumer,
+                batchSize, maxBatchesPerPoll, retryDelay, retention, purgeBatchSize);
+    }
+
+    @Bean
+    MeterBinder outboxMetrics(OutboxWriter writer, OutboxRelay relay) {
+        return registry -> {
+            FunctionCounter.builder("airport.outbox.written", writer, OutboxWriter::getWrittenCount)
+                    .register(registry);
+            if (!relay.isEnabled()) {
+                return;
+            }
+            FunctionCounter.builder("airport.outbox.relayed", relay, OutboxRelay::getRelayedCount)
+                    .register(registry);
+            FunctionCounter.builder("airport.outbox.relay.failures", relay, OutboxRelay::getFailureCount)
+                    .register(registry);
+            Gauge.builder("airport.outbox.relay.lag", relay, OutboxRelay::getLagMillis)
+                    .baseUnit("milliseconds")
+                    .register(registry);
+        };
+    }
+}
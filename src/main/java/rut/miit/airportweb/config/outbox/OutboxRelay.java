@@ -0,0 +1,269 @@
+package rut.miit.airportweb.config.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Ретранслятор ленты outbox: опрашивает outbox_events и отдает новые события получателям
+ * ({@link DomainEventSubscriber}) упорядоченными пачками.
+ * <p>
+ * Номер события выдается при вставке, а видно оно только после фиксации, поэтому позиция «после id»
+ * пропустила бы событие долгой транзакции, зафиксированной позже соседки. Позиция ленты —
+ * пара (txid, id), и ретранслятор берет только события транзакций старше самой старой еще
+ * открытой ({@code pg_snapshot_xmin}): их события уже видны все, а новые транзакции получат номер больше.
+ * Открытая пишущая транзакция задерживает ленту, но не теряет события.
+ * <p>
+ * Позиция хранится в outbox_cursors и блокируется на время пачки ({@code SKIP LOCKED}): пачку ведет
+ * один узел, остальные пропускают ход. Получатели вызываются в той же транзакции, что сдвигает
+ * позицию; после ошибки пачка повторяется через {@code retryDelay}.
+ * <p>
+ * При {@code enabled=false} опрос и очистка ничего не делают (бин регистрируется всегда:
+ * под AOT условие на свойство вычислялось бы при сборке)
+ */
+@Slf4j
+public class OutboxRelay {
+
+    private static final String INIT_CURSOR = """
+            INSERT INTO outbox_cursors (consumer, last_txid, last_id)
+            VALUES (?, '0'::xid8, 0)
+            ON CONFLICT (consumer) DO NOTHING
+            """;
+
+    private static final String LOCK_CURSOR = """
+            SELECT last_txid::text AS last_txid, last_id FROM outbox_cursors
+            WHERE consumer = ?
+            FOR UPDATE SKIP LOCKED
+            """;
+
+    // Атрибуты читаются двумя массивами в одном порядке ключей, без разбора JSON в приложении
+    private static final String SELECT_BATCH = """
+            SELECT e.id, e.txid::text AS txid, e.event_type, e.aggregate_id, e.created_at,
+                   (EXTRACT(EPOCH FROM LOCALTIMESTAMP - e.created_at) * 1000)::bigint AS age_millis,
+                   ARRAY(SELECT p.key FROM jsonb_each_text(e.payload) p ORDER BY p.key) AS data_keys,
+                   ARRAY(SELECT p.value FROM jsonb_each_text(e.payload) p ORDER BY p.key) AS data_values
+            FROM outbox_events e
+            WHERE (e.txid, e.id) > (?::xid8, ?)
+              AND e.txid < pg_snapshot_xmin(pg_current_snapshot())
+            ORDER BY e.txid, e.id
+            LIMIT ?
+            """;
+
+    private static final String MOVE_CURSOR = """
+            UPDATE outbox_cursors SET last_txid = ?::xid8, last_id = ?, updated_at = CURRENT_TIMESTAMP
+            WHERE consumer = ?
+            """;
+
+    private static final String PURGE = """
+            DELETE FROM outbox_events WHERE id IN (
+                SELECT e.id FROM outbox_events e
+                JOIN outbox_cursors c ON c.consumer = ?
+                WHERE (e.txid, e.id) <= (c.last_txid, c.last_id)
+                  AND e.created_at < LOCALTIMESTAMP - make_interval(secs => ?)
+                LIMIT ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final TransactionTemplate transactionTemplate;
+    private final Supplier<List<DomainEventSubscriber>> subscribers;
+    private final String consumer;
+    private final int batchSize;
+    private final int maxBatchesPerPoll;
+    private final Duration retryDelay;
+    private final Duration retention;
+    private final int purgeBatchSize;
+
+    private final AtomicLong relayed = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    private volatile boolean cursorInitialized;
+    private volatile long retryAtNanos = System.nanoTime();
+
+    public OutboxRelay(JdbcTemplate jdbcTemplate, boolean enabled, TransactionTemplate transactionTemplate,
+                       Supplier<List<DomainEventSubscriber>> subscribers, String consumer,
+                       int batchSize, int maxBatchesPerPoll, Duration retryDelay,
+                       Duration retention, int purgeBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.transactionTemplate = transactionTemplate;
+        this.subscribers = subscribers;
+        this.consumer = consumer;
+        this.batchSize = batchSize;
+        this.maxBatchesPerPoll = maxBatchesPerPoll;
+        this.retryDelay = retryDelay;
+        this.retention = retention;
+        this.purgeBatchSize = purgeBatchSize;
+    }
+
+    /**
+     * Очередной опрос ленты: пачки подряд, пока они полные, но не больше {@code maxBatchesPerPoll}
+     */
+    @Scheduled(fixedDelayString = "${airport.outbox.poll-interval:PT0.5S}")
+    public void poll() {
+        if (!enabled || System.nanoTime() - retryAtNanos < 0) {
+            return;
+        }
+        try {
+            for (int i = 0; i < maxBatchesPerPoll; i++) {
+                if (relayBatch() < batchSize) {
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            retryAtNanos = System.nanoTime() + retryDelay.toNanos();
+            log.error("Outbox relay failed, retrying in {}", retryDelay, e);
+        }
+    }
+
+    /**
+     * Отдать получателям одну пачку
+     * @return сколько событий прочитано из ленты; 0 — новых нет или пачку ведет другой узел
+     */
+    int relayBatch() {
+        initCursor();
+        Integer count = transactionTemplate.execute(status -> {
+            List<Map<String, Object>> cursor = jdbcTemplate.queryForList(LOCK_CURSOR, consumer);
+            if (cursor.isEmpty()) {
+                return 0;
+            }
+            String lastTxid = (String) cursor.getFirst().get("last_txid");
+            long lastId = ((Number) cursor.getFirst().get("last_id")).longValue();
+
+            List<Row> rows = jdbcTemplate.query(SELECT_BATCH, OutboxRelay::mapRow, lastTxid, lastId, batchSize);
+            if (rows.isEmpty()) {
+                lagMillis.set(0);
+                return 0;
+            }
+
+            List<DomainEvent> events = new ArrayList<>(rows.size());
+            for (Row row : rows) {
+                if (row.event() != null) {
+                    events.add(row.event());
+                }
+            }
+            dispatch(events);
+
+            Row last = rows.getLast();
+            jdbcTemplate.update(MOVE_CURSOR, last.txid(), last.id(), consumer);
+            lagMillis.set(Math.max(0, last.ageMillis()));
+            relayed.addAndGet(events.size());
+            return rows.size();
+        });
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Удалить события старше {@code retention}, которые ретранслятор уже отдал
+     */
+    @Scheduled(fixedDelayString = "${airport.outbox.purge-interval:PT10M}",
+            initialDelayString = "${airport.outbox.purge-interval:PT10M}")
+    public void purge() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int total = 0;
+            int deleted;
+            do {
+                deleted = jdbcTemplate.update(PURGE, consumer, retention.toSeconds(), purgeBatchSize);
+                total += deleted;
+            } while (deleted == purgeBatchSize);
+            if (total > 0) {
+                log.debug("Purged {} relayed outbox events", total);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Failed to purge relayed outbox events: {}", e.getMessage());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getRelayedCount() {
+        return relayed.get();
+    }
+
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    /**
+     * Возраст последнего отданного события в момент отдачи; 0, если лента прочитана до конца
+     */
+    public long getLagMillis() {
+        return lagMillis.get();
+    }
+
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
+    private void initCursor() {
+        if (!cursorInitialized) {
+            jdbcTemplate.update(INIT_CURSOR, consumer);
+            cursorInitialized = true;
+        }
+    }
+
+    private void dispatch(List<DomainEvent> events) {
+        for (DomainEventSubscriber subscriber : subscribers.get()) {
+            List<DomainEvent> wanted = events.stream()
+                    .filter(event -> subscriber.eventTypes().contains(event.type()))
+                    .toList();
+            if (!wanted.isEmpty()) {
+                subscriber.onEvents(wanted);
+            }
+        }
+    }
+
+    // Событие неизвестного типа (записано другой версией приложения) пропускается, но позиция за ним сдвигается
+    private static Row mapRow(ResultSet rs, int rowNum) throws SQLException {
+        long id = rs.getLong("id");
+        String txid = rs.getString("txid");
+        LocalDateTime createdAt = rs.getObject("created_at", LocalDateTime.class);
+        long ageMillis = rs.getLong("age_millis");
+        String type = rs.getString("event_type");
+        DomainEventType eventType;
+        try {
+            eventType = DomainEventType.valueOf(type);
+        } catch (IllegalArgumentException e) {
+            log.warn("Skipping outbox event {} of unknown type {}", id, type);
+            return new Row(id, txid, ageMillis, null);
+        }
+        DomainEvent event = new DomainEvent(id, eventType, rs.getString("aggregate_id"),
+                data(rs.getArray("data_keys"), rs.getArray("data_values")), createdAt);
+        return new Row(id, txid, ageMillis, event);
+    }
+
+    private static Map<String, String> data(Array keys, Array values) throws SQLException {
+        String[] names = (String[]) keys.getArray();
+        String[] texts = (String[]) values.getArray();
+        Map<String, String> data = new LinkedHashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            if (texts[i] != null) {
+                data.put(names[i], texts[i]);
+            }
+        }
+        return Collections.unmodifiableMap(data);
+    }
+
+    private record Row(long id, String txid, long ageMillis, DomainEvent event) {
+    }
+}
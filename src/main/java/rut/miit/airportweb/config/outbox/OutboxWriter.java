@@ -0,0 +1,127 @@
+package rut.miit.airportweb.config.outbox;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Запись доменных событий в таблицу outbox_events в транзакции изменения: событие фиксируется
+ * вместе с изменением или откатывается вместе с ним. События транзакции копятся и пишутся одним
+ * пакетным INSERT перед фиксацией. Вне транзакции запись невозможна — событие без изменения
+ * или изменение без события нарушили бы ленту
+ */
+public class OutboxWriter {
+
+    private static final String INSERT = """
+            INSERT INTO outbox_events (event_type, aggregate_type, aggregate_id, payload)
+            VALUES (?, ?, ?, jsonb_object(?))
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+
+    private final AtomicLong written = new AtomicLong();
+
+    public OutboxWriter(JdbcTemplate jdbcTemplate, boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Добавить событие в текущую транзакцию
+     * @param aggregateId ключ сущности (см. {@link DomainEventType.Aggregate})
+     * @param data атрибуты события; пустые значения не записываются, остальные — через {@code toString()}
+     * @throws IllegalStateException если транзакции нет
+     */
+    public void append(DomainEventType type, Object aggregateId, Map<String, ?> data) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Domain event " + type + " must be written within a transaction");
+        }
+        Map<String, String> values = new TreeMap<>();
+        data.forEach((name, value) -> {
+            if (value != null) {
+                values.put(name, value.toString());
+            }
+        });
+        pendingEvents().add(new PendingEvent(type, String.valueOf(aggregateId), values));
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
+    // События текущей транзакции; при первом событии регистрируется запись перед фиксацией
+    @SuppressWarnings("unchecked")
+    private List<PendingEvent> pendingEvents() {
+        List<PendingEvent> pending = (List<PendingEvent>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<PendingEvent> events = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, events);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                // Ошибка записи откатывает транзакцию вместе с изменением
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    insert(events);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(OutboxWriter.this);
+                }
+            });
+            pending = events;
+        }
+        return pending;
+    }
+
+    private void insert(List<PendingEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                PendingEvent event = events.get(i);
+                statement.setString(1, event.type().name());
+                statement.setString(2, event.type().aggregate().name());
+                statement.setString(3, event.aggregateId());
+                statement.setArray(4, statement.getConnection().createArrayOf("text", keyValues(event.data())));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return events.size();
+            }
+        });
+        written.addAndGet(events.size());
+    }
+
+    // jsonb_object принимает плоский массив {ключ, значение, ключ, значение, ...}
+    private static String[] keyValues(Map<String, String> data) {
+        String[] keyValues = new String[data.size() * 2];
+        int i = 0;
+        for (Map.Entry<String, String> entry : data.entrySet()) {
+            keyValues[i++] = entry.getKey();
+            keyValues[i++] = entry.getValue();
+        }
+        return keyValues;
+    }
+
+    private record PendingEvent(DomainEventType type, String aggregateId, Map<String, String> data) {
+    }
+}
@@ -0,0 +1,82 @@
+package rut.miit.airportweb.config.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограничение частоты запросов к дорогим маршрутам (поиск, вход в систему).
+ * Стоит в цепочке Spring Security до формы входа; запросы к остальным маршрутам
+ * пропускаются без обращения к корзинам
+ */
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiter rateLimiter;
+    private final List<RateLimitRule> rules;
+
+    public RateLimitFilter(RateLimiter rateLimiter, List<RateLimitRule> rules) {
+        this.rateLimiter = rateLimiter;
+        this.rules = List.copyOf(rules);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RateLimitRule rule = findRule(request);
+        if (rule == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String client = resolveClient(request, rule);
+        long waitNanos = rateLimiter.tryAcquire(rule, client);
+        if (waitNanos == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long retryAfterSeconds = Math.max(1, Math.ceilDiv(waitNanos, TimeUnit.SECONDS.toNanos(1)));
+        log.warn("Rate limit {} exceeded by {}, retry after {} s", rule.name(), client, retryAfterSeconds);
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentType("text/plain");
+        response.getWriter().write("Слишком много запросов. Повторите через " + retryAfterSeconds + " с.");
+    }
+
+    private RateLimitRule findRule(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (RateLimitRule rule : rules) {
+            if (rule.method().equalsIgnoreCase(request.getMethod()) && rule.path().equals(path)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    private static String resolveClient(HttpServletRequest request, RateLimitRule rule) {
+        if (!rule.perClientAddress()) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && authentication.isAuthenticated()
+                    && !(authentication instanceof AnonymousAuthenticationToken)) {
+                return "user:" + authentication.getName();
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,27 @@
+package rut.miit.airportweb.config.security;
+
+import java.time.Duration;
+
+/**
+ * Бюджет запросов для маршрута: до capacity запросов подряд,
+ * затем один запрос за каждый refillPeriod
+ * @param name имя правила (для метрик и ключей корзин)
+ * @param method HTTP-метод
+ * @param path путь без context path
+ * @param capacity емкость корзины
+ * @param refillPeriod время восстановления одного токена
+ * @param perClientAddress считать по IP даже для аутентифицированных (например, вход в систему)
+ */
+public record RateLimitRule(String name,
+                            String method,
+                            String path,
+                            int capacity,
+                            Duration refillPeriod,
+                            boolean perClientAddress) {
+
+    public RateLimitRule {
+        if (capacity < 1 || refillPeriod.isZero() || refillPeriod.isNegative()) {
+            throw new IllegalArgumentException("Rate limit rule " + name + " must have positive capacity and refill period");
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package rut.miit.airportweb.config.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Корзины токенов по ключу (правило, пользователь или IP).
+ * Корзина реализована как GCRA: одно число — теоретическое время следующего запроса,
+ * которое обновляется одной CAS-операцией без блокировок.
+ * Полностью восстановленная корзина ничем не отличается от новой, поэтому такие
+ * корзины периодически удаляются без потери состояния
+ */
+@Component
+@Slf4j
+public class RateLimiter {
+
+    private final Map<BucketKey, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Map<String, RuleMetrics> metrics = new ConcurrentHashMap<>();
+    private final LongSupplier nanoClock;
+
+    @Autowired
+    public RateLimiter() {
+        this(System::nanoTime);
+    }
+
+    RateLimiter(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Попытаться потратить токен
+     * @param rule правило
+     * @param client пользователь или IP
+     * @return 0, если запрос разрешен, иначе сколько наносекунд ждать следующего токена
+     */
+    public long tryAcquire(RateLimitRule rule, String client) {
+        long now = nanoClock.getAsLong();
+        Bucket bucket = buckets.computeIfAbsent(new BucketKey(rule.name(), client), key -> new Bucket(rule, now));
+        long waitNanos = bucket.tryAcquire(now);
+
+        RuleMetrics ruleMetrics = ruleMetrics(rule.name());
+        if (waitNanos == 0) {
+            ruleMetrics.allowed.increment();
+        } else {
+            ruleMetrics.throttled.increment();
+        }
+        return waitNanos;
+    }
+
+    /**
+     * Количество отклоненных запросов по правилам с момента запуска
+     */
+    public Map<String, Long> getThrottledCounts() {
+        Map<String, Long> result = new TreeMap<>();
+        metrics.forEach((name, ruleMetrics) -> result.put(name, ruleMetrics.throttled.sum()));
+        return result;
+    }
+
+    /**
+     * Количество разрешенных запросов по правилам с момента запуска
+     */
+    public Map<String, Long> getAllowedCounts() {
+        Map<String, Long> result = new TreeMap<>();
+        metrics.forEach((name, ruleMetrics) -> result.put(name, ruleMetrics.allowed.sum()));
+        return result;
+    }
+
+    /**
+     * Количество разрешенных запросов по правилу (для счетчика Micrometer)
+     */
+    public long getAllowedCount(String rule) {
+        return ruleMetrics(rule).allowed.sum();
+    }
+
+    /**
+     * Количество отклоненных запросов по правилу (для счетчика Micrometer)
+     */
+    public long getThrottledCount(String rule) {
+        return ruleMetrics(rule).throttled.sum();
+    }
+
+    public int getBucketCount() {
+        return buckets.size();
+    }
+
+    @Scheduled(fixedDelayString = "PT30S")
+    public void evictIdleBuckets() {
+        long now = nanoClock.getAsLong();
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+        int evicted = before - buckets.size();
+        if (evicted > 0) {
+            log.debug("Evicted {} idle rate limit buckets, {} left", evicted, buckets.size());
+        }
+    }
+
+    private RuleMetrics ruleMetrics(String rule) {
+        return metrics.computeIfAbsent(rule, name -> new RuleMetrics());
+    }
+
+    private record BucketKey(String rule, String client) {
+    }
+
+    private static final class RuleMetrics {
+        private final LongAdder allowed = new LongAdder();
+        private final LongAdder throttled = new LongAdder();
+    }
+
+    private static final class Bucket {
+
+        // Интервал между токенами и допустимый "долг" для пачки из capacity запросов
+        private final long emissionInterval;
+        private final long burstTolerance;
+
+        // Теоретическое время прихода следующего запроса
+        private final AtomicLong theoreticalArrival;
+
+        Bucket(RateLimitRule rule, long now) {
+            this.emissionInterval = rule.refillPeriod().toNanos();
+            this.burstTolerance = emissionInterval * (rule.capacity() - 1);
+            this.theoreticalArrival = new AtomicLong(now);
+        }
+
+        long tryAcquire(long now) {
+            while (true) {
+                long current = theoreticalArrival.get();
+                long arrival = Math.max(current, now);
+                long waitNanos = arrival - burstTolerance - now;
+                if (waitNanos > 0) {
+                    return waitNanos;
+                }
+                if (theoreticalArrival.compareAndSet(current, arrival + emissionInterval)) {
+                    return 0;
+                }
+            }
+        }
+
+        boolean isFull(long now) {
+            return theoreticalArrival.get() - now <= 0;
+        }
+    }
+}
@@ -0,0 +1,493 @@
+package rut.miit.airportweb.config.session;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.MapSession;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+import org.springframework.web.servlet.support.SessionFlashMapManager;
+import rut.miit.airportweb.config.invalidation.EntityChange;
+import rut.miit.airportweb.config.invalidation.InvalidationHandler;
+import rut.miit.airportweb.config.invalidation.InvalidationPublisher;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HTTP-сессии в таблице http_sessions, общие для всех экземпляров приложения.
+ * <ul>
+ *     <li>Атрибуты пишутся только при их изменении ({@link SessionAttributeCodec}); если изменилось только
+ *     время последнего обращения, обновляются две колонки и не чаще раза в {@code accessFlushInterval}</li>
+ *     <li>Атрибуты пишутся условно по номеру версии строки. Если сессию успел изменить другой запрос
+ *     (соседняя вкладка, другой узел или устаревшая копия из ближнего кэша), строка перечитывается,
+ *     и поверх нее накладываются только атрибуты, измененные этим запросом: чужие flash-сообщения
+ *     и атрибуты не затираются. Сессия, удаленная за это время (выход), не воскрешается</li>
+ *     <li>Ближний кэш: прочитанная или сохраненная сессия отдается из памяти узла еще {@code nearCacheTtl}.
+ *     Изменение атрибутов, смена идентификатора и удаление сессии рассылаются остальным узлам
+ *     ({@link InvalidationPublisher}); если уведомление не дошло, чужое изменение видно здесь
+ *     не позже чем через {@code nearCacheTtl}. Сессия с неотданными flash-сообщениями в кэш не кладется:
+ *     их забирает следующий запрос, и он должен прочитать их из базы</li>
+ *     <li>Истекшие сессии удаляются пачками по расписанию; при чтении истекшая сессия удаляется сразу</li>
+ * </ul>
+ */
+@Slf4j
+public class PostgresSessionRepository
+        implements SessionRepository<PostgresSessionRepository.PostgresSession>, InvalidationHandler {
+
+    // Атрибут SessionFlashMapManager со списком еще не отданных flash-сообщений
+    static final String FLASH_MAPS_ATTRIBUTE = SessionFlashMapManager.class.getName() + ".FLASH_MAPS";
+    // Попыток записать атрибуты, если строку каждый раз успевают изменить раньше
+    private static final int MAX_UPDATE_ATTEMPTS = 5;
+
+    private static final String INSERT = """
+            INSERT INTO http_sessions
+                (session_id, created_at, last_accessed_at, max_inactive_seconds, expires_at, attributes)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+    private static final String UPDATE = """
+            UPDATE http_sessions
+            SET last_accessed_at = ?, max_inactive_seconds = ?, expires_at = ?, attributes = ?, version = version + 1
+            WHERE session_id = ? AND version = ?
+            """;
+    // Время обращения без версии: параллельные запросы только продлевают сессию, назад срок не сдвигается
+    private static final String TOUCH = """
+            UPDATE http_sessions
+            SET last_accessed_at = GREATEST(last_accessed_at, ?), expires_at = GREATEST(expires_at, ?)
+            WHERE session_id = ?
+            """;
+    private static final String CHANGE_ID = "UPDATE http_sessions SET session_id = ? WHERE session_id = ?";
+    private static final String SELECT = """
+            SELECT created_at, last_accessed_at, max_inactive_seconds, expires_at, attributes, version
+            FROM http_sessions WHERE session_id = ?
+            """;
+    private static final String DELETE = "DELETE FROM http_sessions WHERE session_id = ?";
+    // SKIP LOCKED: узлы, запустившие очистку одновременно, удаляют разные пачки
+    private static final String DELETE_EXPIRED = """
+            DELETE FROM http_sessions WHERE session_id IN (
+                SELECT session_id FROM http_sessions
+                WHERE expires_at < ?
+                ORDER BY expires_at
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final InvalidationPublisher invalidationPublisher;
+    private final SessionAttributeCodec codec;
+    private final Duration defaultMaxInactiveInterval;
+    private final Duration nearCacheTtl;
+    private final int nearCacheMaxEntries;
+    private final Duration accessFlushInterval;
+    private final int cleanupBatchSize;
+
+    private final Map<String, CachedSession> nearCache = new ConcurrentHashMap<>();
+    private final Queue<String> cacheOrder = new ConcurrentLinkedQueue<>();
+    // Растет при каждом сбросе по уведомлению: строка, прочитанная до сброса, в кэш не кладется
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong nearCacheHits = new AtomicLong();
+    private final AtomicLong nearCacheMisses = new AtomicLong();
+
+    public PostgresSessionRepository(JdbcTemplate jdbcTemplate, InvalidationPublisher invalidationPublisher,
+                                     ClassLoader classLoader, Duration defaultMaxInactiveInterval,
+                                     Duration nearCacheTtl, int nearCacheMaxEntries,
+                                     Duration accessFlushInterval, int cleanupBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.invalidationPublisher = invalidationPublisher;
+        this.codec = new SessionAttributeCodec(classLoader);
+        this.defaultMaxInactiveInterval = defaultMaxInactiveInterval;
+        this.nearCacheTtl = nearCacheTtl;
+        this.nearCacheMaxEntries = nearCacheMaxEntries;
+        this.accessFlushInterval = accessFlushInterval;
+        this.cleanupBatchSize = cleanupBatchSize;
+    }
+
+    @Override
+    public PostgresSession createSession() {
+        MapSession session = new MapSession();
+        session.setMaxInactiveInterval(defaultMaxInactiveInterval);
+        return new PostgresSession(session, 0, true);
+    }
+
+    @Override
+    public void save(PostgresSession session) {
+        boolean idChanged = !session.getId().equals(session.originalId);
+        if (!session.isNew && !idChanged && !session.attributesChanged() && !session.maxInactiveChanged
+                && !accessFlushDue(session)) {
+            // Ничего не записано: в кэше остается последнее сохраненное состояние
+            return;
+        }
+        StoredSession stored;
+        if (session.isNew) {
+            stored = StoredSession.of(session, codec.encode(session.attributes()), 0);
+            jdbcTemplate.update(INSERT, stored.id(), stored.createdAt(), stored.lastAccessedAt(),
+                    stored.maxInactiveSeconds(), stored.expiresAt(), stored.attributes());
+        } else {
+            if (idChanged) {
+                jdbcTemplate.update(CHANGE_ID, session.getId(), session.originalId);
+                evict(session.originalId);
+                invalidationPublisher.publish(EntityChange.Type.SESSION, session.originalId);
+            }
+            if (session.attributesChanged() || session.maxInactiveChanged) {
+                stored = update(session);
+                if (stored == null) {
+                    return;
+                }
+                invalidationPublisher.publish(EntityChange.Type.SESSION, stored.id());
+            } else {
+                stored = StoredSession.of(session, codec.encode(session.attributes()), session.version);
+                if (accessFlushDue(session)) {
+                    jdbcTemplate.update(TOUCH, stored.lastAccessedAt(), stored.expiresAt(), stored.id());
+                }
+            }
+        }
+        session.markSaved(stored.version());
+        if (isCacheable(session)) {
+            cache(stored);
+        } else {
+            evict(stored.id());
+        }
+    }
+
+    @Override
+    public PostgresSession findById(String id) {
+        StoredSession stored = cached(id);
+        boolean loaded = stored == null;
+        long generation = invalidations.get();
+        if (loaded) {
+            nearCacheMisses.incrementAndGet();
+            stored = load(id);
+            if (stored == null) {
+                return null;
+            }
+        } else {
+            nearCacheHits.incrementAndGet();
+        }
+        if (stored.expiresAt() <= System.currentTimeMillis()) {
+            deleteById(id);
+            return null;
+        }
+        PostgresSession session = new PostgresSession(toMapSession(stored), stored.version());
+        if (loaded && generation == invalidations.get() && isCacheable(session)) {
+            cache(stored);
+        }
+        return session;
+    }
+
+    @Override
+    public void deleteById(String id) {
+        evict(id);
+        if (jdbcTemplate.update(DELETE, id) > 0) {
+            invalidationPublisher.publish(EntityChange.Type.SESSION, id);
+        }
+    }
+
+    @Override
+    public Set<EntityChange.Type> invalidationTypes() {
+        return EnumSet.of(EntityChange.Type.SESSION);
+    }
+
+    // Свои уведомления тоже приходят сюда: сессия, только что сохраненная этим узлом, перечитается один раз
+    @Override
+    public void invalidate(Collection<EntityChange> changes) {
+        invalidations.incrementAndGet();
+        changes.forEach(change -> evict(change.key()));
+    }
+
+    @Override
+    public void refreshAll() {
+        invalidations.incrementAndGet();
+        nearCache.clear();
+        cacheOrder.clear();
+    }
+
+    /**
+     * Удаление истекших сессий пачками по {@code cleanupBatchSize}, чтобы не держать долгих блокировок
+     */
+    @Scheduled(fixedDelayString = "${airport.session.cleanup-interval:PT1M}",
+            initialDelayString = "${airport.session.cleanup-interval:PT1M}")
+    public void cleanUpExpiredSessions() {
+        long now = System.currentTimeMillis();
+        int deleted = 0;
+        int batch;
+        do {
+            batch = jdbcTemplate.update(DELETE_EXPIRED, now, cleanupBatchSize);
+            deleted += batch;
+        } while (batch == cleanupBatchSize);
+        long nowNanos = System.nanoTime();
+        nearCache.entrySet().removeIf(entry -> entry.getValue().session().expiresAt() <= now
+                || nowNanos - entry.getValue().cachedAtNanos() > nearCacheTtl.toNanos());
+        // Порядок вытеснения пересобирается по оставшимся ключам, иначе в нем копятся удаленные
+        cacheOrder.clear();
+        cacheOrder.addAll(nearCache.keySet());
+        if (deleted > 0) {
+            log.info("Deleted {} expired HTTP sessions", deleted);
+        }
+    }
+
+    public long getNearCacheHits() {
+        return nearCacheHits.get();
+    }
+
+    public long getNearCacheMisses() {
+        return nearCacheMisses.get();
+    }
+
+    public int getNearCacheSize() {
+        return nearCache.size();
+    }
+
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
+    /**
+     * Запись атрибутов при совпадении версии. При несовпадении строка перечитывается, изменения запроса
+     * накладываются на нее, и запись повторяется
+     * @return записанная строка; null, если сессию удалили или ее так и не удалось записать
+     */
+    private StoredSession update(PostgresSession session) {
+        for (int attempt = 1; attempt <= MAX_UPDATE_ATTEMPTS; attempt++) {
+            StoredSession stored = StoredSession.of(session, codec.encode(session.attributes()), session.version + 1);
+            if (jdbcTemplate.update(UPDATE, stored.lastAccessedAt(), stored.maxInactiveSeconds(), stored.expiresAt(),
+                    stored.attributes(), stored.id(), session.version) > 0) {
+                return stored;
+            }
+            evict(session.getId());
+            StoredSession current = load(session.getId());
+            if (current == null) {
+                log.debug("Session {} was deleted concurrently, changes are discarded", session.getId());
+                return null;
+            }
+            session.mergeInto(toMapSession(current), current.version());
+        }
+        log.warn("Session {} is modified concurrently, attribute changes are discarded after {} attempts",
+                session.getId(), MAX_UPDATE_ATTEMPTS);
+        return null;
+    }
+
+    private StoredSession load(String id) {
+        List<StoredSession> sessions = jdbcTemplate.query(SELECT, (rs, rowNum) -> new StoredSession(id,
+                rs.getLong("created_at"), rs.getLong("last_accessed_at"), rs.getInt("max_inactive_seconds"),
+                rs.getLong("expires_at"), rs.getBytes("attributes"), rs.getLong("version")), id);
+        return sessions.isEmpty() ? null : sessions.getFirst();
+    }
+
+    // Каждый запрос получает свои объекты атрибутов: изменения одного запроса не видны другим до сохранения
+    private MapSession toMapSession(StoredSession stored) {
+        MapSession session = new MapSession(stored.id());
+        session.setCreationTime(Instant.ofEpochMilli(stored.createdAt()));
+        session.setLastAccessedTime(Instant.ofEpochMilli(stored.lastAccessedAt()));
+        session.setMaxInactiveInterval(Duration.ofSeconds(stored.maxInactiveSeconds()));
+        codec.decode(stored.attributes()).forEach(session::setAttribute);
+        return session;
+    }
+
+    private StoredSession cached(String id) {
+        CachedSession cached = nearCache.get(id);
+        if (cached == null) {
+            return null;
+        }
+        if (System.nanoTime() - cached.cachedAtNanos() > nearCacheTtl.toNanos()) {
+            nearCache.remove(id, cached);
+            return null;
+        }
+        return cached.session();
+    }
+
+    private void cache(StoredSession session) {
+        if (nearCacheTtl.isZero()) {
+            return;
+        }
+        if (nearCache.put(session.id(), new CachedSession(session, System.nanoTime())) == null) {
+            cacheOrder.add(session.id());
+        }
+        while (nearCache.size() > nearCacheMaxEntries) {
+            String oldest = cacheOrder.poll();
+            if (oldest == null) {
+                break;
+            }
+            nearCache.remove(oldest);
+        }
+    }
+
+    private void evict(String id) {
+        nearCache.remove(id);
+    }
+
+    private static boolean isCacheable(Session session) {
+        return session.getAttribute(FLASH_MAPS_ATTRIBUTE) == null;
+    }
+
+    private boolean accessFlushDue(PostgresSession session) {
+        return Duration.between(session.persistedLastAccessedTime, session.getLastAccessedTime())
+                .compareTo(accessFlushInterval) >= 0;
+    }
+
+    /**
+     * Сессия в том виде, в каком она лежит в таблице; в ближнем кэше хранится так же
+     */
+    private record StoredSession(String id, long createdAt, long lastAccessedAt, int maxInactiveSeconds,
+                                 long expiresAt, byte[] attributes, long version) {
+
+        // Бессрочная сессия (отрицательный интервал) не истекает
+        private static StoredSession of(Session session, byte[] attributes, long version) {
+            Duration maxInactive = session.getMaxInactiveInterval();
+            long lastAccessedAt = session.getLastAccessedTime().toEpochMilli();
+            long expiresAt = maxInactive.isNegative() ? Long.MAX_VALUE : lastAccessedAt + maxInactive.toMillis();
+            return new StoredSession(session.getId(), session.getCreationTime().toEpochMilli(), lastAccessedAt,
+                    (int) maxInactive.toSeconds(), expiresAt, attributes, version);
+        }
+    }
+
+    private record CachedSession(StoredSession session, long cachedAtNanos) {
+    }
+
+    /**
+     * Сессия запроса: копия сохраненной с отметками, что нужно записать при {@link #save}
+     */
+    public static final class PostgresSession implements Session {
+
+        private final MapSession delegate;
+        // Атрибуты, которые этот запрос задал или удалил: при слиянии с чужой версией берутся отсюда
+        private final Set<String> changedAttributes = new HashSet<>();
+        private boolean isNew;
+        private long version;
+        private String originalId;
+        private boolean maxInactiveChanged;
+        private Instant persistedLastAccessedTime;
+
+        private PostgresSession(MapSession delegate, long version) {
+            this(delegate, version, false);
+        }
+
+        private PostgresSession(MapSession delegate, long version, boolean isNew) {
+            this.delegate = delegate;
+            this.version = version;
+            this.isNew = isNew;
+            this.originalId = delegate.getId();
+            this.persistedLastAccessedTime = delegate.getLastAccessedTime();
+        }
+
+        @Override
+        public String getId() {
+            return delegate.getId();
+        }
+
+        @Override
+        public String changeSessionId() {
+            return delegate.changeSessionId();
+        }
+
+        @Override
+        public <T> T getAttribute(String attributeName) {
+            return delegate.getAttribute(attributeName);
+        }
+
+        @Override
+        public Set<String> getAttributeNames() {
+            return delegate.getAttributeNames();
+        }
+
+        // Атрибут мог измениться изнутри (например, SecurityContext), поэтому запись отмечается при каждом вызове
+        @Override
+        public void setAttribute(String attributeName, Object attributeValue) {
+            delegate.setAttribute(attributeName, attributeValue);
+            changedAttributes.add(attributeName);
+        }
+
+        @Override
+        public void removeAttribute(String attributeName) {
+            if (delegate.getAttribute(attributeName) != null) {
+                delegate.removeAttribute(attributeName);
+                changedAttributes.add(attributeName);
+            }
+        }
+
+        @Override
+        public Instant getCreationTime() {
+            return delegate.getCreationTime();
+        }
+
+        @Override
+        public void setLastAccessedTime(Instant lastAccessedTime) {
+            delegate.setLastAccessedTime(lastAccessedTime);
+        }
+
+        @Override
+        public Instant getLastAccessedTime() {
+            return delegate.getLastAccessedTime();
+        }
+
+        @Override
+        public void setMaxInactiveInterval(Duration interval) {
+            if (!interval.equals(delegate.getMaxInactiveInterval())) {
+                delegate.setMaxInactiveInterval(interval);
+                maxInactiveChanged = true;
+            }
+        }
+
+        @Override
+        public Duration getMaxInactiveInterval() {
+            return delegate.getMaxInactiveInterval();
+        }
+
+        @Override
+        public boolean isExpired() {
+            return delegate.isExpired();
+        }
+
+        private Map<String, Object> attributes() {
+            Map<String, Object> attributes = new LinkedHashMap<>();
+            for (String name : delegate.getAttributeNames()) {
+                attributes.put(name, delegate.getAttribute(name));
+            }
+            return attributes;
+        }
+
+        private boolean attributesChanged() {
+            return !changedAttributes.isEmpty();
+        }
+
+        /**
+         * Перенести на эту сессию состояние более новой версии строки, сохранив изменения запроса
+         */
+        private void mergeInto(MapSession current, long currentVersion) {
+            for (String name : Set.copyOf(delegate.getAttributeNames())) {
+                if (!changedAttributes.contains(name) && current.getAttribute(name) == null) {
+                    delegate.removeAttribute(name);
+                }
+            }
+            for (String name : current.getAttributeNames()) {
+                if (!changedAttributes.contains(name)) {
+                    delegate.setAttribute(name, current.getAttribute(name));
+                }
+            }
+            if (!maxInactiveChanged) {
+                delegate.setMaxInactiveInterval(current.getMaxInactiveInterval());
+            }
+            if (current.getLastAccessedTime().isAfter(delegate.getLastAccessedTime())) {
+                delegate.setLastAccessedTime(current.getLastAccessedTime());
+            }
+            version = currentVersion;
+        }
+
+        private void markSaved(long savedVersion) {
+            isNew = false;
+            version = savedVersion;
+            originalId = delegate.getId();
+            changedAttributes.clear();
+            maxInactiveChanged = false;
+            persistedLastAccessedTime = delegate.getLastAccessedTime();
+        }
+    }
+}
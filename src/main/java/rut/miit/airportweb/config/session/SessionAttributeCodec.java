@@ -0,0 +1,228 @@
+package rut.miit.airportweb.config.session;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.ConfigurableObjectInputStream;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import rut.miit.airportweb.config.security.CustomUserDetails;
+import rut.miit.airportweb.dao.entity.UserEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Двоичная запись атрибутов сессии. Контекст безопасности с {@link CustomUserDetails} пишется
+ * полями пользователя (без пароля и деталей запроса) — несколько десятков байт вместо нескольких
+ * килобайт сериализации Java; строки и числа — как есть; остальное (flash-атрибуты,
+ * сохраненный запрос) — сериализацией Java
+ */
+@Slf4j
+final class SessionAttributeCodec {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final byte USER_CONTEXT = 1;
+    private static final byte STRING = 2;
+    private static final byte LONG = 3;
+    private static final byte INTEGER = 4;
+    private static final byte BOOLEAN = 5;
+    private static final byte SERIALIZED = 9;
+
+    private final ClassLoader classLoader;
+
+    SessionAttributeCodec(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    byte[] encode(Map<String, Object> attributes) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            Map<String, byte[]> encoded = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+                byte[] value = encodeValue(attribute.getKey(), attribute.getValue());
+                if (value != null) {
+                    encoded.put(attribute.getKey(), value);
+                }
+            }
+            out.writeShort(encoded.size());
+            for (Map.Entry<String, byte[]> attribute : encoded.entrySet()) {
+                out.writeUTF(attribute.getKey());
+                out.write(attribute.getValue());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    Map<String, Object> decode(byte[] data) {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalStateException("Unsupported session format version " + version);
+            }
+            int count = in.readUnsignedShort();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                Object value = decodeValue(in);
+                if (value != null) {
+                    attributes.put(name, value);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return attributes;
+    }
+
+    // ========== ЗАПИСЬ ==========
+
+    // Тип и значение одного атрибута; null — атрибут не сохраняется
+    private byte[] encodeValue(String name, Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        CustomUserDetails user = userOf(value);
+        if (user != null) {
+            out.writeByte(USER_CONTEXT);
+            writeUser(out, user);
+        } else if (value instanceof String string) {
+            out.writeByte(STRING);
+            writeLongString(out, string);
+        } else if (value instanceof Long number) {
+            out.writeByte(LONG);
+            out.writeLong(number);
+        } else if (value instanceof Integer number) {
+            out.writeByte(INTEGER);
+            out.writeInt(number);
+        } else if (value instanceof Boolean flag) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean(flag);
+        } else {
+            byte[] serialized = serialize(name, value);
+            if (serialized == null) {
+                return null;
+            }
+            out.writeByte(SERIALIZED);
+            out.writeInt(serialized.length);
+            out.write(serialized);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static CustomUserDetails userOf(Object value) {
+        if (value instanceof SecurityContext context
+                && context.getAuthentication() instanceof UsernamePasswordAuthenticationToken authentication
+                && authentication.isAuthenticated()
+                && authentication.getPrincipal() instanceof CustomUserDetails user) {
+            return user;
+        }
+        return null;
+    }
+
+    private static void writeUser(DataOutputStream out, CustomUserDetails user) throws IOException {
+        out.writeInt(user.getId() != null ? user.getId() : -1);
+        out.writeUTF(user.getUsername());
+        out.writeUTF(user.getRole().name());
+        writeNullable(out, user.getFirstName());
+        writeNullable(out, user.getLastName());
+        writeNullable(out, user.getCreatedAt() != null ? user.getCreatedAt().toString() : null);
+    }
+
+    private static byte[] serialize(String name, Object value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        } catch (IOException e) {
+            // Несериализуемый атрибут живет только до конца запроса, как и раньше в памяти одного узла
+            log.warn("Session attribute {} of type {} is not serializable and is not stored: {}",
+                    name, value.getClass().getName(), e.getMessage());
+            return null;
+        }
+        return bytes.toByteArray();
+    }
+
+    // ========== ЧТЕНИЕ ==========
+
+    private Object decodeValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        return switch (type) {
+            case USER_CONTEXT -> readUserContext(in);
+            case STRING -> readLongString(in);
+            case LONG -> in.readLong();
+            case INTEGER -> in.readInt();
+            case BOOLEAN -> in.readBoolean();
+            case SERIALIZED -> {
+                byte[] serialized = in.readNBytes(in.readInt());
+                yield deserialize(serialized);
+            }
+            default -> throw new IllegalStateException("Unknown session attribute type " + type);
+        };
+    }
+
+    private static SecurityContext readUserContext(DataInputStream in) throws IOException {
+        int id = in.readInt();
+        CustomUserDetails user = CustomUserDetails.builder()
+                .id(id >= 0 ? id : null)
+                .username(in.readUTF())
+                .role(UserEntity.Role.valueOf(in.readUTF()))
+                .firstName(readNullable(in))
+                .lastName(readNullable(in))
+                .build();
+        String createdAt = readNullable(in);
+        if (createdAt != null) {
+            user.setCreatedAt(LocalDateTime.parse(createdAt));
+        }
+        Authentication authentication = UsernamePasswordAuthenticationToken.authenticated(
+                user, null, user.getAuthorities());
+        return new SecurityContextImpl(authentication);
+    }
+
+    private Object deserialize(byte[] serialized) {
+        try (ObjectInputStream in = new ConfigurableObjectInputStream(new ByteArrayInputStream(serialized), classLoader)) {
+            return in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            // Например, класс атрибута изменился между версиями приложения
+            log.warn("Failed to restore session attribute, dropping it: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    // writeUTF ограничен 64 КБ, значения строковых атрибутов не ограничены
+    private static void writeLongString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readLongString(DataInputStream in) throws IOException {
+        return new String(in.readNBytes(in.readInt()), StandardCharsets.UTF_8);
+    }
+}
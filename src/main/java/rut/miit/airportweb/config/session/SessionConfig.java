@@ -0,0 +1,69 @@
+package rut.miit.airportweb.config.session;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+import org.springframework.session.web.http.CookieSerializer;
+import org.springframework.session.web.http.DefaultCookieSerializer;
+import rut.miit.airportweb.config.invalidation.InvalidationPublisher;
+
+import java.time.Duration;
+
+/**
+ * Общие HTTP-сессии в PostgreSQL ({@code airport.session.store=jdbc}): вход сохраняется при перезапуске
+ * и виден на любом экземпляре за балансировщиком. При {@code airport.session.store=memory} остаются
+ * сессии контейнера сервлетов в памяти узла
+ */
+@Configuration
+@EnableSpringHttpSession
+@ConditionalOnProperty(prefix = "airport.session", name = "store", havingValue = "jdbc")
+public class SessionConfig {
+
+    @Bean
+    PostgresSessionRepository sessionRepository(
+            JdbcTemplate jdbcTemplate,
+            InvalidationPublisher invalidationPublisher,
+            @Value("${airport.session.timeout:PT30M}") Duration timeout,
+            @Value("${airport.session.near-cache-ttl:PT30S}") Duration nearCacheTtl,
+            @Value("${airport.session.near-cache-max-entries:10000}") int nearCacheMaxEntries,
+            @Value("${airport.session.access-flush-interval:PT1M}") Duration accessFlushInterval,
+            @Value("${airport.session.cleanup-batch-size:1000}") int cleanupBatchSize) {
+        return new PostgresSessionRepository(jdbcTemplate, invalidationPublisher, SessionConfig.class.getClassLoader(),
+                timeout, nearCacheTtl, nearCacheMaxEntries, accessFlushInterval, cleanupBatchSize);
+    }
+
+    // Имя и флаги cookie как у сессий контейнера, чтобы смена хранилища не разлогинивала браузеры по-разному
+    @Bean
+    CookieSerializer cookieSerializer() {
+        DefaultCookieSerializer serializer = new DefaultCookieSerializer();
+        serializer.setCookieName("JSESSIONID");
+        serializer.setUseHttpOnlyCookie(true);
+        serializer.setSameSite("Lax");
+        // Идентификатор в cookie как есть: Base64 в DefaultCookieSerializer нужен только для совместимости
+        serializer.setUseBase64Encoding(false);
+        return serializer;
+    }
+
+    @Bean
+    MeterBinder sessionMetrics(PostgresSessionRepository sessionRepository) {
+        return registry -> {
+            FunctionCounter.builder("airport.session.near.cache", sessionRepository,
+                            PostgresSessionRepository::getNearCacheHits)
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("airport.session.near.cache", sessionRepository,
+                            PostgresSessionRepository::getNearCacheMisses)
+                    .tag("result", "miss")
+                    .register(registry);
+            Gauge.builder("airport.session.near.cache.size", sessionRepository,
+                            PostgresSessionRepository::getNearCacheSize)
+                    .register(registry);
+        };
+    }
+}
@@ -3,20 +3,26 @@ package rut.miit.airportweb.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import rut.miit.airportweb.config.security.RateLimiter;
+import rut.miit.airportweb.dao.entity.UserEntity;
 import rut.miit.airportweb.dto.FlightCreateDto;
 import rut.miit.airportweb.dto.FlightDto;
 import rut.miit.airportweb.dto.UserDto;
+import rut.miit.airportweb.dto.UserPageDto;
+import rut.miit.airportweb.dto.UserSearchDto;
 import rut.miit.airportweb.service.FlightService;
 import rut.miit.airportweb.service.UserService;
 
 import java.util.List;
 
+@Lazy
 @Controller
 @RequestMapping("/admin")
 @PreAuthorize("hasRole('ROLE_ADMIN')")
@@ -26,6 +32,7 @@ public class AdminController {
 
     private final FlightService flightService;
     private final UserService userService;
+    private final RateLimiter rateLimiter;
 
     @GetMapping("/dashboard")
     public String dashboard(Model model) {
@@ -34,10 +41,9 @@ public class AdminController {
 
         // Статистика для дашборда
         List<FlightDto> flights = flightService.getFlightsList();
-        List<UserDto> users = userService.getAllUsersOptimized();
 
         model.addAttribute("totalFlights", flights.size());
-        model.addAttribute("totalUsers", users.size());
+        model.addAttribute("totalUsers", userService.countUsers());
         model.addAttribute("activeFlights", flights.stream()
                 .filter(f -> f.getStatus().equals("SCHEDULED") || f.getStatus().equals("BOARDING"))
                 .count());
@@ -130,11 +136,14 @@ public class AdminController {
     // ========== УПРАВЛЕНИЕ ПОЛЬЗОВАТЕЛЯМИ ==========
 
     @GetMapping("/users")
-    public String listUsers(Model model) {
-        List<UserDto> users = userService.getAllUsersOptimized();
-        model.addAttribute("users", users);
+    public String listUsers(@RequestParam(required = false) String role,
+                            @RequestParam(required = false) String name,
+                            @RequestParam(required = false) String sort,
+                            @RequestParam(required = false) Boolean descending,
+                            @RequestParam(required = false) String cursor,
+                            Model model) {
         model.addAttribute("pageTitle", "Управление пользователями");
-        return "admin/users/list";
+        return userDirectory(role, name, sort, descending, cursor, "/admin/users", model);
     }
 
     @GetMapping("/users/{username}")
@@ -165,11 +174,41 @@ public class AdminController {
     }
 
     @GetMapping("/users/passengers")
-    public String listPassengers(Model model) {
-        List<UserDto> passengers = userService.getAllPassengers();
-        model.addAttribute("passengers", passengers);
+    public String listPassengers(@RequestParam(required = false) String name,
+                                 @RequestParam(required = false) String sort,
+                                 @RequestParam(required = false) Boolean descending,
+                                 @RequestParam(required = false) String cursor,
+                                 Model model) {
         model.addAttribute("pageTitle", "Управление пассажирами");
-        return "admin/users/passengers";
+        return userDirectory(UserEntity.Role.PASSENGER.name(), name, sort, descending, cursor,
+                "/admin/users/passengers", model);
+    }
+
+    // Обе страницы пользователей — справочник с фильтрами; страница пассажиров фиксирует роль
+    private String userDirectory(String role, String name, String sort, Boolean descending, String cursor,
+                                 String path, Model model) {
+        model.addAttribute("role", role);
+        model.addAttribute("name", name);
+        model.addAttribute("sort", sort);
+        model.addAttribute("descending", descending);
+        model.addAttribute("directoryPath", path);
+        model.addAttribute("roles", UserEntity.Role.values());
+
+        try {
+            UserPageDto page = userService.searchUsers(UserSearchDto.builder()
+                    .role(role)
+                    .name(name)
+                    .sort(sort)
+                    .descending(descending)
+                    .cursor(cursor)
+                    .build());
+            model.addAttribute("users", page.getUsers());
+            model.addAttribute("page", page);
+        } catch (IllegalArgumentException e) {
+            model.addAttribute("users", List.<UserDto>of());
+            model.addAttribute("errorMessage", "Ошибка поиска: " + e.getMessage());
+        }
+        return "admin/users/list";
     }
 
     // ========== СТАТИСТИКА И ОТЧЕТЫ ==========
@@ -189,6 +228,11 @@ public class AdminController {
         model.addAttribute("boardingFlights", boarding);
         model.addAttribute("departedFlights", departed);
         model.addAttribute("arrivedFlights", arrived);
+
+        // Ограничение частоты запросов
+        model.addAttribute("rateLimitAllowed", rateLimiter.getAllowedCounts());
+        model.addAttribute("rateLimitThrottled", rateLimiter.getThrottledCounts());
+        model.addAttribute("rateLimitBuckets", rateLimiter.getBucketCount());
         model.addAttribute("pageTitle", "Отчеты и статистика");
 
         return "admin/reports";
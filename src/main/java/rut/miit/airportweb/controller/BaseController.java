@@ -14,7 +14,8 @@ public class BaseController {
 
     @ExceptionHandler(EntityNotFoundException.class)
     public String handleEntityNotFound(EntityNotFoundException ex, Model model) {
-        log.error("Entity not found: {}", ex.getMessage());
+        // Рутинная ситуация (опечатка в номере, устаревшая ссылка): строка без стека и не ERROR
+        log.info("Entity not found: {}", ex.getMessage());
         model.addAttribute("errorMessage", ex.getMessage());
         return "error/404";
     }
@@ -8,6 +8,7 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import rut.miit.airportweb.dto.*;
+import rut.miit.airportweb.exception.EntityNotFoundException;
 import rut.miit.airportweb.service.*;
 import rut.miit.airportweb.service.BorderCheckService;
 
@@ -24,6 +25,7 @@ public class BorderGuardController {
     private final PassengerService passengerService;
     private final TicketService ticketService;
     private final BorderCheckService borderCheckService;
+    private final FlightManifestService flightManifestService;
 
     @GetMapping("/dashboard")
     public String dashboard(Model model) {
@@ -70,6 +72,9 @@ public class BorderGuardController {
 
                 model.addAttribute("checkResult", checkResult);
 
+            } catch (EntityNotFoundException e) {
+                model.addAttribute("errorMessage", "Ошибка проверки: " + e.getMessage());
+                log.info("Border check for passport {}: {}", passportNumber, e.getMessage());
             } catch (Exception e) {
                 model.addAttribute("errorMessage", "Ошибка проверки: " + e.getMessage());
                 log.error("Ошибка пограничной проверки для паспорта: {}", passportNumber, e);
@@ -149,10 +154,10 @@ public class BorderGuardController {
     public String flightPassengers(@PathVariable String flightNumber, Model model) {
         try {
             FlightDto flight = flightService.getFlightByNumber(flightNumber);
-            List<TicketDto> tickets = ticketService.findAllByFlight(flightNumber);
+            FlightManifestDto manifest = flightManifestService.getManifest(flightNumber);
 
             model.addAttribute("flight", flight);
-            model.addAttribute("tickets", tickets);
+            model.addAttribute("tickets", manifest.getEntries());
             model.addAttribute("pageTitle", "Пассажиры рейса " + flightNumber);
             model.addAttribute("isInternational", isInternationalFlight(flight));
 
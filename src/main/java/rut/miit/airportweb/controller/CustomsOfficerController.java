@@ -24,6 +24,7 @@ public class CustomsOfficerController {
     private final PassengerService passengerService;
     private final TicketService ticketService;
     private final CustomsCheckService customsCheckService;
+    private final FlightManifestService flightManifestService;
 
     @GetMapping("/dashboard")
     public String dashboard(Model model) {
@@ -115,20 +116,11 @@ public class CustomsOfficerController {
     public String flightPassengers(@PathVariable String flightNumber, Model model) {
         try {
             FlightDto flight = flightService.getFlightByNumber(flightNumber);
-            List<TicketDto> tickets = ticketService.findAllByFlight(flightNumber);
-
-            // Получаем информацию о пассажирах
-            for (TicketDto ticket : tickets) {
-                try {
-                    PassengerDto passenger = passengerService.getPassengerByPassportNumber(ticket.getPassportNumber());
-                    // Можно добавить passenger в ticket или собрать отдельный список
-                } catch (Exception e) {
-                    log.warn("Не удалось получить пассажира для билета: {}", ticket.getTicketNumber());
-                }
-            }
+            // Багаж пассажира и отметки таможни уже в строках манифеста, отдельные запросы не нужны
+            FlightManifestDto manifest = flightManifestService.getManifest(flightNumber);
 
             model.addAttribute("flight", flight);
-            model.addAttribute("tickets", tickets);
+            model.addAttribute("tickets", manifest.getEntries());
             model.addAttribute("pageTitle", "Пассажиры рейса " + flightNumber);
 
             return "customs/flight";
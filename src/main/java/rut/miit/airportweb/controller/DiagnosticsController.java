@@ -0,0 +1,42 @@
+package rut.miit.airportweb.controller;
+
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import rut.miit.airportweb.exception.NotPermittedOperation;
+import rut.miit.airportweb.service.FlightRecordingService;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Диагностика для администратора: выгрузка снимка постоянной записи JFR
+ */
+@Lazy
+@Controller
+@RequestMapping("/admin/diagnostics")
+@PreAuthorize("hasRole('ROLE_ADMIN')")
+@RequiredArgsConstructor
+public class DiagnosticsController {
+
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final FlightRecordingService flightRecordingService;
+
+    @GetMapping("/jfr")
+    public void dumpFlightRecording(HttpServletResponse response) throws IOException {
+        if (!flightRecordingService.isRecording()) {
+            throw new NotPermittedOperation("Flight recording is not running");
+        }
+        response.setContentType("application/octet-stream");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"airport-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".jfr\"");
+        flightRecordingService.dump(response.getOutputStream());
+    }
+}
@@ -0,0 +1,103 @@
+package rut.miit.airportweb.controller;
+
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import rut.miit.airportweb.service.ExportService;
+import rut.miit.airportweb.service.ExportService.ExportFormat;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+/**
+ * Выгрузка рейсов, манифестов и билетов. Ответ пишется напрямую в поток HTTP-ответа,
+ * без промежуточных списков в памяти.
+ */
+@Lazy
+@Controller
+@RequestMapping("/admin/export")
+@PreAuthorize("hasRole('ROLE_ADMIN')")
+@RequiredArgsConstructor
+@Slf4j
+public class ExportController {
+
+    private final ExportService exportService;
+
+    @GetMapping("/flights")
+    public void exportFlights(@RequestParam(defaultValue = "csv") String format,
+                              HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        export(response, exportFormat, "flights", writer -> exportService.exportFlights(exportFormat, writer));
+    }
+
+    @GetMapping("/flights/{flightNumber}/manifest")
+    public void exportFlightManifest(@PathVariable String flightNumber,
+                                     @RequestParam(defaultValue = "csv") String format,
+                                     HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        export(response, exportFormat, "manifest-" + flightNumber,
+                writer -> exportService.exportFlightManifest(flightNumber, exportFormat, writer));
+    }
+
+    @GetMapping("/tickets")
+    public void exportTickets(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                              @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                              @RequestParam(defaultValue = "csv") String format,
+                              HttpServletResponse response) throws IOException {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Export range start must not be after its end");
+        }
+        ExportFormat exportFormat = ExportFormat.of(format);
+        // Конец периода включительно: выгружаем до начала следующего дня
+        export(response, exportFormat, "tickets-" + from + "-" + to,
+                writer -> exportService.exportTickets(from.atStartOfDay(), to.plusDays(1).atStartOfDay(),
+                        exportFormat, writer));
+    }
+
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
+    /**
+     * Заголовки выгрузки ставятся перед записью, поэтому ошибка сервиса (рейс не найден, неверный период)
+     * до первой отправки ответа снимает их: иначе страница ошибки скачается файлом {@code fileName}
+     */
+    private void export(HttpServletResponse response, ExportFormat format, String fileName,
+                        Consumer<Writer> export) throws IOException {
+        Writer writer = prepareResponse(response, format, fileName);
+        try {
+            export.accept(writer);
+        } catch (RuntimeException ex) {
+            if (response.isCommitted()) {
+                // Часть файла уже ушла клиенту: страницу ошибки не отрисовать, выгрузка обрывается
+                log.error("Export {} failed after the response was committed", fileName, ex);
+            } else {
+                response.reset();
+            }
+            throw ex;
+        }
+    }
+
+    private Writer prepareResponse(HttpServletResponse response, ExportFormat format, String fileName)
+            throws IOException {
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentType(format.getContentType());
+        // Номер рейса приходит из пути: кавычки и не-ASCII символы экранирует ContentDisposition (RFC 6266)
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(fileName + "." + format.getExtension(), StandardCharsets.UTF_8)
+                .build()
+                .toString());
+        return response.getWriter();
+    }
+}
@@ -0,0 +1,52 @@
+package rut.miit.airportweb.controller;
+
+import lombok.experimental.UtilityClass;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import rut.miit.airportweb.service.IdempotencyService;
+import rut.miit.airportweb.service.IdempotencyService.StoredOutcome;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Обработка POST-форм с ключом идемпотентности (скрытое поле idempotencyKey).
+ * Повторная отправка формы возвращает тот же redirect и те же flash-сообщения,
+ * что и первая, не выполняя обработчик заново. Обработчики сами ловят исключения
+ * и сообщают об ошибке flash-атрибутом errorMessage: такой результат не запоминается,
+ * и повторная отправка после исправления ошибки выполняется заново
+ */
+@UtilityClass
+public class IdempotencyHelper {
+
+    private static final int MAX_KEY_LENGTH = 64;
+    private static final String ERROR_ATTRIBUTE = "errorMessage";
+
+    /**
+     * @param idempotencyKey ключ из формы; без ключа обработчик выполняется как обычно
+     * @param operation операция вместе с ее объектом, например "checkin:TKT-1"
+     * @param handler обработчик формы, возвращающий имя представления
+     */
+    public String handle(IdempotencyService idempotencyService, String idempotencyKey, String operation,
+                         RedirectAttributes redirectAttributes, Supplier<String> handler) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return handler.get();
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency key is too long");
+        }
+
+        // Ключ страницы общий для всех ее форм, поэтому в ключ входят пользователь и операция
+        String key = AuthenticationHelper.getCurrentUsername() + "|" + operation + "|" + idempotencyKey;
+        StoredOutcome outcome = idempotencyService.execute(key, () -> {
+            String viewName = handler.get();
+            Map<String, String> flashAttributes = new LinkedHashMap<>();
+            redirectAttributes.getFlashAttributes()
+                    .forEach((name, value) -> flashAttributes.put(name, String.valueOf(value)));
+            return new StoredOutcome(viewName, flashAttributes, !flashAttributes.containsKey(ERROR_ATTRIBUTE));
+        });
+
+        outcome.flashAttributes().forEach(redirectAttributes::addFlashAttribute);
+        return outcome.viewName();
+    }
+}
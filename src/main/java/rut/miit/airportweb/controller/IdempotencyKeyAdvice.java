@@ -0,0 +1,18 @@
+package rut.miit.airportweb.controller;
+
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ModelAttribute;
+
+import java.util.UUID;
+
+/**
+ * Новый ключ идемпотентности для форм каждой отрисованной страницы
+ */
+@ControllerAdvice(assignableTypes = {PassengerController.class, StaffController.class})
+public class IdempotencyKeyAdvice {
+
+    @ModelAttribute("idempotencyKey")
+    public String idempotencyKey() {
+        return UUID.randomUUID().toString();
+    }
+}
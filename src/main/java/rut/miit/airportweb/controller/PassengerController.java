@@ -2,6 +2,7 @@ package rut.miit.airportweb.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -9,16 +10,18 @@ import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import rut.miit.airportweb.dto.*;
-import rut.miit.airportweb.exception.EntityAlreadyExistsException;
 import rut.miit.airportweb.exception.EntityNotFoundException;
 import rut.miit.airportweb.exception.NotPermittedOperation;
 import rut.miit.airportweb.service.FlightService;
+import rut.miit.airportweb.service.IdempotencyService;
+import rut.miit.airportweb.service.ItineraryService;
 import rut.miit.airportweb.service.PassengerService;
+import rut.miit.airportweb.service.SeatHoldService;
 import rut.miit.airportweb.service.TicketService;
+import rut.miit.airportweb.service.TripService;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.LocalDate;
 import java.util.List;
 
 @Controller
@@ -28,9 +31,16 @@ import java.util.List;
 @Slf4j
 public class PassengerController {
 
+    private static final int ITINERARY_RESULTS = 5;
+    private static final int SEARCH_RESULTS = 100;
+
     private final FlightService flightService;
     private final TicketService ticketService;
     private final PassengerService passengerService;
+    private final ItineraryService itineraryService;
+    private final SeatHoldService seatHoldService;
+    private final IdempotencyService idempotencyService;
+    private final TripService tripService;
 
     @GetMapping("/dashboard")
     public String dashboard(Model model) {
@@ -56,12 +66,12 @@ public class PassengerController {
                 }
 
 
-                // Получаем билеты пассажира
-                List<TicketDto> tickets = ticketService.findAllByPassportNumber(passenger.getPassportNumber());
-                model.addAttribute("tickets", tickets);
-                model.addAttribute("activeTickets", tickets.stream()
-                        .filter(t -> t.getStatus().equals("BOOKED") || t.getStatus().equals("CHECKED_IN"))
-                        .count());
+                // Поездки пассажира одним запросом (из кэша, если недавно читались)
+                PassengerTripsDto trips = tripService.getTrips(username);
+                model.addAttribute("tickets", trips.getTrips());
+                model.addAttribute("upcomingTrips", trips.getUpcoming());
+                model.addAttribute("pastTrips", trips.getPast());
+                model.addAttribute("activeTickets", trips.getActiveCount());
             }
         } catch (Exception e) {
             log.warn("Could not load passenger data: {}", e.getMessage());
@@ -110,14 +120,44 @@ public class PassengerController {
     @GetMapping("/flights/search")
     public String searchFlights(@RequestParam(required = false) String departureCity,
                                 @RequestParam(required = false) String arrivalCity,
+                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFrom,
+                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo,
                                 Model model) {
-        if (departureCity != null && arrivalCity != null) {
-            List<FlightDto> flights = flightService.findFlightsByCities(departureCity, arrivalCity);
+        model.addAttribute("pageTitle", "Поиск рейсов");
+        model.addAttribute("departureCity", departureCity);
+        model.addAttribute("arrivalCity", arrivalCity);
+        model.addAttribute("dateFrom", dateFrom);
+        model.addAttribute("dateTo", dateTo);
+
+        if (departureCity == null && arrivalCity == null && dateFrom == null && dateTo == null) {
+            return "passenger/flights/search";
+        }
+
+        try {
+            // Дата "по" включительно: ищем до начала следующего дня. Без даты "с" — рейсы начиная с сегодня,
+            // прошедшие пассажиру не забронировать. Лишняя строка показывает, что список обрезан
+            FlightSearchDto searchDto = FlightSearchDto.builder()
+                    .departureCity(departureCity)
+                    .arrivalCity(arrivalCity)
+                    .departureFrom((dateFrom != null ? dateFrom : LocalDate.now()).atStartOfDay())
+                    .departureTo(dateTo != null ? dateTo.plusDays(1).atStartOfDay() : null)
+                    .limit(SEARCH_RESULTS + 1)
+                    .build();
+            List<FlightDto> flights = flightService.searchFlights(searchDto);
+            if (flights.size() > SEARCH_RESULTS) {
+                flights = flights.subList(0, SEARCH_RESULTS);
+                model.addAttribute("truncatedAt", SEARCH_RESULTS);
+            }
             model.addAttribute("flights", flights);
-            model.addAttribute("departureCity", departureCity);
-            model.addAttribute("arrivalCity", arrivalCity);
+
+            // Для заданного маршрута дополнительно подбираем варианты с пересадкой
+            if (departureCity != null && !departureCity.isBlank() && arrivalCity != null && !arrivalCity.isBlank()) {
+                model.addAttribute("itineraries", itineraryService.findItineraries(departureCity, arrivalCity,
+                        dateFrom != null ? dateFrom.atStartOfDay() : null, ITINERARY_RESULTS));
+            }
+        } catch (IllegalArgumentException e) {
+            model.addAttribute("errorMessage", "Ошибка поиска: " + e.getMessage());
         }
-        model.addAttribute("pageTitle", "Поиск рейсов");
         return "passenger/flights/search";
     }
 
@@ -128,11 +168,11 @@ public class PassengerController {
         String username = AuthenticationHelper.getCurrentUsername();
 
         try {
-            var passengers = passengerService.findByUsername(username);
-            if (!passengers.isEmpty()) {
-                var passenger = passengers.get(0);
-                List<TicketDto> tickets = ticketService.findAllByPassportNumber(passenger.getPassportNumber());
-                model.addAttribute("tickets", tickets);
+            PassengerTripsDto trips = tripService.getTrips(username);
+            if (!trips.isEmpty()) {
+                model.addAttribute("tickets", trips.getTrips());
+                model.addAttribute("upcomingTrips", trips.getUpcoming());
+                model.addAttribute("pastTrips", trips.getPast());
             }
         } catch (Exception e) {
             log.warn("Could not load tickets: {}", e.getMessage());
@@ -166,16 +206,20 @@ public class PassengerController {
 
     @PostMapping("/tickets/{ticketNumber}/checkin")
     public String checkIn(@PathVariable String ticketNumber,
+                          @RequestParam(required = false) String idempotencyKey,
                           RedirectAttributes redirectAttributes) {
-        try {
-            ticketService.checkInPassenger(ticketNumber);
-            redirectAttributes.addFlashAttribute("successMessage",
-                    "Регистрация на рейс успешно выполнена!");
-        } catch (Exception e) {
-            redirectAttributes.addFlashAttribute("errorMessage",
-                    "Ошибка регистрации: " + e.getMessage());
-        }
-        return "redirect:/passenger/tickets/" + ticketNumber;
+        return IdempotencyHelper.handle(idempotencyService, idempotencyKey, "passenger-checkin:" + ticketNumber,
+                redirectAttributes, () -> {
+                    try {
+                        ticketService.checkInPassenger(ticketNumber);
+                        redirectAttributes.addFlashAttribute("successMessage",
+                                "Регистрация на рейс успешно выполнена!");
+                    } catch (Exception e) {
+                        redirectAttributes.addFlashAttribute("errorMessage",
+                                "Ошибка регистрации: " + e.getMessage());
+                    }
+                    return "redirect:/passenger/tickets/" + ticketNumber;
+                });
     }
 
     @PostMapping("/tickets/{ticketNumber}/cancel")
@@ -278,6 +322,9 @@ public class PassengerController {
             model.addAttribute("flight", flight);
             model.addAttribute("passenger", passenger);
             model.addAttribute("occupiedSeats", occupiedSeats);
+            // Места, временно удерживаемые другими пассажирами, и собственное удержание
+            model.addAttribute("heldSeats", seatHoldService.getHeldSeats(flightNumber, username));
+            model.addAttribute("myHold", seatHoldService.findHold(flightNumber, username).orElse(null));
             model.addAttribute("pageTitle", "Бронирование рейса " + flightNumber);
 
             // Добавляем сообщения из flash атрибутов
@@ -296,6 +343,26 @@ public class PassengerController {
         }
     }
 
+    // Временное удержание места до подтверждения бронирования
+    @PostMapping("/tickets/hold")
+    public String holdSeat(@RequestParam String flightNumber,
+                           @RequestParam String seatNumber,
+                           RedirectAttributes redirectAttributes) {
+        try {
+            if (!ticketService.isSeatAvailable(flightNumber, seatNumber)) {
+                throw new NotPermittedOperation(String.format("Seat %s is already taken", seatNumber));
+            }
+            SeatHoldService.SeatHold hold = seatHoldService.hold(flightNumber, seatNumber,
+                    AuthenticationHelper.getCurrentUsername());
+            redirectAttributes.addFlashAttribute("successMessage",
+                    String.format("Место %s закреплено за вами до %s", hold.seatNumber(),
+                            hold.expiresAt().toLocalTime().withNano(0)));
+        } catch (EntityNotFoundException | NotPermittedOperation e) {
+            redirectAttributes.addFlashAttribute("errorMessage", "❌ Не удалось закрепить место: " + e.getMessage());
+        }
+        return "redirect:/passenger/tickets/book?flightNumber=" + flightNumber;
+    }
+
     // POST метод для бронирования
     @PostMapping("/tickets/book")
     public String bookTicket(@RequestParam String flightNumber,
@@ -303,52 +370,77 @@ public class PassengerController {
                              @RequestParam String passportNumber,
                              @RequestParam String passengerName,
                              @RequestParam(defaultValue = "5000") BigDecimal price,
+                             @RequestParam(required = false) String idempotencyKey,
                              RedirectAttributes redirectAttributes) {
+        return IdempotencyHelper.handle(idempotencyService, idempotencyKey, "book:" + flightNumber + ":" + seatNumber,
+                redirectAttributes, () -> {
+                    String username = AuthenticationHelper.getCurrentUsername();
+                    // Удержание, взятое заранее через /tickets/hold: неудачное подтверждение его не снимает
+                    SeatHoldService.SeatHold previousHold = seatHoldService.findHold(flightNumber, username).orElse(null);
+                    SeatHoldService.SeatHold hold = null;
+                    boolean booked = false;
+                    try {
+                        // Закрепляем место до начала транзакции: конкурирующие запросы на то же место
+                        // отсекаются здесь, а не на ограничении уникальности в базе
+                        hold = seatHoldService.hold(flightNumber, seatNumber, username);
+
+                        // Создаем DTO для создания билета
+                        TicketCreateDto ticketCreateDto = TicketCreateDto.builder()
+                                .flightNumberOfTicket(flightNumber)
+                                .passportNumberOfPassenger(passportNumber)
+                                .seatNumber(seatNumber)
+                                .price(price)
+                                .build();
+
+                        // Создаем билет через сервис
+                        TicketDto createdTicket = ticketService.createTicket(ticketCreateDto);
+                        booked = true;
+
+                        redirectAttributes.addFlashAttribute("successMessage",
+                                "✅ Билет успешно забронирован! Номер вашего билета: " + createdTicket.getTicketNumber());
+                        return "redirect:/passenger/dashboard";
+
+                    } catch (EntityNotFoundException e) {
+                        redirectAttributes.addFlashAttribute("errorMessage", "❌ Ошибка: " + e.getMessage());
+                        return "redirect:/passenger/tickets/book?flightNumber=" + flightNumber;
+                    } catch (NotPermittedOperation e) {
+                        redirectAttributes.addFlashAttribute("errorMessage", "❌ Невозможно забронировать билет: " + e.getMessage());
+                        return "redirect:/passenger/tickets/book?flightNumber=" + flightNumber;
+                    } catch (Exception e) {
+                        log.error("Error booking ticket", e);
+                        redirectAttributes.addFlashAttribute("errorMessage",
+                                "❌ Произошла ошибка при бронировании: " + e.getMessage());
+                        return "redirect:/passenger/tickets/book?flightNumber=" + flightNumber;
+                    } finally {
+                        if (booked) {
+                            // Место занято билетом
+                            seatHoldService.release(flightNumber, seatNumber, username);
+                        } else if (hold != null) {
+                            releaseFailedBookingHold(hold, previousHold);
+                        }
+                    }
+                });
+    }
 
-        try {
-            // Генерируем номер билета
-            String ticketNumber = generateTicketNumber();
-
-            // Создаем DTO для создания билета
-            TicketCreateDto ticketCreateDto = TicketCreateDto.builder()
-                    .flightNumberOfTicket(flightNumber)
-                    .passportNumberOfPassenger(passportNumber)
-                    .seatNumber(seatNumber)
-                    .price(price)
-                    .ticketNumber(ticketNumber)
-                    .build();
-
-            // Создаем билет через сервис
-            TicketDto createdTicket = ticketService.createTicket(ticketCreateDto);
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
 
-            redirectAttributes.addFlashAttribute("successMessage",
-                    "✅ Билет успешно забронирован! Номер вашего билета: " + createdTicket.getTicketNumber());
-            return "redirect:/passenger/dashboard";
-
-        } catch (EntityAlreadyExistsException e) {
-            redirectAttributes.addFlashAttribute("errorMessage", "❌ Это место уже занято. Пожалуйста, выберите другое место.");
-            return "redirect:/passenger/tickets/book?flightNumber=" + flightNumber;
-        } catch (EntityNotFoundException e) {
-            redirectAttributes.addFlashAttribute("errorMessage", "❌ Ошибка: " + e.getMessage());
-            return "redirect:/passenger/tickets/book?flightNumber=" + flightNumber;
-        } catch (NotPermittedOperation e) {
-            redirectAttributes.addFlashAttribute("errorMessage", "❌ Невозможно забронировать билет: " + e.getMessage());
-            return "redirect:/passenger/tickets/book?flightNumber=" + flightNumber;
-        } catch (Exception e) {
-            log.error("Error booking ticket", e);
-            redirectAttributes.addFlashAttribute("errorMessage",
-                    "❌ Произошла ошибка при бронировании: " + e.getMessage());
-            return "redirect:/passenger/tickets/book?flightNumber=" + flightNumber;
+    /**
+     * Снять удержание, взятое неудачным бронированием. Удержание того же места, взятое пассажиром заранее,
+     * остается; удержание другого места на рейсе снято новым ({@link SeatHoldService#hold}) и возвращается,
+     * если место за это время не занял другой пассажир
+     */
+    private void releaseFailedBookingHold(SeatHoldService.SeatHold hold, SeatHoldService.SeatHold previousHold) {
+        if (previousHold != null && previousHold.seatNumber().equals(hold.seatNumber())) {
+            return;
+        }
+        seatHoldService.release(hold.flightNumber(), hold.seatNumber(), hold.owner());
+        if (previousHold != null) {
+            try {
+                seatHoldService.hold(previousHold.flightNumber(), previousHold.seatNumber(), previousHold.owner());
+            } catch (EntityNotFoundException | NotPermittedOperation e) {
+                log.info("Seat hold {} on flight {} was not restored: {}",
+                        previousHold.seatNumber(), previousHold.flightNumber(), e.getMessage());
+            }
         }
     }
-
-    // Метод для генерации номера билета
-    private String generateTicketNumber() {
-        // Формат: TKT-ГГММДД-XXXXX
-        LocalDateTime now = LocalDateTime.now();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyMMdd");
-        String datePart = now.format(formatter);
-        String randomPart = String.format("%05d", (int)(Math.random() * 100000));
-        return "TKT-" + datePart + "-" + randomPart;
-    }
-}
\ No newline at end of file
+}
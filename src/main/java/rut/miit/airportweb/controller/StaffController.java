@@ -2,6 +2,7 @@ package rut.miit.airportweb.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -9,14 +10,19 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import rut.miit.airportweb.dto.BoardingPassDto;
 import rut.miit.airportweb.dto.FlightDto;
+import rut.miit.airportweb.dto.FlightManifestDto;
+import rut.miit.airportweb.dto.FlightSearchDto;
 import rut.miit.airportweb.dto.PassengerDto;
 import rut.miit.airportweb.dto.TicketDto;
 import rut.miit.airportweb.exception.EntityNotFoundException;
 import rut.miit.airportweb.service.BoardingPassService;
+import rut.miit.airportweb.service.FlightManifestService;
 import rut.miit.airportweb.service.FlightService;
+import rut.miit.airportweb.service.IdempotencyService;
 import rut.miit.airportweb.service.PassengerService;
 import rut.miit.airportweb.service.TicketService;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -28,10 +34,14 @@ import java.util.stream.Collectors;
 @Slf4j
 public class StaffController {
 
+    private static final int SEARCH_RESULTS = 100;
+
     private final FlightService flightService;
     private final TicketService ticketService;
     private final BoardingPassService boardingPassService;
     private final PassengerService passengerService;
+    private final IdempotencyService idempotencyService;
+    private final FlightManifestService flightManifestService;
 
     @GetMapping("/dashboard")
     public String dashboard(Model model) {
@@ -63,20 +73,16 @@ public class StaffController {
     public String flightBoarding(@PathVariable String flightNumber, Model model) {
         try {
             FlightDto flight = flightService.getFlightByNumber(flightNumber);
-            List<TicketDto> tickets = ticketService.findAllByFlight(flightNumber);
+            FlightManifestDto manifest = flightManifestService.getManifest(flightNumber);
 
             model.addAttribute("flight", flight);
-            model.addAttribute("tickets", tickets);
+            model.addAttribute("tickets", manifest.getEntries());
             model.addAttribute("pageTitle", "Посадка на рейс " + flightNumber);
 
             // Статистика по посадке
-            long totalPassengers = tickets.size();
-            long checkedIn = tickets.stream().filter(t -> t.getStatus().equals("CHECKED_IN")).count();
-            long boarded = tickets.stream().filter(t -> t.getStatus().equals("BOARDED")).count();
-
-            model.addAttribute("totalPassengers", totalPassengers);
-            model.addAttribute("checkedInPassengers", checkedIn);
-            model.addAttribute("boardedPassengers", boarded);
+            model.addAttribute("totalPassengers", manifest.getTotal());
+            model.addAttribute("checkedInPassengers", manifest.count("CHECKED_IN"));
+            model.addAttribute("boardedPassengers", manifest.count("BOARDED"));
 
             return "staff/boarding/flight";
         } catch (Exception e) {
@@ -110,24 +116,28 @@ public class StaffController {
 
     @PostMapping("/boarding/ticket/{ticketNumber}/board")
     public String boardPassenger(@PathVariable String ticketNumber,
+                                 @RequestParam(required = false) String idempotencyKey,
                                  RedirectAttributes redirectAttributes) {
-        try {
-            // Обновляем статус билета
-            ticketService.boardPassenger(ticketNumber);
-
-            // Обновляем статус в посадочном талоне
-            BoardingPassDto boardingPass = boardingPassService.getBoardingPassByTicketNumber(ticketNumber);
-            if (boardingPass != null) {
-                boardingPassService.updateBoardingStatus(boardingPass.getId(), true);
-            }
-
-            redirectAttributes.addFlashAttribute("successMessage",
-                    "Пассажир успешно посажен в самолет");
-        } catch (Exception e) {
-            redirectAttributes.addFlashAttribute("errorMessage",
-                    "Ошибка посадки: " + e.getMessage());
-        }
-        return "redirect:/staff/boarding/ticket/" + ticketNumber;
+        return IdempotencyHelper.handle(idempotencyService, idempotencyKey, "board:" + ticketNumber,
+                redirectAttributes, () -> {
+                    try {
+                        // Обновляем статус билета
+                        ticketService.boardPassenger(ticketNumber);
+
+                        // Обновляем статус в посадочном талоне
+                        BoardingPassDto boardingPass = boardingPassService.getBoardingPassByTicketNumber(ticketNumber);
+                        if (boardingPass != null) {
+                            boardingPassService.updateBoardingStatus(boardingPass.getId(), true);
+                        }
+
+                        redirectAttributes.addFlashAttribute("successMessage",
+                                "Пассажир успешно посажен в самолет");
+                    } catch (Exception e) {
+                        redirectAttributes.addFlashAttribute("errorMessage",
+                                "Ошибка посадки: " + e.getMessage());
+                    }
+                    return "redirect:/staff/boarding/ticket/" + ticketNumber;
+                });
     }
 
     @PostMapping("/boarding/ticket/{ticketNumber}/unboard")
@@ -165,31 +175,19 @@ public class StaffController {
     public String flightCheckIn(@PathVariable String flightNumber, Model model) {
         try {
             FlightDto flight = flightService.getFlightByNumber(flightNumber);
-            List<TicketDto> allTickets = ticketService.findAllByFlight(flightNumber);
-
-            // Разделяем билеты по статусам
-            List<TicketDto> registeredTickets = allTickets.stream()
-                    .filter(t -> "CHECKED_IN".equals(t.getStatus()))
-                    .collect(Collectors.toList());
-
-            List<TicketDto> notRegisteredTickets = allTickets.stream()
-                    .filter(t -> "BOOKED".equals(t.getStatus()))
-                    .collect(Collectors.toList());
+            // Манифест уже разбит по статусам билетов
+            FlightManifestDto manifest = flightManifestService.getManifest(flightNumber);
 
             model.addAttribute("flight", flight);
-            model.addAttribute("allTickets", allTickets);
-            model.addAttribute("registeredTickets", registeredTickets);
-            model.addAttribute("notRegisteredTickets", notRegisteredTickets);
+            model.addAttribute("allTickets", manifest.getEntries());
+            model.addAttribute("registeredTickets", manifest.getEntries("CHECKED_IN"));
+            model.addAttribute("notRegisteredTickets", manifest.getEntries("BOOKED"));
             model.addAttribute("pageTitle", "Регистрация на рейс " + flightNumber);
 
             // Статистика по регистрации
-            long totalPassengers = allTickets.size();
-            long booked = notRegisteredTickets.size();
-            long checkedIn = registeredTickets.size();
-
-            model.addAttribute("totalPassengers", totalPassengers);
-            model.addAttribute("bookedPassengers", booked);
-            model.addAttribute("checkedInPassengers", checkedIn);
+            model.addAttribute("totalPassengers", manifest.getTotal());
+            model.addAttribute("bookedPassengers", manifest.count("BOOKED"));
+            model.addAttribute("checkedInPassengers", manifest.count("CHECKED_IN"));
 
             return "staff/checkin/flight";
         } catch (Exception e) {
@@ -200,16 +198,20 @@ public class StaffController {
 
     @PostMapping("/checkin/ticket/{ticketNumber}/register")
     public String registerPassenger(@PathVariable String ticketNumber,
+                                    @RequestParam(required = false) String idempotencyKey,
                                     RedirectAttributes redirectAttributes) {
-        try {
-            ticketService.checkInPassenger(ticketNumber);
-            redirectAttributes.addFlashAttribute("successMessage",
-                    "Пассажир успешно зарегистрирован");
-        } catch (Exception e) {
-            redirectAttributes.addFlashAttribute("errorMessage",
-                    "Ошибка регистрации: " + e.getMessage());
-        }
-        return "redirect:/staff/checkin";
+        return IdempotencyHelper.handle(idempotencyService, idempotencyKey, "staff-checkin:" + ticketNumber,
+                redirectAttributes, () -> {
+                    try {
+                        ticketService.checkInPassenger(ticketNumber);
+                        redirectAttributes.addFlashAttribute("successMessage",
+                                "Пассажир успешно зарегистрирован");
+                    } catch (Exception e) {
+                        redirectAttributes.addFlashAttribute("errorMessage",
+                                "Ошибка регистрации: " + e.getMessage());
+                    }
+                    return "redirect:/staff/checkin";
+                });
     }
 
     // ========== УПРАВЛЕНИЕ БАГАЖОМ ==========
@@ -258,8 +260,7 @@ public class StaffController {
                                      @RequestParam String newStatus,
                                      RedirectAttributes redirectAttributes) {
         try {
-            // В реальном приложении здесь была бы отдельная служба для обновления статуса рейса
-            // Пока просто показываем сообщение
+            flightService.updateFlightStatus(flightNumber, newStatus);
             redirectAttributes.addFlashAttribute("successMessage",
                     String.format("Статус рейса %s изменен на: %s", flightNumber, newStatus));
         } catch (Exception e) {
@@ -365,32 +366,35 @@ public class StaffController {
         return "redirect:/staff/passengers/check?passportNumber=" + passportNumber;
     }
 
-    // Обновим метод flightStatus для поддержки фильтрации
+    // Фильтрация выполняется в БД: окно вылета + необязательные маршрут и статус
     @GetMapping("/flights")
     public String flightStatus(@RequestParam(required = false) String status,
                                @RequestParam(required = false) String departureCity,
                                @RequestParam(required = false) String arrivalCity,
+                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFrom,
+                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo,
                                Model model) {
 
-        List<FlightDto> flights = flightService.getFlightsList();
-
-        // Применяем фильтры
-        if (status != null && !status.isEmpty()) {
-            flights = flights.stream()
-                    .filter(f -> f.getStatus().equals(status))
-                    .collect(Collectors.toList());
-        }
-
-        if (departureCity != null && !departureCity.isEmpty()) {
-            flights = flights.stream()
-                    .filter(f -> f.getDepartureCity().toLowerCase().contains(departureCity.toLowerCase()))
-                    .collect(Collectors.toList());
+        // Без дат окно не ограничено, как в прежнем каталоге; лишняя строка показывает, что список обрезан
+        FlightSearchDto searchDto = FlightSearchDto.builder()
+                .status(status)
+                .departureCity(departureCity)
+                .arrivalCity(arrivalCity)
+                .departureFrom(dateFrom != null ? dateFrom.atStartOfDay() : null)
+                .departureTo(dateTo != null ? dateTo.plusDays(1).atStartOfDay() : null)
+                .limit(SEARCH_RESULTS + 1)
+                .build();
+
+        List<FlightDto> flights;
+        try {
+            flights = flightService.searchFlights(searchDto);
+        } catch (IllegalArgumentException e) {
+            model.addAttribute("errorMessage", "Ошибка поиска: " + e.getMessage());
+            flights = List.of();
         }
-
-        if (arrivalCity != null && !arrivalCity.isEmpty()) {
-            flights = flights.stream()
-                    .filter(f -> f.getArrivalCity().toLowerCase().contains(arrivalCity.toLowerCase()))
-                    .collect(Collectors.toList());
+        if (flights.size() > SEARCH_RESULTS) {
+            flights = flights.subList(0, SEARCH_RESULTS);
+            model.addAttribute("truncatedAt", SEARCH_RESULTS);
         }
 
         model.addAttribute("flights", flights);
@@ -537,62 +541,70 @@ public class StaffController {
     @PostMapping("/checkin/flight/{flightNumber}/quick")
     public String quickCheckIn(@PathVariable String flightNumber,
                                @RequestParam String passportNumber,
+                               @RequestParam(required = false) String idempotencyKey,
                                RedirectAttributes redirectAttributes) {
-        try {
-            // Находим все билеты пассажира на этот рейс
-            List<TicketDto> passengerTickets = ticketService.findAllByPassportNumber(passportNumber)
-                    .stream()
-                    .filter(t -> flightNumber.equals(t.getFlightNumber()))
-                    .toList();
-
-            if (passengerTickets.isEmpty()) {
-                redirectAttributes.addFlashAttribute("errorMessage",
-                        "Билет пассажира с паспортом " + passportNumber + " не найден на рейс " + flightNumber);
-                return "redirect:/staff/checkin/flight/" + flightNumber;
-            }
-
-            // Регистрируем все найденные билеты
-            for (TicketDto ticket : passengerTickets) {
-                if ("BOOKED".equals(ticket.getStatus())) {
-                    ticketService.checkInPassenger(ticket.getTicketNumber());
-                }
-            }
-
-            redirectAttributes.addFlashAttribute("successMessage",
-                    "Пассажир с паспортом " + passportNumber + " успешно зарегистрирован");
-
-        } catch (Exception e) {
-            redirectAttributes.addFlashAttribute("errorMessage",
-                    "Ошибка регистрации: " + e.getMessage());
-        }
+        return IdempotencyHelper.handle(idempotencyService, idempotencyKey,
+                "quick-checkin:" + flightNumber + ":" + passportNumber, redirectAttributes, () -> {
+                    try {
+                        // Находим все билеты пассажира на этот рейс
+                        List<TicketDto> passengerTickets = ticketService.findAllByPassportNumber(passportNumber)
+                                .stream()
+                                .filter(t -> flightNumber.equals(t.getFlightNumber()))
+                                .toList();
+
+                        if (passengerTickets.isEmpty()) {
+                            redirectAttributes.addFlashAttribute("errorMessage",
+                                    "Билет пассажира с паспортом " + passportNumber + " не найден на рейс " + flightNumber);
+                            return "redirect:/staff/checkin/flight/" + flightNumber;
+                        }
+
+                        // Регистрируем все найденные билеты
+                        for (TicketDto ticket : passengerTickets) {
+                            if ("BOOKED".equals(ticket.getStatus())) {
+                                ticketService.checkInPassenger(ticket.getTicketNumber());
+                            }
+                        }
+
+                        redirectAttributes.addFlashAttribute("successMessage",
+                                "Пассажир с паспортом " + passportNumber + " успешно зарегистрирован");
+
+                    } catch (Exception e) {
+                        redirectAttributes.addFlashAttribute("errorMessage",
+                                "Ошибка регистрации: " + e.getMessage());
+                    }
 
-        return "redirect:/staff/checkin/flight/" + flightNumber;
+                    return "redirect:/staff/checkin/flight/" + flightNumber;
+                });
     }
 
     // Добавим метод массовой регистрации
     @PostMapping("/checkin/flight/{flightNumber}/bulk")
     public String bulkCheckIn(@PathVariable String flightNumber,
+                              @RequestParam(required = false) String idempotencyKey,
                               RedirectAttributes redirectAttributes) {
-        try {
-            List<TicketDto> tickets = ticketService.findAllByFlight(flightNumber);
-            int registeredCount = 0;
-
-            for (TicketDto ticket : tickets) {
-                if ("BOOKED".equals(ticket.getStatus())) {
-                    ticketService.checkInPassenger(ticket.getTicketNumber());
-                    registeredCount++;
-                }
-            }
-
-            redirectAttributes.addFlashAttribute("successMessage",
-                    "Зарегистрировано " + registeredCount + " пассажиров");
-
-        } catch (Exception e) {
-            redirectAttributes.addFlashAttribute("errorMessage",
-                    "Ошибка массовой регистрации: " + e.getMessage());
-        }
+        return IdempotencyHelper.handle(idempotencyService, idempotencyKey, "bulk-checkin:" + flightNumber,
+                redirectAttributes, () -> {
+                    try {
+                        List<TicketDto> tickets = ticketService.findAllByFlight(flightNumber);
+                        int registeredCount = 0;
+
+                        for (TicketDto ticket : tickets) {
+                            if ("BOOKED".equals(ticket.getStatus())) {
+                                ticketService.checkInPassenger(ticket.getTicketNumber());
+                                registeredCount++;
+                            }
+                        }
+
+                        redirectAttributes.addFlashAttribute("successMessage",
+                                "Зарегистрировано " + registeredCount + " пассажиров");
+
+                    } catch (Exception e) {
+                        redirectAttributes.addFlashAttribute("errorMessage",
+                                "Ошибка массовой регистрации: " + e.getMessage());
+                    }
 
-        return "redirect:/staff/checkin/flight/" + flightNumber;
+                    return "redirect:/staff/checkin/flight/" + flightNumber;
+                });
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+package rut.miit.airportweb.dao.entity;
+
+import jakarta.persistence.*;
+import lombok.Setter;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Строка манифеста рейса — денормализованный билет с пассажиром и посадочным талоном.
+ * Таблицу ведут триггеры базы (flight-manifest.sql), приложение ее только читает
+ */
+@Entity(name = "flight_manifest_entity")
+@Table(name = "flight_manifest", schema = "public")
+@Immutable
+@Setter
+public class FlightManifestEntity {
+
+    private Integer ticketId;
+    private Integer flightId;
+    private String flightNumber;
+    private String ticketNumber;
+    private String seatNumber;
+    private TicketEntity.TicketStatus ticketStatus;
+    private BigDecimal price;
+    private LocalDateTime bookingDate;
+    private Integer passengerId;
+    private String passportNumber;
+    private String passengerName;
+    private Boolean luggageChecked;
+    private Integer boardingPassId;
+    private Boolean passportVerified;
+    private Boolean luggageVerified;
+    private Boolean boarded;
+
+    @Id
+    @Column(name = "ticket_id")
+    public Integer getTicketId() { return ticketId; }
+
+    @Column(name = "flight_id", nullable = false)
+    public Integer getFlightId() { return flightId; }
+
+    @Column(name = "flight_number", nullable = false)
+    public String getFlightNumber() { return flightNumber; }
+
+    @Column(name = "ticket_number", nullable = false)
+    public String getTicketNumber() { return ticketNumber; }
+
+    @Column(name = "seat_number", nullable = false)
+    public String getSeatNumber() { return seatNumber; }
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "ticket_status", nullable = false)
+    public TicketEntity.TicketStatus getTicketStatus() { return ticketStatus; }
+
+    @Column(name = "price", precision = 10, scale = 2)
+    public BigDecimal getPrice() { return price; }
+
+    @Column(name = "booking_date")
+    public LocalDateTime getBookingDate() { return bookingDate; }
+
+    @Column(name = "passenger_id")
+    public Integer getPassengerId() { return passengerId; }
+
+    @Column(name = "passport_number")
+    public String getPassportNumber() { return passportNumber; }
+
+    @Column(name = "passenger_name")
+    public String getPassengerName() { return passengerName; }
+
+    @Column(name = "luggage_checked", nullable = false)
+    public Boolean getLuggageChecked() { return luggageChecked; }
+
+    @Column(name = "boarding_pass_id")
+    public Integer getBoardingPassId() { return boardingPassId; }
+
+    @Column(name = "passport_verified", nullable = false)
+    public Boolean getPassportVerified() { return passportVerified; }
+
+    @Column(name = "luggage_verified", nullable = false)
+    public Boolean getLuggageVerified() { return luggageVerified; }
+
+    @Column(name = "boarded", nullable = false)
+    public Boolean getBoarded() { return boarded; }
+}
@@ -0,0 +1,26 @@
+package rut.miit.airportweb.dao.repository;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import rut.miit.airportweb.dao.entity.FlightManifestEntity;
+
+import java.util.List;
+
+/**
+ * Чтение манифеста рейса; записи в flight_manifest ведут триггеры базы
+ */
+@Repository
+public interface FlightManifestRepository extends JpaRepository<FlightManifestEntity, Integer> {
+
+    // Порядок совпадает с idx_flight_manifest_flight: один проход по диапазону индекса без сортировки
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT m FROM flight_manifest_entity m " +
+            "WHERE m.flightNumber = :flightNumber " +
+            "ORDER BY m.ticketStatus, m.seatNumber")
+    List<FlightManifestEntity> findByFlightNumber(@Param("flightNumber") String flightNumber);
+}
@@ -1,20 +1,27 @@
 package rut.miit.airportweb.dao.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import rut.miit.airportweb.dao.entity.FlightEntity;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface FlightRepository extends JpaRepository<FlightEntity, Integer> {
+public interface FlightRepository extends JpaRepository<FlightEntity, Integer>, FlightSearchRepository {
 
     @Query("SELECT f FROM flight_entity f WHERE f.flightNumber = :flightNumber")
     Optional<FlightEntity> findByFlightNumber(String flightNumber);
 
+    boolean existsByFlightNumber(String flightNumber);
+
     // Исправляем типы параметров
     @Query("SELECT DISTINCT f FROM flight_entity f WHERE f.departureTime = :departureTime AND f.arrivalTime = :arrivalTime")
     List<FlightEntity> findByDepartureTimeAndArrivalTime(LocalDateTime departureTime, LocalDateTime arrivalTime);
@@ -31,4 +38,22 @@ public interface FlightRepository extends JpaRepository<FlightEntity, Integer> {
 
     @Query("SELECT f FROM flight_entity f WHERE f.departureCity = :city OR f.arrivalCity = :city")
     List<FlightEntity> findFlightsByCity(String city);
-}
\ No newline at end of file
+
+    // Ближайшие рейсы для построения графа маршрутов
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT f FROM flight_entity f WHERE f.departureTime >= :from AND f.status IN :statuses")
+    List<FlightEntity> findUpcoming(LocalDateTime from, Collection<FlightEntity.FlightStatus> statuses);
+
+    // Перечитывание измененных рейсов для графа маршрутов по уведомлениям с других узлов
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT f FROM flight_entity f WHERE f.flightNumber IN :flightNumbers")
+    List<FlightEntity> findAllByFlightNumberIn(Collection<String> flightNumbers);
+
+    // Потоковая выгрузка для экспорта: строки читаются курсором порциями по fetchSize
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT f FROM flight_entity f LEFT JOIN FETCH f.createdBy ORDER BY f.departureTime")
+    Stream<FlightEntity> streamAllForExport();
+}
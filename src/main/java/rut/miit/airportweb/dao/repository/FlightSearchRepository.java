@@ -0,0 +1,21 @@
+package rut.miit.airportweb.dao.repository;
+
+import rut.miit.airportweb.dao.entity.FlightEntity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Поиск рейсов по окну времени отправления с необязательными фильтрами.
+ * Реализация собирает запрос только из заданных условий, чтобы планировщик
+ * мог использовать подходящий составной индекс (см. flights-search-indexes.sql).
+ */
+public interface FlightSearchRepository {
+
+    List<FlightEntity> searchByDepartureWindow(LocalDateTime departureFrom,
+                                               LocalDateTime departureTo,
+                                               String departureCity,
+                                               String arrivalCity,
+                                               FlightEntity.FlightStatus status,
+                                               int limit);
+}
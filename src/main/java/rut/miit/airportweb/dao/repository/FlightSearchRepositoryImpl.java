@@ -0,0 +1,72 @@
+package rut.miit.airportweb.dao.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import rut.miit.airportweb.dao.entity.FlightEntity;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class FlightSearchRepositoryImpl implements FlightSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<FlightEntity> searchByDepartureWindow(LocalDateTime departureFrom,
+                                                      LocalDateTime departureTo,
+                                                      String departureCity,
+                                                      String arrivalCity,
+                                                      FlightEntity.FlightStatus status,
+                                                      int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<FlightEntity> query = cb.createQuery(FlightEntity.class);
+        Root<FlightEntity> flight = query.from(FlightEntity.class);
+        // createdBy нужен FlightMapper, забираем его тем же запросом
+        flight.fetch("createdBy", JoinType.LEFT);
+
+        // Добавляем только заданные условия: "(:x IS NULL OR ...)" мешает выбору индекса
+        List<Predicate> predicates = new ArrayList<>();
+        if (departureFrom != null) {
+            predicates.add(cb.greaterThanOrEqualTo(flight.<LocalDateTime>get("departureTime"), departureFrom));
+        }
+        if (departureTo != null) {
+            predicates.add(cb.lessThan(flight.<LocalDateTime>get("departureTime"), departureTo));
+        }
+        // Город — префикс без учета регистра: lower(city) LIKE 'моск%' идет по индексу text_pattern_ops
+        if (departureCity != null) {
+            predicates.add(cityPrefix(cb, flight.get("departureCity"), departureCity));
+        }
+        if (arrivalCity != null) {
+            predicates.add(cityPrefix(cb, flight.get("arrivalCity"), arrivalCity));
+        }
+        if (status != null) {
+            predicates.add(cb.equal(flight.get("status"), status));
+        }
+
+        query.select(flight)
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(cb.asc(flight.get("departureTime")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultList();
+    }
+
+    private static Predicate cityPrefix(CriteriaBuilder cb, Expression<String> city, String prefix) {
+        String pattern = prefix.toLowerCase()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+        return cb.like(cb.lower(city), pattern, '\\');
+    }
+}
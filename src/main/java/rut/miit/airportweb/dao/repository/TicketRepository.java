@@ -1,14 +1,19 @@
 package rut.miit.airportweb.dao.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import rut.miit.airportweb.dao.entity.TicketEntity;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TicketRepository extends JpaRepository<TicketEntity, Integer> {
@@ -39,4 +44,44 @@ public interface TicketRepository extends JpaRepository<TicketEntity, Integer> {
             @Param("flightNumber") String flightNumber,
             @Param("status") String status);
 
+    // Потоковая выгрузка манифеста рейса: пассажир, пользователь и посадочный талон в одном запросе
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t FROM ticket_entity t " +
+            "JOIN FETCH t.flight f " +
+            "JOIN FETCH t.passenger p " +
+            "JOIN FETCH p.user u " +
+            "LEFT JOIN FETCH t.boardingPass bp " +
+            "WHERE f.flightNumber = :flightNumber " +
+            "ORDER BY t.seatNumber")
+    Stream<TicketEntity> streamManifestByFlight(@Param("flightNumber") String flightNumber);
+
+    // Поездки пассажира одним запросом: рейс, пассажир и посадочный талон вместе с билетом
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT t FROM ticket_entity t " +
+            "JOIN FETCH t.flight f " +
+            "JOIN FETCH t.passenger p " +
+            "JOIN FETCH p.user u " +
+            "LEFT JOIN FETCH t.boardingPass bp " +
+            "WHERE u.username = :username " +
+            "ORDER BY f.departureTime, t.ticketNumber")
+    List<TicketEntity> findTripsByUsername(@Param("username") String username);
+
+    // Потоковая выгрузка билетов за период бронирования [from, to)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t FROM ticket_entity t " +
+            "JOIN FETCH t.flight f " +
+            "JOIN FETCH t.passenger p " +
+            "JOIN FETCH p.user u " +
+            "LEFT JOIN FETCH t.boardingPass bp " +
+            "WHERE t.bookingDate >= :from AND t.bookingDate < :to " +
+            "ORDER BY t.bookingDate")
+    Stream<TicketEntity> streamByBookingDateRange(@Param("from") LocalDateTime from,
+                                                  @Param("to") LocalDateTime to);
+
 }
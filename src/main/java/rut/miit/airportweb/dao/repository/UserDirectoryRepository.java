@@ -0,0 +1,52 @@
+package rut.miit.airportweb.dao.repository;
+
+import rut.miit.airportweb.dao.entity.UserEntity;
+
+import java.util.List;
+
+/**
+ * Справочник пользователей для администратора: фильтр по роли и началу фамилии или имени пользователя,
+ * постраничный вывод по ключу (keyset) без OFFSET. Каждому порядку соответствует составной индекс
+ * (см. users-directory-indexes.sql), поэтому страница читается диапазоном индекса с любого места списка
+ */
+public interface UserDirectoryRepository {
+
+    /**
+     * Порядок справочника. Последний ключ уникален, поэтому позиция на странице однозначна
+     */
+    enum Order {
+
+        // Идентификатор выдается по порядку регистрации и, в отличие от created_at, не бывает пустым
+        REGISTERED,
+        NAME,
+        USERNAME
+    }
+
+    /**
+     * Позиция последнего пользователя страницы; для порядка нужны только его ключи
+     */
+    record Position(Integer id, String lastName, String firstName, String username) {
+
+        public static Position of(UserEntity user) {
+            return new Position(user.getId(), user.getLastName(), user.getFirstName(), user.getUsername());
+        }
+    }
+
+    /**
+     * @param role роль или {@code null} для всех
+     * @param namePrefix начало фамилии или имени пользователя без учета регистра, или {@code null}
+     * @param after позиция, после которой начинается страница, или {@code null} для первой страницы
+     */
+    List<UserEntity> findDirectoryPage(UserEntity.Role role, String namePrefix, Order order, boolean descending,
+                                       Position after, int limit);
+
+    /**
+     * Количество пользователей под фильтром, но не больше {@code cap}: счет останавливается на пороге
+     */
+    long countDirectory(UserEntity.Role role, String namePrefix, long cap);
+
+    /**
+     * Оценка размера таблицы пользователей по статистике планировщика; -1, если статистики еще нет
+     */
+    long estimateUserCount();
+}
@@ -0,0 +1,108 @@
+package rut.miit.airportweb.dao.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+import rut.miit.airportweb.dao.entity.UserEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public class UserDirectoryRepositoryImpl implements UserDirectoryRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<UserEntity> findDirectoryPage(UserEntity.Role role, String namePrefix, Order order, boolean descending,
+                                              Position after, int limit) {
+        // Условия только из заданных фильтров: "(:x IS NULL OR ...)" мешает выбору индекса
+        List<String> conditions = new ArrayList<>();
+        if (role != null) {
+            conditions.add("u.role = :role");
+        }
+        if (namePrefix != null) {
+            conditions.add("(lower(u.lastName) LIKE :namePrefix ESCAPE '\\' OR lower(u.username) LIKE :namePrefix ESCAPE '\\')");
+        }
+        // Сравнение строк значений (a, b, c) > (x, y, z) PostgreSQL выполняет диапазоном составного индекса
+        String comparison = descending ? " < " : " > ";
+        if (after != null) {
+            conditions.add(switch (order) {
+                case REGISTERED -> "u.id" + comparison + ":afterId";
+                case NAME -> "(u.lastName, u.firstName, u.id)" + comparison + "(:afterLastName, :afterFirstName, :afterId)";
+                case USERNAME -> "u.username" + comparison + ":afterUsername";
+            });
+        }
+        String direction = descending ? " DESC" : " ASC";
+        String orderBy = switch (order) {
+            case REGISTERED -> "u.id" + direction;
+            case NAME -> "u.lastName" + direction + ", u.firstName" + direction + ", u.id" + direction;
+            case USERNAME -> "u.username" + direction;
+        };
+
+        // Паспорт нужен UserMapper: пассажира забираем тем же запросом
+        TypedQuery<UserEntity> query = entityManager.createQuery("SELECT u FROM user_entity u " +
+                "LEFT JOIN FETCH u.passenger " +
+                (conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions) + " ") +
+                "ORDER BY " + orderBy, UserEntity.class);
+        if (role != null) {
+            query.setParameter("role", role);
+        }
+        if (namePrefix != null) {
+            query.setParameter("namePrefix", likePrefix(namePrefix));
+        }
+        if (after != null) {
+            switch (order) {
+                case REGISTERED -> query.setParameter("afterId", after.id());
+                case NAME -> query.setParameter("afterLastName", after.lastName())
+                        .setParameter("afterFirstName", after.firstName())
+                        .setParameter("afterId", after.id());
+                case USERNAME -> query.setParameter("afterUsername", after.username());
+            }
+        }
+        return query
+                .setMaxResults(limit)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultList();
+    }
+
+    @Override
+    public long countDirectory(UserEntity.Role role, String namePrefix, long cap) {
+        List<String> conditions = new ArrayList<>();
+        if (role != null) {
+            conditions.add("role = :role");
+        }
+        if (namePrefix != null) {
+            conditions.add("(lower(last_name) LIKE :namePrefix ESCAPE '\\' OR lower(username) LIKE :namePrefix ESCAPE '\\')");
+        }
+        // LIMIT во вложенном запросе: на миллионах строк счет стоит не больше cap строк индекса
+        Query query = entityManager.createNativeQuery("SELECT count(*) FROM (SELECT 1 FROM users " +
+                (conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions) + " ") +
+                "LIMIT :cap) capped", Long.class);
+        if (role != null) {
+            query.setParameter("role", role.name());
+        }
+        if (namePrefix != null) {
+            query.setParameter("namePrefix", likePrefix(namePrefix));
+        }
+        return ((Number) query.setParameter("cap", cap).getSingleResult()).longValue();
+    }
+
+    @Override
+    public long estimateUserCount() {
+        // reltuples обновляют VACUUM и ANALYZE; до первого из них там -1
+        return ((Number) entityManager.createNativeQuery(
+                        "SELECT reltuples::bigint FROM pg_class WHERE oid = 'public.users'::regclass", Long.class)
+                .getSingleResult()).longValue();
+    }
+
+    private static String likePrefix(String prefix) {
+        return prefix.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+    }
+}
@@ -5,7 +5,6 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import rut.miit.airportweb.dao.entity.UserEntity;
 
-import java.util.List;
 import java.util.Optional;
 
 
@@ -17,13 +16,10 @@ import java.util.Optional;
  * В целом по названию методов думаю понятно что они делают
  * */
 @Repository
-public interface UserRepository extends JpaRepository<UserEntity, Integer> {
+public interface UserRepository extends JpaRepository<UserEntity, Integer>, UserDirectoryRepository {
 
     Optional<UserEntity> findByUsername(String username);
 
-    @Query("SELECT DISTINCT u FROM user_entity u JOIN FETCH u.passenger")
-    List<UserEntity> findAllOptimized();
-
     @Query("SELECT u FROM user_entity u WHERE u.firstName=:firstName AND u.lastName=:lastName")
     Optional<UserEntity> findByFirstNameAndLastName(String firstName, String lastName);
 
@@ -0,0 +1,446 @@
+package rut.miit.airportweb.datagen;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Генератор большого набора данных для проверок производительности (профиль {@code datagen}).
+ * При одинаковых seed и опорной дате всегда получаются одни и те же данные: каждая порция строк
+ * генерируется своим генератором случайных чисел, зависящим только от seed, таблицы и номера порции.
+ * Порции загружаются через COPY параллельно, каждая в своем соединении.
+ * Ограничения init-ddl.sql соблюдаются: номера уникальны, места на рейсе не повторяются,
+ * свободные места рейса сходятся с числом проданных билетов.
+ * Запуск: ./gradlew generateData
+ */
+@Component
+@Profile("datagen")
+@Slf4j
+public class ScaleDataGenerator implements ApplicationRunner {
+
+    // Префиксы сгенерированных записей; по ним же строятся отображения номер -> id
+    private static final String USER_PREFIX = "gen_p";
+    private static final String PASSPORT_PREFIX = "GP";
+    private static final String FLIGHT_PREFIX = "GF";
+    private static final String TICKET_PREFIX = "GT";
+
+    // Пароль пассажиров такой же, как в init-dml.sql: pass123
+    private static final String PASSENGER_PASSWORD_HASH = "$2a$10$A5iZR/zGii6K6iMexWylj.z1nYlszqKZSIC9AgqibGUWfVt3.9qBS";
+
+    private static final String[] CITIES = {
+            "Москва", "Санкт-Петербург", "Казань", "Сочи", "Екатеринбург", "Новосибирск",
+            "Калининград", "Владивосток", "Самара", "Краснодар", "Уфа", "Иркутск"
+    };
+    private static final String[] FIRST_NAMES = {
+            "Анна", "Михаил", "Екатерина", "Дмитрий", "Ольга", "Сергей", "Мария", "Алексей", "Ирина", "Павел"
+    };
+    private static final String[] LAST_NAMES = {
+            "Смирнов", "Иванов", "Кузнецов", "Попов", "Васильев", "Петров", "Соколов", "Михайлов", "Новиков", "Федоров"
+    };
+
+    // Вместимость типов самолетов; места обозначаются рядом и буквой из SEAT_LETTERS
+    private static final int[] AIRCRAFT_SEATS = {300, 450, 550, 650, 850};
+    private static final String SEAT_LETTERS = "ABCDEFGHJK";
+
+    // Рейсы распределяются по окну [опорная дата - 60 дней, опорная дата + 60 дней)
+    private static final int SCHEDULE_WINDOW_DAYS = 120;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final ConfigurableApplicationContext context;
+
+    private final long seed;
+    private final int flights;
+    private final int passengers;
+    private final int tickets;
+    private final int threads;
+    private final int chunkSize;
+    private final LocalDateTime anchor;
+    private final boolean exitWhenDone;
+
+    public ScaleDataGenerator(DataSource dataSource,
+                              JdbcTemplate jdbcTemplate,
+                              ConfigurableApplicationContext context,
+                              @Value("${airport.datagen.seed:42}") long seed,
+                              @Value("${airport.datagen.flights:10000}") int flights,
+                              @Value("${airport.datagen.passengers:1000000}") int passengers,
+                              @Value("${airport.datagen.tickets:5000000}") int tickets,
+                              @Value("${airport.datagen.threads:4}") int threads,
+                              @Value("${airport.datagen.chunk-size:100000}") int chunkSize,
+                              @Value("${airport.datagen.anchor-date:}") String anchorDate,
+                              @Value("${airport.datagen.exit-when-done:true}") boolean exitWhenDone) {
+        if (flights <= 0 || passengers <= 0 || tickets < 0 || threads <= 0 || chunkSize <= 0) {
+            throw new IllegalArgumentException("Dataset volumes, threads and chunk size must be positive");
+        }
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.context = context;
+        this.seed = seed;
+        this.flights = flights;
+        this.passengers = passengers;
+        this.tickets = tickets;
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+        // Статусы рейсов и билетов считаются от опорной даты; по умолчанию это начало текущего дня
+        this.anchor = (anchorDate.isBlank() ? LocalDate.now() : LocalDate.parse(anchorDate)).atStartOfDay();
+        this.exitWhenDone = exitWhenDone;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        Integer existing = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM users WHERE username LIKE ?", Integer.class, USER_PREFIX + "%");
+        if (existing != null && existing > 0) {
+            throw new IllegalStateException("Generated dataset is already present, clean the database first");
+        }
+
+        log.info("Generating dataset: seed={}, anchor={}, flights={}, passengers={}, tickets={}, threads={}",
+                seed, anchor.toLocalDate(), flights, passengers, tickets, threads);
+        long started = System.nanoTime();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            copyInParallel(executor, "users", "username, password, role, first_name, last_name",
+                    passengers, this::writeUsers);
+            int[] userIds = loadIds("SELECT id, username FROM users WHERE username LIKE 'gen\\_p%'",
+                    USER_PREFIX.length(), passengers);
+
+            copyInParallel(executor, "passengers", "user_id, passport_number, phone, email, luggage_checked",
+                    passengers, (from, to, random, out) -> writePassengers(from, to, random, out, userIds));
+            int[] passengerIds = loadIds("SELECT id, passport_number FROM passengers WHERE passport_number LIKE 'GP%'",
+                    PASSPORT_PREFIX.length(), passengers);
+
+            FlightPlan plan = planFlights();
+            copyInParallel(executor, "flights", "flight_number, departure_city, arrival_city, departure_time, "
+                    + "arrival_time, total_seats, available_seats, status, created_by", flights, plan::writeFlights);
+            int[] flightIds = loadIds("SELECT id, flight_number FROM flights WHERE flight_number LIKE 'GF%'",
+                    FLIGHT_PREFIX.length(), flights);
+
+            copyTickets(executor, plan, flightIds, passengerIds);
+            createBoardingPasses(executor);
+        } finally {
+            executor.shutdown();
+        }
+
+        jdbcTemplate.execute("ANALYZE");
+        log.info("Dataset generated in {} s", (System.nanoTime() - started) / 1_000_000_000);
+
+        if (exitWhenDone) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    // ========== ПОЛЬЗОВАТЕЛИ И ПАССАЖИРЫ ==========
+
+    private void writeUsers(int from, int to, SplittableRandom random, StringBuilder out) {
+        for (int i = from; i < to; i++) {
+            String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            row(out, USER_PREFIX + number(i, 7), PASSENGER_PASSWORD_HASH, "PASSENGER", firstName, lastName);
+        }
+    }
+
+    private void writePassengers(int from, int to, SplittableRandom random, StringBuilder out, int[] userIds) {
+        for (int i = from; i < to; i++) {
+            row(out, String.valueOf(userIds[i]),
+                    PASSPORT_PREFIX + number(i, 7),
+                    "+7900" + number(i, 7),
+                    "gen.p" + number(i, 7) + "@example.com",
+                    String.valueOf(random.nextInt(10) < 6));
+        }
+    }
+
+    // ========== РЕЙСЫ ==========
+
+    /**
+     * Расписание рейсов и число проданных мест на каждом. Строится целиком в памяти
+     * (это десятки тысяч записей), потому что билеты распределяются по вместимости рейсов
+     */
+    private FlightPlan planFlights() {
+        SplittableRandom random = new SplittableRandom(seed);
+        FlightPlan plan = new FlightPlan(flights);
+        long capacity = 0;
+
+        for (int i = 0; i < flights; i++) {
+            int departureCity = random.nextInt(CITIES.length);
+            int arrivalCity = (departureCity + 1 + random.nextInt(CITIES.length - 1)) % CITIES.length;
+            LocalDateTime departure = anchor.minusDays(SCHEDULE_WINDOW_DAYS / 2)
+                    .plusMinutes(5L * random.nextInt(SCHEDULE_WINDOW_DAYS * 24 * 12));
+            LocalDateTime arrival = departure.plusMinutes(60 + 5L * random.nextInt(108));
+
+            plan.departureCity[i] = CITIES[departureCity];
+            plan.arrivalCity[i] = CITIES[arrivalCity];
+            plan.departure[i] = departure;
+            plan.arrival[i] = arrival;
+            plan.seats[i] = AIRCRAFT_SEATS[random.nextInt(AIRCRAFT_SEATS.length)];
+            plan.status[i] = flightStatus(departure, arrival);
+            capacity += plan.seats[i];
+        }
+
+        if (tickets > capacity) {
+            throw new IllegalArgumentException(String.format(
+                    "%d tickets do not fit into %d seats of %d flights", tickets, capacity, flights));
+        }
+
+        // Заполняемость одинакова для всех рейсов, остаток раздается по одному месту
+        long sold = 0;
+        for (int i = 0; i < flights; i++) {
+            plan.sold[i] = (int) (plan.seats[i] * (long) tickets / capacity);
+            sold += plan.sold[i];
+        }
+        for (int i = 0; sold < tickets; i = (i + 1) % flights) {
+            if (plan.sold[i] < plan.seats[i]) {
+                plan.sold[i]++;
+                sold++;
+            }
+        }
+        for (int i = 0; i < flights; i++) {
+            plan.firstTicket[i + 1] = plan.firstTicket[i] + plan.sold[i];
+        }
+        plan.createdBy = jdbcTemplate.queryForList("SELECT id FROM users WHERE username = 'admin'", Integer.class)
+                .stream().findFirst().orElse(null);
+        return plan;
+    }
+
+    private String flightStatus(LocalDateTime departure, LocalDateTime arrival) {
+        if (arrival.isBefore(anchor)) {
+            return "ARRIVED";
+        }
+        if (departure.isBefore(anchor)) {
+            return "DEPARTED";
+        }
+        if (departure.isBefore(anchor.plusHours(1))) {
+            return "BOARDING";
+        }
+        return "SCHEDULED";
+    }
+
+    // ========== БИЛЕТЫ И ПОСАДОЧНЫЕ ТАЛОНЫ ==========
+
+    /**
+     * Билеты режутся на порции по рейсам, чтобы все места одного рейса выбирались
+     * в одной порции и не повторялись
+     */
+    private void copyTickets(ExecutorService executor, FlightPlan plan, int[] flightIds, int[] passengerIds)
+            throws Exception {
+        List<Future<Long>> futures = new ArrayList<>();
+        int firstFlight = 0;
+        for (int i = 0; i < flights; i++) {
+            boolean last = i == flights - 1;
+            if (last || plan.firstTicket[i + 1] - plan.firstTicket[firstFlight] >= chunkSize) {
+                int from = firstFlight;
+                int to = i + 1;
+                futures.add(executor.submit(() -> copyChunk("tickets",
+                        "flight_id, passenger_id, seat_number, price, ticket_number, status, booking_date",
+                        from, to, (f, t, random, out) -> writeTickets(f, t, random, out, plan, flightIds, passengerIds))));
+                firstFlight = to;
+            }
+        }
+        log.info("Copied {} rows into tickets", await(futures));
+    }
+
+    private void writeTickets(int fromFlight, int toFlight, SplittableRandom random, StringBuilder out,
+                              FlightPlan plan, int[] flightIds, int[] passengerIds) {
+        int[] seatOrder = new int[AIRCRAFT_SEATS[AIRCRAFT_SEATS.length - 1]];
+        for (int f = fromFlight; f < toFlight; f++) {
+            int seats = plan.seats[f];
+            for (int s = 0; s < seats; s++) {
+                seatOrder[s] = s;
+            }
+            for (int s = 0; s < plan.sold[f]; s++) {
+                // Частичная перетасовка Фишера-Йейтса: первые sold мест — случайная выборка без повторов
+                int pick = s + random.nextInt(seats - s);
+                int seat = seatOrder[pick];
+                seatOrder[pick] = seatOrder[s];
+                seatOrder[s] = seat;
+
+                LocalDateTime bookingDate = plan.departure[f].minusMinutes(60 + random.nextInt(90 * 24 * 60));
+                row(out, String.valueOf(flightIds[f]),
+                        String.valueOf(passengerIds[random.nextInt(passengers)]),
+                        (seat / SEAT_LETTERS.length() + 1) + String.valueOf(SEAT_LETTERS.charAt(seat % SEAT_LETTERS.length())),
+                        (3000 + 100 * random.nextInt(320)) + ".00",
+                        TICKET_PREFIX + number(plan.firstTicket[f] + s, 10),
+                        ticketStatus(plan.status[f], plan.departure[f], random),
+                        (bookingDate.isAfter(anchor) ? anchor : bookingDate).toString());
+            }
+        }
+    }
+
+    private String ticketStatus(String flightStatus, LocalDateTime departure, SplittableRandom random) {
+        int roll = random.nextInt(100);
+        return switch (flightStatus) {
+            // Улетевшие рейсы: почти все сели, часть зарегистрировалась и не явилась на посадку
+            case "ARRIVED", "DEPARTED" -> roll < 95 ? "BOARDED" : roll < 98 ? "CHECKED_IN" : "BOOKED";
+            case "BOARDING" -> roll < 40 ? "BOARDED" : roll < 85 ? "CHECKED_IN" : "BOOKED";
+            // Онлайн-регистрация открывается за сутки до вылета
+            default -> departure.isBefore(anchor.plusDays(1)) && roll < 50 ? "CHECKED_IN" : "BOOKED";
+        };
+    }
+
+    /**
+     * Посадочные талоны нужны только зарегистрированным билетам; id билетов известны лишь базе,
+     * поэтому талоны создаются INSERT ... SELECT, параллельно по остатку от деления id рейса.
+     * Время регистрации — от 1 до 23 часов до вылета, детерминированно по номеру билета
+     */
+    private void createBoardingPasses(ExecutorService executor) throws Exception {
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int part = 0; part < threads; part++) {
+            int remainder = part;
+            futures.add(executor.submit(() -> (long) jdbcTemplate.update("""
+                    INSERT INTO boarding_passes (ticket_id, check_in_time, passport_verified, luggage_verified, boarded)
+                    SELECT t.id,
+                           f.departure_time - (1 + (hashtext(t.ticket_number) & 2147483647) % 23) * INTERVAL '1 hour',
+                           t.status = 'BOARDED', t.status = 'BOARDED', t.status = 'BOARDED'
+                    FROM tickets t
+                    JOIN flights f ON f.id = t.flight_id
+                    WHERE t.ticket_number LIKE 'GT%'
+                      AND t.status IN ('CHECKED_IN', 'BOARDED')
+                      AND t.flight_id % ? = ?
+                    """, threads, remainder)));
+        }
+        log.info("Inserted {} rows into boarding_passes", await(futures));
+    }
+
+    // ========== ЗАГРУЗКА ==========
+
+    @FunctionalInterface
+    private interface ChunkWriter {
+        void write(int from, int to, SplittableRandom random, StringBuilder out);
+    }
+
+    private void copyInParallel(ExecutorService executor, String table, String columns, int rows, ChunkWriter writer)
+            throws Exception {
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int from = 0; from < rows; from += chunkSize) {
+            int start = from;
+            int end = Math.min(rows, from + chunkSize);
+            futures.add(executor.submit(() -> copyChunk(table, columns, start, end, writer)));
+        }
+        log.info("Copied {} rows into {}", await(futures), table);
+    }
+
+    private long copyChunk(String table, String columns, int from, int to, ChunkWriter writer) throws Exception {
+        // Генератор зависит только от seed, таблицы и начала порции — порядок потоков на данные не влияет
+        SplittableRandom random = new SplittableRandom(seed * 31 + table.hashCode() * 1_000_003L + from);
+        StringBuilder out = new StringBuilder(128 * (to - from));
+        writer.write(from, to, random, out);
+
+        try (Connection connection = dataSource.getConnection()) {
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            return copyManager.copyIn("COPY " + table + " (" + columns + ") FROM STDIN",
+                    new StringReader(out.toString()));
+        }
+    }
+
+    /**
+     * Отображение порядкового номера записи (числовая часть естественного ключа) в id.
+     * Читается курсором, чтобы не держать весь результат в памяти драйвера
+     */
+    private int[] loadIds(String sql, int prefixLength, int size) throws SQLException {
+        int[] ids = new int[size];
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setFetchSize(10_000);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        ids[Integer.parseInt(resultSet.getString(2).substring(prefixLength))] = resultSet.getInt(1);
+                    }
+                }
+            } finally {
+                connection.commit();
+                connection.setAutoCommit(true);
+            }
+        }
+        return ids;
+    }
+
+    private static long await(List<Future<Long>> futures) throws Exception {
+        long rows = 0;
+        for (Future<Long> future : futures) {
+            rows += future.get();
+        }
+        return rows;
+    }
+
+    // Строка в текстовом формате COPY: значения через табуляцию, null как \N
+    private static void row(StringBuilder out, String... values) {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.append('\t');
+            }
+            out.append(values[i] != null ? values[i] : "\\N");
+        }
+        out.append('\n');
+    }
+
+    private static String number(long value, int width) {
+        String digits = Long.toString(value);
+        return "0".repeat(Math.max(0, width - digits.length())) + digits;
+    }
+
+    /**
+     * Расписание рейсов в виде параллельных массивов по порядковому номеру рейса
+     */
+    private static final class FlightPlan {
+
+        final String[] departureCity;
+        final String[] arrivalCity;
+        final LocalDateTime[] departure;
+        final LocalDateTime[] arrival;
+        final int[] seats;
+        final int[] sold;
+        final String[] status;
+        // Номер первого билета рейса; firstTicket[flights] — общее число билетов
+        final int[] firstTicket;
+        Integer createdBy;
+
+        FlightPlan(int flights) {
+            departureCity = new String[flights];
+            arrivalCity = new String[flights];
+            departure = new LocalDateTime[flights];
+            arrival = new LocalDateTime[flights];
+            seats = new int[flights];
+            sold = new int[flights];
+            status = new String[flights];
+            firstTicket = new int[flights + 1];
+        }
+
+        void writeFlights(int from, int to, SplittableRandom random, StringBuilder out) {
+            for (int i = from; i < to; i++) {
+                row(out, FLIGHT_PREFIX + number(i, 6),
+                        departureCity[i],
+                        arrivalCity[i],
+                        departure[i].toString(),
+                        arrival[i].toString(),
+                        String.valueOf(seats[i]),
+                        String.valueOf(seats[i] - sold[i]),
+                        status[i],
+                        createdBy != null ? createdBy.toString() : null);
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package rut.miit.airportweb.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Событие JFR для горячих операций: бронирование, регистрация, посадка, проверки на контроле.
+ * Длительность пишет сам JFR, дополнительно сохраняются номер рейса, число SQL-запросов
+ * за время операции и исход. Пока событие не включено в записи, {@link #start} почти ничего не стоит.
+ * Внутри транзакции событие закрывается после ее завершения: длительность и число запросов включают
+ * flush и commit, а откат записывается с исходом {@value #FAILURE} даже после {@code setOutcome(SUCCESS)}.
+ * Операции прогрева ({@link SyntheticTraffic}) не записываются.
+ * <pre>
+ * try (AirportOperationEvent event = AirportOperationEvent.start("createTicket")) {
+ *     ...
+ *     event.setFlightNumber(flightNumber);
+ *     event.setOutcome(AirportOperationEvent.SUCCESS);
+ * }
+ * </pre>
+ */
+@Name(AirportOperationEvent.NAME)
+@Label("Airport Operation")
+@Category({"Airport Web", "Operations"})
+@Description("Booking, check-in, boarding and control checks with flight number and SQL statement count")
+@StackTrace(false)
+public class AirportOperationEvent extends Event implements AutoCloseable {
+
+    public static final String NAME = "rut.miit.airportweb.Operation";
+
+    public static final String SUCCESS = "success";
+    public static final String FAILURE = "failure";
+
+    @Label("Operation")
+    private String operation;
+
+    @Label("Flight Number")
+    private String flightNumber;
+
+    @Label("Query Count")
+    @Description("SQL statements prepared by Hibernate during the operation")
+    private int queryCount;
+
+    @Label("Outcome")
+    private String outcome = FAILURE;
+
+    // Не записываются: служебное значение счетчика запросов на начало операции и признак отложенного закрытия
+    private transient int queriesAtStart;
+    private transient boolean deferred;
+
+    public static AirportOperationEvent start(String operation) {
+        AirportOperationEvent event = new AirportOperationEvent();
+        if (event.isEnabled() && !SyntheticTraffic.isActive()) {
+            event.operation = operation;
+            event.queriesAtStart = QueryCountingStatementInspector.currentCount();
+            event.begin();
+        }
+        return event;
+    }
+
+    public void setFlightNumber(String flightNumber) {
+        this.flightNumber = flightNumber;
+    }
+
+    /**
+     * Исход операции: {@value #SUCCESS} или {@value #FAILURE}; если не задан, событие записывается
+     * с исходом {@value #FAILURE}
+     */
+    public void setOutcome(String outcome) {
+        this.outcome = outcome;
+    }
+
+    @Override
+    public void close() {
+        // operation не задан, если событие не начато: JFR выключен или это прогрев
+        if (!isEnabled() || operation == null || deferred) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Изменения сущностей еще не отправлены в базу: закрываем после flush и commit
+            deferred = true;
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        outcome = FAILURE;
+                    }
+                    finish();
+                }
+            });
+            return;
+        }
+        finish();
+    }
+
+    private void finish() {
+        end();
+        if (shouldCommit()) {
+            queryCount = QueryCountingStatementInspector.currentCount() - queriesAtStart;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package rut.miit.airportweb.diagnostics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Считает SQL-запросы, подготовленные Hibernate в текущем потоке.
+ * Подключается через hibernate.session_factory.statement_inspector;
+ * {@link AirportOperationEvent} берет разницу значений на начало и конец операции
+ */
+public class QueryCountingStatementInspector implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    public static int currentCount() {
+        return COUNT.get()[0];
+    }
+}
@@ -0,0 +1,32 @@
+package rut.miit.airportweb.diagnostics;
+
+import java.util.function.Supplier;
+
+/**
+ * Отметка синтетических вызовов текущего потока (прогрев): таймеры {@code airport.service} и
+ * {@code airport.repository}, бизнес-счетчики и события {@link AirportOperationEvent} их не учитывают,
+ * иначе прогрев при каждом запуске добавлял бы в метрики сотни операций без пассажиров
+ */
+public final class SyntheticTraffic {
+
+    private static final ThreadLocal<Boolean> ACTIVE = ThreadLocal.withInitial(() -> false);
+
+    private SyntheticTraffic() {
+    }
+
+    public static <T> T run(Supplier<T> action) {
+        if (ACTIVE.get()) {
+            return action.get();
+        }
+        ACTIVE.set(true);
+        try {
+            return action.get();
+        } finally {
+            ACTIVE.remove();
+        }
+    }
+
+    public static boolean isActive() {
+        return ACTIVE.get();
+    }
+}
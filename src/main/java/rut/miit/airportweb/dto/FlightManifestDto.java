@@ -0,0 +1,48 @@
+package rut.miit.airportweb.dto;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Манифест рейса: все пассажиры, упорядоченные по статусу билета и месту, и те же записи по статусам
+ */
+@Getter
+public class FlightManifestDto {
+
+    private final String flightNumber;
+    private final List<FlightManifestEntryDto> entries;
+    private final Map<String, List<FlightManifestEntryDto>> entriesByStatus;
+
+    /**
+     * @param entries записи, упорядоченные по статусу: группа статуса — непрерывный отрезок списка
+     */
+    public FlightManifestDto(String flightNumber, List<FlightManifestEntryDto> entries) {
+        this.flightNumber = flightNumber;
+        this.entries = List.copyOf(entries);
+        Map<String, List<FlightManifestEntryDto>> byStatus = new LinkedHashMap<>();
+        int from = 0;
+        for (int i = 1; i <= this.entries.size(); i++) {
+            if (i == this.entries.size() || !this.entries.get(i).getStatus().equals(this.entries.get(from).getStatus())) {
+                byStatus.put(this.entries.get(from).getStatus(), this.entries.subList(from, i));
+                from = i;
+            }
+        }
+        this.entriesByStatus = Collections.unmodifiableMap(byStatus);
+    }
+
+    public List<FlightManifestEntryDto> getEntries(String status) {
+        return entriesByStatus.getOrDefault(status, List.of());
+    }
+
+    public long count(String status) {
+        return getEntries(status).size();
+    }
+
+    public long getTotal() {
+        return entries.size();
+    }
+}
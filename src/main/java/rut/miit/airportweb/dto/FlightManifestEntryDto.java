@@ -0,0 +1,40 @@
+package rut.miit.airportweb.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Пассажир в манифесте рейса. Поля билета названы как в {@link TicketDto}, чтобы шаблоны,
+ * выводившие билеты рейса, работали с манифестом без изменений
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class FlightManifestEntryDto {
+
+    // Билет
+    private Integer id;
+    private String ticketNumber;
+    private String flightNumber;
+    private String seatNumber;
+    private String status;
+    private BigDecimal price;
+    private LocalDateTime bookingDate;
+
+    // Пассажир
+    private Integer passengerId;
+    private String passengerName;
+    private String passportNumber;
+    private boolean luggageChecked;
+
+    // Посадочный талон; без талона флаги ложны
+    private Integer boardingPassId;
+    private boolean passportVerified;
+    private boolean luggageVerified;
+    private boolean boarded;
+
+}
@@ -0,0 +1,24 @@
+package rut.miit.airportweb.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Getter
+@Setter
+public class FlightSearchDto {
+
+    // Окно вылета [departureFrom, departureTo)
+    private LocalDateTime departureFrom;
+    private LocalDateTime departureTo;
+
+    private String departureCity;
+    private String arrivalCity;
+    private String status;
+
+    private Integer limit;
+
+}
@@ -0,0 +1,29 @@
+package rut.miit.airportweb.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Маршрут из одного или нескольких рейсов (с пересадками)
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class ItineraryDto {
+
+    private List<FlightDto> legs;
+
+    private LocalDateTime departureTime;
+    private LocalDateTime arrivalTime;
+
+    private int stops;
+
+    // Полное время в пути и суммарное время ожидания на пересадках
+    private long totalMinutes;
+    private long connectionMinutes;
+
+}
@@ -0,0 +1,34 @@
+package rut.miit.airportweb.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Поездки пассажира: предстоящие в порядке вылета, прошедшие — начиная с последней
+ */
+@Getter
+public class PassengerTripsDto {
+
+    private final List<TripDto> trips;
+    private final List<TripDto> upcoming;
+    private final List<TripDto> past;
+    private final long activeCount;
+
+    /**
+     * @param trips поездки в порядке вылета
+     */
+    public PassengerTripsDto(List<TripDto> trips) {
+        this.trips = List.copyOf(trips);
+        this.upcoming = this.trips.stream().filter(TripDto::isUpcoming).toList();
+        this.past = this.trips.stream().filter(trip -> !trip.isUpcoming()).toList().reversed();
+        // Активные билеты: забронированные и зарегистрированные
+        this.activeCount = this.trips.stream()
+                .filter(trip -> trip.getStatus().equals("BOOKED") || trip.getStatus().equals("CHECKED_IN"))
+                .count();
+    }
+
+    public boolean isEmpty() {
+        return trips.isEmpty();
+    }
+}
@@ -32,9 +32,5 @@ public class TicketCreateDto {
     @Positive(message = "Price must be positive")
     private BigDecimal price;
 
-    @NotNull(message = "Ticket number cannot be null")
-    @NotBlank(message = "Ticket number cannot be blank")
-    private String ticketNumber;
-
 
 }
@@ -0,0 +1,47 @@
+package rut.miit.airportweb.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Поездка пассажира: билет с рейсом и состоянием посадочного талона. Поля билета названы как в {@link TicketDto},
+ * чтобы шаблоны, выводившие билеты пассажира, работали с поездками без изменений
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class TripDto {
+
+    // Билет
+    private Integer id;
+    private String ticketNumber;
+    private String seatNumber;
+    private String status;
+    private BigDecimal price;
+    private LocalDateTime bookingDate;
+    private String passengerName;
+    private String passportNumber;
+
+    // Рейс
+    private Integer flightId;
+    private String flightNumber;
+    private String departureCity;
+    private String arrivalCity;
+    private LocalDateTime departureTime;
+    private LocalDateTime arrivalTime;
+    private String flightStatus;
+
+    // Посадочный талон; без талона флаги ложны
+    private boolean boardingPassIssued;
+    private boolean passportVerified;
+    private boolean luggageVerified;
+    private boolean boarded;
+
+    // Рейс еще не улетел: ожидает вылета или идет посадка
+    private boolean upcoming;
+
+}
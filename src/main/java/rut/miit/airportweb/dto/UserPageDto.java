@@ -0,0 +1,34 @@
+package rut.miit.airportweb.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Страница справочника пользователей. Всего под фильтром считается точно до порога,
+ * дальше — нижняя граница или оценка по статистике таблицы ({@link TotalKind})
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class UserPageDto {
+
+    public enum TotalKind {
+        EXACT,
+        // Пользователей больше total: счет остановлен на пороге
+        AT_LEAST,
+        // Оценка по статистике планировщика
+        ESTIMATE
+    }
+
+    private List<UserDto> users;
+
+    // Курсор следующей страницы; null на последней
+    private String nextCursor;
+
+    private long total;
+    private TotalKind totalKind;
+
+}
@@ -0,0 +1,26 @@
+package rut.miit.airportweb.dto;
+
+import lombok.*;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Getter
+@Setter
+public class UserSearchDto {
+
+    // Роль (ADMIN, PASSENGER, ...) и начало фамилии или имени пользователя
+    private String role;
+    private String name;
+
+    // Порядок: registered, name или username. Без направления новые пользователи идут первыми,
+    // имена — по алфавиту
+    private String sort;
+    private Boolean descending;
+
+    // Курсор следующей страницы из UserPageDto
+    private String cursor;
+
+    private Integer limit;
+
+}
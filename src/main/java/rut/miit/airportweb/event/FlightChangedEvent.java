@@ -0,0 +1,16 @@
+package rut.miit.airportweb.event;
+
+import rut.miit.airportweb.dto.FlightDto;
+
+/**
+ * Событие изменения рейса. Публикуется {@link rut.miit.airportweb.service.impl.FlightServiceImpl}
+ * внутри транзакции; слушатели обрабатывают его после коммита.
+ * @param type тип изменения
+ * @param flight состояние рейса после изменения (для DELETED — до удаления)
+ */
+public record FlightChangedEvent(ChangeType type, FlightDto flight) {
+
+    public enum ChangeType {
+        CREATED, STATUS_CHANGED, DELETED
+    }
+}
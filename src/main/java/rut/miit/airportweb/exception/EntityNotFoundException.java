@@ -1,7 +1,11 @@
 package rut.miit.airportweb.exception;
 
+/**
+ * Сущность не найдена по ключу. Исключение рутинное и логируется без стека,
+ * поэтому стек при создании не заполняется: сообщение уже содержит сущность и ключ
+ */
 public class EntityNotFoundException extends RuntimeException {
     public EntityNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
@@ -0,0 +1,29 @@
+package rut.miit.airportweb.mapper;
+
+import lombok.experimental.UtilityClass;
+import rut.miit.airportweb.dao.entity.FlightManifestEntity;
+import rut.miit.airportweb.dto.FlightManifestEntryDto;
+
+@UtilityClass
+public class FlightManifestMapper {
+
+    public static FlightManifestEntryDto map(FlightManifestEntity entry) {
+        return FlightManifestEntryDto.builder()
+                .id(entry.getTicketId())
+                .ticketNumber(entry.getTicketNumber())
+                .flightNumber(entry.getFlightNumber())
+                .seatNumber(entry.getSeatNumber())
+                .status(entry.getTicketStatus().toString())
+                .price(entry.getPrice())
+                .bookingDate(entry.getBookingDate())
+                .passengerId(entry.getPassengerId())
+                .passengerName(entry.getPassengerName())
+                .passportNumber(entry.getPassportNumber())
+                .luggageChecked(Boolean.TRUE.equals(entry.getLuggageChecked()))
+                .boardingPassId(entry.getBoardingPassId())
+                .passportVerified(Boolean.TRUE.equals(entry.getPassportVerified()))
+                .luggageVerified(Boolean.TRUE.equals(entry.getLuggageVerified()))
+                .boarded(Boolean.TRUE.equals(entry.getBoarded()))
+                .build();
+    }
+}
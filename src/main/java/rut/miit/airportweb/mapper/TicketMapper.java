@@ -8,6 +8,8 @@ import rut.miit.airportweb.dto.TicketCreateDto;
 import rut.miit.airportweb.dto.TicketDto;
 import rut.miit.airportweb.dto.TicketUpdateDto;
 
+import java.util.Locale;
+
 @UtilityClass
 public class TicketMapper {
 
@@ -32,20 +34,27 @@ public class TicketMapper {
     }
 
     // Новый метод для создания TicketEntity из DTO
-    public static TicketEntity map(TicketCreateDto dto, FlightEntity flight, PassengerEntity passenger) {
+    public static TicketEntity map(TicketCreateDto dto, String ticketNumber, FlightEntity flight, PassengerEntity passenger) {
         return TicketEntity.builder()
                 .flight(flight)
                 .passenger(passenger)
-                .seatNumber(dto.getSeatNumber())
+                .seatNumber(normalizeSeatNumber(dto.getSeatNumber()))
                 .price(dto.getPrice())
-                .ticketNumber(dto.getTicketNumber())
+                .ticketNumber(ticketNumber)
                 .build();
     }
 
+    /**
+     * Номер места в том виде, в каком он хранится в билете и в удержании места: без пробелов, заглавными
+     */
+    public static String normalizeSeatNumber(String seatNumber) {
+        return seatNumber == null ? null : seatNumber.trim().toUpperCase(Locale.ROOT);
+    }
+
     // Метод для обновления существующего TicketEntity
     public static void updateEntity(TicketEntity entity, TicketUpdateDto dto) {
         if (dto.getSeatNumber() != null) {
-            entity.setSeatNumber(dto.getSeatNumber());
+            entity.setSeatNumber(normalizeSeatNumber(dto.getSeatNumber()));
         }
         if (dto.getPrice() != null) {
             entity.setPrice(dto.getPrice());
@@ -0,0 +1,44 @@
+package rut.miit.airportweb.mapper;
+
+import lombok.experimental.UtilityClass;
+import rut.miit.airportweb.dao.entity.BoardingPassEntity;
+import rut.miit.airportweb.dao.entity.FlightEntity;
+import rut.miit.airportweb.dao.entity.TicketEntity;
+import rut.miit.airportweb.dto.TripDto;
+
+import java.time.LocalDateTime;
+
+@UtilityClass
+public class TripMapper {
+
+    public static TripDto map(TicketEntity ticket, LocalDateTime now) {
+        FlightEntity flight = ticket.getFlight();
+        BoardingPassEntity boardingPass = ticket.getBoardingPass();
+        boolean departed = flight.getStatus() == FlightEntity.FlightStatus.DEPARTED
+                || flight.getStatus() == FlightEntity.FlightStatus.ARRIVED;
+
+        return TripDto.builder()
+                .id(ticket.getId())
+                .ticketNumber(ticket.getTicketNumber())
+                .seatNumber(ticket.getSeatNumber())
+                .status(ticket.getStatus().toString())
+                .price(ticket.getPrice())
+                .bookingDate(ticket.getBookingDate())
+                .passengerName(ticket.getPassenger().getUser().getFirstName() + " "
+                        + ticket.getPassenger().getUser().getLastName())
+                .passportNumber(ticket.getPassenger().getPassportNumber())
+                .flightId(flight.getId())
+                .flightNumber(flight.getFlightNumber())
+                .departureCity(flight.getDepartureCity())
+                .arrivalCity(flight.getArrivalCity())
+                .departureTime(flight.getDepartureTime())
+                .arrivalTime(flight.getArrivalTime())
+                .flightStatus(flight.getStatus().toString())
+                .boardingPassIssued(boardingPass != null)
+                .passportVerified(boardingPass != null && Boolean.TRUE.equals(boardingPass.getPassportVerified()))
+                .luggageVerified(boardingPass != null && Boolean.TRUE.equals(boardingPass.getLuggageVerified()))
+                .boarded(boardingPass != null && Boolean.TRUE.equals(boardingPass.getBoarded()))
+                .upcoming(!departed && flight.getArrivalTime().isAfter(now))
+                .build();
+    }
+}
@@ -0,0 +1,68 @@
+package rut.miit.airportweb.service;
+
+import java.io.Writer;
+import java.time.LocalDateTime;
+
+/**
+ * Сервис потоковой выгрузки данных (CSV и JSON Lines).
+ * Данные читаются из базы курсором и сразу пишутся в {@link Writer},
+ * поэтому расход памяти не зависит от объема выгрузки.
+ */
+public interface ExportService {
+
+    /**
+     * Выгрузить все рейсы
+     * @param format формат выгрузки
+     * @param writer куда писать результат
+     * @return количество выгруженных строк
+     */
+    long exportFlights(ExportFormat format, Writer writer);
+
+    /**
+     * Выгрузить манифест пассажиров рейса
+     * @param flightNumber номер рейса
+     * @param format формат выгрузки
+     * @param writer куда писать результат
+     * @return количество выгруженных строк
+     */
+    long exportFlightManifest(String flightNumber, ExportFormat format, Writer writer);
+
+    /**
+     * Выгрузить билеты, забронированные в интервале [from, to)
+     * @param from начало интервала (включительно)
+     * @param to конец интервала (не включительно)
+     * @param format формат выгрузки
+     * @param writer куда писать результат
+     * @return количество выгруженных строк
+     */
+    long exportTickets(LocalDateTime from, LocalDateTime to, ExportFormat format, Writer writer);
+
+
+    /**
+     * Формат выгрузки
+     */
+    enum ExportFormat {
+        CSV("text/csv", "csv"),
+        JSONL("application/x-ndjson", "jsonl");
+
+        private final String contentType;
+        private final String extension;
+
+        ExportFormat(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() { return contentType; }
+        public String getExtension() { return extension; }
+
+        public static ExportFormat of(String value) {
+            try {
+                return ExportFormat.valueOf(value.toUpperCase());
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Invalid export format: " + value + ". Expected csv or jsonl");
+            }
+        }
+    }
+
+}
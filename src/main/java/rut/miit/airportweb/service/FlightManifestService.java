@@ -0,0 +1,16 @@
+package rut.miit.airportweb.service;
+
+import rut.miit.airportweb.dto.FlightManifestDto;
+
+/**
+ * Манифест рейса для экранов регистрации, посадки, пограничного и таможенного контроля
+ */
+public interface FlightManifestService {
+
+    /**
+     * Получить манифест рейса одним чтением денормализованной таблицы flight_manifest
+     * @param flightNumber номер рейса
+     * @return манифест; у рейса без билетов — пустой
+     */
+    FlightManifestDto getManifest(String flightNumber);
+}
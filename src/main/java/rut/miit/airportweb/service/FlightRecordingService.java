@@ -0,0 +1,24 @@
+package rut.miit.airportweb.service;
+
+import java.io.OutputStream;
+
+/**
+ * Постоянная запись Java Flight Recorder с событиями приложения
+ * ({@link rut.miit.airportweb.diagnostics.AirportOperationEvent}).
+ * Запись хранит последние минуты работы и выгружается по запросу для анализа в JDK Mission Control
+ */
+public interface FlightRecordingService {
+
+    /**
+     * Идет ли постоянная запись
+     * @return true, если запись запущена
+     */
+    boolean isRecording();
+
+    /**
+     * Выгрузить снимок записи в формате .jfr
+     * @param out куда писать снимок
+     * @throws rut.miit.airportweb.exception.NotPermittedOperation если запись выключена
+     */
+    void dump(OutputStream out);
+}
@@ -2,6 +2,7 @@ package rut.miit.airportweb.service;
 
 import rut.miit.airportweb.dto.FlightCreateDto;
 import rut.miit.airportweb.dto.FlightDto;
+import rut.miit.airportweb.dto.FlightSearchDto;
 
 import java.util.List;
 
@@ -37,6 +38,14 @@ public interface FlightService extends CommonService {
      */
     void deleteFlight(String flightNumber);
 
+    /**
+     * Изменить статус рейса
+     * @param flightNumber номер рейса
+     * @param status новый статус
+     * @return обновленный рейс
+     */
+    FlightDto updateFlightStatus(String flightNumber, String status);
+
     /**
      * Найти рейсы по городам отправления и назначения
      * @param departureCity город отправления
@@ -53,6 +62,16 @@ public interface FlightService extends CommonService {
      */
     List<FlightDto> findFlightsByTimes(String departureTime, String arrivalTime);
 
+    /**
+     * Найти рейсы по окну времени отправления.
+     * Границы окна, город отправления, город назначения и статус необязательны; город сравнивается
+     * по началу названия без учета регистра. Результат упорядочен по времени вылета и ограничен
+     * {@link FlightSearchDto#getLimit()} (по умолчанию 100, не больше 500)
+     * @param searchDto параметры поиска
+     * @return список рейсов
+     */
+    List<FlightDto> searchFlights(FlightSearchDto searchDto);
+
     /**
      * Обновить доступные места на рейсе
      * @param flightNumber номер рейса
@@ -0,0 +1,34 @@
+package rut.miit.airportweb.service;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Однократное выполнение изменяющих запросов по ключу идемпотентности.
+ * Повторный запрос с тем же ключом не выполняет действие заново,
+ * а получает сохраненный результат первого. Одновременные дубликаты
+ * дожидаются завершения первого запроса. Запоминается только успешный результат:
+ * после ошибки повтор с тем же ключом выполняется заново
+ */
+public interface IdempotencyService {
+
+    /**
+     * Выполнить действие один раз для ключа
+     * @param key ключ идемпотентности (уже включающий пользователя и операцию)
+     * @param action действие
+     * @return результат действия, сохраненный при первом успешном выполнении
+     */
+    StoredOutcome execute(String key, Supplier<StoredOutcome> action);
+
+
+    /**
+     * Результат обработки формы: представление, flash-атрибуты для него и признак успеха.
+     * Неуспешный результат получают только одновременные дубликаты, он не сохраняется
+     */
+    record StoredOutcome(String viewName, Map<String, String> flashAttributes, boolean succeeded) {
+
+        public StoredOutcome(String viewName, Map<String, String> flashAttributes) {
+            this(viewName, flashAttributes, true);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package rut.miit.airportweb.service;
+
+import rut.miit.airportweb.dto.ItineraryDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Поиск маршрутов с пересадками по графу ближайших рейсов в памяти
+ */
+public interface ItineraryService {
+
+    /**
+     * Найти лучшие маршруты между городами: прямые рейсы и рейсы с одной пересадкой.
+     * Маршруты упорядочены по времени прибытия, затем по числу пересадок
+     * @param departureCity город отправления
+     * @param arrivalCity город назначения
+     * @param earliestDeparture самое раннее время вылета первого рейса
+     * @param maxResults максимальное количество маршрутов
+     * @return список маршрутов
+     */
+    List<ItineraryDto> findItineraries(String departureCity, String arrivalCity,
+                                       LocalDateTime earliestDeparture, int maxResults);
+
+    /**
+     * Полностью перестроить граф маршрутов из базы данных
+     */
+    void rebuild();
+}
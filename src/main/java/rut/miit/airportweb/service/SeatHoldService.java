@@ -0,0 +1,55 @@
+package rut.miit.airportweb.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Временное удержание мест на время оформления билета.
+ * Удержание хранится в памяти и снимается по истечении срока,
+ * при подтверждении бронирования или при удержании другого места на том же рейсе
+ */
+public interface SeatHoldService {
+
+    /**
+     * Удержать место за пользователем или продлить его собственное удержание.
+     * Предыдущее удержание пользователя на этом рейсе снимается
+     * @param flightNumber номер рейса
+     * @param seatNumber номер места
+     * @param owner имя пользователя
+     * @return удержание
+     * @throws rut.miit.airportweb.exception.NotPermittedOperation если место удерживает другой пользователь
+     */
+    SeatHold hold(String flightNumber, String seatNumber, String owner);
+
+    /**
+     * Снять удержание места, если оно принадлежит пользователю
+     * @param flightNumber номер рейса
+     * @param seatNumber номер места
+     * @param owner имя пользователя
+     */
+    void release(String flightNumber, String seatNumber, String owner);
+
+    /**
+     * Места рейса, удерживаемые другими пользователями
+     * @param flightNumber номер рейса
+     * @param owner имя текущего пользователя
+     * @return номера мест
+     */
+    List<String> getHeldSeats(String flightNumber, String owner);
+
+    /**
+     * Действующее удержание пользователя на рейсе
+     * @param flightNumber номер рейса
+     * @param owner имя пользователя
+     * @return удержание, если есть
+     */
+    Optional<SeatHold> findHold(String flightNumber, String owner);
+
+
+    /**
+     * Удержание места
+     */
+    record SeatHold(String flightNumber, String seatNumber, String owner, LocalDateTime expiresAt) {
+    }
+}
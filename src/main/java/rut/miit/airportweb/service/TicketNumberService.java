@@ -0,0 +1,22 @@
+package rut.miit.airportweb.service;
+
+/**
+ * Выдача уникальных номеров билетов.
+ * Номера берутся из блоков, зарезервированных в базе данных, поэтому уникальны
+ * между всеми экземплярами приложения и не требуют проверки на существование
+ */
+public interface TicketNumberService {
+
+    /**
+     * Выдать следующий номер билета
+     * @return номер билета вида TKT-XXXXXXXXC, где C — контрольный символ
+     */
+    String nextTicketNumber();
+
+    /**
+     * Проверить формат и контрольный символ номера билета
+     * @param ticketNumber номер билета
+     * @return true, если номер выдан этим сервисом и не искажен
+     */
+    boolean isValid(String ticketNumber);
+}
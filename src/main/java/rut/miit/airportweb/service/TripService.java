@@ -0,0 +1,23 @@
+package rut.miit.airportweb.service;
+
+import rut.miit.airportweb.dto.PassengerTripsDto;
+
+/**
+ * Поездки пассажира для его панели и списка билетов
+ */
+public interface TripService {
+
+    /**
+     * Получить поездки пассажира одним запросом; результат кэшируется на узле на короткий срок
+     * @param username имя пользователя пассажира
+     * @return поездки; у пользователя без билетов — пустые
+     */
+    PassengerTripsDto getTrips(String username);
+
+    /**
+     * Сбросить кэш поездок пассажира на всех узлах после фиксации текущей транзакции
+     * (без транзакции — сразу)
+     * @param username имя пользователя пассажира; {@code null} игнорируется
+     */
+    void invalidateTrips(String username);
+}
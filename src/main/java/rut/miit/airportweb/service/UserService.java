@@ -1,11 +1,11 @@
 package rut.miit.airportweb.service;
 
 import rut.miit.airportweb.dto.UserDto;
+import rut.miit.airportweb.dto.UserPageDto;
 import rut.miit.airportweb.dto.UserRegistrationDto;
+import rut.miit.airportweb.dto.UserSearchDto;
 import rut.miit.airportweb.exception.EntityNotFoundException;
 
-import java.util.List;
-
 /**
  * Сервис для управления пользователями
  */
@@ -35,10 +35,19 @@ public interface UserService {
     UserDto getUserByFullName(String firstName, String lastName) throws EntityNotFoundException;
 
     /**
-     * Получить всех пользователей с оптимизированным запросом
-     * @return список пользователей
+     * Страница справочника пользователей с фильтром по роли и началу фамилии или имени пользователя.
+     * Страницы идут по курсору (ключу последнего пользователя), а не по номеру, поэтому дальняя страница
+     * стоит столько же, сколько первая
+     * @param searchDto фильтры, порядок, курсор и размер страницы
+     * @return пользователи страницы, курсор следующей и количество под фильтром
+     */
+    UserPageDto searchUsers(UserSearchDto searchDto);
+
+    /**
+     * Количество пользователей: точное до порога, дальше — оценка по статистике таблицы
+     * @return количество пользователей
      */
-    List<UserDto> getAllUsersOptimized();
+    long countUsers();
 
     /**
      * Аутентификация пользователя
@@ -68,10 +77,4 @@ public interface UserService {
      * @return true если пользователь существует
      */
     boolean userExists(String username);
-
-    /**
-     * Получить всех пассажиров (пользователей с ролью PASSENGER)
-     * @return список пассажиров
-     */
-    List<UserDto> getAllPassengers();
 }
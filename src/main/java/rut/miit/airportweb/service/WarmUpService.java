@@ -0,0 +1,43 @@
+package rut.miit.airportweb.service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Прогрев приложения перед тем, как экземпляр объявит готовность принимать трафик:
+ * рейсы на сегодня и их списки пассажиров, разбор JPQL из {@code @Query}, разбор шаблонов
+ * Thymeleaf и синтетические вызовы горячих методов сервисов для JIT
+ */
+public interface WarmUpService {
+
+    /**
+     * Выполнить прогрев
+     * @return отчет о прогреве
+     */
+    WarmUpReport warmUp();
+
+    /**
+     * Отчет о последнем прогреве
+     * @return пусто, если прогрев не выполнялся
+     */
+    Optional<WarmUpReport> getLastReport();
+
+    /**
+     * Результат прогрева
+     * @param duration длительность прогрева целиком
+     * @param flights рейсов на сегодня, загруженных вместе со списками пассажиров
+     * @param queries разобранных запросов {@code @Query}
+     * @param templates обработанных шаблонов
+     * @param iterations итераций синтетической нагрузки
+     * @param coldProbe время первого (холодного) типового запроса у выхода на посадку
+     * @param warmProbe медиана того же запроса после прогрева
+     */
+    record WarmUpReport(Duration duration,
+                        int flights,
+                        int queries,
+                        int templates,
+                        int iterations,
+                        Duration coldProbe,
+                        Duration warmProbe) {
+    }
+}
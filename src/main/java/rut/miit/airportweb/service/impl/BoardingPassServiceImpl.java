@@ -5,12 +5,15 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
+import rut.miit.airportweb.config.outbox.DomainEventType;
+import rut.miit.airportweb.config.outbox.OutboxWriter;
 import rut.miit.airportweb.dao.entity.BoardingPassEntity;
 import rut.miit.airportweb.dao.entity.TicketEntity;
 import rut.miit.airportweb.dao.entity.UserEntity;
 import rut.miit.airportweb.dao.repository.BoardingPassRepository;
 import rut.miit.airportweb.dao.repository.TicketRepository;
 import rut.miit.airportweb.dao.repository.UserRepository;
+import rut.miit.airportweb.diagnostics.AirportOperationEvent;
 import rut.miit.airportweb.dto.BoardingPassCreateDto;
 import rut.miit.airportweb.dto.BoardingPassDto;
 import rut.miit.airportweb.exception.EntityAlreadyExistsException;
@@ -18,8 +21,11 @@ import rut.miit.airportweb.exception.EntityNotFoundException;
 import rut.miit.airportweb.exception.NotPermittedOperation;
 import rut.miit.airportweb.mapper.BoardingPassMapper;
 import rut.miit.airportweb.service.BoardingPassService;
+import rut.miit.airportweb.service.TripService;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -31,6 +37,8 @@ public class BoardingPassServiceImpl implements BoardingPassService {
     private final BoardingPassRepository boardingPassRepository;
     private final TicketRepository ticketRepository;
     private final UserRepository userRepository;
+    private final OutboxWriter outboxWriter;
+    private final TripService tripService;
 
     @Override
     @Transactional(readOnly = true)
@@ -132,6 +140,9 @@ public class BoardingPassServiceImpl implements BoardingPassService {
 
         // Сохраняем посадочный талон
         BoardingPassEntity savedBoardingPass = boardingPassRepository.save(boardingPass);
+        outboxWriter.append(DomainEventType.BOARDING_PASS_ISSUED, savedBoardingPass.getId(),
+                boardingPassData(savedBoardingPass));
+        invalidateTrips(savedBoardingPass);
 
         log.info("Created boarding pass with ID: {} for ticket: {}",
                 savedBoardingPass.getId(), boardingPassCreateDto.getTicketNumber());
@@ -154,6 +165,8 @@ public class BoardingPassServiceImpl implements BoardingPassService {
                     "Cannot delete boarding pass for already boarded passenger");
         }
 
+        outboxWriter.append(DomainEventType.BOARDING_PASS_DELETED, id, boardingPassData(boardingPass));
+        invalidateTrips(boardingPass);
         boardingPassRepository.delete(boardingPass);
         log.info("Deleted boarding pass with ID: {}", id);
     }
@@ -187,6 +200,8 @@ public class BoardingPassServiceImpl implements BoardingPassService {
         boardingPass.setVerifiedByBorderGuard(borderGuard);
 
         BoardingPassEntity updatedBoardingPass = boardingPassRepository.save(boardingPass);
+        outboxWriter.append(DomainEventType.PASSPORT_VERIFIED, boardingPassId, boardingPassData(updatedBoardingPass));
+        invalidateTrips(updatedBoardingPass);
 
         log.info("Updated passport verification for boarding pass ID: {} to {} by user ID: {}",
                 boardingPassId, passportVerified, verifiedByUserId);
@@ -229,6 +244,8 @@ public class BoardingPassServiceImpl implements BoardingPassService {
         }
 
         BoardingPassEntity updatedBoardingPass = boardingPassRepository.save(boardingPass);
+        outboxWriter.append(DomainEventType.LUGGAGE_VERIFIED, boardingPassId, boardingPassData(updatedBoardingPass));
+        invalidateTrips(updatedBoardingPass);
 
         log.info("Updated luggage verification for boarding pass ID: {} to {} by user ID: {}",
                 boardingPassId, luggageVerified, verifiedByUserId);
@@ -260,6 +277,13 @@ public class BoardingPassServiceImpl implements BoardingPassService {
         }
 
         BoardingPassEntity updatedBoardingPass = boardingPassRepository.save(boardingPass);
+        outboxWriter.append(DomainEventType.BOARDING_STATUS_CHANGED, boardingPassId, boardingPassData(updatedBoardingPass));
+        invalidateTrips(updatedBoardingPass);
+        // Посадка через талон сажает и по билету: получатели ждут одно событие о посадке независимо от пути
+        if (boarded && updatedBoardingPass.getTicket() != null) {
+            TicketEntity ticket = updatedBoardingPass.getTicket();
+            outboxWriter.append(DomainEventType.PASSENGER_BOARDED, ticket.getTicketNumber(), ticketData(ticket));
+        }
 
         log.info("Updated boarding status for boarding pass ID: {} to {}",
                 boardingPassId, boarded);
@@ -270,62 +294,66 @@ public class BoardingPassServiceImpl implements BoardingPassService {
     @Override
     @Transactional(readOnly = true)
     public BoardingReadinessCheck checkBoardingReadiness(Integer boardingPassId) {
-        log.debug("Checking boarding readiness for boarding pass ID: {}", boardingPassId);
-
-        BoardingPassEntity boardingPass = boardingPassRepository.findById(boardingPassId)
-                .orElseThrow(() -> new EntityNotFoundException(
-                        String.format("Boarding pass with ID %d not found", boardingPassId)));
-
-        boolean passportVerified = Boolean.TRUE.equals(boardingPass.getPassportVerified());
-        boolean luggageVerified = Boolean.TRUE.equals(boardingPass.getLuggageVerified());
-
-        // Проверяем все требования для посадки
-        StringBuilder message = new StringBuilder();
-        boolean isReady = true;
-
-        // 1. Проверка паспорта
-        if (!passportVerified) {
-            message.append("Паспорт не проверен. ");
-            isReady = false;
-        }
-
-        // 2. Проверка багажа
-        if (!luggageVerified) {
-            message.append("Багаж не проверен. ");
-            isReady = false;
-        }
-
-        // 3. Проверка статуса рейса
-        if (boardingPass.getTicket() != null &&
-                boardingPass.getTicket().getFlight() != null &&
-                boardingPass.getTicket().getFlight().getStatus() !=
-                        rut.miit.airportweb.dao.entity.FlightEntity.FlightStatus.BOARDING) {
-            message.append("Рейс не в статусе посадки. ");
-            isReady = false;
-        }
-
-        // 4. Проверка статуса билета
-        if (boardingPass.getTicket() != null &&
-                boardingPass.getTicket().getStatus() != TicketEntity.TicketStatus.CHECKED_IN) {
-            message.append("Пассажир не зарегистрирован на рейс. ");
-            isReady = false;
+        try (AirportOperationEvent event = AirportOperationEvent.start("checkBoardingReadiness")) {
+            log.debug("Checking boarding readiness for boarding pass ID: {}", boardingPassId);
+
+            BoardingPassEntity boardingPass = boardingPassRepository.findById(boardingPassId)
+                    .orElseThrow(() -> new EntityNotFoundException(
+                            String.format("Boarding pass with ID %d not found", boardingPassId)));
+            event.setFlightNumber(boardingPass.getTicket() != null ? boardingPass.getTicket().getFlight().getFlightNumber() : null);
+
+            boolean passportVerified = Boolean.TRUE.equals(boardingPass.getPassportVerified());
+            boolean luggageVerified = Boolean.TRUE.equals(boardingPass.getLuggageVerified());
+
+            // Проверяем все требования для посадки
+            StringBuilder message = new StringBuilder();
+            boolean isReady = true;
+
+            // 1. Проверка паспорта
+            if (!passportVerified) {
+                message.append("Паспорт не проверен. ");
+                isReady = false;
+            }
+
+            // 2. Проверка багажа
+            if (!luggageVerified) {
+                message.append("Багаж не проверен. ");
+                isReady = false;
+            }
+
+            // 3. Проверка статуса рейса
+            if (boardingPass.getTicket() != null &&
+                    boardingPass.getTicket().getFlight() != null &&
+                    boardingPass.getTicket().getFlight().getStatus() !=
+                            rut.miit.airportweb.dao.entity.FlightEntity.FlightStatus.BOARDING) {
+                message.append("Рейс не в статусе посадки. ");
+                isReady = false;
+            }
+
+            // 4. Проверка статуса билета
+            if (boardingPass.getTicket() != null &&
+                    boardingPass.getTicket().getStatus() != TicketEntity.TicketStatus.CHECKED_IN) {
+                message.append("Пассажир не зарегистрирован на рейс. ");
+                isReady = false;
+            }
+
+            // 5. Проверка, не посажен ли уже
+            if (Boolean.TRUE.equals(boardingPass.getBoarded())) {
+                message.append("Пассажир уже посажен. ");
+                isReady = false;
+            }
+
+            // Если все проверки пройдены
+            if (isReady) {
+                message.append("Пассажир готов к посадке.");
+            }
+
+            BoardingPassDto boardingPassDto = BoardingPassMapper.map(boardingPass);
+
+            event.setOutcome(AirportOperationEvent.SUCCESS);
+            return new BoardingReadinessCheck(isReady, message.toString(),
+                    boardingPassDto, passportVerified, luggageVerified);
         }
-
-        // 5. Проверка, не посажен ли уже
-        if (Boolean.TRUE.equals(boardingPass.getBoarded())) {
-            message.append("Пассажир уже посажен. ");
-            isReady = false;
-        }
-
-        // Если все проверки пройдены
-        if (isReady) {
-            message.append("Пассажир готов к посадке.");
-        }
-
-        BoardingPassDto boardingPassDto = BoardingPassMapper.map(boardingPass);
-
-        return new BoardingReadinessCheck(isReady, message.toString(),
-                boardingPassDto, passportVerified, luggageVerified);
     }
 
     // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
@@ -372,6 +400,43 @@ public class BoardingPassServiceImpl implements BoardingPassService {
         }
     }
 
+    /**
+     * Поездки владельца билета в кэше TripService сбрасываются после фиксации
+     */
+    private void invalidateTrips(BoardingPassEntity boardingPass) {
+        TicketEntity ticket = boardingPass.getTicket();
+        if (ticket != null && ticket.getPassenger() != null && ticket.getPassenger().getUser() != null) {
+            tripService.invalidateTrips(ticket.getPassenger().getUser().getUsername());
+        }
+    }
+
+    /**
+     * Атрибуты событий талона в ленте outbox; пустые значения OutboxWriter пропускает
+     */
+    private static Map<String, Object> boardingPassData(BoardingPassEntity boardingPass) {
+        Map<String, Object> data = new HashMap<>();
+        TicketEntity ticket = boardingPass.getTicket();
+        if (ticket != null) {
+            data.put("ticketNumber", ticket.getTicketNumber());
+            data.put("flightNumber", ticket.getFlight().getFlightNumber());
+            data.put("passportNumber", ticket.getPassenger().getPassportNumber());
+            data.put("ticketStatus", ticket.getStatus());
+        }
+        data.put("passportVerified", boardingPass.getPassportVerified());
+        data.put("luggageVerified", boardingPass.getLuggageVerified());
+        data.put("boarded", boardingPass.getBoarded());
+        return data;
+    }
+
+    private static Map<String, Object> ticketData(TicketEntity ticket) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("flightNumber", ticket.getFlight().getFlightNumber());
+        data.put("passportNumber", ticket.getPassenger().getPassportNumber());
+        data.put("seatNumber", ticket.getSeatNumber());
+        data.put("status", ticket.getStatus());
+        return data;
+    }
+
     // ========== ДОПОЛНИТЕЛЬНЫЕ МЕТОДЫ (не в интерфейсе, но полезные) ==========
 
     /**
@@ -3,7 +3,9 @@ package rut.miit.airportweb.service;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import rut.miit.airportweb.diagnostics.AirportOperationEvent;
 import rut.miit.airportweb.dto.*;
 
 import java.time.LocalDate;
@@ -15,6 +17,7 @@ import java.util.regex.Pattern;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class BorderCheckService {
 
     private final PassengerService passengerService;
@@ -79,6 +82,17 @@ public class BorderCheckService {
      * Полная пограничная проверка
      */
     public BorderCheckResultDto performBorderCheck(String passportNumber, String ticketNumber) {
+        try (AirportOperationEvent event = AirportOperationEvent.start("borderCheck")) {
+            BorderCheckResultDto result = checkBorder(passportNumber, ticketNumber);
+            if (result.getTicket() != null) {
+                event.setFlightNumber(result.getTicket().getFlightNumber());
+            }
+            event.setOutcome(result.isBorderClearance() ? AirportOperationEvent.SUCCESS : AirportOperationEvent.FAILURE);
+            return result;
+        }
+    }
+
+    private BorderCheckResultDto checkBorder(String passportNumber, String ticketNumber) {
         try {
             // 1. Проверяем паспорт через PassengerService
             PassengerService.PassportVerificationResult passportResult =
@@ -208,8 +222,7 @@ public class BorderCheckService {
      */
     public void markAsBorderCleared(String passportNumber, String officerNotes) {
         // Здесь можно добавить логику для сохранения записи о проверке
-        System.out.println("Пассажир " + passportNumber +
-                " прошел пограничный контроль. Заметки: " + officerNotes);
+        log.info("Passenger {} cleared border control, officer notes: {}", passportNumber, officerNotes);
     }
 
     // Вспомогательный класс для результатов проверки визы
@@ -1,7 +1,9 @@
 package rut.miit.airportweb.service.impl;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import rut.miit.airportweb.diagnostics.AirportOperationEvent;
 import rut.miit.airportweb.dto.CustomsCheckResultDto;
 import rut.miit.airportweb.dto.PassengerDto;
 import rut.miit.airportweb.dto.TicketDto;
@@ -12,6 +14,7 @@ import java.util.List;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class CustomsCheckService {
 
     private final PassengerService passengerService;
@@ -21,6 +24,17 @@ public class CustomsCheckService {
      * Полная проверка пассажира для таможенного контроля
      */
     public CustomsCheckResultDto performFullCheck(String passportNumber, String ticketNumber) {
+        try (AirportOperationEvent event = AirportOperationEvent.start("customsCheck")) {
+            CustomsCheckResultDto result = checkCustoms(passportNumber, ticketNumber);
+            if (result.getTicket() != null) {
+                event.setFlightNumber(result.getTicket().getFlightNumber());
+            }
+            event.setOutcome(result.isAllChecksPassed() ? AirportOperationEvent.SUCCESS : AirportOperationEvent.FAILURE);
+            return result;
+        }
+    }
+
+    private CustomsCheckResultDto checkCustoms(String passportNumber, String ticketNumber) {
         try {
             // 1. Проверяем паспорт
             PassengerService.PassportVerificationResult passportResult =
@@ -124,6 +138,6 @@ public class CustomsCheckService {
         // Например, создать запись в таблице customs_checks или обновить статус билета
 
         // Пока просто логируем
-        System.out.println("Пассажир " + passportNumber + " прошел таможенный контроль");
+        log.info("Passenger {} cleared customs control", passportNumber);
     }
 }
\ No newline at end of file
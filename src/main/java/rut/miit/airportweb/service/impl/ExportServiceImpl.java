@@ -0,0 +1,236 @@
+package rut.miit.airportweb.service.impl;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import rut.miit.airportweb.dao.entity.BoardingPassEntity;
+import rut.miit.airportweb.dao.entity.FlightEntity;
+import rut.miit.airportweb.dao.entity.TicketEntity;
+import rut.miit.airportweb.dao.entity.UserEntity;
+import rut.miit.airportweb.dao.repository.FlightRepository;
+import rut.miit.airportweb.dao.repository.TicketRepository;
+import rut.miit.airportweb.exception.EntityNotFoundException;
+import rut.miit.airportweb.service.ExportService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+@Lazy
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+@Slf4j
+public class ExportServiceImpl implements ExportService {
+
+    // Через сколько строк сбрасывать буфер и очищать persistence context
+    private static final int CLEAR_INTERVAL = 1000;
+
+    private static final String[] FLIGHT_COLUMNS = {
+            "flightNumber", "departureCity", "arrivalCity", "departureTime", "arrivalTime",
+            "totalSeats", "availableSeats", "status", "createdBy"
+    };
+
+    private static final String[] MANIFEST_COLUMNS = {
+            "ticketNumber", "seatNumber", "ticketStatus", "firstName", "lastName", "passportNumber",
+            "luggageChecked", "checkInTime", "passportVerified", "luggageVerified", "boarded"
+    };
+
+    private static final String[] TICKET_COLUMNS = {
+            "ticketNumber", "flightNumber", "seatNumber", "price", "status", "bookingDate",
+            "passportNumber", "passengerName", "departureTime"
+    };
+
+    private final FlightRepository flightRepository;
+    private final TicketRepository ticketRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public long exportFlights(ExportFormat format, Writer writer) {
+        log.info("Exporting flights as {}", format);
+
+        try (Stream<FlightEntity> flights = flightRepository.streamAllForExport()) {
+            return writeRows(flights, format, FLIGHT_COLUMNS, writer, flight -> new Object[]{
+                    flight.getFlightNumber(),
+                    flight.getDepartureCity(),
+                    flight.getArrivalCity(),
+                    flight.getDepartureTime(),
+                    flight.getArrivalTime(),
+                    flight.getTotalSeats(),
+                    flight.getAvailableSeats(),
+                    flight.getStatus(),
+                    usernameOf(flight.getCreatedBy())
+            });
+        }
+    }
+
+    @Override
+    public long exportFlightManifest(String flightNumber, ExportFormat format, Writer writer) {
+        log.info("Exporting manifest of flight {} as {}", flightNumber, format);
+
+        if (flightRepository.findByFlightNumber(flightNumber).isEmpty()) {
+            throw new EntityNotFoundException(String.format("Flight with flight number %s not found", flightNumber));
+        }
+
+        try (Stream<TicketEntity> tickets = ticketRepository.streamManifestByFlight(flightNumber)) {
+            return writeRows(tickets, format, MANIFEST_COLUMNS, writer, ticket -> {
+                BoardingPassEntity boardingPass = ticket.getBoardingPass();
+                UserEntity user = ticket.getPassenger().getUser();
+                return new Object[]{
+                        ticket.getTicketNumber(),
+                        ticket.getSeatNumber(),
+                        ticket.getStatus(),
+                        user.getFirstName(),
+                        user.getLastName(),
+                        ticket.getPassenger().getPassportNumber(),
+                        ticket.getPassenger().getLuggageChecked(),
+                        boardingPass != null ? boardingPass.getCheckInTime() : null,
+                        boardingPass != null ? boardingPass.getPassportVerified() : null,
+                        boardingPass != null ? boardingPass.getLuggageVerified() : null,
+                        boardingPass != null ? boardingPass.getBoarded() : null
+                };
+            });
+        }
+    }
+
+    @Override
+    public long exportTickets(LocalDateTime from, LocalDateTime to, ExportFormat format, Writer writer) {
+        log.info("Exporting tickets booked in [{}, {}) as {}", from, to, format);
+
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("Export range start must be before its end");
+        }
+
+        try (Stream<TicketEntity> tickets = ticketRepository.streamByBookingDateRange(from, to)) {
+            return writeRows(tickets, format, TICKET_COLUMNS, writer, ticket -> {
+                UserEntity user = ticket.getPassenger().getUser();
+                return new Object[]{
+                        ticket.getTicketNumber(),
+                        ticket.getFlight().getFlightNumber(),
+                        ticket.getSeatNumber(),
+                        ticket.getPrice(),
+                        ticket.getStatus(),
+                        ticket.getBookingDate(),
+                        ticket.getPassenger().getPassportNumber(),
+                        user.getFirstName() + " " + user.getLastName(),
+                        ticket.getFlight().getDepartureTime()
+                };
+            });
+        }
+    }
+
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
+    /**
+     * Пишет строки из потока в writer. Каждые {@link #CLEAR_INTERVAL} строк сбрасывает буфер
+     * клиенту и очищает persistence context, чтобы прочитанные сущности не накапливались в памяти.
+     */
+    private <T> long writeRows(Stream<T> rows, ExportFormat format, String[] columns,
+                               Writer writer, Function<T, Object[]> rowMapper) {
+        try {
+            if (format == ExportFormat.CSV) {
+                writeCsvLine(writer, columns);
+            }
+
+            long count = 0;
+            var iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Object[] values = rowMapper.apply(iterator.next());
+                if (format == ExportFormat.CSV) {
+                    writeCsvLine(writer, values);
+                } else {
+                    writeJsonLine(writer, columns, values);
+                }
+
+                if (++count % CLEAR_INTERVAL == 0) {
+                    writer.flush();
+                    entityManager.clear();
+                }
+            }
+
+            writer.flush();
+            log.info("Exported {} rows", count);
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Export was interrupted", e);
+        }
+    }
+
+    private static void writeCsvLine(Writer writer, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] == null) {
+                continue;
+            }
+            String value = values[i].toString();
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                    || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write('\n');
+    }
+
+    private static void writeJsonLine(Writer writer, String[] columns, Object[] values) throws IOException {
+        writer.write('{');
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write('"');
+            writer.write(columns[i]);
+            writer.write("\":");
+
+            Object value = values[i];
+            if (value == null) {
+                writer.write("null");
+            } else if (value instanceof Number || value instanceof Boolean) {
+                writer.write(value.toString());
+            } else {
+                writeJsonString(writer, value.toString());
+            }
+        }
+        writer.write("}\n");
+    }
+
+    private static void writeJsonString(Writer writer, String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> writer.write("\\\"");
+                case '\\' -> writer.write("\\\\");
+                case '\n' -> writer.write("\\n");
+                case '\r' -> writer.write("\\r");
+                case '\t' -> writer.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+                }
+            }
+        }
+        writer.write('"');
+    }
+
+    private static String usernameOf(UserEntity user) {
+        return user != null ? user.getUsername() : null;
+    }
+}
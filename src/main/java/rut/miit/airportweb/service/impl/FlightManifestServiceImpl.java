@@ -0,0 +1,25 @@
+package rut.miit.airportweb.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import rut.miit.airportweb.dao.repository.FlightManifestRepository;
+import rut.miit.airportweb.dto.FlightManifestDto;
+import rut.miit.airportweb.mapper.FlightManifestMapper;
+import rut.miit.airportweb.service.FlightManifestService;
+
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class FlightManifestServiceImpl implements FlightManifestService {
+
+    private final FlightManifestRepository flightManifestRepository;
+
+    @Override
+    public FlightManifestDto getManifest(String flightNumber) {
+        return new FlightManifestDto(flightNumber, flightManifestRepository.findByFlightNumber(flightNumber)
+                .stream()
+                .map(FlightManifestMapper::map)
+                .toList());
+    }
+}
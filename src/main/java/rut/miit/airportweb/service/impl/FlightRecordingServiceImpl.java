@@ -0,0 +1,129 @@
+package rut.miit.airportweb.service.impl;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import rut.miit.airportweb.exception.NotPermittedOperation;
+import rut.miit.airportweb.service.FlightRecordingService;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Запись с настройками профиля default, дополненными jfr/airport.jfc.
+ * Хранится на диске в пределах airport.jfr.max-age и airport.jfr.max-size;
+ * снимок делается копией текущей записи, сама запись не останавливается
+ */
+@Service
+@Slf4j
+public class FlightRecordingServiceImpl implements FlightRecordingService {
+
+    static final String RECORDING_NAME = "airport-always-on";
+    private static final String SETTINGS_RESOURCE = "jfr/airport.jfc";
+
+    private final boolean enabled;
+    private final Duration maxAge;
+    private final DataSize maxSize;
+
+    private volatile Recording recording;
+
+    public FlightRecordingServiceImpl(@Value("${airport.jfr.enabled:true}") boolean enabled,
+                                      @Value("${airport.jfr.max-age:30m}") Duration maxAge,
+                                      @Value("${airport.jfr.max-size:256MB}") DataSize maxSize) {
+        this.enabled = enabled;
+        this.maxAge = maxAge;
+        this.maxSize = maxSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled || recording != null) {
+            return;
+        }
+        if (!FlightRecorder.isAvailable()) {
+            log.warn("Java Flight Recorder is not available in this JVM, always-on recording is disabled");
+            return;
+        }
+
+        try {
+            Map<String, String> settings = new HashMap<>(Configuration.getConfiguration("default").getSettings());
+            try (Reader reader = new InputStreamReader(
+                    new ClassPathResource(SETTINGS_RESOURCE).getInputStream(), StandardCharsets.UTF_8)) {
+                settings.putAll(Configuration.create(reader).getSettings());
+            }
+
+            Recording newRecording = new Recording(settings);
+            newRecording.setName(RECORDING_NAME);
+            newRecording.setToDisk(true);
+            newRecording.setMaxAge(maxAge);
+            newRecording.setMaxSize(maxSize.toBytes());
+            newRecording.start();
+            recording = newRecording;
+            log.info("Always-on flight recording started (max age {}, max size {})", maxAge, maxSize);
+        } catch (IOException | ParseException e) {
+            log.error("Failed to start always-on flight recording", e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    @Override
+    public boolean isRecording() {
+        return recording != null;
+    }
+
+    @Override
+    public void dump(OutputStream out) {
+        Recording current = recording;
+        if (current == null) {
+            throw new NotPermittedOperation("Flight recording is not running");
+        }
+
+        Path file = null;
+        try {
+            file = Files.createTempFile("airport-", ".jfr");
+            current.dump(file);
+            long bytes = Files.copy(file, out);
+            log.info("Dumped flight recording snapshot, {} bytes", bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Flight recording dump failed", e);
+        } finally {
+            deleteQuietly(file);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete temporary recording {}", file, e);
+        }
+    }
+}
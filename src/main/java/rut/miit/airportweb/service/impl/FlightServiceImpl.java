@@ -2,15 +2,22 @@ package rut.miit.airportweb.service.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
+import rut.miit.airportweb.config.invalidation.EntityChange;
+import rut.miit.airportweb.config.invalidation.InvalidationPublisher;
+import rut.miit.airportweb.config.outbox.DomainEventType;
+import rut.miit.airportweb.config.outbox.OutboxWriter;
 import rut.miit.airportweb.dao.entity.FlightEntity;
 import rut.miit.airportweb.dao.entity.UserEntity;
 import rut.miit.airportweb.dao.repository.FlightRepository;
 import rut.miit.airportweb.dao.repository.UserRepository;
 import rut.miit.airportweb.dto.FlightCreateDto;
 import rut.miit.airportweb.dto.FlightDto;
+import rut.miit.airportweb.dto.FlightSearchDto;
+import rut.miit.airportweb.event.FlightChangedEvent;
 import rut.miit.airportweb.exception.EntityNotFoundException;
 import rut.miit.airportweb.exception.NotPermittedOperation;
 import rut.miit.airportweb.mapper.FlightMapper;
@@ -20,6 +27,7 @@ import rut.miit.airportweb.exception.EntityAlreadyExistsException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -27,8 +35,14 @@ import java.util.List;
 @Slf4j
 public class FlightServiceImpl implements FlightService {
 
+    private static final int DEFAULT_SEARCH_LIMIT = 100;
+    private static final int MAX_SEARCH_LIMIT = 500;
+
     private final FlightRepository flightRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final InvalidationPublisher invalidationPublisher;
+    private final OutboxWriter outboxWriter;
 
     @Override
     @Transactional(readOnly = true)
@@ -58,7 +72,15 @@ public class FlightServiceImpl implements FlightService {
         FlightEntity savedEntity = this.flightRepository.save(flight);
         log.info("Created flight with flight number {}", flightCreateDto.getFlightNumber());
 
-        return FlightMapper.map(savedEntity);
+        FlightDto createdFlight = FlightMapper.map(savedEntity);
+        this.eventPublisher.publishEvent(new FlightChangedEvent(FlightChangedEvent.ChangeType.CREATED, createdFlight));
+        this.invalidationPublisher.publish(EntityChange.Type.FLIGHT, createdFlight.getFlightNumber());
+        this.outboxWriter.append(DomainEventType.FLIGHT_CREATED, createdFlight.getFlightNumber(), Map.of(
+                "departureCity", createdFlight.getDepartureCity(),
+                "arrivalCity", createdFlight.getArrivalCity(),
+                "departureTime", createdFlight.getDepartureTime(),
+                "status", createdFlight.getStatus()));
+        return createdFlight;
     }
 
     @Override
@@ -72,8 +94,41 @@ public class FlightServiceImpl implements FlightService {
             throw new NotPermittedOperation("Cannot delete flight with existing tickets");
         }
 
+        FlightDto deletedFlight = FlightMapper.map(flight);
         this.flightRepository.delete(flight);
         log.info("Deleted flight with flight number {}", flightNumber);
+
+        this.eventPublisher.publishEvent(new FlightChangedEvent(FlightChangedEvent.ChangeType.DELETED, deletedFlight));
+        this.invalidationPublisher.publish(EntityChange.Type.FLIGHT, flightNumber);
+        this.outboxWriter.append(DomainEventType.FLIGHT_DELETED, flightNumber, Map.of());
+    }
+
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public FlightDto updateFlightStatus(String flightNumber, String status) {
+        FlightEntity flight = this.flightRepository.findByFlightNumber(flightNumber)
+                .orElseThrow(() -> new EntityNotFoundException(String.format("Flight with flight number %s not found", flightNumber)));
+
+        FlightEntity.FlightStatus newStatus;
+        try {
+            newStatus = FlightEntity.FlightStatus.valueOf(status.toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            log.warn(ex.getMessage());
+            throw new IllegalArgumentException("Invalid flight status");
+        }
+
+        FlightEntity.FlightStatus oldStatus = flight.getStatus();
+        flight.setStatus(newStatus);
+        FlightEntity updatedFlight = this.flightRepository.save(flight);
+        log.info("Updated status of flight {}: {} -> {}", flightNumber, oldStatus, newStatus);
+
+        FlightDto updatedFlightDto = FlightMapper.map(updatedFlight);
+        this.eventPublisher.publishEvent(new FlightChangedEvent(FlightChangedEvent.ChangeType.STATUS_CHANGED, updatedFlightDto));
+        this.invalidationPublisher.publish(EntityChange.Type.FLIGHT, flightNumber);
+        this.outboxWriter.append(DomainEventType.FLIGHT_STATUS_CHANGED, flightNumber, Map.of(
+                "oldStatus", oldStatus,
+                "status", newStatus));
+        return updatedFlightDto;
     }
 
     @Override
@@ -98,6 +153,43 @@ public class FlightServiceImpl implements FlightService {
                 .toList();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<FlightDto> searchFlights(FlightSearchDto searchDto) {
+        // Границы окна необязательны: без них окно не ограничено с этой стороны
+        LocalDateTime departureFrom = searchDto.getDepartureFrom();
+        LocalDateTime departureTo = searchDto.getDepartureTo();
+
+        if (departureFrom != null && departureTo != null && !departureFrom.isBefore(departureTo)) {
+            throw new IllegalArgumentException("Departure window start must be before its end");
+        }
+
+        FlightEntity.FlightStatus status = null;
+        if (searchDto.getStatus() != null && !searchDto.getStatus().isBlank()) {
+            try {
+                status = FlightEntity.FlightStatus.valueOf(searchDto.getStatus().toUpperCase());
+            } catch (IllegalArgumentException ex) {
+                log.warn(ex.getMessage());
+                throw new IllegalArgumentException("Invalid flight status");
+            }
+        }
+
+        int limit = searchDto.getLimit() == null
+                ? DEFAULT_SEARCH_LIMIT
+                : Math.min(Math.max(searchDto.getLimit(), 1), MAX_SEARCH_LIMIT);
+
+        return this.flightRepository.searchByDepartureWindow(
+                        departureFrom,
+                        departureTo,
+                        blankToNull(searchDto.getDepartureCity()),
+                        blankToNull(searchDto.getArrivalCity()),
+                        status,
+                        limit)
+                .stream()
+                .map(FlightMapper::map)
+                .toList();
+    }
+
     @Override
     @Transactional(isolation = Isolation.READ_COMMITTED)
     public FlightDto updateAvailableSeats(String flightNumber, int seatsToBook) {
@@ -115,6 +207,9 @@ public class FlightServiceImpl implements FlightService {
         FlightEntity updatedFlight = this.flightRepository.save(flight);
         log.info("Updated available seats for flight {}: {} -> {}",
                 flightNumber, flight.getAvailableSeats(), availableSeats);
+        this.invalidationPublisher.publish(EntityChange.Type.FLIGHT, flightNumber);
+        this.outboxWriter.append(DomainEventType.FLIGHT_SEATS_CHANGED, flightNumber, Map.of(
+                "availableSeats", availableSeats));
 
         return FlightMapper.map(updatedFlight);
     }
@@ -152,4 +247,8 @@ public class FlightServiceImpl implements FlightService {
             throw new IllegalArgumentException("Invalid flight status");
         }
     }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,87 @@
+package rut.miit.airportweb.service.impl;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Колесо таймеров: сроки раскладываются по корзинам по номеру тика,
+ * за один тик просматривается только одна корзина.
+ * Постановка таймера не блокируется; продвижение колеса выполняет один поток за раз
+ * @param <T> тип элемента с таймером
+ */
+class HashedTimingWheel<T> {
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final int mask;
+    private final ArrayDeque<Timeout<T>>[] buckets;
+
+    // Новые таймеры попадают в корзины только при продвижении колеса
+    private final Queue<Timeout<T>> pending = new ConcurrentLinkedQueue<>();
+
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    HashedTimingWheel(long tickMillis, int wheelSize, long nowMillis) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two");
+        }
+        this.tickMillis = tickMillis;
+        this.startMillis = nowMillis;
+        this.mask = wheelSize - 1;
+        this.buckets = new ArrayDeque[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * Поставить таймер на момент deadlineMillis
+     */
+    void schedule(T item, long deadlineMillis) {
+        long deadlineTick = Math.ceilDiv(deadlineMillis - startMillis, tickMillis);
+        pending.add(new Timeout<>(item, deadlineTick));
+    }
+
+    /**
+     * Продвинуть колесо до момента nowMillis и передать истекшие элементы в expired
+     * @return количество истекших элементов
+     */
+    synchronized int advance(long nowMillis, Consumer<T> expired) {
+        long targetTick = (nowMillis - startMillis) / tickMillis;
+        int count = 0;
+
+        Timeout<T> timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.deadlineTick() <= targetTick) {
+                expired.accept(timeout.item());
+                count++;
+            } else {
+                buckets[(int) (timeout.deadlineTick() & mask)].add(timeout);
+            }
+        }
+
+        // После долгой паузы достаточно одного полного оборота
+        long ticks = Math.min(targetTick - currentTick + 1, buckets.length);
+        for (long i = 0; i < ticks; i++) {
+            Iterator<Timeout<T>> iterator = buckets[(int) ((currentTick + i) & mask)].iterator();
+            while (iterator.hasNext()) {
+                Timeout<T> candidate = iterator.next();
+                // Таймеры следующих оборотов остаются в корзине
+                if (candidate.deadlineTick() <= targetTick) {
+                    iterator.remove();
+                    expired.accept(candidate.item());
+                    count++;
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, targetTick + 1);
+        return count;
+    }
+
+    private record Timeout<T>(T item, long deadlineTick) {
+    }
+}
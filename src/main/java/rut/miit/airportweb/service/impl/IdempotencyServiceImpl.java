@@ -0,0 +1,294 @@
+package rut.miit.airportweb.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import rut.miit.airportweb.service.IdempotencyService;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Ключи хранятся в ограниченном по размеру хранилище в памяти: ключ -> future с результатом.
+ * Первый запрос выполняет действие, дубликаты ждут его future.
+ * При airport.idempotency.persistent=true ключ до выполнения действия занимается строкой PENDING
+ * в таблице idempotency_keys ({@code INSERT ... ON CONFLICT}), а результат записывается в нее же.
+ * Дубликат на другом узле (или после перезапуска) не выполняет действие: он ждет результата первого
+ * и получает его, а если первый завершился ошибкой — выполняет действие сам. Строка PENDING узла,
+ * упавшего посреди действия, перестает держать ключ через {@link #CLAIM_TIMEOUT}
+ */
+@Service
+@Slf4j
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    static final int MAX_ENTRIES = 10_000;
+    static final Duration KEY_TTL = Duration.ofHours(1);
+
+    // Сколько дубликат ждет завершения первого запроса
+    private static final Duration WAIT_TIMEOUT = Duration.ofSeconds(30);
+
+    // Через сколько незавершенный ключ в базе можно занять заново; с запасом больше WAIT_TIMEOUT
+    static final Duration CLAIM_TIMEOUT = Duration.ofMinutes(1);
+
+    // Как часто дубликат на другом узле проверяет, завершен ли первый запрос
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(50);
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean persistent;
+
+    public IdempotencyServiceImpl(JdbcTemplate jdbcTemplate,
+                                  @Value("${airport.idempotency.persistent:false}") boolean persistent) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.persistent = persistent;
+    }
+
+    @Override
+    public StoredOutcome execute(String key, Supplier<StoredOutcome> action) {
+        Entry entry = new Entry(System.nanoTime());
+        while (true) {
+            Entry existing = entries.putIfAbsent(key, entry);
+            if (existing == null) {
+                break;
+            }
+            if (!existing.isExpired(System.nanoTime())) {
+                log.info("Replaying outcome for idempotency key {}", key);
+                return await(key, existing);
+            }
+            if (entries.replace(key, existing, entry)) {
+                break;
+            }
+        }
+        insertionOrder.add(key);
+        evictOverflow();
+
+        boolean claimed = false;
+        StoredOutcome outcome;
+        try {
+            if (persistent) {
+                Optional<StoredOutcome> stored = claimOrAwait(key);
+                if (stored.isPresent()) {
+                    log.info("Replaying persisted outcome for idempotency key {}", key);
+                    entry.outcome().complete(stored.get());
+                    return stored.get();
+                }
+                claimed = true;
+            }
+            outcome = action.get();
+        } catch (RuntimeException e) {
+            // Исключение тоже не запоминаем: повтор с тем же ключом выполнится заново
+            entries.remove(key, entry);
+            entry.outcome().completeExceptionally(e);
+            if (claimed) {
+                unclaim(key);
+            }
+            throw e;
+        }
+
+        entry.outcome().complete(outcome);
+        if (!outcome.succeeded()) {
+            // Ошибку (место занято, рейс не найден) видят только ждущие дубликаты; повтор выполнится заново
+            entries.remove(key, entry);
+            if (claimed) {
+                unclaim(key);
+            }
+            return outcome;
+        }
+        if (claimed) {
+            save(key, outcome);
+        }
+        return outcome;
+    }
+
+    @Scheduled(fixedDelayString = "PT1M")
+    public void purgeExpired() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> entry.outcome().isDone() && entry.isExpired(now));
+        insertionOrder.removeIf(key -> !entries.containsKey(key));
+
+        if (persistent) {
+            // Незавершенные ключи старше KEY_TTL тоже удаляются: их давно можно занять заново
+            int deleted = jdbcTemplate.update("DELETE FROM idempotency_keys WHERE created_at < ?",
+                    Timestamp.valueOf(LocalDateTime.now().minus(KEY_TTL)));
+            if (deleted > 0) {
+                log.debug("Purged {} persisted idempotency keys", deleted);
+            }
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
+    private StoredOutcome await(String key, Entry entry) {
+        try {
+            return entry.outcome().get(WAIT_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for request with the same idempotency key", e);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException(
+                    String.format("Request with idempotency key %s is still in progress", key));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Вытесняет самые старые завершенные ключи сверх {@link #MAX_ENTRIES}.
+     * Незавершенные не трогаем: иначе дубликат выполнился бы повторно
+     */
+    private void evictOverflow() {
+        int attempts = insertionOrder.size();
+        while (entries.size() > MAX_ENTRIES && attempts-- > 0) {
+            String oldest = insertionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            Entry remaining = entries.computeIfPresent(oldest, (k, entry) -> entry.outcome().isDone() ? null : entry);
+            if (remaining != null) {
+                insertionOrder.add(oldest);
+            }
+        }
+    }
+
+    /**
+     * Занять ключ в базе или дождаться результата того, кто занял его раньше.
+     * Пустой результат — ключ занят этим запросом и действие нужно выполнить
+     */
+    private Optional<StoredOutcome> claimOrAwait(String key) {
+        long deadline = System.nanoTime() + WAIT_TIMEOUT.toNanos();
+        while (true) {
+            if (claim(key)) {
+                return Optional.empty();
+            }
+            Optional<StoredOutcome> stored = load(key);
+            if (stored.isPresent()) {
+                return stored;
+            }
+            // Ключ занят другим запросом, или тот уже снял его после ошибки — тогда следующая попытка его займет
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException(
+                        String.format("Request with idempotency key %s is still in progress", key));
+            }
+            sleep(POLL_INTERVAL);
+        }
+    }
+
+    // Занимается новый ключ, а также истекший результат или брошенный незавершенный ключ
+    private boolean claim(String key) {
+        LocalDateTime now = LocalDateTime.now();
+        return jdbcTemplate.update("""
+                        INSERT INTO idempotency_keys (idempotency_key, status, created_at)
+                        VALUES (?, 'PENDING', ?)
+                        ON CONFLICT (idempotency_key) DO UPDATE
+                        SET status = 'PENDING', view_name = NULL, flash_attributes = NULL, created_at = EXCLUDED.created_at
+                        WHERE (idempotency_keys.status = 'DONE' AND idempotency_keys.created_at < ?)
+                           OR (idempotency_keys.status = 'PENDING' AND idempotency_keys.created_at < ?)
+                        """,
+                key, Timestamp.valueOf(now), Timestamp.valueOf(now.minus(KEY_TTL)),
+                Timestamp.valueOf(now.minus(CLAIM_TIMEOUT))) > 0;
+    }
+
+    private Optional<StoredOutcome> load(String key) {
+        List<StoredOutcome> rows = jdbcTemplate.query("""
+                        SELECT view_name, flash_attributes FROM idempotency_keys
+                        WHERE idempotency_key = ? AND status = 'DONE' AND created_at >= ?
+                        """,
+                (rs, rowNum) -> new StoredOutcome(rs.getString("view_name"), decode(rs.getString("flash_attributes"))),
+                key, Timestamp.valueOf(LocalDateTime.now().minus(KEY_TTL)));
+        return rows.stream().findFirst();
+    }
+
+    /**
+     * Записать результат в занятый ключ. Действие уже выполнено, поэтому ошибка записи не отменяет ответ:
+     * дубликаты на этом узле получат результат из памяти, на других — выполнят действие после CLAIM_TIMEOUT
+     */
+    private void save(String key, StoredOutcome outcome) {
+        try {
+            jdbcTemplate.update("""
+                            UPDATE idempotency_keys SET status = 'DONE', view_name = ?, flash_attributes = ?, created_at = ?
+                            WHERE idempotency_key = ? AND status = 'PENDING'
+                            """,
+                    outcome.viewName(), encode(outcome.flashAttributes()), Timestamp.valueOf(LocalDateTime.now()), key);
+        } catch (RuntimeException e) {
+            log.warn("Outcome for idempotency key {} was not persisted: {}", key, e.getMessage());
+        }
+    }
+
+    // Снять ключ после ошибки: повтор с тем же ключом на любом узле выполнится заново
+    private void unclaim(String key) {
+        try {
+            jdbcTemplate.update("DELETE FROM idempotency_keys WHERE idempotency_key = ? AND status = 'PENDING'", key);
+        } catch (RuntimeException e) {
+            log.warn("Idempotency key {} stays claimed until it times out: {}", key, e.getMessage());
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for request with the same idempotency key", e);
+        }
+    }
+
+    // Flash-атрибуты хранятся как строка запроса: name=value&name=value
+    private static String encode(Map<String, String> attributes) {
+        StringJoiner joiner = new StringJoiner("&");
+        attributes.forEach((name, value) -> joiner.add(
+                URLEncoder.encode(name, StandardCharsets.UTF_8) + "=" + URLEncoder.encode(value, StandardCharsets.UTF_8)));
+        return joiner.toString();
+    }
+
+    private static Map<String, String> decode(String encoded) {
+        Map<String, String> attributes = new LinkedHashMap<>();
+        if (encoded == null || encoded.isEmpty()) {
+            return attributes;
+        }
+        for (String pair : encoded.split("&")) {
+            int separator = pair.indexOf('=');
+            attributes.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+        }
+        return attributes;
+    }
+
+    private record Entry(long createdAtNanos, CompletableFuture<StoredOutcome> outcome) {
+
+        Entry(long createdAtNanos) {
+            this(createdAtNanos, new CompletableFuture<>());
+        }
+
+        boolean isExpired(long nowNanos) {
+            return nowNanos - createdAtNanos > KEY_TTL.toNanos();
+        }
+    }
+}
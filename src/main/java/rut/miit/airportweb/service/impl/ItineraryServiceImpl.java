@@ -0,0 +1,231 @@
+package rut.miit.airportweb.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import rut.miit.airportweb.config.invalidation.EntityChange;
+import rut.miit.airportweb.config.invalidation.InvalidationHandler;
+import rut.miit.airportweb.dao.entity.FlightEntity;
+import rut.miit.airportweb.dao.repository.FlightRepository;
+import rut.miit.airportweb.dto.FlightDto;
+import rut.miit.airportweb.dto.ItineraryDto;
+import rut.miit.airportweb.event.FlightChangedEvent;
+import rut.miit.airportweb.service.ItineraryService;
+import rut.miit.airportweb.service.impl.RouteGraph.Leg;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Поиск маршрутов по графу рейсов в памяти. Граф строится из базы при старте,
+ * обновляется по событиям {@link FlightChangedEvent} после коммита, по уведомлениям об изменении рейсов
+ * с любого узла ({@link InvalidationHandler}, в том числе о продаже и возврате мест)
+ * и периодически перестраивается целиком.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ItineraryServiceImpl implements ItineraryService, InvalidationHandler {
+
+    // В граф попадают только рейсы, на которые еще можно попасть
+    private static final Set<FlightEntity.FlightStatus> ROUTABLE_STATUSES =
+            EnumSet.of(FlightEntity.FlightStatus.SCHEDULED, FlightEntity.FlightStatus.BOARDING);
+
+    // Минимальное и максимальное время на пересадку
+    private static final Duration MIN_CONNECTION_TIME = Duration.ofMinutes(60);
+    private static final Duration MAX_CONNECTION_TIME = Duration.ofHours(12);
+
+    // Окно вылета первого рейса маршрута
+    private static final Duration SEARCH_HORIZON = Duration.ofDays(1);
+
+    private static final int MAX_RESULTS_LIMIT = 20;
+
+    // Раньше прилет, меньше пересадок, короче дорога
+    private static final Comparator<Candidate> RANKING = Comparator
+            .comparing(Candidate::arrivalTime)
+            .thenComparingInt(candidate -> candidate.legs().size())
+            .thenComparing(Candidate::departureTime, Comparator.reverseOrder());
+
+    private final FlightRepository flightRepository;
+
+    private volatile RouteGraph graph = new RouteGraph();
+
+    @Override
+    public List<ItineraryDto> findItineraries(String departureCity, String arrivalCity,
+                                              LocalDateTime earliestDeparture, int maxResults) {
+        if (departureCity == null || departureCity.isBlank() || arrivalCity == null || arrivalCity.isBlank()) {
+            throw new IllegalArgumentException("Departure and arrival cities are required");
+        }
+        if (RouteGraph.cityKey(departureCity).equals(RouteGraph.cityKey(arrivalCity))) {
+            throw new IllegalArgumentException("Departure and arrival cities must differ");
+        }
+
+        int limit = Math.min(Math.max(maxResults, 1), MAX_RESULTS_LIMIT);
+        LocalDateTime from = earliestDeparture != null && earliestDeparture.isAfter(LocalDateTime.now())
+                ? earliestDeparture
+                : LocalDateTime.now();
+        RouteGraph current = graph;
+
+        // Держим k лучших: в голове очереди худший из отобранных
+        PriorityQueue<Candidate> best = new PriorityQueue<>(RANKING.reversed());
+
+        for (Leg first : current.departures(departureCity, from, from.plus(SEARCH_HORIZON))) {
+            if (first.availableSeats() <= 0) {
+                continue;
+            }
+            if (first.arrivesAt(arrivalCity)) {
+                offer(best, new Candidate(List.of(first)), limit);
+                continue;
+            }
+            // Все стыковки прилетают позже первого рейса: если он уже хуже худшего, пропускаем
+            if (best.size() == limit && !first.arrivalTime().isBefore(best.peek().arrivalTime())) {
+                continue;
+            }
+
+            LocalDateTime connectFrom = first.arrivalTime().plus(MIN_CONNECTION_TIME);
+            LocalDateTime connectTo = first.arrivalTime().plus(MAX_CONNECTION_TIME);
+            for (Leg second : current.departures(first.arrivalCity(), connectFrom, connectTo)) {
+                if (second.availableSeats() > 0 && second.arrivesAt(arrivalCity)) {
+                    offer(best, new Candidate(List.of(first, second)), limit);
+                }
+            }
+        }
+
+        List<Candidate> result = new ArrayList<>(best);
+        result.sort(RANKING);
+        return result.stream()
+                .map(ItineraryServiceImpl::toDto)
+                .toList();
+    }
+
+    @Override
+    @Scheduled(initialDelayString = "PT1H", fixedDelayString = "PT1H")
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        RouteGraph rebuilt = new RouteGraph();
+        flightRepository.findUpcoming(LocalDateTime.now(), ROUTABLE_STATUSES)
+                .forEach(flight -> rebuilt.put(toLeg(flight)));
+        graph = rebuilt;
+        log.info("Route graph rebuilt: {} flights in {} ms",
+                rebuilt.size(), Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+
+    // До раннеров приложения: граф нужен прогреву (WarmUpServiceImpl) и должен быть готов до приема трафика
+    @EventListener(ApplicationStartedEvent.class)
+    public void onApplicationStarted() {
+        rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onFlightChanged(FlightChangedEvent event) {
+        FlightDto flight = event.flight();
+        boolean routable = event.type() != FlightChangedEvent.ChangeType.DELETED
+                && ROUTABLE_STATUSES.contains(FlightEntity.FlightStatus.valueOf(flight.getStatus()));
+
+        if (routable) {
+            graph.put(toLeg(flight));
+        } else {
+            graph.remove(flight.getFlightNumber());
+        }
+        log.debug("Route graph updated on {} of flight {}", event.type(), flight.getFlightNumber());
+    }
+
+    @Override
+    public Set<EntityChange.Type> invalidationTypes() {
+        return EnumSet.of(EntityChange.Type.FLIGHT);
+    }
+
+    // Рейсы перечитываются одним запросом; удаленного или неподходящего по статусу рейса в графе быть не должно
+    @Override
+    public synchronized void invalidate(Collection<EntityChange> changes) {
+        List<String> flightNumbers = changes.stream().map(EntityChange::key).toList();
+        Map<String, FlightEntity> flights = flightRepository.findAllByFlightNumberIn(flightNumbers).stream()
+                .collect(Collectors.toMap(FlightEntity::getFlightNumber, Function.identity()));
+        for (String flightNumber : flightNumbers) {
+            FlightEntity flight = flights.get(flightNumber);
+            if (flight != null && ROUTABLE_STATUSES.contains(flight.getStatus())) {
+                graph.put(toLeg(flight));
+            } else {
+                graph.remove(flightNumber);
+            }
+        }
+        log.debug("Route graph updated for {} changed flights", flightNumbers.size());
+    }
+
+    @Override
+    public void refreshAll() {
+        rebuild();
+    }
+
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
+    private static void offer(PriorityQueue<Candidate> best, Candidate candidate, int limit) {
+        if (best.size() < limit) {
+            best.add(candidate);
+        } else if (RANKING.compare(candidate, best.peek()) < 0) {
+            best.poll();
+            best.add(candidate);
+        }
+    }
+
+    private static Leg toLeg(FlightEntity flight) {
+        return new Leg(flight.getFlightNumber(), flight.getDepartureCity(), flight.getArrivalCity(),
+                flight.getDepartureTime(), flight.getArrivalTime(), flight.getAvailableSeats());
+    }
+
+    private static Leg toLeg(FlightDto flight) {
+        return new Leg(flight.getFlightNumber(), flight.getDepartureCity(), flight.getArrivalCity(),
+                flight.getDepartureTime(), flight.getArrivalTime(), flight.getAvailableSeats());
+    }
+
+    private static ItineraryDto toDto(Candidate candidate) {
+        List<Leg> legs = candidate.legs();
+        long connectionMinutes = 0;
+        for (int i = 1; i < legs.size(); i++) {
+            connectionMinutes += Duration.between(legs.get(i - 1).arrivalTime(), legs.get(i).departureTime()).toMinutes();
+        }
+
+        return ItineraryDto.builder()
+                .legs(legs.stream()
+                        .map(leg -> FlightDto.builder()
+                                .flightNumber(leg.flightNumber())
+                                .departureCity(leg.departureCity())
+                                .arrivalCity(leg.arrivalCity())
+                                .departureTime(leg.departureTime())
+                                .arrivalTime(leg.arrivalTime())
+                                .availableSeats(leg.availableSeats())
+                                .build())
+                        .toList())
+                .departureTime(candidate.departureTime())
+                .arrivalTime(candidate.arrivalTime())
+                .stops(legs.size() - 1)
+                .totalMinutes(Duration.between(candidate.departureTime(), candidate.arrivalTime()).toMinutes())
+                .connectionMinutes(connectionMinutes)
+                .build();
+    }
+
+    private record Candidate(List<Leg> legs) {
+
+        LocalDateTime departureTime() {
+            return legs.getFirst().departureTime();
+        }
+
+        LocalDateTime arrivalTime() {
+            return legs.getLast().arrivalTime();
+        }
+    }
+}
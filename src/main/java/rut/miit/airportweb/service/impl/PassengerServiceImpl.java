@@ -5,6 +5,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
+import rut.miit.airportweb.config.outbox.DomainEventType;
+import rut.miit.airportweb.config.outbox.OutboxWriter;
 import rut.miit.airportweb.dao.entity.PassengerEntity;
 import rut.miit.airportweb.dao.entity.UserEntity;
 import rut.miit.airportweb.dao.repository.PassengerRepository;
@@ -21,6 +23,7 @@ import rut.miit.airportweb.exception.EntityAlreadyExistsException;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.regex.Pattern;
 
@@ -36,6 +39,7 @@ public class PassengerServiceImpl implements PassengerService {
 
     private final PassengerRepository passengerRepository;
     private final UserRepository userRepository;
+    private final OutboxWriter outboxWriter;
 
     @Override
     public PassengerDto getPassengerByPassportNumber(String passportNumber) {
@@ -85,6 +89,8 @@ public class PassengerServiceImpl implements PassengerService {
 
         // Сохраняем в базу
         PassengerEntity savedEntity = this.passengerRepository.save(passengerEntity);
+        this.outboxWriter.append(DomainEventType.PASSENGER_CREATED, savedEntity.getPassportNumber(),
+                Map.of("ownerUsername", owner.getUsername()));
         log.info("Created passenger with passport number: {}", passengerCreateDto.getPassportNumber());
 
         return PassengerMapper.map(savedEntity);
@@ -95,7 +101,10 @@ public class PassengerServiceImpl implements PassengerService {
     public void deletePassenger(String passportNumber) {
         this.passengerRepository.findByPassportNumber(passportNumber)
                 .ifPresentOrElse(
-                        this.passengerRepository::delete,
+                        passenger -> {
+                            this.outboxWriter.append(DomainEventType.PASSENGER_DELETED, passportNumber, Map.of());
+                            this.passengerRepository.delete(passenger);
+                        },
                         () -> {
                             throw new EntityNotFoundException(String.format("Passenger with passport number %s not found", passportNumber));
                         }
@@ -128,6 +137,8 @@ public class PassengerServiceImpl implements PassengerService {
                 .orElseThrow(() -> new EntityNotFoundException(
                         String.format("Passenger with passport number %s not found", passengerPassportNumber)));
 
+        this.outboxWriter.append(DomainEventType.PASSENGER_LUGGAGE_CHANGED, passengerPassportNumber,
+                Map.of("luggageChecked", luggageChecked));
         log.info("Updated luggage status for passenger {} to {}", passengerPassportNumber, luggageChecked);
         return PassengerMapper.map(passenger);
     }
@@ -197,17 +208,17 @@ public class PassengerServiceImpl implements PassengerService {
         }
     }
 
-    private boolean validateEmail(String email) {
+    static boolean validateEmail(String email) {
         if (email == null) return false;
         return EMAIL_PATTERN.matcher(email).matches();
     }
 
-    private boolean validatePassport(String passport) {
+    static boolean validatePassport(String passport) {
         if (passport == null) return false;
         return PASSPORT_PATTERN.matcher(passport).matches();
     }
 
-    private boolean validatePhone(String phoneNumber) { // ИСПРАВЛЕНО: было EMAIL_PATTERN
+    static boolean validatePhone(String phoneNumber) { // ИСПРАВЛЕНО: было EMAIL_PATTERN
         if (phoneNumber == null) return false;
         return PHONE_PATTERN.matcher(phoneNumber).matches();
     }
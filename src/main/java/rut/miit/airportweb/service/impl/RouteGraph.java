@@ -0,0 +1,90 @@
+package rut.miit.airportweb.service.impl;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Граф маршрутов с разверткой по времени: для каждого города хранится
+ * упорядоченное по времени вылета множество рейсов из него.
+ * Чтение не блокируется; изменения синхронизирует {@link ItineraryServiceImpl}.
+ */
+class RouteGraph {
+
+    private static final Comparator<Leg> BY_DEPARTURE =
+            Comparator.comparing(Leg::departureTime).thenComparing(Leg::flightNumber);
+
+    private final Map<String, ConcurrentSkipListSet<Leg>> departuresByCity = new ConcurrentHashMap<>();
+    private final Map<String, Leg> legsByFlightNumber = new ConcurrentHashMap<>();
+
+    /**
+     * Добавить рейс или заменить его предыдущую версию
+     */
+    void put(Leg leg) {
+        Leg previous = legsByFlightNumber.put(leg.flightNumber(), leg);
+        if (previous != null) {
+            removeFromCity(previous);
+        }
+        departuresByCity
+                .computeIfAbsent(cityKey(leg.departureCity()), city -> new ConcurrentSkipListSet<>(BY_DEPARTURE))
+                .add(leg);
+    }
+
+    void remove(String flightNumber) {
+        Leg previous = legsByFlightNumber.remove(flightNumber);
+        if (previous != null) {
+            removeFromCity(previous);
+        }
+    }
+
+    /**
+     * Рейсы из города с вылетом в интервале [from, to)
+     */
+    NavigableSet<Leg> departures(String city, LocalDateTime from, LocalDateTime to) {
+        ConcurrentSkipListSet<Leg> legs = departuresByCity.get(cityKey(city));
+        if (legs == null || !from.isBefore(to)) {
+            return Collections.emptyNavigableSet();
+        }
+        return legs.subSet(Leg.probe(from), true, Leg.probe(to), false);
+    }
+
+    int size() {
+        return legsByFlightNumber.size();
+    }
+
+    private void removeFromCity(Leg leg) {
+        ConcurrentSkipListSet<Leg> legs = departuresByCity.get(cityKey(leg.departureCity()));
+        if (legs != null) {
+            legs.remove(leg);
+        }
+    }
+
+    static String cityKey(String city) {
+        return city.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Ребро графа — один рейс
+     */
+    record Leg(String flightNumber,
+               String departureCity,
+               String arrivalCity,
+               LocalDateTime departureTime,
+               LocalDateTime arrivalTime,
+               int availableSeats) {
+
+        // Граница для поиска по интервалу: "" меньше любого номера рейса
+        static Leg probe(LocalDateTime time) {
+            return new Leg("", "", "", time, time, 0);
+        }
+
+        boolean arrivesAt(String city) {
+            return cityKey(arrivalCity).equals(cityKey(city));
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package rut.miit.airportweb.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import rut.miit.airportweb.dao.repository.FlightRepository;
+import rut.miit.airportweb.exception.EntityNotFoundException;
+import rut.miit.airportweb.exception.NotPermittedOperation;
+import rut.miit.airportweb.mapper.TicketMapper;
+import rut.miit.airportweb.service.SeatHoldService;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Удержания хранятся по рейсам: рейс -> место -> удержание.
+ * Все изменения удержаний рейса проходят через compute по номеру рейса,
+ * чтение не блокируется. Истечение сроков отслеживает {@link HashedTimingWheel}.
+ * Место приводится к виду {@link TicketMapper#normalizeSeatNumber(String)}, как в билете
+ */
+@Service
+@Slf4j
+public class SeatHoldServiceImpl implements SeatHoldService {
+
+    private static final Duration HOLD_TTL = Duration.ofMinutes(5);
+
+    // Тик в 1 секунду и 512 корзин: срок удержания укладывается в один оборот
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SIZE = 512;
+
+    private final FlightRepository flightRepository;
+    private final Clock clock;
+
+    private final Map<String, Map<String, Hold>> holdsByFlight = new ConcurrentHashMap<>();
+    private final HashedTimingWheel<Hold> timingWheel;
+
+    @Autowired
+    public SeatHoldServiceImpl(FlightRepository flightRepository) {
+        this(flightRepository, Clock.systemDefaultZone());
+    }
+
+    SeatHoldServiceImpl(FlightRepository flightRepository, Clock clock) {
+        this.flightRepository = flightRepository;
+        this.clock = clock;
+        this.timingWheel = new HashedTimingWheel<>(TICK_MILLIS, WHEEL_SIZE, clock.millis());
+    }
+
+    @Override
+    public SeatHold hold(String flightNumber, String seatNumber, String owner) {
+        // Удержание на несуществующий рейс заняло бы память до истечения срока и ничего не защищало бы
+        if (!flightRepository.existsByFlightNumber(flightNumber)) {
+            throw new EntityNotFoundException(String.format("Flight with flight number %s not found", flightNumber));
+        }
+        String seat = TicketMapper.normalizeSeatNumber(seatNumber);
+        long now = clock.millis();
+        Hold hold = new Hold(flightNumber, seat, owner, now + HOLD_TTL.toMillis());
+
+        holdsByFlight.compute(flightNumber, (flight, seats) -> {
+            Map<String, Hold> flightHolds = seats != null ? seats : new ConcurrentHashMap<>();
+
+            Hold existing = flightHolds.get(seat);
+            if (existing != null && existing.isActive(now) && !existing.owner().equals(owner)) {
+                throw new NotPermittedOperation(
+                        String.format("Seat %s on flight %s is temporarily held by another passenger", seat, flightNumber));
+            }
+
+            // Одно удержание на пользователя в рамках рейса
+            flightHolds.values().removeIf(other -> other.owner().equals(owner));
+            flightHolds.put(seat, hold);
+            return flightHolds;
+        });
+
+        timingWheel.schedule(hold, hold.expiresAtMillis());
+        log.info("Seat {} on flight {} held by {} until {}", seat, flightNumber, owner, hold.toSeatHold().expiresAt());
+        return hold.toSeatHold();
+    }
+
+    @Override
+    public void release(String flightNumber, String seatNumber, String owner) {
+        String seat = TicketMapper.normalizeSeatNumber(seatNumber);
+        holdsByFlight.computeIfPresent(flightNumber, (flight, seats) -> {
+            Hold existing = seats.get(seat);
+            if (existing != null && existing.owner().equals(owner)) {
+                seats.remove(seat);
+            }
+            return seats.isEmpty() ? null : seats;
+        });
+    }
+
+    @Override
+    public List<String> getHeldSeats(String flightNumber, String owner) {
+        Map<String, Hold> seats = holdsByFlight.get(flightNumber);
+        if (seats == null) {
+            return List.of();
+        }
+        long now = clock.millis();
+        return seats.values().stream()
+                .filter(hold -> hold.isActive(now) && !hold.owner().equals(owner))
+                .map(Hold::seatNumber)
+                .sorted()
+                .toList();
+    }
+
+    @Override
+    public Optional<SeatHold> findHold(String flightNumber, String owner) {
+        Map<String, Hold> seats = holdsByFlight.get(flightNumber);
+        if (seats == null) {
+            return Optional.empty();
+        }
+        long now = clock.millis();
+        return seats.values().stream()
+                .filter(hold -> hold.isActive(now) && hold.owner().equals(owner))
+                .findFirst()
+                .map(Hold::toSeatHold);
+    }
+
+    @Scheduled(fixedRate = TICK_MILLIS)
+    public void expireHolds() {
+        int expired = timingWheel.advance(clock.millis(), this::expire);
+        if (expired > 0) {
+            log.debug("Expired {} seat hold timers", expired);
+        }
+    }
+
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
+    /**
+     * Снимает удержание, только если оно не было продлено или заменено
+     */
+    private void expire(Hold hold) {
+        holdsByFlight.computeIfPresent(hold.flightNumber(), (flight, seats) -> {
+            seats.remove(hold.seatNumber(), hold);
+            return seats.isEmpty() ? null : seats;
+        });
+    }
+
+    private record Hold(String flightNumber, String seatNumber, String owner, long expiresAtMillis) {
+
+        boolean isActive(long nowMillis) {
+            return expiresAtMillis > nowMillis;
+        }
+
+        SeatHold toSeatHold() {
+            return new SeatHold(flightNumber, seatNumber, owner,
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(expiresAtMillis), ZoneId.systemDefault()));
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package rut.miit.airportweb.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import rut.miit.airportweb.service.TicketNumberService;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Номера билетов выдаются из блоков последовательности ticket_number_seq.
+ * Счетчики разбиты на полосы по потокам: каждая полоса расходует свой блок,
+ * и к базе обращается только та полоса, чей блок закончился.
+ * Номер кодируется в Crockford Base32 и дополняется контрольным символом Luhn mod 32
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TicketNumberServiceImpl implements TicketNumberService {
+
+    // Шаг последовательности ticket_number_seq (см. ticket-number-sequence.sql)
+    static final int BLOCK_SIZE = 100;
+
+    private static final String PREFIX = "TKT-";
+    private static final String ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+    private static final int BASE = ALPHABET.length();
+    // 8 символов Base32 — 2^40 номеров
+    private static final int PAYLOAD_LENGTH = 8;
+    private static final int TICKET_NUMBER_LENGTH = PREFIX.length() + PAYLOAD_LENGTH + 1;
+
+    private static final int STRIPES = Integer.highestOneBit(
+            Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), 16)));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Stripe[] stripes = createStripes();
+
+    @Override
+    public String nextTicketNumber() {
+        Stripe stripe = stripes[(int) (Thread.currentThread().threadId() & (STRIPES - 1))];
+        return encode(stripe.next());
+    }
+
+    @Override
+    public boolean isValid(String ticketNumber) {
+        if (ticketNumber == null || ticketNumber.length() != TICKET_NUMBER_LENGTH || !ticketNumber.startsWith(PREFIX)) {
+            return false;
+        }
+        String code = ticketNumber.substring(PREFIX.length());
+        for (int i = 0; i < code.length(); i++) {
+            if (ALPHABET.indexOf(code.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return luhnSum(code, 1) % BASE == 0;
+    }
+
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
+    private long reserveBlock() {
+        Long start = jdbcTemplate.queryForObject("SELECT nextval('ticket_number_seq')", Long.class);
+        log.debug("Reserved ticket number block [{}, {})", start, start + BLOCK_SIZE);
+        return start;
+    }
+
+    static String encode(long value) {
+        char[] payload = new char[PAYLOAD_LENGTH];
+        long rest = value;
+        for (int i = PAYLOAD_LENGTH - 1; i >= 0; i--) {
+            payload[i] = ALPHABET.charAt((int) (rest % BASE));
+            rest /= BASE;
+        }
+        if (rest != 0) {
+            throw new IllegalStateException("Ticket number space is exhausted");
+        }
+
+        String code = new String(payload);
+        int check = (BASE - luhnSum(code, 2) % BASE) % BASE;
+        return PREFIX + code + ALPHABET.charAt(check);
+    }
+
+    /**
+     * Сумма Luhn mod N справа налево; factor — множитель для крайнего правого символа
+     */
+    private static int luhnSum(String code, int factor) {
+        int sum = 0;
+        for (int i = code.length() - 1; i >= 0; i--) {
+            int addend = factor * ALPHABET.indexOf(code.charAt(i));
+            sum += addend / BASE + addend % BASE;
+            factor = factor == 2 ? 1 : 2;
+        }
+        return sum;
+    }
+
+    private Stripe[] createStripes() {
+        Stripe[] result = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            result[i] = new Stripe();
+        }
+        return result;
+    }
+
+    /**
+     * Полоса счетчика. Номера из текущего блока выдаются без блокировок,
+     * при исчерпании блок заменяется новым под монитором полосы
+     */
+    private final class Stripe {
+
+        // Пустой блок: первое обращение сразу резервирует настоящий
+        private volatile Block block = new Block(0, 0);
+
+        long next() {
+            while (true) {
+                Block current = block;
+                long value = current.next.getAndIncrement();
+                if (value < current.end) {
+                    return value;
+                }
+                synchronized (this) {
+                    // Блок мог уже заменить другой поток
+                    if (block == current) {
+                        block = new Block(reserveBlock(), BLOCK_SIZE);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Зарезервированный блок номеров [start, end)
+     */
+    private static final class Block {
+
+        private final AtomicLong next;
+        private final long end;
+
+        Block(long start, int size) {
+            this.next = new AtomicLong(start);
+            this.end = start + size;
+        }
+    }
+}
@@ -5,23 +5,31 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
+import rut.miit.airportweb.config.invalidation.EntityChange;
+import rut.miit.airportweb.config.invalidation.InvalidationPublisher;
+import rut.miit.airportweb.config.outbox.DomainEventType;
+import rut.miit.airportweb.config.outbox.OutboxWriter;
 import rut.miit.airportweb.dao.entity.FlightEntity;
 import rut.miit.airportweb.dao.entity.PassengerEntity;
 import rut.miit.airportweb.dao.entity.TicketEntity;
+import rut.miit.airportweb.dao.entity.UserEntity;
 import rut.miit.airportweb.dao.repository.FlightRepository;
 import rut.miit.airportweb.dao.repository.PassengerRepository;
 import rut.miit.airportweb.dao.repository.TicketRepository;
+import rut.miit.airportweb.diagnostics.AirportOperationEvent;
 import rut.miit.airportweb.dto.TicketCreateDto;
 import rut.miit.airportweb.dto.TicketDto;
 import rut.miit.airportweb.dto.TicketUpdateDto;
 import rut.miit.airportweb.exception.EntityNotFoundException;
 import rut.miit.airportweb.exception.NotPermittedOperation;
 import rut.miit.airportweb.mapper.TicketMapper;
+import rut.miit.airportweb.service.TicketNumberService;
 import rut.miit.airportweb.service.TicketService;
-// Добавляем импорт для исключения
-import rut.miit.airportweb.exception.EntityAlreadyExistsException;
+import rut.miit.airportweb.service.TripService;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -33,6 +41,10 @@ public class TicketServiceImpl implements TicketService {
     private final TicketRepository ticketRepository;
     private final FlightRepository flightRepository;
     private final PassengerRepository passengerRepository;
+    private final TicketNumberService ticketNumberService;
+    private final InvalidationPublisher invalidationPublisher;
+    private final OutboxWriter outboxWriter;
+    private final TripService tripService;
 
     @Override
     @Transactional(readOnly = true)
@@ -45,53 +57,53 @@ public class TicketServiceImpl implements TicketService {
     @Override
     @Transactional(isolation = Isolation.READ_COMMITTED)
     public TicketDto createTicket(TicketCreateDto ticketCreateDto) {
-        // Проверяем существование рейса
-        FlightEntity flight = flightRepository.findByFlightNumber(ticketCreateDto.getFlightNumberOfTicket())
-                .orElseThrow(() -> new EntityNotFoundException(
-                        String.format("Flight with number %s not found",
-                                ticketCreateDto.getFlightNumberOfTicket())));
-
-        // Проверяем существование пассажира
-        PassengerEntity passenger = passengerRepository.findByPassportNumber(ticketCreateDto.getPassportNumberOfPassenger())
-                .orElseThrow(() -> new EntityNotFoundException(
-                        String.format("Passenger with passport %s not found",
-                                ticketCreateDto.getPassportNumberOfPassenger())));
-
-        // Проверяем доступность места
-        if (!isSeatAvailable(flight.getFlightNumber(), ticketCreateDto.getSeatNumber())) {
-            throw new NotPermittedOperation(
-                    String.format("Seat %s is already taken on flight %s",
-                            ticketCreateDto.getSeatNumber(), flight.getFlightNumber()));
-        }
-
-        // Проверяем, есть ли свободные места
-        if (flight.getAvailableSeats() <= 0) {
-            throw new NotPermittedOperation("No available seats on this flight");
-        }
+        try (AirportOperationEvent event = AirportOperationEvent.start("createTicket")) {
+            // Проверяем существование рейса
+            FlightEntity flight = flightRepository.findByFlightNumber(ticketCreateDto.getFlightNumberOfTicket())
+                    .orElseThrow(() -> new EntityNotFoundException(
+                            String.format("Flight with number %s not found",
+                                    ticketCreateDto.getFlightNumberOfTicket())));
+            event.setFlightNumber(flight.getFlightNumber());
+
+            // Проверяем существование пассажира
+            PassengerEntity passenger = passengerRepository.findByPassportNumber(ticketCreateDto.getPassportNumberOfPassenger())
+                    .orElseThrow(() -> new EntityNotFoundException(
+                            String.format("Passenger with passport %s not found",
+                                    ticketCreateDto.getPassportNumberOfPassenger())));
+
+            // Проверяем доступность места
+            if (!isSeatAvailable(flight.getFlightNumber(), ticketCreateDto.getSeatNumber())) {
+                throw new NotPermittedOperation(
+                        String.format("Seat %s is already taken on flight %s",
+                                ticketCreateDto.getSeatNumber(), flight.getFlightNumber()));
+            }
 
-        // Проверяем, не существует ли уже билет с таким номером
-        if (ticketRepository.findByTicketNumber(ticketCreateDto.getTicketNumber()).isPresent()) {
-            throw new EntityAlreadyExistsException(
-                    String.format("Ticket with number %s already exists",
-                            ticketCreateDto.getTicketNumber()));
-        }
+            // Проверяем, есть ли свободные места
+            if (flight.getAvailableSeats() <= 0) {
+                throw new NotPermittedOperation("No available seats on this flight");
+            }
 
-        // Создаем билет
-        TicketEntity ticket = TicketMapper.map(ticketCreateDto, flight, passenger);
+            // Создаем билет; номер уникален по построению, проверка на существование не нужна
+            TicketEntity ticket = TicketMapper.map(ticketCreateDto, ticketNumberService.nextTicketNumber(), flight, passenger);
 
-        // Сохраняем билет
-        TicketEntity savedTicket = ticketRepository.save(ticket);
+            // Сохраняем билет
+            TicketEntity savedTicket = ticketRepository.save(ticket);
 
-        // Обновляем количество доступных мест
-        flight.setAvailableSeats(flight.getAvailableSeats() - 1);
-        flightRepository.save(flight);
+            // Обновляем количество доступных мест
+            flight.setAvailableSeats(flight.getAvailableSeats() - 1);
+            flightRepository.save(flight);
+            invalidationPublisher.publish(EntityChange.Type.FLIGHT, flight.getFlightNumber());
+            outboxWriter.append(DomainEventType.TICKET_BOOKED, savedTicket.getTicketNumber(), ticketData(savedTicket));
+            invalidateTrips(savedTicket);
 
-        log.info("Created ticket {} for passenger {} on flight {}",
-                ticketCreateDto.getTicketNumber(),
-                passenger.getPassportNumber(),
-                flight.getFlightNumber());
+            log.info("Created ticket {} for passenger {} on flight {}",
+                    savedTicket.getTicketNumber(),
+                    passenger.getPassportNumber(),
+                    flight.getFlightNumber());
 
-        return TicketMapper.map(savedTicket);
+            event.setOutcome(AirportOperationEvent.SUCCESS);
+            return TicketMapper.map(savedTicket);
+        }
     }
 
     @Override
@@ -103,7 +115,7 @@ public class TicketServiceImpl implements TicketService {
 
         // Если меняем место, проверяем доступность
         if (ticketUpdateDto.getSeatNumber() != null &&
-                !ticketUpdateDto.getSeatNumber().equals(ticket.getSeatNumber())) {
+                !TicketMapper.normalizeSeatNumber(ticketUpdateDto.getSeatNumber()).equals(ticket.getSeatNumber())) {
 
             if (!isSeatAvailable(ticket.getFlight().getFlightNumber(), ticketUpdateDto.getSeatNumber())) {
                 throw new NotPermittedOperation(
@@ -115,6 +127,8 @@ public class TicketServiceImpl implements TicketService {
         TicketMapper.updateEntity(ticket, ticketUpdateDto);
 
         TicketEntity updatedTicket = ticketRepository.save(ticket);
+        outboxWriter.append(DomainEventType.TICKET_UPDATED, ticketNumber, ticketData(updatedTicket));
+        invalidateTrips(updatedTicket);
         log.info("Updated ticket {}", ticketNumber);
 
         return TicketMapper.map(updatedTicket);
@@ -131,8 +145,11 @@ public class TicketServiceImpl implements TicketService {
         FlightEntity flight = ticket.getFlight();
         flight.setAvailableSeats(flight.getAvailableSeats() + 1);
         flightRepository.save(flight);
+        invalidationPublisher.publish(EntityChange.Type.FLIGHT, flight.getFlightNumber());
 
         // Удаляем билет
+        outboxWriter.append(DomainEventType.TICKET_CANCELLED, ticketNumber, ticketData(ticket));
+        invalidateTrips(ticket);
         ticketRepository.delete(ticket);
 
         log.info("Deleted ticket {} and freed seat on flight {}",
@@ -164,6 +181,8 @@ public class TicketServiceImpl implements TicketService {
                 .orElseThrow(() -> new EntityNotFoundException(
                         String.format("Ticket with number %s not found", ticketNumber)));
 
+        outboxWriter.append(DomainEventType.TICKET_STATUS_CHANGED, ticketNumber, ticketData(ticket));
+        invalidateTrips(ticket);
         log.info("Updated ticket {} status to {}", ticketNumber, newStatus);
         return TicketMapper.map(ticket);
     }
@@ -171,49 +190,63 @@ public class TicketServiceImpl implements TicketService {
     @Override
     @Transactional(isolation = Isolation.READ_COMMITTED)
     public TicketDto checkInPassenger(String ticketNumber) {
-        TicketEntity ticket = ticketRepository.findByTicketNumber(ticketNumber)
-                .orElseThrow(() -> new EntityNotFoundException(
-                        String.format("Ticket with number %s not found", ticketNumber)));
+        try (AirportOperationEvent event = AirportOperationEvent.start("checkInPassenger")) {
+            TicketEntity ticket = ticketRepository.findByTicketNumber(ticketNumber)
+                    .orElseThrow(() -> new EntityNotFoundException(
+                            String.format("Ticket with number %s not found", ticketNumber)));
+            event.setFlightNumber(ticket.getFlight().getFlightNumber());
+
+            // Проверяем, можно ли зарегистрироваться (рейс должен быть SCHEDULED или BOARDING)
+            FlightEntity.FlightStatus flightStatus = ticket.getFlight().getStatus();
+            if (flightStatus != FlightEntity.FlightStatus.SCHEDULED &&
+                    flightStatus != FlightEntity.FlightStatus.BOARDING) {
+                throw new NotPermittedOperation(
+                        String.format("Cannot check-in for flight with status %s", flightStatus));
+            }
 
-        // Проверяем, можно ли зарегистрироваться (рейс должен быть SCHEDULED или BOARDING)
-        FlightEntity.FlightStatus flightStatus = ticket.getFlight().getStatus();
-        if (flightStatus != FlightEntity.FlightStatus.SCHEDULED &&
-                flightStatus != FlightEntity.FlightStatus.BOARDING) {
-            throw new NotPermittedOperation(
-                    String.format("Cannot check-in for flight with status %s", flightStatus));
-        }
+            // Обновляем статус билета
+            ticket.setStatus(TicketEntity.TicketStatus.CHECKED_IN);
+            TicketEntity updatedTicket = ticketRepository.save(ticket);
 
-        // Обновляем статус билета
-        ticket.setStatus(TicketEntity.TicketStatus.CHECKED_IN);
-        TicketEntity updatedTicket = ticketRepository.save(ticket);
+            outboxWriter.append(DomainEventType.PASSENGER_CHECKED_IN, ticketNumber, ticketData(updatedTicket));
+            invalidateTrips(updatedTicket);
 
-        log.info("Passenger checked in for ticket {}", ticketNumber);
-        return TicketMapper.map(updatedTicket);
+            log.info("Passenger checked in for ticket {}", ticketNumber);
+            event.setOutcome(AirportOperationEvent.SUCCESS);
+            return TicketMapper.map(updatedTicket);
+        }
     }
 
     @Override
     @Transactional(isolation = Isolation.READ_COMMITTED)
     public TicketDto boardPassenger(String ticketNumber) {
-        TicketEntity ticket = ticketRepository.findByTicketNumber(ticketNumber)
-                .orElseThrow(() -> new EntityNotFoundException(
-                        String.format("Ticket with number %s not found", ticketNumber)));
+        try (AirportOperationEvent event = AirportOperationEvent.start("boardPassenger")) {
+            TicketEntity ticket = ticketRepository.findByTicketNumber(ticketNumber)
+                    .orElseThrow(() -> new EntityNotFoundException(
+                            String.format("Ticket with number %s not found", ticketNumber)));
+            event.setFlightNumber(ticket.getFlight().getFlightNumber());
+
+            // Проверяем, что пассажир зарегистрирован
+            if (ticket.getStatus() != TicketEntity.TicketStatus.CHECKED_IN) {
+                throw new NotPermittedOperation("Passenger must be checked in before boarding");
+            }
 
-        // Проверяем, что пассажир зарегистрирован
-        if (ticket.getStatus() != TicketEntity.TicketStatus.CHECKED_IN) {
-            throw new NotPermittedOperation("Passenger must be checked in before boarding");
-        }
+            // Проверяем, что рейс в статусе BOARDING
+            if (ticket.getFlight().getStatus() != FlightEntity.FlightStatus.BOARDING) {
+                throw new NotPermittedOperation("Flight is not in boarding status");
+            }
 
-        // Проверяем, что рейс в статусе BOARDING
-        if (ticket.getFlight().getStatus() != FlightEntity.FlightStatus.BOARDING) {
-            throw new NotPermittedOperation("Flight is not in boarding status");
-        }
+            // Обновляем статус билета
+            ticket.setStatus(TicketEntity.TicketStatus.BOARDED);
+            TicketEntity updatedTicket = ticketRepository.save(ticket);
 
-        // Обновляем статус билета
-        ticket.setStatus(TicketEntity.TicketStatus.BOARDED);
-        TicketEntity updatedTicket = ticketRepository.save(ticket);
+            outboxWriter.append(DomainEventType.PASSENGER_BOARDED, ticketNumber, ticketData(updatedTicket));
+            invalidateTrips(updatedTicket);
 
-        log.info("Passenger boarded for ticket {}", ticketNumber);
-        return TicketMapper.map(updatedTicket);
+            log.info("Passenger boarded for ticket {}", ticketNumber);
+            event.setOutcome(AirportOperationEvent.SUCCESS);
+            return TicketMapper.map(updatedTicket);
+        }
     }
 
     @Override
@@ -228,8 +261,9 @@ public class TicketServiceImpl implements TicketService {
     @Override
     @Transactional(readOnly = true)
     public boolean isSeatAvailable(String flightNumber, String seatNumber) {
+        // Место сравнивается в том же виде, в каком его сохраняет TicketMapper и удерживает SeatHoldService
         List<String> occupiedSeats = getOccupiedSeats(flightNumber);
-        return !occupiedSeats.contains(seatNumber);
+        return !occupiedSeats.contains(TicketMapper.normalizeSeatNumber(seatNumber));
     }
 
     @Override
@@ -238,4 +272,20 @@ public class TicketServiceImpl implements TicketService {
                 flightNumber, "CHECKED_IN");
     }
 
+    // Поездки владельца билета в кэше TripService сбрасываются после фиксации
+    private void invalidateTrips(TicketEntity ticket) {
+        UserEntity user = ticket.getPassenger().getUser();
+        tripService.invalidateTrips(user != null ? user.getUsername() : null);
+    }
+
+    // Атрибуты событий билета в ленте outbox; пустые значения OutboxWriter пропускает
+    private static Map<String, Object> ticketData(TicketEntity ticket) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("flightNumber", ticket.getFlight().getFlightNumber());
+        data.put("passportNumber", ticket.getPassenger().getPassportNumber());
+        data.put("seatNumber", ticket.getSeatNumber());
+        data.put("status", ticket.getStatus());
+        return data;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,184 @@
+package rut.miit.airportweb.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import rut.miit.airportweb.config.invalidation.EntityChange;
+import rut.miit.airportweb.config.invalidation.InvalidationHandler;
+import rut.miit.airportweb.config.invalidation.InvalidationPublisher;
+import rut.miit.airportweb.dao.repository.TicketRepository;
+import rut.miit.airportweb.dto.PassengerTripsDto;
+import rut.miit.airportweb.mapper.TripMapper;
+import rut.miit.airportweb.service.TripService;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Поездки пассажира читаются одним запросом (билет, рейс, пассажир и талон) и хранятся в памяти узла
+ * {@code cacheTtl} по имени пользователя. Бронирование, отмена, регистрация и посадка сбрасывают поездки
+ * пассажира на этом узле сразу после фиксации, на остальных — уведомлением {@link EntityChange.Type#TRIPS}.
+ * Изменения рейса (статус, время) поездки не сбрасывают: они видны не позже чем через {@code cacheTtl}.
+ * Промах читается из основной базы: реплика может еще не содержать бронирование, из-за которого запись
+ * сброшена, и устаревшие поездки остались бы в кэше на весь {@code cacheTtl}
+ */
+@Service
+@Slf4j
+public class TripServiceImpl implements TripService, InvalidationHandler {
+
+    private final TicketRepository ticketRepository;
+    private final InvalidationPublisher invalidationPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration cacheTtl;
+    private final int cacheMaxEntries;
+
+    private final Map<String, CachedTrips> cache = new ConcurrentHashMap<>();
+    private final Queue<String> cacheOrder = new ConcurrentLinkedQueue<>();
+    // Растет при каждом сбросе: поездки, прочитанные до сброса, в кэш не кладутся
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+
+    public TripServiceImpl(TicketRepository ticketRepository,
+                           InvalidationPublisher invalidationPublisher,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${airport.trips.cache-ttl:PT30S}") Duration cacheTtl,
+                           @Value("${airport.trips.cache-max-entries:10000}") int cacheMaxEntries) {
+        this.ticketRepository = ticketRepository;
+        this.invalidationPublisher = invalidationPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cacheTtl = cacheTtl;
+        this.cacheMaxEntries = cacheMaxEntries;
+    }
+
+    @Override
+    public PassengerTripsDto getTrips(String username) {
+        CachedTrips cached = cache.get(username);
+        if (cached != null && System.nanoTime() - cached.cachedAtNanos() <= cacheTtl.toNanos()) {
+            cacheHits.incrementAndGet();
+            return cached.trips();
+        }
+        cacheMisses.incrementAndGet();
+
+        long generation = invalidations.get();
+        PassengerTripsDto trips = load(username);
+        if (generation == invalidations.get()) {
+            cache(username, trips);
+        }
+        return trips;
+    }
+
+    @Override
+    public void invalidateTrips(String username) {
+        if (username == null) {
+            return;
+        }
+        invalidationPublisher.publish(EntityChange.Type.TRIPS, username);
+        // Свое уведомление приходит с задержкой: страница после бронирования не должна показать старые поездки
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(username);
+                }
+            });
+        } else {
+            evict(username);
+        }
+    }
+
+    @Override
+    public Set<EntityChange.Type> invalidationTypes() {
+        return EnumSet.of(EntityChange.Type.TRIPS);
+    }
+
+    @Override
+    public void invalidate(Collection<EntityChange> changes) {
+        changes.forEach(change -> evict(change.key()));
+    }
+
+    @Override
+    public void refreshAll() {
+        invalidations.incrementAndGet();
+        cache.clear();
+        cacheOrder.clear();
+    }
+
+    /**
+     * Удаление истекших поездок: пассажиры, ушедшие с панели, не занимают память до вытеснения
+     */
+    @Scheduled(fixedDelayString = "${airport.trips.cache-ttl:PT30S}",
+            initialDelayString = "${airport.trips.cache-ttl:PT30S}")
+    public void purgeExpired() {
+        long now = System.nanoTime();
+        cache.values().removeIf(cached -> now - cached.cachedAtNanos() > cacheTtl.toNanos());
+        // Порядок вытеснения пересобирается по оставшимся ключам, иначе в нем копятся удаленные
+        cacheOrder.clear();
+        cacheOrder.addAll(cache.keySet());
+    }
+
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    public int getCacheSize() {
+        return cache.size();
+    }
+
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
+    // Пишущая транзакция направляет чтение в основную базу. Откат: чтение не привязывает сессию к основной базе
+    private PassengerTripsDto load(String username) {
+        LocalDateTime now = LocalDateTime.now();
+        return transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            return new PassengerTripsDto(ticketRepository.findTripsByUsername(username)
+                    .stream()
+                    .map(ticket -> TripMapper.map(ticket, now))
+                    .toList());
+        });
+    }
+
+    private void cache(String username, PassengerTripsDto trips) {
+        if (cacheTtl.isZero()) {
+            return;
+        }
+        if (cache.put(username, new CachedTrips(trips, System.nanoTime())) == null) {
+            cacheOrder.add(username);
+        }
+        while (cache.size() > cacheMaxEntries) {
+            String oldest = cacheOrder.poll();
+            if (oldest == null) {
+                break;
+            }
+            cache.remove(oldest);
+        }
+    }
+
+    private void evict(String username) {
+        invalidations.incrementAndGet();
+        if (cache.remove(username) != null) {
+            log.debug("Trips of {} evicted", username);
+        }
+    }
+
+    private record CachedTrips(PassengerTripsDto trips, long cachedAtNanos) {
+    }
+}
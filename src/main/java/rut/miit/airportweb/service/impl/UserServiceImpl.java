@@ -9,15 +9,19 @@ import org.springframework.transaction.annotation.Transactional;
 import rut.miit.airportweb.dao.entity.PassengerEntity;
 import rut.miit.airportweb.dao.entity.UserEntity;
 import rut.miit.airportweb.dao.repository.PassengerRepository;
+import rut.miit.airportweb.dao.repository.UserDirectoryRepository;
 import rut.miit.airportweb.dao.repository.UserRepository;
 import rut.miit.airportweb.dto.UserDto;
+import rut.miit.airportweb.dto.UserPageDto;
 import rut.miit.airportweb.dto.UserRegistrationDto;
+import rut.miit.airportweb.dto.UserSearchDto;
 import rut.miit.airportweb.exception.EntityNotFoundException;
 import rut.miit.airportweb.mapper.UserMapper;
 import rut.miit.airportweb.service.UserService;
 import rut.miit.airportweb.exception.NotPermittedOperation;
 
-
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
 
 @Service
@@ -26,6 +30,15 @@ import java.util.List;
 @Slf4j
 public class UserServiceImpl implements UserService {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
+    // До порога пользователи под фильтром считаются точно, дальше счет останавливается
+    private static final long COUNT_CAP = 10_000;
+
+    // Разделитель ключей в курсоре: в текстовых полях PostgreSQL нулевого символа не бывает
+    private static final String CURSOR_SEPARATOR = "\u0000";
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final PassengerRepository passengerRepository;
@@ -93,11 +106,38 @@ public class UserServiceImpl implements UserService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<UserDto> getAllUsersOptimized() {
-        return this.userRepository.findAllOptimized()
-                .stream()
-                .map(UserMapper::map)
-                .toList();
+    public UserPageDto searchUsers(UserSearchDto searchDto) {
+        UserEntity.Role role = parseRole(searchDto.getRole());
+        String namePrefix = blankToNull(searchDto.getName());
+        UserDirectoryRepository.Order order = parseOrder(searchDto.getSort());
+        boolean descending = searchDto.getDescending() != null
+                ? searchDto.getDescending()
+                : order == UserDirectoryRepository.Order.REGISTERED;
+        int limit = searchDto.getLimit() == null
+                ? DEFAULT_PAGE_SIZE
+                : Math.min(Math.max(searchDto.getLimit(), 1), MAX_PAGE_SIZE);
+        UserDirectoryRepository.Position after = blankToNull(searchDto.getCursor()) == null
+                ? null
+                : decodeCursor(searchDto.getCursor().trim(), order, descending);
+
+        // Лишний пользователь показывает, есть ли следующая страница
+        List<UserEntity> users = this.userRepository.findDirectoryPage(role, namePrefix, order, descending, after, limit + 1);
+        boolean hasNext = users.size() > limit;
+        List<UserEntity> page = hasNext ? users.subList(0, limit) : users;
+
+        Total total = count(role, namePrefix);
+        return UserPageDto.builder()
+                .users(page.stream().map(UserMapper::map).toList())
+                .nextCursor(hasNext ? encodeCursor(order, descending, UserDirectoryRepository.Position.of(page.getLast())) : null)
+                .total(total.value())
+                .totalKind(total.kind())
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countUsers() {
+        return count(null, null).value();
     }
 
     @Override
@@ -157,15 +197,81 @@ public class UserServiceImpl implements UserService {
         return this.userRepository.findByUsername(username).isPresent();
     }
 
-    @Override
-    @Transactional(readOnly = true)
-    public List<UserDto> getAllPassengers() {
-        // Оптимизированный запрос - фильтруем на уровне базы данных
-        return this.userRepository.findAll()
-                .stream()
-                .filter(user -> user.getRole() == UserEntity.Role.PASSENGER)
-                .map(UserMapper::map)
-                .toList();
+    // Без фильтров количество берется из статистики таблицы, если оно заведомо больше порога
+    private Total count(UserEntity.Role role, String namePrefix) {
+        if (role == null && namePrefix == null) {
+            long estimate = this.userRepository.estimateUserCount();
+            if (estimate > COUNT_CAP) {
+                return new Total(estimate, UserPageDto.TotalKind.ESTIMATE);
+            }
+        }
+        long counted = this.userRepository.countDirectory(role, namePrefix, COUNT_CAP + 1);
+        return counted > COUNT_CAP
+                ? new Total(COUNT_CAP, UserPageDto.TotalKind.AT_LEAST)
+                : new Total(counted, UserPageDto.TotalKind.EXACT);
+    }
+
+    private static UserEntity.Role parseRole(String role) {
+        if (blankToNull(role) == null) {
+            return null;
+        }
+        try {
+            return UserEntity.Role.valueOf(role.trim().toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            log.warn(ex.getMessage());
+            throw new IllegalArgumentException("Invalid user role");
+        }
+    }
+
+    private static UserDirectoryRepository.Order parseOrder(String sort) {
+        if (blankToNull(sort) == null) {
+            return UserDirectoryRepository.Order.REGISTERED;
+        }
+        try {
+            return UserDirectoryRepository.Order.valueOf(sort.trim().toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            log.warn(ex.getMessage());
+            throw new IllegalArgumentException("Invalid user sort order");
+        }
+    }
+
+    // Курсор хранит порядок и ключи последнего пользователя страницы: с другим порядком он не применим
+    private static String encodeCursor(UserDirectoryRepository.Order order, boolean descending,
+                                       UserDirectoryRepository.Position position) {
+        String keys = switch (order) {
+            case REGISTERED -> String.valueOf(position.id());
+            case NAME -> String.join(CURSOR_SEPARATOR,
+                    position.lastName(), position.firstName(), String.valueOf(position.id()));
+            case USERNAME -> position.username();
+        };
+        String cursor = String.join(CURSOR_SEPARATOR, order.name(), descending ? "DESC" : "ASC", keys);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static UserDirectoryRepository.Position decodeCursor(String cursor, UserDirectoryRepository.Order order,
+                                                                 boolean descending) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(CURSOR_SEPARATOR, -1);
+            if (parts.length < 3 || !parts[0].equals(order.name()) || !parts[1].equals(descending ? "DESC" : "ASC")) {
+                throw new IllegalArgumentException("Cursor does not match the requested order");
+            }
+            return switch (order) {
+                case REGISTERED -> new UserDirectoryRepository.Position(Integer.valueOf(parts[2]), null, null, null);
+                case NAME -> new UserDirectoryRepository.Position(Integer.valueOf(parts[4]), parts[2], parts[3], null);
+                case USERNAME -> new UserDirectoryRepository.Position(null, null, null, parts[2]);
+            };
+        } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+            log.warn(ex.getMessage());
+            throw new IllegalArgumentException("Invalid user directory cursor");
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private record Total(long value, UserPageDto.TotalKind kind) {
     }
 
 }
\ No newline at end of file
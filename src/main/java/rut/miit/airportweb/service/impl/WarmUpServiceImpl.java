@@ -0,0 +1,315 @@
+package rut.miit.airportweb.service.impl;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.io.Resource;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.stereotype.Service;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+import rut.miit.airportweb.diagnostics.SyntheticTraffic;
+import rut.miit.airportweb.dto.FlightDto;
+import rut.miit.airportweb.dto.FlightSearchDto;
+import rut.miit.airportweb.dto.TicketDto;
+import rut.miit.airportweb.service.BorderCheckService;
+import rut.miit.airportweb.service.FlightService;
+import rut.miit.airportweb.service.ItineraryService;
+import rut.miit.airportweb.service.TicketService;
+import rut.miit.airportweb.service.WarmUpService;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Прогрев выполняется раннером приложения: Spring Boot переводит готовность в ACCEPTING_TRAFFIC
+ * только после всех раннеров, поэтому до конца прогрева /actuator/health/readiness отвечает 503.
+ * Прогрев только читает данные; ошибка любого этапа записывается в лог и не мешает запуску.
+ * Вызовы прогрева отмечены {@link SyntheticTraffic} и не попадают в метрики сервисов и события JFR.
+ * В тестах прогрев выключен профилем test
+ */
+@Service
+@Slf4j
+public class WarmUpServiceImpl implements WarmUpService, ApplicationRunner {
+
+    private static final String TEMPLATES_LOCATION = "classpath*:/templates/**/*.html";
+    private static final String TEMPLATES_ROOT = "/templates/";
+    private static final Locale TEMPLATE_LOCALE = Locale.forLanguageTag("ru");
+    private static final int PROBE_SAMPLES = 21;
+
+    private final ApplicationContext applicationContext;
+    private final EntityManager entityManager;
+    private final ITemplateEngine templateEngine;
+    private final FlightService flightService;
+    private final TicketService ticketService;
+    private final ItineraryService itineraryService;
+    private final BorderCheckService borderCheckService;
+
+    private final boolean enabled;
+    private final int maxFlights;
+    private final int iterations;
+    private final Duration maxDuration;
+
+    private volatile WarmUpReport lastReport;
+
+    public WarmUpServiceImpl(ApplicationContext applicationContext,
+                             EntityManager entityManager,
+                             ITemplateEngine templateEngine,
+                             FlightService flightService,
+                             TicketService ticketService,
+                             ItineraryService itineraryService,
+                             BorderCheckService borderCheckService,
+                             @Value("${airport.warmup.enabled:true}") boolean enabled,
+                             @Value("${airport.warmup.max-flights:50}") int maxFlights,
+                             @Value("${airport.warmup.iterations:300}") int iterations,
+                             @Value("${airport.warmup.max-duration:60s}") Duration maxDuration) {
+        this.applicationContext = applicationContext;
+        this.entityManager = entityManager;
+        this.templateEngine = templateEngine;
+        this.flightService = flightService;
+        this.ticketService = ticketService;
+        this.itineraryService = itineraryService;
+        this.borderCheckService = borderCheckService;
+        this.enabled = enabled;
+        this.maxFlights = maxFlights;
+        this.iterations = iterations;
+        this.maxDuration = maxDuration;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            warmUp();
+        }
+    }
+
+    @Override
+    public synchronized WarmUpReport warmUp() {
+        return SyntheticTraffic.run(this::doWarmUp);
+    }
+
+    @Override
+    public Optional<WarmUpReport> getLastReport() {
+        return Optional.ofNullable(lastReport);
+    }
+
+    private WarmUpReport doWarmUp() {
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+
+        List<FlightDto> flights = todayFlights();
+        List<TicketDto> tickets = new ArrayList<>();
+        Duration coldProbe = flights.isEmpty() ? Duration.ZERO : probe(flights.getFirst());
+
+        long phase = System.nanoTime();
+        int loaded = loadManifests(flights, tickets);
+        log.info("Warm-up: {} flights for today and {} tickets loaded in {} ms", loaded, tickets.size(), millisSince(phase));
+
+        phase = System.nanoTime();
+        int queries = compileQueries();
+        log.info("Warm-up: {} @Query methods compiled in {} ms", queries, millisSince(phase));
+
+        phase = System.nanoTime();
+        int templates = renderTemplates();
+        log.info("Warm-up: {} templates parsed in {} ms", templates, millisSince(phase));
+
+        phase = System.nanoTime();
+        int done = exerciseHotPaths(flights, tickets, deadline);
+        log.info("Warm-up: {} synthetic iterations in {} ms", done, millisSince(phase));
+
+        Duration warmProbe = flights.isEmpty() ? Duration.ZERO : medianProbe(flights.getFirst());
+        WarmUpReport report = new WarmUpReport(Duration.ofNanos(System.nanoTime() - start),
+                loaded, queries, templates, done, coldProbe, warmProbe);
+        lastReport = report;
+
+        log.info("Warm-up finished in {} ms: gate probe {} ms cold -> {} ms warm",
+                report.duration().toMillis(), String.format("%.2f", coldProbe.toNanos() / 1e6),
+                String.format("%.2f", warmProbe.toNanos() / 1e6));
+        return report;
+    }
+
+    // ========== ЭТАПЫ ==========
+
+    // Рейсы с вылетом сегодня; если их нет (например, на демо-данных), — любые рейсы со свободными местами
+    private List<FlightDto> todayFlights() {
+        LocalDateTime today = LocalDate.now().atStartOfDay();
+        try {
+            List<FlightDto> flights = flightService.searchFlights(FlightSearchDto.builder()
+                    .departureFrom(today)
+                    .departureTo(today.plusDays(1))
+                    .limit(maxFlights)
+                    .build());
+            if (flights.isEmpty()) {
+                flights = flightService.findAvailableFlights().stream().limit(maxFlights).toList();
+            }
+            return flights;
+        } catch (RuntimeException e) {
+            log.warn("Warm-up: could not load today's flights: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Списки пассажиров и занятые места рейсов на сегодня. Из кэшей в приложении есть только граф
+     * маршрутов; он уже построен при старте, здесь его обходят поиском, остальное прогревает
+     * планы запросов Hibernate и пул соединений
+     */
+    private int loadManifests(List<FlightDto> flights, List<TicketDto> tickets) {
+        int loaded = 0;
+        for (FlightDto flight : flights) {
+            try {
+                tickets.addAll(ticketService.findAllByFlight(flight.getFlightNumber()));
+                ticketService.getOccupiedSeats(flight.getFlightNumber());
+                itineraryService.findItineraries(flight.getDepartureCity(), flight.getArrivalCity(),
+                        flight.getDepartureTime().minusHours(1), 5);
+                loaded++;
+            } catch (RuntimeException e) {
+                log.warn("Warm-up: could not load manifest of flight {}: {}", flight.getFlightNumber(), e.getMessage());
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Разбор JPQL каждого {@code @Query}: Hibernate кэширует результат разбора, и первый
+     * реальный вызов не платит за него. Нативные запросы не разбираются, запросы не выполняются
+     */
+    private int compileQueries() {
+        int compiled = 0;
+        Repositories repositories = new Repositories(applicationContext);
+        for (Class<?> domainType : repositories) {
+            Class<?> repositoryInterface = repositories.getRequiredRepositoryInformation(domainType)
+                    .getRepositoryInterface();
+            for (Method method : repositoryInterface.getMethods()) {
+                Query query = method.getAnnotation(Query.class);
+                if (query == null || query.nativeQuery() || query.value().isBlank()) {
+                    continue;
+                }
+                try {
+                    entityManager.createQuery(query.value());
+                    compiled++;
+                } catch (RuntimeException e) {
+                    log.warn("Warm-up: could not compile query of {}.{}: {}",
+                            repositoryInterface.getSimpleName(), method.getName(), e.getMessage());
+                }
+            }
+        }
+        return compiled;
+    }
+
+    /**
+     * Один проход по каждому шаблону с пустой моделью. Шаблон разбирается и кэшируется до обработки,
+     * поэтому ошибки обработки из-за пустой модели и отсутствия запроса ожидаемы и не мешают
+     */
+    private int renderTemplates() {
+        Resource[] resources;
+        try {
+            resources = applicationContext.getResources(TEMPLATES_LOCATION);
+        } catch (IOException e) {
+            log.warn("Warm-up: could not list templates: {}", e.getMessage());
+            return 0;
+        }
+
+        int rendered = 0;
+        for (Resource resource : resources) {
+            String name = templateName(resource);
+            if (name == null) {
+                continue;
+            }
+            try {
+                templateEngine.process(name, new Context(TEMPLATE_LOCALE), Writer.nullWriter());
+            } catch (RuntimeException e) {
+                log.debug("Warm-up: template {} parsed, processing without model failed: {}", name, e.getMessage());
+            }
+            rendered++;
+        }
+        return rendered;
+    }
+
+    /**
+     * Синтетические вызовы методов, которые обслуживают регистрацию, посадку и контроль:
+     * чтобы к первым пассажирам эти пути уже были скомпилированы JIT
+     */
+    private int exerciseHotPaths(List<FlightDto> flights, List<TicketDto> tickets, long deadline) {
+        if (flights.isEmpty()) {
+            return 0;
+        }
+        int done = 0;
+        for (int i = 0; i < iterations && System.nanoTime() < deadline; i++) {
+            FlightDto flight = flights.get(i % flights.size());
+            try {
+                gateRequest(flight);
+                ticketService.isSeatAvailable(flight.getFlightNumber(), "1A");
+                flightService.findFlightsByStatus(flight.getStatus());
+                if (!tickets.isEmpty()) {
+                    TicketDto ticket = tickets.get(i % tickets.size());
+                    ticketService.getTicketByNumber(ticket.getTicketNumber());
+                    borderCheckService.performBorderCheck(ticket.getPassportNumber(), ticket.getTicketNumber());
+                }
+                done++;
+            } catch (RuntimeException e) {
+                log.warn("Warm-up: synthetic iteration failed, stopping: {}", e.getMessage());
+                break;
+            }
+        }
+        return done;
+    }
+
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
+    // Типовой запрос у выхода на посадку: рейс, список пассажиров и занятые места
+    private void gateRequest(FlightDto flight) {
+        flightService.getFlightByNumber(flight.getFlightNumber());
+        ticketService.findAllByFlight(flight.getFlightNumber());
+        ticketService.getOccupiedSeats(flight.getFlightNumber());
+    }
+
+    private Duration probe(FlightDto flight) {
+        long start = System.nanoTime();
+        try {
+            gateRequest(flight);
+        } catch (RuntimeException e) {
+            log.warn("Warm-up: gate probe failed: {}", e.getMessage());
+        }
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+
+    private Duration medianProbe(FlightDto flight) {
+        long[] samples = new long[PROBE_SAMPLES];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = probe(flight).toNanos();
+        }
+        Arrays.sort(samples);
+        return Duration.ofNanos(samples[samples.length / 2]);
+    }
+
+    private static String templateName(Resource resource) {
+        try {
+            String url = resource.getURL().toString();
+            int root = url.lastIndexOf(TEMPLATES_ROOT);
+            if (root < 0 || !url.endsWith(".html")) {
+                return null;
+            }
+            return url.substring(root + TEMPLATES_ROOT.length(), url.length() - ".html".length());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static long millisSince(long startNanos) {
+        return Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+    }
+}
@@ -0,0 +1,347 @@
+--liquibase formatted sql
+
+--changeset yaroslav:flight-manifest-1
+-- Манифест рейса: строка на билет со всем, что показывают экраны регистрации, посадки,
+-- пограничного и таможенного контроля. Ведется триггерами ниже, приложение его только читает.
+-- Экран рейса — один проход по idx_flight_manifest_flight, уже упорядоченный по статусу и месту
+CREATE TABLE IF NOT EXISTS flight_manifest (
+    ticket_id INTEGER PRIMARY KEY,
+    flight_id INTEGER NOT NULL,
+    flight_number VARCHAR(10) NOT NULL,
+    ticket_number VARCHAR(20) NOT NULL,
+    seat_number VARCHAR(10) NOT NULL,
+    ticket_status VARCHAR(20) NOT NULL,
+    price DECIMAL(10,2),
+    booking_date TIMESTAMP,
+    passenger_id INTEGER,
+    passport_number VARCHAR(20),
+    passenger_name VARCHAR(101),
+    luggage_checked BOOLEAN NOT NULL DEFAULT FALSE,
+    boarding_pass_id INTEGER,
+    passport_verified BOOLEAN NOT NULL DEFAULT FALSE,
+    luggage_verified BOOLEAN NOT NULL DEFAULT FALSE,
+    boarded BOOLEAN NOT NULL DEFAULT FALSE
+);
+CREATE INDEX IF NOT EXISTS idx_flight_manifest_flight ON flight_manifest(flight_number, ticket_status, seat_number);
+--rollback DROP TABLE IF EXISTS flight_manifest;
+
+--changeset yaroslav:flight-manifest-2 splitStatements:false
+-- Пересчет строк манифеста по билетам из основных таблиц. Строки сначала блокируются: конкурентный
+-- пересчет того же билета ждет фиксации и читает уже ее результат (в READ COMMITTED у следующего
+-- оператора новый снимок), иначе более поздняя фиксация могла бы записать устаревшие значения
+CREATE OR REPLACE FUNCTION flight_manifest_refresh(ticket_ids INTEGER[]) RETURNS void
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF ticket_ids IS NULL OR cardinality(ticket_ids) = 0 THEN
+        RETURN;
+    END IF;
+
+    PERFORM 1 FROM flight_manifest m
+    WHERE m.ticket_id IN (SELECT unnest(ticket_ids))
+    ORDER BY m.ticket_id
+    FOR UPDATE;
+
+    DELETE FROM flight_manifest m
+    WHERE m.ticket_id IN (SELECT unnest(ticket_ids))
+      AND NOT EXISTS (SELECT 1 FROM tickets t JOIN flights f ON f.id = t.flight_id WHERE t.id = m.ticket_id);
+
+    INSERT INTO flight_manifest (ticket_id, flight_id, flight_number, ticket_number, seat_number, ticket_status,
+                                 price, booking_date, passenger_id, passport_number, passenger_name,
+                                 luggage_checked, boarding_pass_id, passport_verified, luggage_verified, boarded)
+    SELECT t.id, f.id, f.flight_number, t.ticket_number, t.seat_number, COALESCE(t.status, 'BOOKED'),
+           t.price, t.booking_date, p.id, p.passport_number,
+           NULLIF(concat_ws(' ', u.first_name, u.last_name), ''),
+           COALESCE(p.luggage_checked, FALSE), bp.id,
+           COALESCE(bp.passport_verified, FALSE), COALESCE(bp.luggage_verified, FALSE), COALESCE(bp.boarded, FALSE)
+    FROM tickets t
+    JOIN flights f ON f.id = t.flight_id
+    LEFT JOIN passengers p ON p.id = t.passenger_id
+    LEFT JOIN users u ON u.id = p.user_id
+    LEFT JOIN boarding_passes bp ON bp.ticket_id = t.id
+    WHERE t.id IN (SELECT unnest(ticket_ids))
+    ON CONFLICT (ticket_id) DO UPDATE SET
+        flight_id = EXCLUDED.flight_id,
+        flight_number = EXCLUDED.flight_number,
+        ticket_number = EXCLUDED.ticket_number,
+        seat_number = EXCLUDED.seat_number,
+        ticket_status = EXCLUDED.ticket_status,
+        price = EXCLUDED.price,
+        booking_date = EXCLUDED.booking_date,
+        passenger_id = EXCLUDED.passenger_id,
+        passport_number = EXCLUDED.passport_number,
+        passenger_name = EXCLUDED.passenger_name,
+        luggage_checked = EXCLUDED.luggage_checked,
+        boarding_pass_id = EXCLUDED.boarding_pass_id,
+        passport_verified = EXCLUDED.passport_verified,
+        luggage_verified = EXCLUDED.luggage_verified,
+        boarded = EXCLUDED.boarded
+    -- Неизменившаяся строка не переписывается и не оставляет мертвую версию
+    WHERE (flight_manifest.*) IS DISTINCT FROM (EXCLUDED.*);
+END;
+$$;
+
+-- Триггеры уровня оператора с таблицами переходов: пакетная вставка (COPY генератора данных)
+-- пересчитывает манифест одним запросом на оператор, а не на строку
+CREATE OR REPLACE FUNCTION flight_manifest_on_tickets() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        DELETE FROM flight_manifest WHERE ticket_id IN (SELECT id FROM old_rows);
+    ELSE
+        PERFORM flight_manifest_refresh(ARRAY(SELECT id FROM new_rows));
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION flight_manifest_on_boarding_passes() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        PERFORM flight_manifest_refresh(ARRAY(SELECT ticket_id FROM new_rows WHERE ticket_id IS NOT NULL));
+    ELSIF TG_OP = 'UPDATE' THEN
+        PERFORM flight_manifest_refresh(ARRAY(
+                SELECT ticket_id FROM new_rows WHERE ticket_id IS NOT NULL
+                UNION
+                SELECT ticket_id FROM old_rows WHERE ticket_id IS NOT NULL));
+    ELSE
+        PERFORM flight_manifest_refresh(ARRAY(SELECT ticket_id FROM old_rows WHERE ticket_id IS NOT NULL));
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+-- Пассажиры, пользователи и рейсы: пересчитываются только билеты, у которых поменялись поля манифеста.
+-- Удаления каскадом доходят до tickets и обрабатываются там
+CREATE OR REPLACE FUNCTION flight_manifest_on_passengers() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    PERFORM flight_manifest_refresh(ARRAY(
+            SELECT t.id FROM new_rows n
+            JOIN old_rows o ON o.id = n.id
+            JOIN tickets t ON t.passenger_id = n.id
+            WHERE (n.passport_number, n.luggage_checked, n.user_id)
+                  IS DISTINCT FROM (o.passport_number, o.luggage_checked, o.user_id)));
+    RETURN NULL;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION flight_manifest_on_users() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    PERFORM flight_manifest_refresh(ARRAY(
+            SELECT t.id FROM new_rows n
+            JOIN old_rows o ON o.id = n.id
+            JOIN passengers p ON p.user_id = n.id
+            JOIN tickets t ON t.passenger_id = p.id
+            WHERE (n.first_name, n.last_name) IS DISTINCT FROM (o.first_name, o.last_name)));
+    RETURN NULL;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION flight_manifest_on_flights() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    PERFORM flight_manifest_refresh(ARRAY(
+            SELECT t.id FROM new_rows n
+            JOIN old_rows o ON o.id = n.id
+            JOIN tickets t ON t.flight_id = n.id
+            WHERE n.flight_number IS DISTINCT FROM o.flight_number));
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER flight_manifest_tickets_insert AFTER INSERT ON tickets
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION flight_manifest_on_tickets();
+CREATE TRIGGER flight_manifest_tickets_update AFTER UPDATE ON tickets
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION flight_manifest_on_tickets();
+CREATE TRIGGER flight_manifest_tickets_delete AFTER DELETE ON tickets
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION flight_manifest_on_tickets();
+
+CREATE TRIGGER flight_manifest_boarding_passes_insert AFTER INSERT ON boarding_passes
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION flight_manifest_on_boarding_passes();
+CREATE TRIGGER flight_manifest_boarding_passes_update AFTER UPDATE ON boarding_passes
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION flight_manifest_on_boarding_passes();
+CREATE TRIGGER flight_manifest_boarding_passes_delete AFTER DELETE ON boarding_passes
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION flight_manifest_on_boarding_passes();
+
+CREATE TRIGGER flight_manifest_passengers_update AFTER UPDATE ON passengers
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION flight_manifest_on_passengers();
+CREATE TRIGGER flight_manifest_users_update AFTER UPDATE ON users
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION flight_manifest_on_users();
+CREATE TRIGGER flight_manifest_flights_update AFTER UPDATE ON flights
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION flight_manifest_on_flights();
+--rollback DROP TRIGGER IF EXISTS flight_manifest_flights_update ON flights;
+--rollback DROP TRIGGER IF EXISTS flight_manifest_users_update ON users;
+--rollback DROP TRIGGER IF EXISTS flight_manifest_passengers_update ON passengers;
+--rollback DROP TRIGGER IF EXISTS flight_manifest_boarding_passes_delete ON boarding_passes;
+--rollback DROP TRIGGER IF EXISTS flight_manifest_boarding_passes_update ON boarding_passes;
+--rollback DROP TRIGGER IF EXISTS flight_manifest_boarding_passes_insert ON boarding_passes;
+--rollback DROP TRIGGER IF EXISTS flight_manifest_tickets_delete ON tickets;
+--rollback DROP TRIGGER IF EXISTS flight_manifest_tickets_update ON tickets;
+--rollback DROP TRIGGER IF EXISTS flight_manifest_tickets_insert ON tickets;
+--rollback DROP FUNCTION IF EXISTS flight_manifest_on_flights();
+--rollback DROP FUNCTION IF EXISTS flight_manifest_on_users();
+--rollback DROP FUNCTION IF EXISTS flight_manifest_on_passengers();
+--rollback DROP FUNCTION IF EXISTS flight_manifest_on_boarding_passes();
+--rollback DROP FUNCTION IF EXISTS flight_manifest_on_tickets();
+--rollback DROP FUNCTION IF EXISTS flight_manifest_refresh(INTEGER[]);
+
+--changeset yaroslav:flight-manifest-3
+-- Заполнение манифеста по уже существующим билетам
+SELECT flight_manifest_refresh(ARRAY(SELECT id FROM tickets));
+--rollback TRUNCATE flight_manifest;
+
+--changeset yaroslav:flight-manifest-4 splitStatements:false rollbackSplitStatements:false
+-- Порядок блокировок как у приложения: сначала строки tickets (по id), потом манифест. Блокировка строк
+-- манифеста в flight_manifest_refresh давала цикл: посадка (талон, затем билет) держала строку манифеста
+-- и ждала билет, а изменение билета держало билет и ждало ту же строку манифеста. Теперь пересчет из
+-- триггеров талонов, пассажиров, пользователей и рейсов сначала блокирует билеты (FOR NO KEY UPDATE не
+-- мешает проверкам внешних ключей) и встает в очередь за их изменением. Триггер tickets строки уже держит
+-- и пересчитывает без повторной блокировки: пакетная вставка не переписывает заголовки миллионов строк.
+-- Конкурентные пересчеты одного билета по-прежнему идут по очереди и читают результат предыдущего
+CREATE OR REPLACE FUNCTION flight_manifest_rebuild(ticket_ids INTEGER[]) RETURNS void
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF ticket_ids IS NULL OR cardinality(ticket_ids) = 0 THEN
+        RETURN;
+    END IF;
+
+    DELETE FROM flight_manifest m
+    WHERE m.ticket_id IN (SELECT unnest(ticket_ids))
+      AND NOT EXISTS (SELECT 1 FROM tickets t JOIN flights f ON f.id = t.flight_id WHERE t.id = m.ticket_id);
+
+    INSERT INTO flight_manifest (ticket_id, flight_id, flight_number, ticket_number, seat_number, ticket_status,
+                                 price, booking_date, passenger_id, passport_number, passenger_name,
+                                 luggage_checked, boarding_pass_id, passport_verified, luggage_verified, boarded)
+    SELECT t.id, f.id, f.flight_number, t.ticket_number, t.seat_number, COALESCE(t.status, 'BOOKED'),
+           t.price, t.booking_date, p.id, p.passport_number,
+           NULLIF(concat_ws(' ', u.first_name, u.last_name), ''),
+           COALESCE(p.luggage_checked, FALSE), bp.id,
+           COALESCE(bp.passport_verified, FALSE), COALESCE(bp.luggage_verified, FALSE), COALESCE(bp.boarded, FALSE)
+    FROM tickets t
+    JOIN flights f ON f.id = t.flight_id
+    LEFT JOIN passengers p ON p.id = t.passenger_id
+    LEFT JOIN users u ON u.id = p.user_id
+    LEFT JOIN boarding_passes bp ON bp.ticket_id = t.id
+    WHERE t.id IN (SELECT unnest(ticket_ids))
+    ON CONFLICT (ticket_id) DO UPDATE SET
+        flight_id = EXCLUDED.flight_id,
+        flight_number = EXCLUDED.flight_number,
+        ticket_number = EXCLUDED.ticket_number,
+        seat_number = EXCLUDED.seat_number,
+        ticket_status = EXCLUDED.ticket_status,
+        price = EXCLUDED.price,
+        booking_date = EXCLUDED.booking_date,
+        passenger_id = EXCLUDED.passenger_id,
+        passport_number = EXCLUDED.passport_number,
+        passenger_name = EXCLUDED.passenger_name,
+        luggage_checked = EXCLUDED.luggage_checked,
+        boarding_pass_id = EXCLUDED.boarding_pass_id,
+        passport_verified = EXCLUDED.passport_verified,
+        luggage_verified = EXCLUDED.luggage_verified,
+        boarded = EXCLUDED.boarded
+    -- Неизменившаяся строка не переписывается и не оставляет мертвую версию
+    WHERE (flight_manifest.*) IS DISTINCT FROM (EXCLUDED.*);
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION flight_manifest_refresh(ticket_ids INTEGER[]) RETURNS void
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF ticket_ids IS NULL OR cardinality(ticket_ids) = 0 THEN
+        RETURN;
+    END IF;
+
+    PERFORM 1 FROM tickets t
+    WHERE t.id IN (SELECT unnest(ticket_ids))
+    ORDER BY t.id
+    FOR NO KEY UPDATE;
+
+    PERFORM flight_manifest_rebuild(ticket_ids);
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION flight_manifest_on_tickets() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        DELETE FROM flight_manifest WHERE ticket_id IN (SELECT id FROM old_rows);
+    ELSE
+        PERFORM flight_manifest_rebuild(ARRAY(SELECT id FROM new_rows));
+    END IF;
+    RETURN NULL;
+END;
+$$;
+--rollback CREATE OR REPLACE FUNCTION flight_manifest_refresh(ticket_ids INTEGER[]) RETURNS void
+--rollback LANGUAGE plpgsql AS $$
+--rollback BEGIN
+--rollback     IF ticket_ids IS NULL OR cardinality(ticket_ids) = 0 THEN
+--rollback         RETURN;
+--rollback     END IF;
+--rollback
+--rollback     PERFORM 1 FROM flight_manifest m
+--rollback     WHERE m.ticket_id IN (SELECT unnest(ticket_ids))
+--rollback     ORDER BY m.ticket_id
+--rollback     FOR UPDATE;
+--rollback
+--rollback     DELETE FROM flight_manifest m
+--rollback     WHERE m.ticket_id IN (SELECT unnest(ticket_ids))
+--rollback       AND NOT EXISTS (SELECT 1 FROM tickets t JOIN flights f ON f.id = t.flight_id WHERE t.id = m.ticket_id);
+--rollback
+--rollback     INSERT INTO flight_manifest (ticket_id, flight_id, flight_number, ticket_number, seat_number, ticket_status,
+--rollback                                  price, booking_date, passenger_id, passport_number, passenger_name,
+--rollback                                  luggage_checked, boarding_pass_id, passport_verified, luggage_verified, boarded)
+--rollback     SELECT t.id, f.id, f.flight_number, t.ticket_number, t.seat_number, COALESCE(t.status, 'BOOKED'),
+--rollback            t.price, t.booking_date, p.id, p.passport_number,
+--rollback            NULLIF(concat_ws(' ', u.first_name, u.last_name), ''),
+--rollback            COALESCE(p.luggage_checked, FALSE), bp.id,
+--rollback            COALESCE(bp.passport_verified, FALSE), COALESCE(bp.luggage_verified, FALSE), COALESCE(bp.boarded, FALSE)
+--rollback     FROM tickets t
+--rollback     JOIN flights f ON f.id = t.flight_id
+--rollback     LEFT JOIN passengers p ON p.id = t.passenger_id
+--rollback     LEFT JOIN users u ON u.id = p.user_id
+--rollback     LEFT JOIN boarding_passes bp ON bp.ticket_id = t.id
+--rollback     WHERE t.id IN (SELECT unnest(ticket_ids))
+--rollback     ON CONFLICT (ticket_id) DO UPDATE SET
+--rollback         flight_id = EXCLUDED.flight_id,
+--rollback         flight_number = EXCLUDED.flight_number,
+--rollback         ticket_number = EXCLUDED.ticket_number,
+--rollback         seat_number = EXCLUDED.seat_number,
+--rollback         ticket_status = EXCLUDED.ticket_status,
+--rollback         price = EXCLUDED.price,
+--rollback         booking_date = EXCLUDED.booking_date,
+--rollback         passenger_id = EXCLUDED.passenger_id,
+--rollback         passport_number = EXCLUDED.passport_number,
+--rollback         passenger_name = EXCLUDED.passenger_name,
+--rollback         luggage_checked = EXCLUDED.luggage_checked,
+--rollback         boarding_pass_id = EXCLUDED.boarding_pass_id,
+--rollback         passport_verified = EXCLUDED.passport_verified,
+--rollback         luggage_verified = EXCLUDED.luggage_verified,
+--rollback         boarded = EXCLUDED.boarded
+--rollback     -- Неизменившаяся строка не переписывается и не оставляет мертвую версию
+--rollback     WHERE (flight_manifest.*) IS DISTINCT FROM (EXCLUDED.*);
+--rollback END;
+--rollback $$;
+--rollback
+--rollback CREATE OR REPLACE FUNCTION flight_manifest_on_tickets() RETURNS trigger
+--rollback LANGUAGE plpgsql AS $$
+--rollback BEGIN
+--rollback     IF TG_OP = 'DELETE' THEN
+--rollback         DELETE FROM flight_manifest WHERE ticket_id IN (SELECT id FROM old_rows);
+--rollback     ELSE
+--rollback         PERFORM flight_manifest_refresh(ARRAY(SELECT id FROM new_rows));
+--rollback     END IF;
+--rollback     RETURN NULL;
+--rollback END;
+--rollback $$;
+--rollback DROP FUNCTION IF EXISTS flight_manifest_rebuild(INTEGER[]);
@@ -0,0 +1,26 @@
+--liquibase formatted sql
+
+--changeset yaroslav:flights-search-indexes-1
+-- Индексы для поиска рейсов по окну времени вылета (FlightSearchRepository)
+-- Только окно вылета: диапазонный скан, порядок по departure_time уже из индекса
+CREATE INDEX IF NOT EXISTS idx_flights_departure_time ON flights(departure_time);
+-- Маршрут + окно вылета
+CREATE INDEX IF NOT EXISTS idx_flights_route_departure ON flights(departure_city, arrival_city, departure_time);
+-- Статус + окно вылета; заменяет одиночный индекс по статусу
+CREATE INDEX IF NOT EXISTS idx_flights_status_departure ON flights(status, departure_time);
+DROP INDEX IF EXISTS idx_flights_status;
+--rollback CREATE INDEX idx_flights_status ON flights(status);
+--rollback DROP INDEX IF EXISTS idx_flights_status_departure;
+--rollback DROP INDEX IF EXISTS idx_flights_route_departure;
+--rollback DROP INDEX IF EXISTS idx_flights_departure_time;
+
+--changeset yaroslav:flights-search-indexes-2
+-- Город в поиске — префикс без учета регистра: lower(city) LIKE 'моск%' (при любой сортировке базы)
+-- Маршрут по префиксам обоих городов и только город отправления; окно вылета проверяется по индексу, без чтения строк
+CREATE INDEX IF NOT EXISTS idx_flights_route_prefix
+    ON flights(lower(departure_city) text_pattern_ops, lower(arrival_city) text_pattern_ops, departure_time);
+-- Только город прибытия
+CREATE INDEX IF NOT EXISTS idx_flights_arrival_prefix
+    ON flights(lower(arrival_city) text_pattern_ops, departure_time);
+--rollback DROP INDEX IF EXISTS idx_flights_arrival_prefix;
+--rollback DROP INDEX IF EXISTS idx_flights_route_prefix;
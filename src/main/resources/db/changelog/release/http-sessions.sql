@@ -0,0 +1,20 @@
+--liquibase formatted sql
+
+--changeset yaroslav:http-sessions-1
+-- HTTP-сессии, общие для всех экземпляров приложения (airport.session.store=jdbc).
+-- Время — миллисекунды эпохи; атрибуты — компактная двоичная запись (SessionAttributeCodec)
+CREATE TABLE IF NOT EXISTS http_sessions (
+    session_id VARCHAR(64) PRIMARY KEY,
+    created_at BIGINT NOT NULL,
+    last_accessed_at BIGINT NOT NULL,
+    max_inactive_seconds INTEGER NOT NULL,
+    expires_at BIGINT NOT NULL,
+    attributes BYTEA NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_http_sessions_expires_at ON http_sessions(expires_at);
+--rollback DROP TABLE IF EXISTS http_sessions;
+
+--changeset yaroslav:http-sessions-2
+-- Версия строки: атрибуты пишутся условно (WHERE version = ?), при несовпадении изменения сливаются
+ALTER TABLE http_sessions ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+--rollback ALTER TABLE http_sessions DROP COLUMN IF EXISTS version;
@@ -0,0 +1,21 @@
+--liquibase formatted sql
+
+--changeset yaroslav:idempotency-keys-1
+-- Сохраненные результаты запросов с ключом идемпотентности (airport.idempotency.persistent=true)
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    idempotency_key VARCHAR(255) PRIMARY KEY,
+    view_name VARCHAR(255) NOT NULL,
+    flash_attributes TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_created_at ON idempotency_keys(created_at);
+--rollback DROP TABLE IF EXISTS idempotency_keys;
+
+--changeset yaroslav:idempotency-keys-2
+-- Ключ занимается до выполнения действия (PENDING): дубликат на другом узле ждет результата, а не выполняет его
+ALTER TABLE idempotency_keys ADD COLUMN status VARCHAR(10) NOT NULL DEFAULT 'DONE';
+ALTER TABLE idempotency_keys ADD CONSTRAINT idempotency_keys_status_check CHECK (status IN ('PENDING', 'DONE'));
+ALTER TABLE idempotency_keys ALTER COLUMN view_name DROP NOT NULL;
+--rollback DELETE FROM idempotency_keys WHERE status = 'PENDING';
+--rollback ALTER TABLE idempotency_keys ALTER COLUMN view_name SET NOT NULL;
+--rollback ALTER TABLE idempotency_keys DROP COLUMN status;
@@ -0,0 +1,27 @@
+--liquibase formatted sql
+
+--changeset yaroslav:outbox-events-1
+-- Доменные события, записанные в одной транзакции с изменением (OutboxWriter).
+-- txid — транзакция, записавшая событие: ретранслятор (OutboxRelay) отдает события транзакций,
+-- которые уже завершились, в порядке (txid, id), поэтому событие долгой транзакции не обгоняется
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id BIGSERIAL PRIMARY KEY,
+    txid XID8 NOT NULL DEFAULT pg_current_xact_id(),
+    event_type VARCHAR(64) NOT NULL,
+    aggregate_type VARCHAR(32) NOT NULL,
+    aggregate_id VARCHAR(255) NOT NULL,
+    payload JSONB NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS idx_outbox_events_txid_id ON outbox_events(txid, id);
+CREATE INDEX IF NOT EXISTS idx_outbox_events_aggregate ON outbox_events(aggregate_type, aggregate_id);
+
+-- Позиция ретранслятора в ленте событий; строка блокируется на время пачки, так что пачку ведет один узел
+CREATE TABLE IF NOT EXISTS outbox_cursors (
+    consumer VARCHAR(64) PRIMARY KEY,
+    last_txid XID8 NOT NULL,
+    last_id BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+--rollback DROP TABLE IF EXISTS outbox_cursors;
+--rollback DROP TABLE IF EXISTS outbox_events;
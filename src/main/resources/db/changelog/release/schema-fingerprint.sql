@@ -0,0 +1,11 @@
+--liquibase formatted sql
+
+--changeset yaroslav:schema-fingerprint-1
+-- Отпечаток changelog и классов сущностей, с которым последний раз прошли миграции и проверка схемы
+-- (быстрый старт, airport.startup.schema-fast-path=true)
+CREATE TABLE IF NOT EXISTS schema_fingerprint (
+    id SMALLINT PRIMARY KEY CHECK (id = 1),
+    fingerprint VARCHAR(64) NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+--rollback DROP TABLE IF EXISTS schema_fingerprint;
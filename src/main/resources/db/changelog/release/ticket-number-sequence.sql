@@ -0,0 +1,7 @@
+--liquibase formatted sql
+
+--changeset yaroslav:ticket-number-sequence-1
+-- Блоки номеров билетов для TicketNumberServiceImpl: каждый nextval резервирует 100 номеров.
+-- Шаг должен совпадать с TicketNumberServiceImpl.BLOCK_SIZE
+CREATE SEQUENCE IF NOT EXISTS ticket_number_seq START WITH 1 INCREMENT BY 100 MINVALUE 1 NO CYCLE;
+--rollback DROP SEQUENCE IF EXISTS ticket_number_seq;
@@ -0,0 +1,20 @@
+--liquibase formatted sql
+
+--changeset yaroslav:users-directory-indexes-1
+-- Индексы справочника пользователей (UserDirectoryRepository): страница по ключу читается диапазоном индекса
+-- Порядок регистрации без фильтра идет по первичному ключу; с фильтром по роли
+CREATE INDEX IF NOT EXISTS idx_users_role_id ON users(role, id);
+-- Порядок по фамилии без фильтра и с фильтром по роли
+CREATE INDEX IF NOT EXISTS idx_users_name ON users(last_name, first_name, id);
+CREATE INDEX IF NOT EXISTS idx_users_role_name ON users(role, last_name, first_name, id);
+-- Порядок по имени пользователя с фильтром по роли; без фильтра — уникальный индекс username
+CREATE INDEX IF NOT EXISTS idx_users_role_username ON users(role, username);
+-- Поиск по началу фамилии или имени пользователя без учета регистра (LIKE 'abc%' при любой сортировке базы)
+CREATE INDEX IF NOT EXISTS idx_users_last_name_prefix ON users(lower(last_name) text_pattern_ops);
+CREATE INDEX IF NOT EXISTS idx_users_username_prefix ON users(lower(username) text_pattern_ops);
+--rollback DROP INDEX IF EXISTS idx_users_username_prefix;
+--rollback DROP INDEX IF EXISTS idx_users_last_name_prefix;
+--rollback DROP INDEX IF EXISTS idx_users_role_username;
+--rollback DROP INDEX IF EXISTS idx_users_role_name;
+--rollback DROP INDEX IF EXISTS idx_users_name;
+--rollback DROP INDEX IF EXISTS idx_users_role_id;
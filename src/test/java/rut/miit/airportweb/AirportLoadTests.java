@@ -0,0 +1,434 @@
+package rut.miit.airportweb;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import rut.miit.airportweb.config.security.RateLimiter;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doReturn;
+
+/**
+ * Нагрузочный прогон основных сценариев через настоящие MVC-эндпоинты:
+ * поиск и бронирование, онлайн-регистрация, пограничный и таможенный контроль, посадка.
+ * Виртуальные пользователи — виртуальные потоки, у каждого своя HTTP-сессия.
+ * Запускается отдельно: ./gradlew loadTest
+ * По каждому сценарию печатаются p50/p99, пропускная способность и доля ошибок;
+ * прогон падает, если доля ошибок хотя бы в одном сценарии выше {@value #MAX_ERROR_RATE}
+ * или доля отказов по лимитам (429 и 503) выше {@value #MAX_THROTTLED_RATE}: сброс нагрузки
+ * не должен прятать перегрузку от проверки ошибок.
+ */
+@Tag("load")
+@Import(TestcontainersConfiguration.class)
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.jpa.show-sql=false")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AirportLoadTests {
+
+    private static final int PASSENGERS = 200;
+    private static final int BOOKINGS_PER_PASSENGER = 5;
+    // Сотрудников каждой службы: пограничники, таможенники, персонал посадки
+    private static final int OFFICERS = 8;
+
+    // Рейсы LT0001..LT0040 открыты для бронирования, LT0041..LT0050 уже на посадке
+    private static final int SCHEDULED_FLIGHTS = 40;
+    private static final int BOARDING_FLIGHTS = 10;
+
+    private static final double MAX_ERROR_RATE = 0.01;
+    // Отказы по лимитам считаются отдельно от ошибок, но тоже ограничены
+    private static final double MAX_THROTTLED_RATE = 0.05;
+    private static final Duration THINK_TIME = Duration.ofMillis(50);
+    private static final String PASSWORD = "load123";
+
+    private static final String[] ARRIVAL_CITIES = {"Казань", "Сочи", "Санкт-Петербург", "Екатеринбург"};
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private Environment environment;
+
+    // Все виртуальные пользователи приходят с одного адреса, а лимит на вход считается по IP.
+    // Вход — подготовка, а не измеряемый сценарий, поэтому лимит для него снимается;
+    // лимит на поиск (по пользователю) остается, отказы 429 печатаются отдельной колонкой
+    @MockitoSpyBean
+    private RateLimiter rateLimiter;
+
+    private final Flow search = new Flow("search");
+    private final Flow book = new Flow("book");
+    private final Flow checkIn = new Flow("check-in");
+    private final Flow border = new Flow("border");
+    private final Flow customs = new Flow("customs");
+    private final Flow board = new Flow("board");
+
+    private String baseUrl;
+
+    @BeforeAll
+    void seedDataset() {
+        baseUrl = "http://localhost:" + environment.getRequiredProperty("local.server.port");
+        doReturn(0L).when(rateLimiter).tryAcquire(argThat(rule -> "login".equals(rule.name())), anyString());
+
+        String passwordHash = passwordEncoder.encode(PASSWORD);
+        jdbcTemplate.update("""
+                INSERT INTO users (username, password, role, first_name, last_name)
+                SELECT 'lt_passenger_' || i, ?, 'PASSENGER', 'Нагрузка', 'Пассажир ' || i
+                FROM generate_series(1, ?) AS i
+                """, passwordHash, PASSENGERS);
+        for (String role : List.of("AIRPORT_STAFF", "BORDER_GUARD", "CUSTOMS_OFFICER")) {
+            jdbcTemplate.update("""
+                    INSERT INTO users (username, password, role, first_name, last_name)
+                    SELECT 'lt_' || lower(?) || '_' || i, ?, ?, 'Нагрузка', 'Сотрудник ' || i
+                    FROM generate_series(1, ?) AS i
+                    """, role, passwordHash, role, OFFICERS);
+        }
+        jdbcTemplate.update("""
+                INSERT INTO passengers (user_id, passport_number, phone, email)
+                SELECT u.id, 'LT' || lpad(i::text, 7, '0'), '+79990000000', 'lt' || i || '@load.test'
+                FROM generate_series(1, ?) AS i
+                JOIN users u ON u.username = 'lt_passenger_' || i
+                """, PASSENGERS);
+
+        jdbcTemplate.update("""
+                INSERT INTO flights (flight_number, departure_city, arrival_city, departure_time, arrival_time,
+                                     total_seats, available_seats, status, created_by)
+                SELECT 'LT' || lpad(i::text, 4, '0'),
+                       'Москва',
+                       (ARRAY['Казань','Сочи','Санкт-Петербург','Екатеринбург'])[1 + i % 4],
+                       date_trunc('hour', LOCALTIMESTAMP) + INTERVAL '1 day' + i * INTERVAL '15 minutes',
+                       date_trunc('hour', LOCALTIMESTAMP) + INTERVAL '1 day 2 hours' + i * INTERVAL '15 minutes',
+                       180, 180,
+                       CASE WHEN i <= ? THEN 'SCHEDULED' ELSE 'BOARDING' END,
+                       (SELECT id FROM users WHERE username = 'admin')
+                FROM generate_series(1, ?) AS i
+                """, SCHEDULED_FLIGHTS, SCHEDULED_FLIGHTS + BOARDING_FLIGHTS);
+
+        // У каждого пассажира уже есть билет на рейс в статусе посадки: его он регистрирует,
+        // по нему проходит контроль и садится в самолет
+        jdbcTemplate.update("""
+                INSERT INTO tickets (flight_id, passenger_id, seat_number, price, ticket_number, status)
+                SELECT f.id, p.id, ((i - 1) / ? + 1) || 'A', 5000, 'LTK' || lpad(i::text, 6, '0'), 'BOOKED'
+                FROM generate_series(1, ?) AS i
+                JOIN flights f ON f.flight_number = 'LT' || lpad((? + 1 + (i - 1) % ?)::text, 4, '0')
+                JOIN passengers p ON p.passport_number = 'LT' || lpad(i::text, 7, '0')
+                """, BOARDING_FLIGHTS, PASSENGERS, SCHEDULED_FLIGHTS, BOARDING_FLIGHTS);
+        jdbcTemplate.update("INSERT INTO boarding_passes (ticket_id) SELECT id FROM tickets WHERE ticket_number LIKE 'LTK%'");
+        jdbcTemplate.update("""
+                UPDATE flights f
+                SET available_seats = total_seats - (SELECT count(*) FROM tickets t WHERE t.flight_id = f.id)
+                WHERE f.flight_number LIKE 'LT%'
+                """);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void passengerJourney() throws Exception {
+        // 1. Поиск рейсов и бронирование
+        Session[] passengers = new Session[PASSENGERS];
+        runVirtualUsers(PASSENGERS, user -> {
+            Session session = new Session("lt_passenger_" + (user + 1));
+            passengers[user] = session;
+            for (int k = 0; k < BOOKINGS_PER_PASSENGER; k++) {
+                int booking = user * BOOKINGS_PER_PASSENGER + k;
+                int flight = 1 + booking % SCHEDULED_FLIGHTS;
+
+                search.call(() -> session.get("/passenger/flights/search", Map.of(
+                                "departureCity", "Москва",
+                                "arrivalCity", ARRIVAL_CITIES[flight % ARRIVAL_CITIES.length])),
+                        response -> response.statusCode() == 200);
+                think();
+
+                book.call(() -> session.post("/passenger/tickets/book", Map.of(
+                                "flightNumber", flightNumber(flight),
+                                "seatNumber", seat(booking / SCHEDULED_FLIGHTS),
+                                "passportNumber", passport(user + 1),
+                                "passengerName", "Нагрузка Пассажир " + (user + 1),
+                                "idempotencyKey", UUID.randomUUID().toString())),
+                        response -> isRedirectTo(response, "/passenger/dashboard"));
+                think();
+            }
+        });
+
+        // 2. Онлайн-регистрация. Результат передается flash-атрибутом, поэтому успех сверяется по базе
+        runVirtualUsers(PASSENGERS, user -> checkIn.call(
+                () -> passengers[user].post("/passenger/tickets/" + ticketNumber(user + 1) + "/checkin",
+                        Map.of("idempotencyKey", UUID.randomUUID().toString())),
+                response -> response.statusCode() == 302));
+        checkIn.confirm(countSeededTickets("CHECKED_IN"));
+
+        // 3. Пограничный и таможенный контроль идут параллельно
+        runVirtualUsers(2 * OFFICERS, officer -> {
+            boolean borderGuard = officer < OFFICERS;
+            Session session = new Session(borderGuard
+                    ? "lt_border_guard_" + (officer + 1)
+                    : "lt_customs_officer_" + (officer - OFFICERS + 1));
+            Flow flow = borderGuard ? border : customs;
+            String path = borderGuard ? "/border/check" : "/customs/check";
+            for (int passenger = 1 + officer % OFFICERS; passenger <= PASSENGERS; passenger += OFFICERS) {
+                int current = passenger;
+                flow.call(() -> session.get(path, Map.of(
+                                "passportNumber", passport(current),
+                                "ticketNumber", ticketNumber(current))),
+                        response -> response.statusCode() == 200);
+            }
+        });
+
+        // 4. Посадка
+        runVirtualUsers(OFFICERS, officer -> {
+            Session session = new Session("lt_airport_staff_" + (officer + 1));
+            for (int passenger = 1 + officer; passenger <= PASSENGERS; passenger += OFFICERS) {
+                int current = passenger;
+                board.call(() -> session.post("/staff/boarding/ticket/" + ticketNumber(current) + "/board",
+                                Map.of("idempotencyKey", UUID.randomUUID().toString())),
+                        response -> response.statusCode() == 302);
+            }
+        });
+        board.confirm(countSeededTickets("BOARDED"));
+
+        for (Flow flow : List.of(search, book, checkIn, border, customs, board)) {
+            assertTrue(flow.errorRate() <= MAX_ERROR_RATE,
+                    String.format("%s error rate %.2f%% exceeds %.2f%%",
+                            flow.name, flow.errorRate() * 100, MAX_ERROR_RATE * 100));
+            assertTrue(flow.throttledRate() <= MAX_THROTTLED_RATE,
+                    String.format("%s throttled (429/503) rate %.2f%% exceeds %.2f%%",
+                            flow.name, flow.throttledRate() * 100, MAX_THROTTLED_RATE * 100));
+        }
+    }
+
+    @AfterAll
+    void printReport() {
+        System.out.printf("[load] %-10s %8s %10s %9s %9s %8s %9s%n",
+                "flow", "requests", "req/s", "p50 ms", "p99 ms", "errors", "throttled");
+        for (Flow flow : List.of(search, book, checkIn, border, customs, board)) {
+            System.out.println("[load] " + flow.summary());
+        }
+    }
+
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
+    /**
+     * Запускает {@code users} виртуальных пользователей и ждет завершения всех.
+     * Исключение любого пользователя (например, неудачный вход) проваливает прогон
+     */
+    private static void runVirtualUsers(int users, IntConsumer scenario) throws Exception {
+        List<Future<?>> futures = new ArrayList<>(users);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < users; i++) {
+                int user = i;
+                futures.add(executor.submit(() -> scenario.accept(user)));
+            }
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    private long countSeededTickets(String status) {
+        return jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM tickets WHERE ticket_number LIKE 'LTK%' AND status = ?", Long.class, status);
+    }
+
+    private static boolean isRedirectTo(HttpResponse<?> response, String path) {
+        return response.statusCode() == 302
+                && response.headers().firstValue("Location").map(location -> location.endsWith(path)).orElse(false);
+    }
+
+    private static void think() {
+        try {
+            Thread.sleep(THINK_TIME);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String flightNumber(int i) {
+        return String.format("LT%04d", i);
+    }
+
+    private static String passport(int i) {
+        return String.format("LT%07d", i);
+    }
+
+    private static String ticketNumber(int i) {
+        return String.format("LTK%06d", i);
+    }
+
+    private static String encode(Map<String, String> params) {
+        return params.entrySet().stream()
+                .map(e -> URLEncoder.encode(e.getKey(), StandardCharsets.UTF_8) + "="
+                        + URLEncoder.encode(e.getValue(), StandardCharsets.UTF_8))
+                .collect(Collectors.joining("&"));
+    }
+
+    // 0 -> 1A, 5 -> 1F, 6 -> 2A
+    private static String seat(int index) {
+        return (index / 6 + 1) + String.valueOf("ABCDEF".charAt(index % 6));
+    }
+
+    /**
+     * HTTP-сессия одного виртуального пользователя: свой клиент и свои cookie.
+     * Редиректы не выполняются — результат POST-запросов проверяется по заголовку Location
+     */
+    private final class Session {
+
+        private final HttpClient client = HttpClient.newBuilder()
+                .cookieHandler(new CookieManager())
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        Session(String username) {
+            try {
+                HttpResponse<Void> response = post("/login", Map.of("username", username, "password", PASSWORD));
+                if (!isRedirectTo(response, "/dashboard")) {
+                    throw new IllegalStateException(String.format("Login of %s failed with status %d",
+                            username, response.statusCode()));
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Login of " + username + " failed", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Login of " + username + " was interrupted", e);
+            }
+        }
+
+        HttpResponse<Void> get(String path, Map<String, String> params) throws IOException, InterruptedException {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path + "?" + encode(params)))
+                    .GET()
+                    .build();
+            return client.send(request, HttpResponse.BodyHandlers.discarding());
+        }
+
+        HttpResponse<Void> post(String path, Map<String, String> params) throws IOException, InterruptedException {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString(encode(params)))
+                    .build();
+            return client.send(request, HttpResponse.BodyHandlers.discarding());
+        }
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        HttpResponse<Void> send() throws IOException, InterruptedException;
+    }
+
+    /**
+     * Статистика одного сценария. Отказы по лимиту (429) и сброс нагрузки (503) считаются отдельно от ошибок
+     */
+    private static final class Flow {
+
+        private final String name;
+        private final Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder throttled = new LongAdder();
+        private final AtomicLong firstStart = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong lastEnd = new AtomicLong(Long.MIN_VALUE);
+
+        Flow(String name) {
+            this.name = name;
+        }
+
+        void call(Call call, Predicate<HttpResponse<Void>> success) {
+            long start = System.nanoTime();
+            int status = 0;
+            boolean ok;
+            try {
+                HttpResponse<Void> response = call.send();
+                status = response.statusCode();
+                ok = success.test(response);
+            } catch (IOException e) {
+                ok = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                ok = false;
+            }
+            long end = System.nanoTime();
+
+            latencies.add(end - start);
+            firstStart.accumulateAndGet(start, Math::min);
+            lastEnd.accumulateAndGet(end, Math::max);
+            // 429 — лимит частоты, 503 — сброс нагрузки адаптивным лимитом
+            if (status == 429 || status == 503) {
+                throttled.increment();
+            } else if (!ok) {
+                errors.increment();
+            }
+        }
+
+        /**
+         * Пересчитать ошибки по числу подтвержденных в базе изменений — для сценариев,
+         * где контроллер отвечает редиректом и при успехе, и при ошибке
+         */
+        void confirm(long succeeded) {
+            errors.reset();
+            errors.add(Math.max(0, latencies.size() - throttled.sum() - succeeded));
+        }
+
+        double errorRate() {
+            int requests = latencies.size();
+            return requests == 0 ? 0 : (double) errors.sum() / requests;
+        }
+
+        double throttledRate() {
+            int requests = latencies.size();
+            return requests == 0 ? 0 : (double) throttled.sum() / requests;
+        }
+
+        String summary() {
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            double seconds = sorted.length == 0 ? 0 : (lastEnd.get() - firstStart.get()) / 1e9;
+            return String.format("%-10s %8d %10.1f %9.2f %9.2f %7.2f%% %9d",
+                    name, sorted.length, seconds > 0 ? sorted.length / seconds : 0,
+                    percentile(sorted, 0.50), percentile(sorted, 0.99),
+                    errorRate() * 100, throttled.sum());
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, rank)] / 1_000_000.0;
+        }
+    }
+}
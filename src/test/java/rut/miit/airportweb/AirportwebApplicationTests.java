@@ -1,15 +1,32 @@
 package rut.miit.airportweb;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 @Import(TestcontainersConfiguration.class)
+@ActiveProfiles("test")
 @SpringBootTest
 class AirportwebApplicationTests {
 
+	@Autowired
+	private MeterRegistry meterRegistry;
+
 	@Test
 	void contextLoads() {
 	}
 
+	@Test
+	void rateLimitCountersAreRegisteredForEveryRule() {
+		for (String rule : new String[]{"passenger-flight-search", "admin-flight-search", "login"}) {
+			assertNotNull(meterRegistry.find("airport.ratelimit.allowed").tag("rule", rule).functionCounter());
+			assertNotNull(meterRegistry.find("airport.ratelimit.throttled").tag("rule", rule).functionCounter());
+		}
+	}
+
 }
@@ -0,0 +1,192 @@
+package rut.miit.airportweb;
+
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestReporter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Бюджеты аллокаций на горячих путях запросов.
+ * Для каждого эндпоинта измеряется медиана байт, выделенных потоком на один запрос
+ * (MockMvc обрабатывает запрос в вызывающем потоке, поэтому счетчик потока видит весь путь
+ * от фильтров безопасности до рендеринга шаблона). Превышение бюджета из
+ * {@code allocation-budgets.properties}, как и путь без бюджета, роняет проверку.
+ * Запуск: ./gradlew allocationBudgets; перезапись бюджетов на эталонной машине:
+ * ./gradlew allocationBudgets -PrecordAllocationBudgets
+ */
+@Tag("allocation")
+@Import(TestcontainersConfiguration.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AllocationBudgetTests {
+
+    private static final int WARMUP_REQUESTS = 300;
+    private static final int MEASURED_REQUESTS = 50;
+
+    // При записи бюджет = замер + запас на шум JIT и GC
+    private static final double RECORD_HEADROOM = 1.25;
+
+    private static final String BUDGETS_RESOURCE = "/allocation-budgets.properties";
+    private static final String RECORD_PROPERTY = "allocation.budgets.record";
+    private static final String FILE_PROPERTY = "allocation.budgets.file";
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private UserDetailsService userDetailsService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final Properties budgets = new Properties();
+    private final Map<String, Long> measured = new TreeMap<>();
+    private MockMvc mockMvc;
+
+    @BeforeAll
+    void setUp() throws IOException {
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported(), "Per-thread allocation counter is not supported");
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        mockMvc = MockMvcBuilders.webAppContextSetup(context)
+                .apply(springSecurity())
+                .build();
+
+        try (InputStream in = getClass().getResourceAsStream(BUDGETS_RESOURCE)) {
+            if (in != null) {
+                budgets.load(in);
+            }
+        }
+    }
+
+    @Test
+    void passengerFlightList(TestReporter reporter) throws Exception {
+        assertWithinBudget(reporter, "passenger.flights", get("/passenger/flights")
+                .with(user(userDetailsService.loadUserByUsername("passenger1"))));
+    }
+
+    @Test
+    void bookingForm(TestReporter reporter) throws Exception {
+        String flightNumber = jdbcTemplate.queryForObject(
+                "SELECT flight_number FROM flights WHERE status = 'SCHEDULED' ORDER BY id LIMIT 1", String.class);
+
+        assertWithinBudget(reporter, "passenger.tickets.book", get("/passenger/tickets/book")
+                .param("flightNumber", flightNumber)
+                .with(user(userDetailsService.loadUserByUsername("passenger1"))));
+    }
+
+    @Test
+    void staffCheckInFlightView(TestReporter reporter) throws Exception {
+        // Рейс с наибольшим числом билетов, чтобы в замер попал рендеринг списков пассажиров
+        String flightNumber = jdbcTemplate.queryForObject("""
+                SELECT f.flight_number FROM flights f JOIN tickets t ON t.flight_id = f.id
+                GROUP BY f.id, f.flight_number ORDER BY count(*) DESC, f.id LIMIT 1
+                """, String.class);
+
+        assertWithinBudget(reporter, "staff.checkin.flight", get("/staff/checkin/flight/{flightNumber}", flightNumber)
+                .with(user(userDetailsService.loadUserByUsername("staff1"))));
+    }
+
+    @Test
+    void borderCheck(TestReporter reporter) throws Exception {
+        Map<String, Object> ticket = jdbcTemplate.queryForMap("""
+                SELECT p.passport_number, t.ticket_number FROM tickets t JOIN passengers p ON p.id = t.passenger_id
+                ORDER BY t.id LIMIT 1
+                """);
+
+        assertWithinBudget(reporter, "border.check", get("/border/check")
+                .param("passportNumber", (String) ticket.get("passport_number"))
+                .param("ticketNumber", (String) ticket.get("ticket_number"))
+                .with(user(userDetailsService.loadUserByUsername("border1"))));
+    }
+
+    @AfterAll
+    void recordBudgets(TestReporter reporter) throws IOException {
+        if (!Boolean.getBoolean(RECORD_PROPERTY) || measured.isEmpty()) {
+            return;
+        }
+        String file = System.getProperty(FILE_PROPERTY);
+        assertTrue(file != null, FILE_PROPERTY + " must point to the budgets file when recording");
+
+        Map<String, String> recorded = new TreeMap<>();
+        budgets.stringPropertyNames().forEach(name -> recorded.put(name, budgets.getProperty(name)));
+        measured.forEach((name, bytes) -> recorded.put(name, Long.toString((long) (bytes * RECORD_HEADROOM))));
+
+        try (Writer writer = Files.newBufferedWriter(Path.of(file), StandardCharsets.UTF_8)) {
+            writer.write("# Бюджеты аллокаций, байт на запрос (медиана). Проверяются AllocationBudgetTests.\n");
+            writer.write("# Записаны с запасом x" + RECORD_HEADROOM + ": ./gradlew allocationBudgets -PrecordAllocationBudgets\n");
+            for (Map.Entry<String, String> entry : recorded.entrySet()) {
+                writer.write(entry.getKey() + "=" + entry.getValue() + "\n");
+            }
+        }
+        reporter.publishEntry("allocation.budgets.recorded", file);
+    }
+
+    private void assertWithinBudget(TestReporter reporter, String name, MockHttpServletRequestBuilder request)
+            throws Exception {
+        for (int i = 0; i < WARMUP_REQUESTS; i++) {
+            MvcResult result = mockMvc.perform(request).andReturn();
+            assertEquals(200, result.getResponse().getStatus(), name + " must respond 200 during warm-up");
+        }
+
+        long[] samples = new long[MEASURED_REQUESTS];
+        for (int i = 0; i < MEASURED_REQUESTS; i++) {
+            long before = threadMXBean.getCurrentThreadAllocatedBytes();
+            mockMvc.perform(request).andReturn();
+            samples[i] = threadMXBean.getCurrentThreadAllocatedBytes() - before;
+        }
+        Arrays.sort(samples);
+        long median = samples[samples.length / 2];
+        measured.put(name, median);
+
+        String budget = budgets.getProperty(name);
+        reporter.publishEntry(Map.of(
+                "allocation." + name, median + " bytes/request",
+                "allocation." + name + ".budget", budget != null ? budget.trim() : "-"));
+
+        if (Boolean.getBoolean(RECORD_PROPERTY)) {
+            return;
+        }
+        // Новый путь без бюджета — ошибка: иначе он незаметно остается без проверки
+        assertNotNull(budget, String.format("No allocation budget recorded for %s (measured %d bytes); "
+                + "record it with ./gradlew allocationBudgets -PrecordAllocationBudgets", name, median));
+        assertTrue(median <= Long.parseLong(budget.trim()), String.format(
+                "%s allocates %d bytes per request, budget is %s bytes", name, median, budget.trim()));
+    }
+}
@@ -0,0 +1,154 @@
+package rut.miit.airportweb;
+
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.util.WebUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Потоковые выгрузки через MockMvc на базе из changelog. Билетов больше, чем строк в пакете
+ * между сбросами буфера и persistence context, поэтому выгрузка проходит через очистку контекста
+ */
+@Import(TestcontainersConfiguration.class)
+@ActiveProfiles("test")
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ExportControllerTests {
+
+    // Кавычка и кириллица в номере рейса попадают в имя файла
+    private static final String FLIGHT_NUMBER = "ЭК\"1";
+    private static final int TICKETS = 2500;
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private UserDetailsService userDetailsService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private MockMvc mockMvc;
+    private UserDetails admin;
+    // Ответ последнего запроса, в том числе завершившегося исключением
+    private MockHttpServletResponse lastResponse;
+
+    @BeforeAll
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context)
+                .apply(springSecurity())
+                .addFilters((request, response, chain) -> {
+                    lastResponse = WebUtils.getNativeResponse(response, MockHttpServletResponse.class);
+                    chain.doFilter(request, response);
+                })
+                .build();
+        admin = userDetailsService.loadUserByUsername("admin");
+
+        int flightId = jdbcTemplate.queryForObject("""
+                INSERT INTO flights (flight_number, departure_city, arrival_city, departure_time, arrival_time,
+                                     total_seats, available_seats)
+                VALUES (?, 'Москва', 'Сочи, Адлер', '2001-02-10 10:00', '2001-02-10 14:00', 3000, 500)
+                RETURNING id
+                """, Integer.class, FLIGHT_NUMBER);
+        int passengerId = jdbcTemplate.queryForObject("SELECT id FROM passengers ORDER BY id LIMIT 1", Integer.class);
+        jdbcTemplate.update("""
+                INSERT INTO tickets (flight_id, passenger_id, seat_number, price, ticket_number, booking_date)
+                SELECT ?, ?, 'X' || n, 100, 'EXP-' || n, '2001-02-03 12:00' FROM generate_series(1, ?) n
+                """, flightId, passengerId, TICKETS);
+    }
+
+    @AfterAll
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM flights WHERE flight_number = ?", FLIGHT_NUMBER);
+    }
+
+    @Test
+    void flightsAreExportedAsCsv() throws Exception {
+        MockHttpServletResponse response = export("/admin/export/flights");
+
+        assertEquals("text/csv;charset=UTF-8", response.getContentType());
+        assertEquals("flights.csv", fileName(response));
+        List<String> lines = lines(response);
+        assertEquals("flightNumber,departureCity,arrivalCity,departureTime,arrivalTime,totalSeats,availableSeats,"
+                + "status,createdBy", lines.getFirst());
+        assertEquals(jdbcTemplate.queryForObject("SELECT count(*) FROM flights", Integer.class) + 1, lines.size());
+        // Значения с кавычками и запятыми экранируются по RFC 4180
+        assertTrue(lines.contains("\"ЭК\"\"1\",Москва,\"Сочи, Адлер\",2001-02-10T10:00,2001-02-10T14:00,"
+                + "3000,500,SCHEDULED,"), String.join("\n", lines));
+    }
+
+    @Test
+    void ticketsAreExportedAsJsonLinesAcrossBatches() throws Exception {
+        MockHttpServletResponse response = export("/admin/export/tickets?from=2001-02-03&to=2001-02-03&format=jsonl");
+
+        assertEquals("application/x-ndjson;charset=UTF-8", response.getContentType());
+        assertEquals("tickets-2001-02-03-2001-02-03.jsonl", fileName(response));
+        List<String> lines = lines(response);
+        assertEquals(TICKETS, lines.size());
+        assertTrue(lines.stream().allMatch(line -> line.startsWith("{\"ticketNumber\":\"EXP-") && line.endsWith("}")));
+        assertEquals(TICKETS, lines.stream().distinct().count());
+        assertTrue(lines.getFirst().contains("\"flightNumber\":\"ЭК\\\"1\""), lines.getFirst());
+    }
+
+    @Test
+    void manifestFileNameIsEncoded() throws Exception {
+        MockHttpServletResponse response = export("/admin/export/flights/" + FLIGHT_NUMBER + "/manifest");
+
+        assertEquals("manifest-" + FLIGHT_NUMBER + ".csv", fileName(response));
+        assertEquals(TICKETS + 1, lines(response).size());
+    }
+
+    @Test
+    void failureBeforeFirstByteIsHandledAsError() throws Exception {
+        // Шаблона error/404 в приложении нет, поэтому обработчик ошибки падает при отрисовке — но до него дошло
+        ServletException e = assertThrows(ServletException.class,
+                () -> export("/admin/export/flights/XX0000/manifest"));
+        assertTrue(e.getMessage().contains("error/404"), e.getMessage());
+
+        // Заголовки выгрузки сняты: ошибка не скачается файлом manifest-XX0000.csv
+        assertNull(lastResponse.getHeader(HttpHeaders.CONTENT_DISPOSITION));
+        assertNotEquals("text/csv;charset=UTF-8", lastResponse.getContentType());
+        assertEquals("", lastResponse.getContentAsString());
+    }
+
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
+    private MockHttpServletResponse export(String uri) throws Exception {
+        return mockMvc.perform(get(uri).with(user(admin))).andReturn().getResponse();
+    }
+
+    private static String fileName(MockHttpServletResponse response) {
+        return ContentDisposition.parse(response.getHeader(HttpHeaders.CONTENT_DISPOSITION)).getFilename();
+    }
+
+    private static List<String> lines(MockHttpServletResponse response) throws Exception {
+        return response.getContentAsString(StandardCharsets.UTF_8).lines().toList();
+    }
+}
@@ -0,0 +1,123 @@
+package rut.miit.airportweb;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import rut.miit.airportweb.dto.FlightSearchDto;
+import rut.miit.airportweb.service.FlightService;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Бенчмарк поиска рейсов по окну вылета на 1 000 000 рейсов.
+ * Запускается отдельно: ./gradlew benchmark
+ * Целевая задержка: p99 < {@value #P99_TARGET_MILLIS} мс для окна в одни сутки.
+ */
+@Tag("benchmark")
+@Import(TestcontainersConfiguration.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class FlightSearchBenchmarkTests {
+
+    private static final int FLIGHT_COUNT = 1_000_000;
+    private static final int WARMUP_ITERATIONS = 200;
+    private static final int MEASURED_ITERATIONS = 1_000;
+    private static final long P99_TARGET_MILLIS = 50;
+
+    // Рейсы генерируются с шагом в минуту начиная с этой даты (~694 дня)
+    private static final LocalDateTime FIRST_DEPARTURE = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final int DAYS_COVERED = FLIGHT_COUNT / (24 * 60);
+
+    private static final String[] CITIES = {
+            "Москва", "Санкт-Петербург", "Казань", "Сочи",
+            "Екатеринбург", "Новосибирск", "Калининград", "Владивосток"
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private FlightService flightService;
+
+    private final Random random = new Random(42);
+
+    @BeforeAll
+    void seedFlights() {
+        jdbcTemplate.update("""
+                INSERT INTO flights (flight_number, departure_city, arrival_city, departure_time, arrival_time,
+                                     total_seats, available_seats, status, created_by)
+                SELECT 'BM' || lpad(i::text, 7, '0'),
+                       (ARRAY['Москва','Санкт-Петербург','Казань','Сочи','Екатеринбург','Новосибирск','Калининград','Владивосток'])[1 + i % 8],
+                       (ARRAY['Москва','Санкт-Петербург','Казань','Сочи','Екатеринбург','Новосибирск','Калининград','Владивосток'])[1 + (i / 8) % 8],
+                       TIMESTAMP '2025-01-01 00:00' + i * INTERVAL '1 minute',
+                       TIMESTAMP '2025-01-01 02:00' + i * INTERVAL '1 minute',
+                       180, 180 - i % 180,
+                       (ARRAY['SCHEDULED','BOARDING','DEPARTED','ARRIVED'])[1 + i % 4],
+                       (SELECT id FROM users WHERE username = 'admin')
+                FROM generate_series(1, ?) AS i
+                """, FLIGHT_COUNT);
+        jdbcTemplate.execute("ANALYZE flights");
+    }
+
+    @Test
+    void departureWindowOnly() {
+        measure("window", day -> FlightSearchDto.builder()
+                .departureFrom(FIRST_DEPARTURE.plusDays(day))
+                .departureTo(FIRST_DEPARTURE.plusDays(day + 1))
+                .build());
+    }
+
+    @Test
+    void routeAndDepartureWindow() {
+        measure("route+window", day -> FlightSearchDto.builder()
+                .departureFrom(FIRST_DEPARTURE.plusDays(day))
+                .departureTo(FIRST_DEPARTURE.plusDays(day + 1))
+                .departureCity(CITIES[random.nextInt(CITIES.length)])
+                .arrivalCity(CITIES[random.nextInt(CITIES.length)])
+                .build());
+    }
+
+    @Test
+    void statusAndDepartureWindow() {
+        measure("status+window", day -> FlightSearchDto.builder()
+                .departureFrom(FIRST_DEPARTURE.plusDays(day))
+                .departureTo(FIRST_DEPARTURE.plusDays(day + 1))
+                .status("BOARDING")
+                .build());
+    }
+
+    private void measure(String name, IntFunction<FlightSearchDto> searchForDay) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            flightService.searchFlights(searchForDay.apply(random.nextInt(DAYS_COVERED)));
+        }
+
+        long[] latencies = new long[MEASURED_ITERATIONS];
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            FlightSearchDto searchDto = searchForDay.apply(random.nextInt(DAYS_COVERED));
+            long start = System.nanoTime();
+            flightService.searchFlights(searchDto);
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+
+        double p50 = latencies[MEASURED_ITERATIONS / 2] / 1_000_000.0;
+        double p99 = latencies[(int) (MEASURED_ITERATIONS * 0.99)] / 1_000_000.0;
+        System.out.printf("[flight-search] %-14s flights=%d p50=%.2f ms p99=%.2f ms (target p99 < %d ms)%n",
+                name, FLIGHT_COUNT, p50, p99, P99_TARGET_MILLIS);
+
+        assertTrue(p99 < P99_TARGET_MILLIS,
+                String.format("%s search p99 %.2f ms exceeds target %d ms", name, p99, P99_TARGET_MILLIS));
+    }
+}
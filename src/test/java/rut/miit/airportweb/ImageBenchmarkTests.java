@@ -0,0 +1,270 @@
+package rut.miit.airportweb;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.wait.strategy.AbstractWaitStrategy;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Сравнение образа JVM (Dockerfile) и native-образа GraalVM (Dockerfile.native) на одной базе PostgreSQL:
+ * время до первого ответа и до готовности, RSS после готовности и после нагрузки, пропускная способность
+ * и задержки на установившемся режиме (GET /passenger/flights от авторизованного пассажира).
+ * Образы собираются задачами jvmImage и nativeImage; запуск: ./gradlew imageBenchmark.
+ * Результаты печатаются строками [image] и, в GitHub Actions, добавляются в сводку шага.
+ */
+@Tag("image")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ImageBenchmarkTests {
+
+    private static final int APP_PORT = 8888;
+    private static final String DB_ALIAS = "db";
+    private static final String USERNAME = "image_bench";
+    private static final String PASSWORD = "image-bench-password";
+
+    private static final Duration START_TIMEOUT = Duration.ofMinutes(3);
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(20);
+    private static final int THREADS = 16;
+    private static final Duration WARMUP = Duration.ofSeconds(30);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(60);
+
+    private final Network network = Network.newNetwork();
+    private final PostgreSQLContainer postgres = new PostgreSQLContainer(DockerImageName.parse("postgres:latest"))
+            .withNetwork(network)
+            .withNetworkAliases(DB_ALIAS);
+
+    @BeforeAll
+    void startDatabase() {
+        postgres.start();
+    }
+
+    @AfterAll
+    void stopDatabase() {
+        postgres.stop();
+        network.close();
+    }
+
+    @Test
+    void jvmVersusNative() throws Exception {
+        String jvmImage = System.getProperty("image.jvm");
+        String nativeImage = System.getProperty("image.native");
+        assertNotNull(jvmImage, "image.jvm must name the JVM image (run ./gradlew imageBenchmark)");
+        assertNotNull(nativeImage, "image.native must name the native image (run ./gradlew imageBenchmark)");
+
+        // Первый запуск применяет миграции и записывает отпечаток схемы; после него появляется пользователь для нагрузки
+        try (GenericContainer<?> prepare = application(jvmImage)) {
+            start(prepare);
+        }
+        createUser();
+
+        List<String> summary = new ArrayList<>();
+        summary.add("| image | first request, ms | ready, ms | RSS ready, MB | RSS loaded, MB | req/s | p50, ms | p99, ms |");
+        summary.add("|---|---:|---:|---:|---:|---:|---:|---:|");
+        for (String image : List.of(jvmImage, nativeImage)) {
+            try (GenericContainer<?> container = application(image)) {
+                Startup startup = start(container);
+                long rssReady = rssKilobytes(container) / 1024;
+                Throughput throughput = steadyState(container);
+                long rssLoaded = rssKilobytes(container) / 1024;
+
+                System.out.printf("[image] %-18s first-request=%d ms ready=%d ms rss=%d MB -> %d MB "
+                                + "req/s=%.0f p50=%.2f ms p99=%.2f ms errors=%d%n",
+                        image, startup.firstRequestMillis(), startup.readyMillis(), rssReady, rssLoaded,
+                        throughput.requestsPerSecond(), throughput.p50(), throughput.p99(), throughput.errors());
+                summary.add(String.format("| %s | %d | %d | %d | %d | %.0f | %.2f | %.2f |",
+                        image, startup.firstRequestMillis(), startup.readyMillis(), rssReady, rssLoaded,
+                        throughput.requestsPerSecond(), throughput.p50(), throughput.p99()));
+            }
+        }
+        writeStepSummary(summary);
+    }
+
+    private GenericContainer<?> application(String image) {
+        String jdbcUrl = "jdbc:postgresql://" + DB_ALIAS + ":5432/" + postgres.getDatabaseName();
+        return new GenericContainer<>(DockerImageName.parse(image))
+                .withNetwork(network)
+                .withExposedPorts(APP_PORT)
+                .withEnv("SPRING_DATASOURCE_URL", jdbcUrl)
+                .withEnv("SPRING_DATASOURCE_USERNAME", postgres.getUsername())
+                .withEnv("SPRING_DATASOURCE_PASSWORD", postgres.getPassword())
+                .withEnv("SPRING_DATASOURCE_HIKARI_JDBC_URL", jdbcUrl)
+                .withEnv("SPRING_DATASOURCE_HIKARI_USERNAME", postgres.getUsername())
+                .withEnv("SPRING_DATASOURCE_HIKARI_PASSWORD", postgres.getPassword())
+                // Меряется сам сервер, а не сброс нагрузки
+                .withEnv("AIRPORT_CONCURRENCY_ENABLED", "false")
+                // Готовность проверяется опросом ниже, с шагом POLL_INTERVAL
+                .waitingFor(new AbstractWaitStrategy() {
+                    @Override
+                    protected void waitUntilReady() {
+                    }
+                });
+    }
+
+    private Startup start(GenericContainer<?> container) throws Exception {
+        long started = System.nanoTime();
+        container.start();
+        String baseUrl = "http://" + container.getHost() + ":" + container.getMappedPort(APP_PORT);
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        long firstRequest = awaitStatus(client, container, baseUrl + "/login", started);
+        long ready = awaitStatus(client, container, baseUrl + "/actuator/health/readiness", started);
+        return new Startup(firstRequest, ready);
+    }
+
+    // Миллисекунды от запуска контейнера до первого ответа 200
+    private static long awaitStatus(HttpClient client, GenericContainer<?> container, String url, long startedNanos)
+            throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(2)).GET().build();
+        long deadline = startedNanos + START_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            assertTrue(container.isRunning(), "Container exited during startup:\n" + container.getLogs());
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return Duration.ofNanos(System.nanoTime() - startedNanos).toMillis();
+                }
+            } catch (IOException e) {
+                // Приложение еще не слушает порт
+            }
+            Thread.sleep(POLL_INTERVAL);
+        }
+        throw new AssertionError("No 200 from " + url + " within " + START_TIMEOUT + ":\n" + container.getLogs());
+    }
+
+    private Throughput steadyState(GenericContainer<?> container) throws Exception {
+        String baseUrl = "http://" + container.getHost() + ":" + container.getMappedPort(APP_PORT);
+        HttpClient client = HttpClient.newBuilder()
+                .cookieHandler(new CookieManager())
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        HttpResponse<Void> login = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString("username=" + USERNAME + "&password=" + PASSWORD))
+                .build(), HttpResponse.BodyHandlers.discarding());
+        assertTrue(login.headers().firstValue("Location").orElse("").contains("/dashboard"),
+                "Login failed with status " + login.statusCode());
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/passenger/flights")).GET().build();
+        load(client, request, WARMUP);
+        return load(client, request, MEASUREMENT);
+    }
+
+    private static Throughput load(HttpClient client, HttpRequest request, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        AtomicLong errors = new AtomicLong();
+        List<Future<long[]>> workers = new ArrayList<>();
+        long started = System.nanoTime();
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            for (int t = 0; t < THREADS; t++) {
+                workers.add(executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        if (status != 200) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - start;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        long[] all = new long[0];
+        for (Future<long[]> worker : workers) {
+            long[] latencies = worker.get();
+            int offset = all.length;
+            all = Arrays.copyOf(all, offset + latencies.length);
+            System.arraycopy(latencies, 0, all, offset, latencies.length);
+        }
+        Arrays.sort(all);
+        return new Throughput(all.length / seconds, percentile(all, 0.50), percentile(all, 0.99), errors.get());
+    }
+
+    private void createUser() throws Exception {
+        try (Connection connection = DriverManager.getConnection(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+             PreparedStatement statement = connection.prepareStatement("""
+                     INSERT INTO users (username, password, role, first_name, last_name)
+                     VALUES (?, ?, 'PASSENGER', 'Бенчмарк', 'Образов')
+                     """)) {
+            statement.setString(1, USERNAME);
+            statement.setString(2, new BCryptPasswordEncoder().encode(PASSWORD));
+            statement.executeUpdate();
+        }
+    }
+
+    // Самый крупный VmRSS в контейнере: процесс приложения может быть не PID 1 (ENTRYPOINT в форме shell)
+    private static long rssKilobytes(GenericContainer<?> container) throws Exception {
+        String status = container.execInContainer("sh", "-c", "cat /proc/[0-9]*/status 2>/dev/null").getStdout();
+        return status.lines()
+                .filter(line -> line.startsWith("VmRSS:"))
+                .mapToLong(line -> Long.parseLong(line.replaceAll("\\D+", "")))
+                .max()
+                .orElse(0);
+    }
+
+    private static void writeStepSummary(List<String> lines) throws IOException {
+        String summaryFile = System.getenv("GITHUB_STEP_SUMMARY");
+        if (summaryFile == null || summaryFile.isBlank()) {
+            return;
+        }
+        List<String> content = new ArrayList<>();
+        content.add("### JVM vs native image");
+        content.addAll(lines);
+        content.add("");
+        Files.write(Path.of(summaryFile), content, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, rank)] / 1_000_000.0;
+    }
+
+    private record Startup(long firstRequestMillis, long readyMillis) {
+    }
+
+    private record Throughput(double requestsPerSecond, double p50, double p99, long errors) {
+    }
+}
@@ -0,0 +1,148 @@
+package rut.miit.airportweb;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Бенчмарк эндпоинтов, которые много пишут в лог: регистрация на рейс (INFO в сервисе на каждый вызов),
+ * просмотр несуществующего рейса и пограничная проверка по неизвестному паспорту (рутинный not-found).
+ * Запросы идут параллельно из нескольких потоков, чтобы была видна конкуренция за вывод логов.
+ * Запускается отдельно: ./gradlew benchmark
+ * Целевая задержка: p99 < {@value #P99_TARGET_MILLIS} мс на каждый эндпоинт.
+ */
+@Tag("benchmark")
+@Import(TestcontainersConfiguration.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "airport.concurrency.enabled=false"})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class LoggingBenchmarkTests {
+
+    private static final int THREADS = 16;
+    private static final int WARMUP_REQUESTS = 2_000;
+    private static final int MEASURED_REQUESTS = 10_000;
+    private static final long P99_TARGET_MILLIS = 100;
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private UserDetailsService userDetailsService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private MockMvc mockMvc;
+    private UserDetails staff;
+    private UserDetails passenger;
+    private UserDetails borderGuard;
+
+    @BeforeAll
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context)
+                .apply(springSecurity())
+                .build();
+        staff = userDetailsService.loadUserByUsername("staff1");
+        passenger = userDetailsService.loadUserByUsername("passenger1");
+        borderGuard = userDetailsService.loadUserByUsername("border1");
+    }
+
+    @Test
+    void staffCheckIn() throws Exception {
+        // Повторная регистрация разрешена, поэтому билеты идут по кругу; у каждого потока свои билеты
+        List<String> tickets = jdbcTemplate.queryForList("""
+                SELECT t.ticket_number FROM tickets t JOIN flights f ON f.id = t.flight_id
+                WHERE f.status IN ('SCHEDULED', 'BOARDING') ORDER BY t.id
+                """, String.class);
+        assertTrue(tickets.size() >= THREADS, "Need at least one ticket per thread, found " + tickets.size());
+
+        run("staff-checkin", 302, i -> post("/staff/checkin/ticket/{ticketNumber}/register",
+                tickets.get(i % tickets.size())).with(user(staff)));
+    }
+
+    @Test
+    void missingFlight() throws Exception {
+        run("missing-flight", 302, i -> get("/passenger/flights/{flightNumber}", "NF" + (i % 1000))
+                .with(user(passenger)));
+    }
+
+    @Test
+    void unknownPassportBorderCheck() throws Exception {
+        run("border-unknown", 200, i -> get("/border/check")
+                .param("passportNumber", "UNKNOWN" + (i % 1000))
+                .with(user(borderGuard)));
+    }
+
+    private void run(String name, int expectedStatus, IntFunction<MockHttpServletRequestBuilder> request)
+            throws Exception {
+        measure(request, expectedStatus, WARMUP_REQUESTS);
+        long started = System.nanoTime();
+        long[] latencies = measure(request, expectedStatus, MEASURED_REQUESTS);
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        Arrays.sort(latencies);
+        double p50 = percentile(latencies, 0.50);
+        double p99 = percentile(latencies, 0.99);
+        System.out.printf("[logging] %-15s threads=%d req/s=%.0f p50=%.2f ms p99=%.2f ms%n",
+                name, THREADS, MEASURED_REQUESTS / seconds, p50, p99);
+
+        assertTrue(p99 < P99_TARGET_MILLIS,
+                String.format("%s p99 %.2f ms exceeds %d ms", name, p99, P99_TARGET_MILLIS));
+    }
+
+    private long[] measure(IntFunction<MockHttpServletRequestBuilder> request, int expectedStatus, int requests)
+            throws Exception {
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            Future<?>[] workers = new Future<?>[THREADS];
+            for (int t = 0; t < THREADS; t++) {
+                workers[t] = executor.submit(() -> {
+                    for (int i = next.getAndIncrement(); i < requests; i = next.getAndIncrement()) {
+                        long start = System.nanoTime();
+                        int status = mockMvc.perform(request.apply(i)).andReturn().getResponse().getStatus();
+                        latencies[i] = System.nanoTime() - start;
+                        assertEquals(expectedStatus, status);
+                    }
+                    return null;
+                });
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        }
+        return latencies;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int rank = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, rank)] / 1_000_000.0;
+    }
+}
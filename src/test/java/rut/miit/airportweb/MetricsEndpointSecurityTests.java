@@ -0,0 +1,84 @@
+package rut.miit.airportweb;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * /actuator/prometheus открыт только учетной записи Prometheus; проверка живости остается без входа
+ */
+@Import(TestcontainersConfiguration.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = "airport.metrics.scrape-password=" + MetricsEndpointSecurityTests.PASSWORD)
+class MetricsEndpointSecurityTests {
+
+    static final String PASSWORD = "scrape-secret";
+
+    @Autowired
+    private WebApplicationContext context;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context)
+                .apply(springSecurity())
+                .build();
+    }
+
+    @Test
+    void anonymousScrapeIsRejected() throws Exception {
+        assertEquals(401, perform(get("/actuator/prometheus")).getStatus());
+    }
+
+    @Test
+    void wrongPasswordIsRejected() throws Exception {
+        assertEquals(401, perform(get("/actuator/prometheus").with(httpBasic("prometheus", "wrong"))).getStatus());
+    }
+
+    @Test
+    void applicationUsersCannotScrape() throws Exception {
+        assertEquals(403, perform(get("/actuator/prometheus").with(user("admin").roles("ADMIN"))).getStatus());
+    }
+
+    @Test
+    void scrapeAccountReadsMetrics() throws Exception {
+        MockHttpServletResponse response = perform(get("/actuator/prometheus").with(httpBasic("prometheus", PASSWORD)));
+
+        assertEquals(200, response.getStatus());
+        assertTrue(response.getContentAsString().contains("airport_ratelimit_throttled_total"));
+    }
+
+    @Test
+    void scrapeAccountHasNoAccessToOtherEndpoints() throws Exception {
+        MockHttpServletResponse response = perform(get("/actuator/metrics").with(httpBasic("prometheus", PASSWORD)));
+
+        assertEquals(302, response.getStatus());
+    }
+
+    @Test
+    void healthStaysPublic() throws Exception {
+        assertEquals(200, perform(get("/actuator/health/liveness")).getStatus());
+    }
+
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
+    private MockHttpServletResponse perform(RequestBuilder request) throws Exception {
+        return mockMvc.perform(request).andReturn().getResponse();
+    }
+}
@@ -0,0 +1,199 @@
+package rut.miit.airportweb;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Бенчмарк старта собранного jar: время до первого ответа (GET /login), время до готовности
+ * (/actuator/health/readiness, после прогрева) и RSS процесса после готовности.
+ * Сравниваются обычный старт и AOT с профилем fast-start; перед замерами база один раз
+ * мигрируется, чтобы оба режима стартовали на готовой схеме.
+ * Запускается отдельно: ./gradlew startupBenchmark. Результаты печатаются строками [startup]
+ * и, в GitHub Actions, добавляются в сводку шага ($GITHUB_STEP_SUMMARY).
+ */
+@Tag("startup")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class StartupBenchmarkTests {
+
+    private static final int RUNS_PER_MODE = 3;
+    private static final Duration START_TIMEOUT = Duration.ofMinutes(2);
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(20);
+
+    // Ограничения памяти как в Dockerfile, чтобы RSS был сопоставим с контейнером
+    private static final List<String> JVM_OPTIONS = List.of("-Xmx344M", "-Xss1M", "-XX:MaxMetaspaceSize=180M");
+
+    private final PostgreSQLContainer postgres = new PostgreSQLContainer(DockerImageName.parse("postgres:latest"));
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+
+    private Path jar;
+    private Path logs;
+
+    @BeforeAll
+    void startDatabase() throws IOException {
+        String jarProperty = System.getProperty("startup.jar");
+        assertNotNull(jarProperty, "startup.jar must point to the boot jar (run ./gradlew startupBenchmark)");
+        jar = Path.of(jarProperty);
+        assertTrue(Files.isRegularFile(jar), "Boot jar not found: " + jar);
+        logs = Path.of(System.getProperty("startup.logs", "build/startup-benchmark"));
+        Files.createDirectories(logs);
+
+        postgres.start();
+    }
+
+    @AfterAll
+    void stopDatabase() {
+        postgres.stop();
+    }
+
+    @Test
+    void defaultVersusFastStart() throws Exception {
+        // Миграции и запись отпечатка схемы — не часть замера
+        Mode fastStart = new Mode("fast-start", List.of("-Dspring.aot.enabled=true"), "fast-start");
+        start(fastStart, "prepare");
+
+        List<Mode> modes = List.of(new Mode("default", List.of(), null), fastStart);
+        List<String> summary = new ArrayList<>();
+        summary.add("| mode | first request, ms | ready, ms | RSS, MB |");
+        summary.add("|---|---:|---:|---:|");
+        for (Mode mode : modes) {
+            Sample[] samples = new Sample[RUNS_PER_MODE];
+            for (int run = 0; run < RUNS_PER_MODE; run++) {
+                samples[run] = start(mode, "run" + run);
+            }
+            long firstRequest = median(samples, Sample::firstRequestMillis);
+            long ready = median(samples, Sample::readyMillis);
+            long rss = median(samples, Sample::rssKilobytes) / 1024;
+
+            System.out.printf("[startup] mode=%-10s first-request=%d ms ready=%d ms rss=%d MB (median of %d)%n",
+                    mode.name(), firstRequest, ready, rss, RUNS_PER_MODE);
+            summary.add(String.format("| %s | %d | %d | %d |", mode.name(), firstRequest, ready, rss));
+        }
+        writeStepSummary(summary);
+    }
+
+    private Sample start(Mode mode, String label) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.addAll(JVM_OPTIONS);
+        command.addAll(mode.jvmOptions());
+        command.addAll(List.of("-jar", jar.toString(),
+                "--server.port=" + port,
+                "--spring.datasource.url=" + postgres.getJdbcUrl(),
+                "--spring.datasource.username=" + postgres.getUsername(),
+                "--spring.datasource.password=" + postgres.getPassword(),
+                "--spring.datasource.hikari.jdbc-url=" + postgres.getJdbcUrl(),
+                "--spring.datasource.hikari.username=" + postgres.getUsername(),
+                "--spring.datasource.hikari.password=" + postgres.getPassword()));
+        if (mode.profile() != null) {
+            command.add("--spring.profiles.active=" + mode.profile());
+        }
+
+        Path log = logs.resolve(mode.name() + "-" + label + ".log");
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        try {
+            long firstRequest = awaitStatus(process, "http://localhost:" + port + "/login", started, log);
+            long ready = awaitStatus(process, "http://localhost:" + port + "/actuator/health/readiness", started, log);
+            return new Sample(firstRequest, ready, rssKilobytes(process.pid()));
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    // Миллисекунды от запуска процесса до первого ответа 200
+    private long awaitStatus(Process process, String url, long startedNanos, Path log) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(2)).GET().build();
+        long deadline = startedNanos + START_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            assertTrue(process.isAlive(), "Application exited during startup, see " + log);
+            try {
+                if (httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return Duration.ofNanos(System.nanoTime() - startedNanos).toMillis();
+                }
+            } catch (IOException e) {
+                // Порт еще не открыт
+            }
+            Thread.sleep(POLL_INTERVAL);
+        }
+        throw new AssertionError("No 200 from " + url + " within " + START_TIMEOUT + ", see " + log);
+    }
+
+    // VmRSS из /proc; на системах без procfs RSS не измеряется
+    private static long rssKilobytes(long pid) throws IOException {
+        Path status = Path.of("/proc", Long.toString(pid), "status");
+        if (!Files.isReadable(status)) {
+            return 0;
+        }
+        for (String line : Files.readAllLines(status)) {
+            if (line.startsWith("VmRSS:")) {
+                return Long.parseLong(line.replaceAll("\\D+", ""));
+            }
+        }
+        return 0;
+    }
+
+    private static void writeStepSummary(List<String> lines) throws IOException {
+        String summaryFile = System.getenv("GITHUB_STEP_SUMMARY");
+        if (summaryFile == null || summaryFile.isBlank()) {
+            return;
+        }
+        List<String> content = new ArrayList<>();
+        content.add("### Startup benchmark");
+        content.addAll(lines);
+        content.add("");
+        Files.write(Path.of(summaryFile), content, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static long median(Sample[] samples, ToLongFunction<Sample> metric) {
+        long[] values = Arrays.stream(samples).mapToLong(metric).sorted().toArray();
+        return values[values.length / 2];
+    }
+
+    private record Mode(String name, List<String> jvmOptions, String profile) {
+    }
+
+    private record Sample(long firstRequestMillis, long readyMillis, long rssKilobytes) {
+    }
+}
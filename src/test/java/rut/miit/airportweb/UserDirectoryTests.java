@@ -0,0 +1,177 @@
+package rut.miit.airportweb;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import rut.miit.airportweb.dao.entity.UserEntity;
+import rut.miit.airportweb.dao.repository.UserRepository;
+import rut.miit.airportweb.dto.UserDto;
+import rut.miit.airportweb.dto.UserPageDto;
+import rut.miit.airportweb.dto.UserSearchDto;
+import rut.miit.airportweb.service.UserService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Справочник пользователей на базе из changelog: постраничный обход по курсору сверяется
+ * с тем же запросом целиком. Однофамильцы и тезки попадают на границы страниц
+ */
+@Import(TestcontainersConfiguration.class)
+@ActiveProfiles("test")
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class UserDirectoryTests {
+
+    // Латиница: lower() в базе с локалью C не переводит кириллицу в нижний регистр
+    private static final String NAME_FILTER = "Dirk";
+    private static final String NAME_CONDITION = "(lower(last_name) LIKE 'dirk%' OR lower(username) LIKE 'dirk%')";
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void seed() {
+        Object[][] users = {
+                {"dirk_01", "PASSENGER", "Anna", "Dirkov"},
+                {"dirk_02", "AIRPORT_STAFF", "Anna", "Dirkov"},
+                {"dirk_03", "BORDER_GUARD", "Anna", "Dirkov"},
+                {"dirk_04", "AIRPORT_STAFF", "Boris", "Dirkov"},
+                {"dirk_05", "CUSTOMS_OFFICER", "Boris", "Dirkov"},
+                {"dirk_06", "ADMIN", "Vera", "Dirkov"},
+                {"dirk_07", "AIRPORT_STAFF", "Anna", "Dirksen"},
+                {"dirk_08", "PASSENGER", "Gleb", "Dirksen"},
+                {"drug_09", "AIRPORT_STAFF", "Oleg", "Drugov"},
+                {"dirkx10", "AIRPORT_STAFF", "Anna", "Drugov"}
+        };
+        for (Object[] user : users) {
+            jdbcTemplate.update("INSERT INTO users (username, password, role, first_name, last_name) VALUES (?, 'x', ?, ?, ?)",
+                    user);
+        }
+    }
+
+    @AfterAll
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM users WHERE username LIKE 'dirk%' OR username LIKE 'drug%'");
+    }
+
+    @Test
+    void nameOrderPagesHaveNoOverlapOrGaps() {
+        for (boolean descending : new boolean[]{false, true}) {
+            List<String> expected = expected(NAME_CONDITION, "last_name, first_name, id", descending);
+            assertEquals(9, expected.size());
+            for (int limit = 1; limit <= 4; limit++) {
+                assertEquals(expected, walk(search(null, NAME_FILTER, "name", descending, limit)),
+                        "descending=" + descending + ", limit=" + limit);
+            }
+        }
+    }
+
+    @Test
+    void usernameAndRegisteredOrdersPageThroughEveryUser() {
+        for (boolean descending : new boolean[]{false, true}) {
+            assertEquals(expected(NAME_CONDITION, "username", descending),
+                    walk(search(null, NAME_FILTER, "username", descending, 2)));
+            assertEquals(expected(NAME_CONDITION, "id", descending),
+                    walk(search(null, NAME_FILTER, "registered", descending, 2)));
+        }
+    }
+
+    @Test
+    void roleFilterSelectsStaffUsers() {
+        List<String> staff = walk(search("AIRPORT_STAFF", NAME_FILTER, "name", false, 2));
+
+        assertEquals(expected("role = 'AIRPORT_STAFF' AND " + NAME_CONDITION, "last_name, first_name, id", false), staff);
+        assertEquals(List.of("dirk_02", "dirk_04", "dirk_07", "dirkx10"), staff);
+        assertEquals(List.of("dirk_03"), walk(search("BORDER_GUARD", NAME_FILTER, "name", false, 2)));
+        assertEquals(List.of("dirk_05"), walk(search("CUSTOMS_OFFICER", NAME_FILTER, "name", false, 2)));
+    }
+
+    @Test
+    void prefixMatchesUsernameOrLastNameLiterally() {
+        // Подчеркивание в фильтре — обычный символ, а не любой символ LIKE
+        assertEquals(List.of("dirk_01", "dirk_02", "dirk_03", "dirk_04", "dirk_05", "dirk_06", "dirk_07", "dirk_08"),
+                walk(search(null, "DIRK_", "username", false, 3)));
+        assertEquals(List.of("dirk_02", "dirk_04", "dirk_07", "dirkx10"),
+                walk(search("AIRPORT_STAFF", "dirk", "username", false, 3)));
+        assertEquals(List.of("dirk_07", "dirk_08"), walk(search(null, "dIRKs", "name", false, 3)));
+        assertTrue(walk(search(null, "%", "name", false, 3)).isEmpty());
+    }
+
+    @Test
+    void totalsAreExactOrCappedOrEstimated() {
+        UserPageDto page = userService.searchUsers(search("AIRPORT_STAFF", NAME_FILTER, "name", false, 2));
+        assertEquals(4, page.getTotal());
+        assertEquals(UserPageDto.TotalKind.EXACT, page.getTotalKind());
+
+        // Счет останавливается на пороге
+        assertEquals(3, userRepository.countDirectory(null, NAME_FILTER, 3));
+        assertEquals(9, userRepository.countDirectory(null, NAME_FILTER, 100));
+        assertEquals(1, userRepository.countDirectory(UserEntity.Role.BORDER_GUARD, NAME_FILTER, 100));
+
+        jdbcTemplate.execute("ANALYZE users");
+        long users = jdbcTemplate.queryForObject("SELECT count(*) FROM users", Long.class);
+        assertEquals(users, userRepository.estimateUserCount());
+    }
+
+    @Test
+    void cursorOfOtherOrderIsRejected() {
+        String cursor = userService.searchUsers(search(null, NAME_FILTER, "name", false, 2)).getNextCursor();
+        assertNotNull(cursor);
+
+        UserSearchDto byUsername = search(null, NAME_FILTER, "username", false, 2);
+        byUsername.setCursor(cursor);
+        assertThrows(IllegalArgumentException.class, () -> userService.searchUsers(byUsername));
+    }
+
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
+    private List<String> walk(UserSearchDto search) {
+        List<String> usernames = new ArrayList<>();
+        do {
+            UserPageDto page = userService.searchUsers(search);
+            assertTrue(page.getUsers().size() <= search.getLimit());
+            page.getUsers().stream().map(UserDto::getUsername).forEach(usernames::add);
+            search.setCursor(page.getNextCursor());
+        } while (search.getCursor() != null);
+        return usernames;
+    }
+
+    // Ожидаемый порядок — тот же запрос целиком, без страниц
+    private List<String> expected(String condition, String columns, boolean descending) {
+        String order = Arrays.stream(columns.split(", "))
+                .map(column -> column + (descending ? " DESC" : " ASC"))
+                .collect(Collectors.joining(", "));
+        return jdbcTemplate.queryForList("SELECT username FROM users WHERE " + condition + " ORDER BY " + order,
+                String.class);
+    }
+
+    private static UserSearchDto search(String role, String name, String sort, boolean descending, int limit) {
+        return UserSearchDto.builder()
+                .role(role)
+                .name(name)
+                .sort(sort)
+                .descending(descending)
+                .limit(limit)
+                .build();
+    }
+}
@@ -0,0 +1,52 @@
+package rut.miit.airportweb.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import rut.miit.airportweb.config.security.CustomUserDetails;
+import rut.miit.airportweb.dao.entity.FlightEntity;
+import rut.miit.airportweb.dao.entity.UserEntity;
+import rut.miit.airportweb.dao.repository.FlightRepository;
+import rut.miit.airportweb.dto.FlightDto;
+import rut.miit.airportweb.dto.ItineraryDto;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AirportRuntimeHintsTests {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    AirportRuntimeHintsTests() {
+        new AirportRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void templateModelTypesAreReflective() throws Exception {
+        assertTrue(RuntimeHintsPredicates.reflection()
+                .onMethodInvocation(FlightDto.class.getMethod("getFlightNumber")).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(ItineraryDto.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection()
+                .onMethodInvocation(CustomUserDetails.class.getMethod("getUsername")).test(hints));
+    }
+
+    @Test
+    void entityEnumsUsedInTemplatesAreReflective() throws Exception {
+        assertTrue(RuntimeHintsPredicates.reflection()
+                .onFieldAccess(UserEntity.Role.class.getField("ADMIN")).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection()
+                .onFieldAccess(FlightEntity.FlightStatus.class.getField("SCHEDULED")).test(hints));
+    }
+
+    @Test
+    void repositoryInterfacesAreIntrospectable() {
+        assertTrue(RuntimeHintsPredicates.reflection().onType(FlightRepository.class).test(hints));
+    }
+
+    @Test
+    void schemaFingerprintResourcesAreIncluded() {
+        assertTrue(RuntimeHintsPredicates.resource().forResource("db/changelog/changelog-master.yml").test(hints));
+        assertTrue(RuntimeHintsPredicates.resource()
+                .forResource("rut/miit/airportweb/dao/entity/FlightEntity.class").test(hints));
+        assertTrue(RuntimeHintsPredicates.resource().forResource("templates/layout.html").test(hints));
+    }
+}
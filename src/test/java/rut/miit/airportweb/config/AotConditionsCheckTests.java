@@ -0,0 +1,63 @@
+package rut.miit.airportweb.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.mock.env.MockEnvironment;
+import rut.miit.airportweb.config.datasource.ReplicaRoutingDataSource;
+import rut.miit.airportweb.config.session.PostgresSessionRepository;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AotConditionsCheckTests {
+
+    private final ListableBeanFactory beanFactory = mock(ListableBeanFactory.class);
+    private final MockEnvironment environment = new MockEnvironment();
+
+    @Test
+    void acceptsBeanSetMatchingProperties() {
+        environment.setProperty("airport.session.store", "jdbc");
+        beans(true, false);
+
+        assertDoesNotThrow(() -> new AotConditionsCheck(beanFactory, environment).afterSingletonsInstantiated());
+
+        environment.setProperty("airport.session.store", "memory");
+        environment.setProperty("airport.datasource.replica-urls", "jdbc:postgresql://replica:5432/airport_db");
+        beans(false, true);
+
+        assertDoesNotThrow(() -> new AotConditionsCheck(beanFactory, environment).afterSingletonsInstantiated());
+    }
+
+    @Test
+    void failsWhenSessionStoreChangedAfterBuild() {
+        environment.setProperty("airport.session.store", "memory");
+        beans(true, false);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> new AotConditionsCheck(beanFactory, environment).afterSingletonsInstantiated());
+        assertTrue(e.getMessage().contains("airport.session.store=memory"), e.getMessage());
+    }
+
+    @Test
+    void failsWhenReplicasAddedAfterBuild() {
+        environment.setProperty("airport.session.store", "jdbc");
+        environment.setProperty("airport.datasource.replica-urls", "jdbc:postgresql://replica:5432/airport_db");
+        beans(true, false);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> new AotConditionsCheck(beanFactory, environment).afterSingletonsInstantiated());
+        assertTrue(e.getMessage().contains("airport.datasource.replica-urls"), e.getMessage());
+    }
+
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
+    private void beans(boolean sessionRepository, boolean replicaRouting) {
+        when(beanFactory.getBeanNamesForType(PostgresSessionRepository.class, true, false))
+                .thenReturn(sessionRepository ? new String[]{"sessionRepository"} : new String[0]);
+        when(beanFactory.getBeanNamesForType(ReplicaRoutingDataSource.class, true, false))
+                .thenReturn(replicaRouting ? new String[]{"replicaRoutingDataSource"} : new String[0]);
+    }
+}
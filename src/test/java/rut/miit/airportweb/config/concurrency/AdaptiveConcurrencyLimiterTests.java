@@ -0,0 +1,210 @@
+package rut.miit.airportweb.config.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTests {
+
+    private static final long RTT = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final int MIN_WINDOW_SAMPLES = 10;
+
+    private final StubPoolMonitor poolMonitor = new StubPoolMonitor();
+    private long nanos;
+
+    @Test
+    void rejectsInconsistentSettings() {
+        assertThrows(IllegalArgumentException.class, () -> limiter(20, 1, 200, 0.2));
+        assertThrows(IllegalArgumentException.class, () -> limiter(20, 30, 200, 0.2));
+        assertThrows(IllegalArgumentException.class, () -> limiter(300, 4, 200, 0.2));
+        assertThrows(IllegalArgumentException.class, () -> limiter(20, 4, 200, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimiter(
+                true, 20, 4, 200, 0.2, 0, poolMonitor, () -> nanos));
+    }
+
+    @Test
+    void ceilingsFollowPriority() {
+        // Лимит 20: резерв ceil(20 * 0.2) = 4, общая часть 16, низкому приоритету — половина общей
+        assertEquals(20, admitted(limiter(20, 4, 200, 0.2), RequestPriority.CRITICAL));
+        assertEquals(20, admitted(limiter(20, 4, 200, 0.2), RequestPriority.EXEMPT));
+        assertEquals(16, admitted(limiter(20, 4, 200, 0.2), RequestPriority.NORMAL));
+        assertEquals(8, admitted(limiter(20, 4, 200, 0.2), RequestPriority.LOW));
+    }
+
+    @Test
+    void reservesAtLeastOnePermitForCriticalOperations() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20, 4, 200, 0);
+
+        assertEquals(19, admitted(limiter, RequestPriority.NORMAL));
+        assertTrue(limiter.tryAcquire(RequestPriority.CRITICAL));
+    }
+
+    @Test
+    void normalTrafficCannotTakeReserve() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20, 4, 200, 0.2);
+
+        assertEquals(16, admitted(limiter, RequestPriority.NORMAL));
+        assertEquals(4, admitted(limiter, RequestPriority.CRITICAL));
+        assertEquals(1, limiter.getRejectedCount(RequestPriority.NORMAL));
+        assertEquals(1, limiter.getRejectedCount(RequestPriority.CRITICAL));
+    }
+
+    @Test
+    void lowPriorityIsShedWhileConnectionPoolIsSaturated() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20, 4, 200, 0.2);
+        poolMonitor.saturated = true;
+
+        assertFalse(limiter.tryAcquire(RequestPriority.LOW));
+        assertTrue(limiter.tryAcquire(RequestPriority.NORMAL));
+        assertEquals(1, limiter.getRejectedCount(RequestPriority.LOW));
+    }
+
+    @Test
+    void growsBySquareRootWhileLatencyIsStable() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20, 4, 200, 0.2);
+
+        // 20 * 0.8 + (20 + sqrt(20)) * 0.2 = 20.89; затем 21.81 и 22.74
+        List<Integer> limits = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            window(limiter, 16, RTT);
+            limits.add(limiter.getLimit());
+        }
+        assertEquals(List.of(20, 21, 22), limits);
+    }
+
+    @Test
+    void doesNotGrowLimitThatIsNotUsed() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20, 4, 200, 0.2);
+
+        for (int i = 0; i < 5; i++) {
+            window(limiter, 5, RTT);
+        }
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    void shrinksWhenLatencyGrows() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20, 4, 200, 0.2);
+        window(limiter, 16, RTT);
+
+        // Задержка выросла вчетверо: градиент ограничен снизу 0.5 — 19.72, затем 18.64
+        window(limiter, 16, RTT * 4);
+        assertEquals(19, limiter.getLimit());
+        window(limiter, 16, RTT * 4);
+        assertEquals(18, limiter.getLimit());
+    }
+
+    @Test
+    void shrinksWhileConnectionPoolIsSaturated() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20, 4, 200, 0.2);
+        poolMonitor.saturated = true;
+
+        // Без роста и с градиентом 0.9: 19.6, 19.21, 18.82
+        window(limiter, 16, RTT);
+        window(limiter, 16, RTT);
+        window(limiter, 16, RTT);
+        assertEquals(18, limiter.getLimit());
+    }
+
+    @Test
+    void staysWithinBounds() {
+        AdaptiveConcurrencyLimiter growing = limiter(4, 4, 6, 0.2);
+        for (int i = 0; i < 20; i++) {
+            window(growing, 4, RTT);
+        }
+        assertEquals(6, growing.getLimit());
+
+        AdaptiveConcurrencyLimiter shrinking = limiter(4, 4, 6, 0.2);
+        poolMonitor.saturated = true;
+        for (int i = 0; i < 20; i++) {
+            window(shrinking, 4, RTT);
+        }
+        assertEquals(4, shrinking.getLimit());
+    }
+
+    @Test
+    void waitsForEnoughSamplesBeforeAdjusting() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20, 4, 200, 0.2);
+
+        nanos += AdaptiveConcurrencyLimiter.WINDOW_NANOS;
+        for (int i = 0; i < MIN_WINDOW_SAMPLES - 1; i++) {
+            assertTrue(limiter.tryAcquire(RequestPriority.CRITICAL));
+            limiter.release(RTT * 10);
+        }
+        assertEquals(20, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void unsampledReleasesDoNotInflateLatency() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20, 4, 200, 0.2);
+        window(limiter, 16, RTT);
+
+        // Выгрузки по 100 RTT освобождаются без замера: лимит растет так же, как без них (21.81)
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire(RequestPriority.LOW));
+        }
+        window(limiter, 12, RTT);
+        for (int i = 0; i < 4; i++) {
+            limiter.releaseUnsampled();
+        }
+
+        assertEquals(21, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
+    private AdaptiveConcurrencyLimiter limiter(int initialLimit, int minLimit, int maxLimit, double reservedFraction) {
+        return new AdaptiveConcurrencyLimiter(true, initialLimit, minLimit, maxLimit, reservedFraction, 0.5,
+                poolMonitor, () -> nanos);
+    }
+
+    private static int admitted(AdaptiveConcurrencyLimiter limiter, RequestPriority priority) {
+        int admitted = 0;
+        while (limiter.tryAcquire(priority)) {
+            admitted++;
+        }
+        return admitted;
+    }
+
+    /**
+     * Одно окно пересчета: не меньше MIN_WINDOW_SAMPLES запросов, одновременно не больше concurrent;
+     * окно закрывается на последнем освобождении
+     */
+    private void window(AdaptiveConcurrencyLimiter limiter, int concurrent, long rttNanos) {
+        int rounds = Math.ceilDiv(MIN_WINDOW_SAMPLES, concurrent);
+        for (int round = 0; round < rounds; round++) {
+            for (int i = 0; i < concurrent; i++) {
+                assertTrue(limiter.tryAcquire(RequestPriority.CRITICAL));
+            }
+            for (int i = 0; i < concurrent; i++) {
+                if (round == rounds - 1 && i == concurrent - 1) {
+                    nanos += AdaptiveConcurrencyLimiter.WINDOW_NANOS;
+                }
+                limiter.release(rttNanos);
+            }
+        }
+    }
+
+    private static final class StubPoolMonitor extends ConnectionPoolMonitor {
+
+        private boolean saturated;
+
+        StubPoolMonitor() {
+            super(null);
+        }
+
+        @Override
+        public boolean isSaturated() {
+            return saturated;
+        }
+    }
+}
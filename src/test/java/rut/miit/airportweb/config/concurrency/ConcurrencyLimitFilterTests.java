@@ -0,0 +1,105 @@
+package rut.miit.airportweb.config.concurrency;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConcurrencyLimitFilterTests {
+
+    private static final List<PriorityRule> RULES = List.of(
+            new PriorityRule("/css/", RequestPriority.EXEMPT),
+            new PriorityRule("/admin/reports", RequestPriority.LOW),
+            new PriorityRule("/admin/export/", RequestPriority.LOW, false)
+    );
+
+    private final StubPoolMonitor poolMonitor = new StubPoolMonitor();
+    private final RecordingLimiter limiter = new RecordingLimiter(poolMonitor);
+    private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limiter, RULES);
+
+    @Test
+    void samplesLatencyOfOrdinaryRequests() throws Exception {
+        assertEquals(HttpStatus.OK.value(), get("/passenger/flights").getStatus());
+        assertEquals(HttpStatus.OK.value(), get("/admin/reports/daily").getStatus());
+
+        assertEquals(2, limiter.sampled);
+        assertEquals(0, limiter.unsampled);
+    }
+
+    @Test
+    void exportReleasesWithoutLatencySample() throws Exception {
+        assertEquals(HttpStatus.OK.value(), get("/admin/export/tickets").getStatus());
+
+        assertEquals(0, limiter.sampled);
+        assertEquals(1, limiter.unsampled);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void exportIsShedWithReportsWhilePoolIsSaturated() throws Exception {
+        poolMonitor.saturated = true;
+
+        MockHttpServletResponse response = get("/admin/export/tickets");
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), response.getStatus());
+        assertEquals("1", response.getHeader("Retry-After"));
+        assertEquals(1, limiter.getRejectedCount(RequestPriority.LOW));
+        assertEquals(HttpStatus.OK.value(), get("/passenger/flights").getStatus());
+    }
+
+    @Test
+    void exemptRequestsBypassLimiter() throws Exception {
+        get("/css/style.css");
+
+        assertEquals(0, limiter.sampled + limiter.unsampled);
+    }
+
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
+    private MockHttpServletResponse get(String path) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", path), response, new MockFilterChain());
+        return response;
+    }
+
+    private static final class RecordingLimiter extends AdaptiveConcurrencyLimiter {
+
+        private int sampled;
+        private int unsampled;
+
+        RecordingLimiter(ConnectionPoolMonitor poolMonitor) {
+            super(true, 20, 4, 200, 0.2, 0.5, poolMonitor, System::nanoTime);
+        }
+
+        @Override
+        public void release(long rttNanos) {
+            sampled++;
+            super.release(rttNanos);
+        }
+
+        @Override
+        public void releaseUnsampled() {
+            unsampled++;
+            super.releaseUnsampled();
+        }
+    }
+
+    private static final class StubPoolMonitor extends ConnectionPoolMonitor {
+
+        private boolean saturated;
+
+        StubPoolMonitor() {
+            super(null);
+        }
+
+        @Override
+        public boolean isSaturated() {
+            return saturated;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package rut.miit.airportweb.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Маршрутизация на двух независимых экземплярах PostgreSQL: в каждом таблица с именем узла,
+ * по ней видно, куда ушел запрос. Репликации между ними нет — проверяется только выбор узла
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReplicaRoutingDataSourceTests {
+
+    private static final Duration STICKY_FOR = Duration.ofMillis(500);
+
+    private final PostgreSQLContainer primary = new PostgreSQLContainer(DockerImageName.parse("postgres:latest"));
+    private final PostgreSQLContainer replica = new PostgreSQLContainer(DockerImageName.parse("postgres:latest"));
+
+    private HikariDataSource primaryPool;
+    private ReplicaRoutingDataSource routingDataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeAll
+    void startDatabases() {
+        primary.start();
+        replica.start();
+        primaryPool = pool(primary.getJdbcUrl(), primary);
+        HikariDataSource replicaPool = pool(replica.getJdbcUrl(), replica);
+        Map<String, DataSource> nodes = Map.of("primary", primaryPool, "replica", replicaPool);
+        for (Map.Entry<String, DataSource> node : nodes.entrySet()) {
+            JdbcTemplate template = new JdbcTemplate(node.getValue());
+            template.execute("CREATE TABLE node (name VARCHAR(16) NOT NULL, counter INTEGER NOT NULL DEFAULT 0)");
+            template.update("INSERT INTO node (name) VALUES (?)", node.getKey());
+        }
+
+        routingDataSource = routing(Map.of("replica-1", replicaPool));
+        DataSource dataSource = lazy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterAll
+    void stopDatabases() throws Exception {
+        routingDataSource.destroy();
+        primaryPool.close();
+        replica.stop();
+        primary.stop();
+    }
+
+    @AfterEach
+    void clearRequest() {
+        ReadYourWrites.clear();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplica() {
+        assertEquals("replica", readOnly.execute(status -> nodeName()));
+        assertEquals("primary", readWrite.execute(status -> nodeName()));
+    }
+
+    @Test
+    void sessionReadsItsOwnWritesFromPrimary() throws Exception {
+        MockHttpSession writer = new MockHttpSession();
+        ReadYourWrites.bind(request(writer));
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update("UPDATE node SET counter = counter + 1"));
+        assertEquals("primary", readOnly.execute(status -> nodeName()));
+        ReadYourWrites.clear();
+
+        // Следующий запрос той же сессии тоже читает из основной базы, другая сессия — из реплики
+        ReadYourWrites.bind(request(writer));
+        assertEquals("primary", readOnly.execute(status -> nodeName()));
+        ReadYourWrites.clear();
+        ReadYourWrites.bind(request(new MockHttpSession()));
+        assertEquals("replica", readOnly.execute(status -> nodeName()));
+        ReadYourWrites.clear();
+
+        Thread.sleep(STICKY_FOR.toMillis() + 100);
+        ReadYourWrites.bind(request(writer));
+        assertEquals("replica", readOnly.execute(status -> nodeName()));
+    }
+
+    @Test
+    void rolledBackWriteDoesNotStick() {
+        ReadYourWrites.bind(request(new MockHttpSession()));
+        readWrite.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE node SET counter = counter + 1");
+            status.setRollbackOnly();
+        });
+        assertEquals("replica", readOnly.execute(status -> nodeName()));
+    }
+
+    @Test
+    void writeOutsideTransactionDoesNotStick() {
+        // Так пишет хранилище сессий: запрос идет в основную базу, но чтения сессии на нее не переводит
+        MockHttpSession session = new MockHttpSession();
+        ReadYourWrites.bind(request(session));
+        jdbcTemplate.update("UPDATE node SET counter = counter + 1");
+
+        assertEquals("replica", readOnly.execute(status -> nodeName()));
+        assertNull(session.getAttribute(ReadYourWrites.SESSION_ATTRIBUTE));
+    }
+
+    @Test
+    void unreachableReplicaFallsBackToPrimary() throws Exception {
+        HikariDataSource unreachable = pool("jdbc:postgresql://localhost:1/airport_db", replica);
+        ReplicaRoutingDataSource routing = routing(Map.of("replica-1", unreachable));
+        try {
+            DataSource dataSource = lazy(routing);
+            TransactionTemplate template = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+            template.setReadOnly(true);
+            JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+
+            assertEquals("primary",
+                    template.execute(status -> jdbc.queryForObject("SELECT name FROM node", String.class)));
+            assertEquals(-1, routing.getReplicaStates().getFirst().lagMillis());
+            assertEquals(1, routing.getRoutedCount(ReplicaRoutingDataSource.Route.FALLBACK));
+        } finally {
+            routing.destroy();
+        }
+    }
+
+    @Test
+    void standbyThatStoppedStreamingIsExcluded() throws Exception {
+        // Реплика изображается функциями и представлением в схеме standby поверх pg_catalog:
+        // позиции приема и применения WAL совпадают, приемник WAL включается флагом
+        JdbcTemplate replicaTemplate = new JdbcTemplate(pool(replica.getJdbcUrl(), replica));
+        replicaTemplate.execute("""
+                CREATE SCHEMA standby;
+                CREATE TABLE standby.receiver (streaming BOOLEAN NOT NULL);
+                INSERT INTO standby.receiver VALUES (false);
+                CREATE FUNCTION standby.pg_is_in_recovery() RETURNS boolean LANGUAGE sql AS 'SELECT true';
+                CREATE FUNCTION standby.pg_last_wal_receive_lsn() RETURNS pg_lsn LANGUAGE sql AS 'SELECT ''0/3000000''::pg_lsn';
+                CREATE FUNCTION standby.pg_last_wal_replay_lsn() RETURNS pg_lsn LANGUAGE sql AS 'SELECT ''0/3000000''::pg_lsn';
+                CREATE VIEW standby.pg_stat_wal_receiver AS
+                    SELECT 'streaming'::text AS status FROM standby.receiver WHERE streaming;
+                """);
+        HikariDataSource standby = pool(replica.getJdbcUrl(), replica);
+        standby.setConnectionInitSql("SET search_path = standby, pg_catalog, public");
+        ReplicaRoutingDataSource routing = routing(Map.of("replica-1", standby));
+        try {
+            assertFalse(routing.getReplicaStates().getFirst().available());
+            assertEquals(-1, routing.getReplicaStates().getFirst().lagMillis());
+
+            replicaTemplate.update("UPDATE standby.receiver SET streaming = true");
+            routing.checkReplicas();
+            assertTrue(routing.getReplicaStates().getFirst().available());
+            assertEquals(0, routing.getReplicaStates().getFirst().lagMillis());
+
+            replicaTemplate.update("UPDATE standby.receiver SET streaming = false");
+            routing.checkReplicas();
+            assertFalse(routing.getReplicaStates().getFirst().available());
+        } finally {
+            routing.destroy();
+            replicaTemplate.execute("DROP SCHEMA standby CASCADE");
+            ((HikariDataSource) replicaTemplate.getDataSource()).close();
+        }
+    }
+
+    private String nodeName() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private ReplicaRoutingDataSource routing(Map<String, DataSource> replicas) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primaryPool, replicas,
+                Duration.ofSeconds(1), STICKY_FOR);
+        routing.afterPropertiesSet();
+        return routing;
+    }
+
+    private static DataSource lazy(DataSource target) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(target);
+        proxy.setDefaultAutoCommit(true);
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        return proxy;
+    }
+
+    private static HikariDataSource pool(String jdbcUrl, PostgreSQLContainer credentials) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setJdbcUrl(jdbcUrl);
+        pool.setUsername(credentials.getUsername());
+        pool.setPassword(credentials.getPassword());
+        pool.setMaximumPoolSize(4);
+        pool.setConnectionTimeout(500);
+        pool.setInitializationFailTimeout(-1);
+        return pool;
+    }
+
+    private static MockHttpServletRequest request(MockHttpSession session) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setSession(session);
+        return request;
+    }
+}
@@ -0,0 +1,175 @@
+package rut.miit.airportweb.config.invalidation;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Два слушателя на одной базе изображают два узла; публикует один из них
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class InvalidationListenerTests {
+
+    private static final Duration GAP_TIMEOUT = Duration.ofMillis(300);
+    private static final Duration AWAIT = Duration.ofSeconds(10);
+
+    private final PostgreSQLContainer postgres = new PostgreSQLContainer(DockerImageName.parse("postgres:latest"));
+
+    private HikariDataSource pool;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private InvalidationPublisher publisher;
+    private final RecordingHandler first = new RecordingHandler();
+    private final RecordingHandler second = new RecordingHandler();
+    private InvalidationListener firstListener;
+    private InvalidationListener secondListener;
+
+    @BeforeAll
+    void start() {
+        postgres.start();
+        pool = new HikariDataSource();
+        pool.setJdbcUrl(postgres.getJdbcUrl());
+        pool.setUsername(postgres.getUsername());
+        pool.setPassword(postgres.getPassword());
+        pool.setMaximumPoolSize(4);
+        jdbcTemplate = new JdbcTemplate(pool);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(pool));
+        publisher = new InvalidationPublisher(jdbcTemplate, true);
+
+        firstListener = listener(first);
+        secondListener = listener(second);
+        firstListener.start();
+        secondListener.start();
+        await(() -> firstListener.isConnected() && secondListener.isConnected());
+    }
+
+    @AfterAll
+    void stop() {
+        firstListener.stop();
+        secondListener.stop();
+        pool.close();
+        postgres.stop();
+    }
+
+    @BeforeEach
+    void clear() {
+        first.clear();
+        second.clear();
+    }
+
+    @Test
+    void committedChangesReachEveryNodeCoalesced() {
+        transactionTemplate.executeWithoutResult(status -> {
+            publisher.publish(EntityChange.Type.FLIGHT, "SU100");
+            publisher.publish(EntityChange.Type.FLIGHT, "SU100");
+            publisher.publish(EntityChange.Type.FLIGHT, "SU 200|,:");
+        });
+
+        await(() -> first.keys().size() == 2 && second.keys().size() == 2);
+        assertEquals(List.of("SU100", "SU 200|,:"), first.keys());
+        assertEquals(0, first.refreshes.get());
+    }
+
+    @Test
+    void rolledBackChangesAreNotDelivered() {
+        transactionTemplate.executeWithoutResult(status -> {
+            publisher.publish(EntityChange.Type.FLIGHT, "SU300");
+            status.setRollbackOnly();
+        });
+        publisher.publish(EntityChange.Type.SESSION, "marker");
+
+        await(() -> first.keys().contains("marker"));
+        assertEquals(List.of("marker"), first.keys());
+    }
+
+    @Test
+    void largeTransactionIsSplitIntoSeveralNotifications() {
+        List<String> flights = IntStream.range(0, 400).mapToObj(i -> "FLIGHT-NUMBER-" + i + "-" + "x".repeat(20)).toList();
+        transactionTemplate.executeWithoutResult(status ->
+                flights.forEach(flight -> publisher.publish(EntityChange.Type.FLIGHT, flight)));
+
+        await(() -> first.keys().size() == flights.size());
+        assertEquals(Set.copyOf(flights), Set.copyOf(first.keys()));
+    }
+
+    @Test
+    void lostMessageTriggersFullRefresh() {
+        // Узел "lost" отправил уведомления 1 и 3, уведомление 2 до слушателей не дошло
+        jdbcTemplate.execute("SELECT pg_notify('" + InvalidationPublisher.CHANNEL + "', 'lost|1|FLIGHT:A')");
+        jdbcTemplate.execute("SELECT pg_notify('" + InvalidationPublisher.CHANNEL + "', 'lost|3|FLIGHT:C')");
+
+        await(() -> first.refreshes.get() > 0 && second.refreshes.get() > 0);
+    }
+
+    private InvalidationListener listener(RecordingHandler handler) {
+        DataSource listenDataSource = new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        return new InvalidationListener(listenDataSource, true, () -> List.of(handler), transactionTemplate,
+                Duration.ofMillis(50), GAP_TIMEOUT, 1000, Duration.ofMillis(200));
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + AWAIT.toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Condition not met within " + AWAIT);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    private static final class RecordingHandler implements InvalidationHandler {
+
+        private final ConcurrentLinkedQueue<EntityChange> changes = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger refreshes = new AtomicInteger();
+
+        @Override
+        public Set<EntityChange.Type> invalidationTypes() {
+            return Set.of(EntityChange.Type.values());
+        }
+
+        @Override
+        public void invalidate(Collection<EntityChange> batch) {
+            changes.addAll(batch);
+        }
+
+        @Override
+        public void refreshAll() {
+            refreshes.incrementAndGet();
+        }
+
+        private List<String> keys() {
+            return changes.stream().map(EntityChange::key).toList();
+        }
+
+        private void clear() {
+            changes.clear();
+            refreshes.set(0);
+        }
+    }
+}
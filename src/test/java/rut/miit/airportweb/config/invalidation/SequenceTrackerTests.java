@@ -0,0 +1,55 @@
+package rut.miit.airportweb.config.invalidation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SequenceTrackerTests {
+
+    private static final long GAP_TIMEOUT = 5_000_000_000L;
+
+    private final SequenceTracker tracker = new SequenceTracker(GAP_TIMEOUT);
+
+    @Test
+    void firstMessageOfOriginIsBaseline() {
+        tracker.accept("a", 42, 0);
+        tracker.accept("a", 43, 0);
+        assertFalse(tracker.hasLostMessages(GAP_TIMEOUT * 2));
+    }
+
+    @Test
+    void outOfOrderCommitIsNotLoss() {
+        tracker.accept("a", 1, 0);
+        tracker.accept("a", 3, 0);
+        tracker.accept("a", 2, GAP_TIMEOUT / 2);
+        assertFalse(tracker.hasLostMessages(GAP_TIMEOUT * 2));
+    }
+
+    @Test
+    void gapOlderThanTimeoutIsLoss() {
+        tracker.accept("a", 1, 0);
+        tracker.accept("a", 3, 0);
+        assertFalse(tracker.hasLostMessages(GAP_TIMEOUT));
+        assertTrue(tracker.hasLostMessages(GAP_TIMEOUT + 1));
+
+        tracker.reset();
+        assertFalse(tracker.hasLostMessages(GAP_TIMEOUT * 2));
+    }
+
+    @Test
+    void hugeGapIsLossImmediately() {
+        tracker.accept("a", 1, 0);
+        tracker.accept("a", SequenceTracker.MAX_MISSING + 10, 0);
+        assertTrue(tracker.hasLostMessages(0));
+    }
+
+    @Test
+    void originsAreTrackedSeparately() {
+        tracker.accept("a", 1, 0);
+        tracker.accept("b", 100, 0);
+        tracker.accept("a", 2, 0);
+        tracker.accept("b", 101, 0);
+        assertFalse(tracker.hasLostMessages(GAP_TIMEOUT * 2));
+    }
+}
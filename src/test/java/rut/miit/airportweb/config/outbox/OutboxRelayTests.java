@@ -0,0 +1,208 @@
+package rut.miit.airportweb.config.outbox;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ретранслятор на настоящем PostgreSQL: порядок, откат, долгая транзакция и повтор после ошибки получателя
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class OutboxRelayTests {
+
+    private final PostgreSQLContainer postgres = new PostgreSQLContainer(DockerImageName.parse("postgres:latest"));
+
+    private HikariDataSource pool;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private OutboxWriter writer;
+    private OutboxRelay relay;
+    private final RecordingSubscriber tickets = new RecordingSubscriber(
+            Set.of(DomainEventType.TICKET_BOOKED, DomainEventType.PASSENGER_CHECKED_IN));
+    private final RecordingSubscriber flights = new RecordingSubscriber(Set.of(DomainEventType.FLIGHT_STATUS_CHANGED));
+
+    @BeforeAll
+    void start() throws IOException {
+        postgres.start();
+        pool = new HikariDataSource();
+        pool.setJdbcUrl(postgres.getJdbcUrl());
+        pool.setUsername(postgres.getUsername());
+        pool.setPassword(postgres.getPassword());
+        pool.setMaximumPoolSize(4);
+        jdbcTemplate = new JdbcTemplate(pool);
+        jdbcTemplate.execute(new ClassPathResource("db/changelog/release/outbox-events.sql")
+                .getContentAsString(StandardCharsets.UTF_8));
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(pool));
+        writer = new OutboxWriter(jdbcTemplate, true);
+        relay = new OutboxRelay(jdbcTemplate, true, transactionTemplate, () -> List.of(tickets, flights), "test",
+                100, 10, Duration.ZERO, Duration.ZERO, 100);
+    }
+
+    @AfterAll
+    void stop() {
+        pool.close();
+        postgres.stop();
+    }
+
+    @BeforeEach
+    void drain() {
+        relay.poll();
+        tickets.clear();
+        flights.clear();
+    }
+
+    @Test
+    void committedEventsReachSubscribersInOrder() {
+        transactionTemplate.executeWithoutResult(status -> {
+            writer.append(DomainEventType.TICKET_BOOKED, "TCK-1", Map.of("flightNumber", "SU100", "seatNumber", "1A"));
+            writer.append(DomainEventType.FLIGHT_STATUS_CHANGED, "SU100", Map.of("status", "BOARDING"));
+            writer.append(DomainEventType.PASSENGER_CHECKED_IN, "TCK-1", Map.of("flightNumber", "SU100"));
+        });
+
+        relay.poll();
+
+        assertEquals(List.of("TICKET_BOOKED:TCK-1", "PASSENGER_CHECKED_IN:TCK-1"), tickets.received());
+        assertEquals(List.of("FLIGHT_STATUS_CHANGED:SU100"), flights.received());
+        assertEquals(Map.of("flightNumber", "SU100", "seatNumber", "1A"), tickets.events.getFirst().data());
+    }
+
+    @Test
+    void emptyValuesAreSkippedAndTextIsKeptAsIs() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("seatNumber", null);
+        data.put("note", "Ряд 1, \"окно\" & {}");
+        transactionTemplate.executeWithoutResult(status -> writer.append(DomainEventType.TICKET_BOOKED, 42, data));
+
+        relay.poll();
+
+        assertEquals(Map.of("note", "Ряд 1, \"окно\" & {}"), tickets.events.getFirst().data());
+        assertEquals("42", tickets.events.getFirst().aggregateId());
+    }
+
+    @Test
+    void rolledBackEventsAreNotRelayed() {
+        transactionTemplate.executeWithoutResult(status -> {
+            writer.append(DomainEventType.TICKET_BOOKED, "TCK-ROLLBACK", Map.of());
+            status.setRollbackOnly();
+        });
+        transactionTemplate.executeWithoutResult(status -> writer.append(DomainEventType.TICKET_BOOKED, "TCK-2", Map.of()));
+
+        relay.poll();
+
+        assertEquals(List.of("TICKET_BOOKED:TCK-2"), tickets.received());
+    }
+
+    @Test
+    void eventsWaitForOlderOpenTransaction() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())) {
+            // Долгая транзакция получила номер события раньше, чем следующая, но фиксируется позже нее
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement("""
+                    INSERT INTO outbox_events (event_type, aggregate_type, aggregate_id, payload)
+                    VALUES ('TICKET_BOOKED', 'TICKET', 'TCK-SLOW', '{}')
+                    """)) {
+                insert.executeUpdate();
+            }
+            transactionTemplate.executeWithoutResult(status ->
+                    writer.append(DomainEventType.TICKET_BOOKED, "TCK-FAST", Map.of()));
+
+            relay.poll();
+            assertEquals(List.of(), tickets.received());
+
+            connection.commit();
+        }
+
+        relay.poll();
+        assertEquals(List.of("TICKET_BOOKED:TCK-SLOW", "TICKET_BOOKED:TCK-FAST"), tickets.received());
+    }
+
+    @Test
+    void failedBatchIsRetried() {
+        transactionTemplate.executeWithoutResult(status -> writer.append(DomainEventType.TICKET_BOOKED, "TCK-3", Map.of()));
+        tickets.failNext.set(true);
+
+        relay.poll();
+        assertEquals(List.of(), tickets.received());
+        assertEquals(List.of(), flights.received());
+
+        relay.poll();
+        assertEquals(List.of("TICKET_BOOKED:TCK-3"), tickets.received());
+        assertTrue(relay.getFailureCount() > 0);
+    }
+
+    @Test
+    void relayedEventsArePurged() {
+        transactionTemplate.executeWithoutResult(status -> writer.append(DomainEventType.TICKET_BOOKED, "TCK-4", Map.of()));
+        relay.poll();
+
+        relay.purge();
+
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_events", Integer.class));
+    }
+
+    @Test
+    void appendOutsideTransactionFails() {
+        assertThrows(IllegalStateException.class,
+                () -> writer.append(DomainEventType.TICKET_BOOKED, "TCK-5", Map.of()));
+    }
+
+    private static final class RecordingSubscriber implements DomainEventSubscriber {
+
+        private final Set<DomainEventType> types;
+        private final List<DomainEvent> events = new ArrayList<>();
+        private final AtomicBoolean failNext = new AtomicBoolean();
+
+        private RecordingSubscriber(Set<DomainEventType> types) {
+            this.types = types;
+        }
+
+        @Override
+        public Set<DomainEventType> eventTypes() {
+            return types;
+        }
+
+        @Override
+        public void onEvents(List<DomainEvent> batch) {
+            if (failNext.compareAndSet(true, false)) {
+                throw new IllegalStateException("Subscriber failure");
+            }
+            events.addAll(batch);
+        }
+
+        private List<String> received() {
+            return events.stream().map(event -> event.type() + ":" + event.aggregateId()).toList();
+        }
+
+        private void clear() {
+            events.clear();
+        }
+    }
+}
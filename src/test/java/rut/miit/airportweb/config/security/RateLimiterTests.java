@@ -0,0 +1,149 @@
+package rut.miit.airportweb.config.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RateLimiterTests {
+
+    private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final RateLimitRule SEARCH = rule("search", 3);
+
+    private long nanos = TimeUnit.SECONDS.toNanos(1_000);
+    private final RateLimiter rateLimiter = new RateLimiter(() -> nanos);
+
+    @Test
+    void rejectsEmptyRule() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new RateLimitRule("broken", "GET", "/", 0, Duration.ofSeconds(1), false));
+        assertThrows(IllegalArgumentException.class,
+                () -> new RateLimitRule("broken", "GET", "/", 1, Duration.ZERO, false));
+    }
+
+    @Test
+    void allowsBurstUpToCapacityThenOneRequestPerRefillPeriod() {
+        assertEquals(0, rateLimiter.tryAcquire(SEARCH, "alice"));
+        assertEquals(0, rateLimiter.tryAcquire(SEARCH, "alice"));
+        assertEquals(0, rateLimiter.tryAcquire(SEARCH, "alice"));
+        assertEquals(INTERVAL, rateLimiter.tryAcquire(SEARCH, "alice"));
+
+        // Отказ не тратит токен: ждать остается ровно до следующего
+        nanos += INTERVAL * 2 / 5;
+        assertEquals(INTERVAL * 3 / 5, rateLimiter.tryAcquire(SEARCH, "alice"));
+
+        nanos += INTERVAL * 3 / 5;
+        assertEquals(0, rateLimiter.tryAcquire(SEARCH, "alice"));
+        assertEquals(INTERVAL, rateLimiter.tryAcquire(SEARCH, "alice"));
+
+        assertEquals(4, rateLimiter.getAllowedCount("search"));
+        assertEquals(3, rateLimiter.getThrottledCount("search"));
+    }
+
+    @Test
+    void idleTimeDoesNotAccumulateTokensBeyondCapacity() {
+        rateLimiter.tryAcquire(SEARCH, "alice");
+        nanos += TimeUnit.HOURS.toNanos(1);
+
+        assertEquals(3, allowed(SEARCH, "alice", 10));
+    }
+
+    @Test
+    void clientsAndRulesHaveSeparateBuckets() {
+        RateLimitRule login = rule("login", 1);
+
+        assertEquals(3, allowed(SEARCH, "alice", 10));
+        assertEquals(3, allowed(SEARCH, "bob", 10));
+        assertEquals(1, allowed(login, "alice", 10));
+
+        assertEquals(3, rateLimiter.getBucketCount());
+        assertEquals(7, rateLimiter.getAllowedCounts().values().stream().mapToLong(Long::longValue).sum());
+        assertEquals(0, rateLimiter.getThrottledCount("unknown"));
+    }
+
+    @Test
+    void concurrentRequestsNeverSpendMoreTokensThanCapacity() throws Exception {
+        int capacity = 50;
+        int threads = 16;
+        int attempts = 100;
+        RateLimitRule rule = rule("contended", capacity);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // Часы стоят: все потоки бьются CAS за одно значение, разрешено должно быть ровно capacity
+        List<Future<Integer>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return allowed(rule, "alice", attempts);
+                }));
+            }
+            start.countDown();
+            int total = 0;
+            for (Future<Integer> result : results) {
+                total += result.get(10, TimeUnit.SECONDS);
+            }
+            assertEquals(capacity, total);
+        }
+
+        assertEquals(capacity, rateLimiter.getAllowedCount("contended"));
+        assertEquals((long) threads * attempts - capacity, rateLimiter.getThrottledCount("contended"));
+    }
+
+    @Test
+    void evictsOnlyFullyRefilledBuckets() {
+        assertEquals(3, allowed(SEARCH, "alice", 3));
+        assertEquals(1, allowed(SEARCH, "bob", 1));
+
+        nanos += INTERVAL;
+        rateLimiter.evictIdleBuckets();
+        assertEquals(1, rateLimiter.getBucketCount());
+
+        nanos += INTERVAL;
+        rateLimiter.evictIdleBuckets();
+        assertEquals(1, rateLimiter.getBucketCount());
+
+        nanos += INTERVAL;
+        rateLimiter.evictIdleBuckets();
+        assertEquals(0, rateLimiter.getBucketCount());
+
+        // Удаленная корзина была полной: новая дает тот же бюджет, счетчики правил не сбрасываются
+        assertEquals(3, allowed(SEARCH, "alice", 10));
+        assertEquals(7, rateLimiter.getAllowedCount("search"));
+    }
+
+    @Test
+    void drainedBucketSurvivesEviction() {
+        allowed(SEARCH, "alice", 10);
+
+        rateLimiter.evictIdleBuckets();
+
+        assertEquals(1, rateLimiter.getBucketCount());
+        assertEquals(INTERVAL, rateLimiter.tryAcquire(SEARCH, "alice"));
+    }
+
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
+    private int allowed(RateLimitRule rule, String client, int attempts) {
+        int allowed = 0;
+        for (int i = 0; i < attempts; i++) {
+            if (rateLimiter.tryAcquire(rule, client) == 0) {
+                allowed++;
+            }
+        }
+        return allowed;
+    }
+
+    private static RateLimitRule rule(String name, int capacity) {
+        return new RateLimitRule(name, "GET", "/" + name, capacity, Duration.ofNanos(INTERVAL), false);
+    }
+}
@@ -0,0 +1,246 @@
+package rut.miit.airportweb.config.session;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+import rut.miit.airportweb.config.invalidation.InvalidationPublisher;
+import rut.miit.airportweb.config.session.PostgresSessionRepository.PostgresSession;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Хранилище сессий на настоящем PostgreSQL. Два репозитория с отдельными ближними кэшами — два узла;
+ * уведомления выключены, поэтому копия в кэше другого узла остается устаревшей
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PostgresSessionRepositoryTests {
+
+    private static final Duration TIMEOUT = Duration.ofMinutes(30);
+    private static final Duration NEAR_CACHE_TTL = Duration.ofMinutes(1);
+    private static final Duration ACCESS_FLUSH_INTERVAL = Duration.ofMinutes(1);
+    private static final int CLEANUP_BATCH_SIZE = 2;
+
+    private final PostgreSQLContainer postgres = new PostgreSQLContainer(DockerImageName.parse("postgres:latest"));
+
+    private HikariDataSource pool;
+    private JdbcTemplate jdbcTemplate;
+    private PostgresSessionRepository first;
+    private PostgresSessionRepository second;
+
+    @BeforeAll
+    void start() throws IOException {
+        postgres.start();
+        pool = new HikariDataSource();
+        pool.setJdbcUrl(postgres.getJdbcUrl());
+        pool.setUsername(postgres.getUsername());
+        pool.setPassword(postgres.getPassword());
+        pool.setMaximumPoolSize(4);
+        jdbcTemplate = new JdbcTemplate(pool);
+        jdbcTemplate.execute(new ClassPathResource("db/changelog/release/http-sessions.sql")
+                .getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    @AfterAll
+    void stop() {
+        pool.close();
+        postgres.stop();
+    }
+
+    @BeforeEach
+    void clean() {
+        jdbcTemplate.update("DELETE FROM http_sessions");
+        first = node();
+        second = node();
+    }
+
+    @Test
+    void writesOnlyWhatChanged() {
+        String id = saved("user", "alice");
+        long createdAccess = lastAccessed(id);
+
+        PostgresSession session = second.findById(id);
+        assertEquals("alice", session.getAttribute("user"));
+
+        // Обращение раньше access-flush-interval не пишется вовсе
+        session.setLastAccessedTime(session.getLastAccessedTime().plusSeconds(1));
+        second.save(session);
+        assertEquals(createdAccess, lastAccessed(id));
+        assertEquals(0, version(id));
+
+        // Позже — только время обращения, без атрибутов и версии
+        session.setLastAccessedTime(session.getLastAccessedTime().plus(ACCESS_FLUSH_INTERVAL));
+        second.save(session);
+        assertEquals(session.getLastAccessedTime().toEpochMilli(), lastAccessed(id));
+        assertEquals(0, version(id));
+
+        session.setAttribute("user", "bob");
+        second.save(session);
+        assertEquals(1, version(id));
+        assertEquals("bob", node().findById(id).getAttribute("user"));
+    }
+
+    @Test
+    void concurrentChangesAreMerged() {
+        String id = saved("user", "alice");
+        PostgresSession booking = first.findById(id);
+        PostgresSession settings = second.findById(id);
+
+        booking.setAttribute(PostgresSessionRepository.FLASH_MAPS_ATTRIBUTE, flash("Ticket booked"));
+        first.save(booking);
+        settings.setAttribute("locale", "ru");
+        settings.removeAttribute("user");
+        second.save(settings);
+
+        PostgresSession merged = node().findById(id);
+        assertEquals(flash("Ticket booked"), merged.getAttribute(PostgresSessionRepository.FLASH_MAPS_ATTRIBUTE));
+        assertEquals("ru", merged.getAttribute("locale"));
+        assertNull(merged.getAttribute("user"));
+        assertEquals(2, version(id));
+    }
+
+    @Test
+    void staleNearCacheCopyDoesNotOverwriteNewerAttributes() {
+        String id = saved("user", "alice");
+        second.findById(id);
+
+        PostgresSession current = first.findById(id);
+        current.setAttribute("cart", "SU1001");
+        first.save(current);
+
+        PostgresSession stale = second.findById(id);
+        assertNull(stale.getAttribute("cart"));
+        stale.setAttribute("locale", "ru");
+        second.save(stale);
+
+        PostgresSession merged = node().findById(id);
+        assertEquals("SU1001", merged.getAttribute("cart"));
+        assertEquals("ru", merged.getAttribute("locale"));
+        assertEquals("alice", merged.getAttribute("user"));
+        // После слияния узел кэширует уже записанную версию
+        assertEquals("SU1001", second.findById(id).getAttribute("cart"));
+    }
+
+    @Test
+    void sessionDeletedConcurrentlyIsNotRecreated() {
+        String id = saved("user", "alice");
+        PostgresSession session = second.findById(id);
+
+        first.deleteById(id);
+        session.setAttribute("locale", "ru");
+        second.save(session);
+
+        assertEquals(0, count(id));
+        assertNull(second.findById(id));
+    }
+
+    @Test
+    void sessionWithPendingFlashIsNotCached() {
+        String id = saved(PostgresSessionRepository.FLASH_MAPS_ATTRIBUTE, flash("Ticket booked"));
+
+        PostgresSession session = second.findById(id);
+        second.findById(id);
+        assertEquals(2, second.getNearCacheMisses());
+        assertEquals(0, second.getNearCacheSize());
+
+        // Сообщения отданы: дальше сессия снова читается из кэша
+        session.removeAttribute(PostgresSessionRepository.FLASH_MAPS_ATTRIBUTE);
+        second.save(session);
+        second.findById(id);
+        assertEquals(1, second.getNearCacheHits());
+    }
+
+    @Test
+    void changeSessionIdMovesRow() {
+        String id = saved("user", "alice");
+        PostgresSession session = first.findById(id);
+
+        String newId = session.changeSessionId();
+        session.setAttribute("locale", "ru");
+        first.save(session);
+
+        assertNull(first.findById(id));
+        assertNull(second.findById(id));
+        PostgresSession moved = second.findById(newId);
+        assertNotNull(moved);
+        assertEquals("alice", moved.getAttribute("user"));
+        assertEquals("ru", moved.getAttribute("locale"));
+        assertEquals(1, version(newId));
+    }
+
+    @Test
+    void expiredSessionIsDeletedOnRead() {
+        String id = expired();
+
+        assertNull(second.findById(id));
+        assertEquals(0, count(id));
+    }
+
+    @Test
+    void cleanUpDeletesExpiredSessionsInBatches() {
+        for (int i = 0; i < CLEANUP_BATCH_SIZE * 2 + 1; i++) {
+            expired();
+        }
+        String live = saved("user", "alice");
+
+        first.cleanUpExpiredSessions();
+
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM http_sessions", Integer.class));
+        assertEquals(1, count(live));
+    }
+
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
+    private PostgresSessionRepository node() {
+        return new PostgresSessionRepository(jdbcTemplate, new InvalidationPublisher(jdbcTemplate, false),
+                getClass().getClassLoader(), TIMEOUT, NEAR_CACHE_TTL, 100, ACCESS_FLUSH_INTERVAL, CLEANUP_BATCH_SIZE);
+    }
+
+    private String saved(String name, Object value) {
+        PostgresSession session = first.createSession();
+        session.setAttribute(name, value);
+        first.save(session);
+        return session.getId();
+    }
+
+    private String expired() {
+        PostgresSession session = first.createSession();
+        session.setAttribute("user", "alice");
+        session.setLastAccessedTime(Instant.now().minus(TIMEOUT).minusSeconds(1));
+        first.save(session);
+        return session.getId();
+    }
+
+    private static ArrayList<String> flash(String message) {
+        return new ArrayList<>(List.of(message));
+    }
+
+    private long version(String id) {
+        return jdbcTemplate.queryForObject("SELECT version FROM http_sessions WHERE session_id = ?", Long.class, id);
+    }
+
+    private long lastAccessed(String id) {
+        return jdbcTemplate.queryForObject("SELECT last_accessed_at FROM http_sessions WHERE session_id = ?",
+                Long.class, id);
+    }
+
+    private int count(String id) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM http_sessions WHERE session_id = ?",
+                Integer.class, id);
+    }
+}
@@ -0,0 +1,100 @@
+package rut.miit.airportweb.config.session;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import rut.miit.airportweb.config.security.CustomUserDetails;
+import rut.miit.airportweb.dao.entity.UserEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionAttributeCodecTests {
+
+    private static final String CONTEXT = "SPRING_SECURITY_CONTEXT";
+
+    private final SessionAttributeCodec codec = new SessionAttributeCodec(getClass().getClassLoader());
+
+    @Test
+    void securityContextKeepsUserWithoutPassword() {
+        CustomUserDetails user = CustomUserDetails.builder()
+                .id(42)
+                .username("passenger")
+                .password("$2a$10$hash")
+                .role(UserEntity.Role.PASSENGER)
+                .firstName("Иван")
+                .lastName(null)
+                .createdAt(LocalDateTime.of(2024, 5, 1, 12, 30))
+                .build();
+        Authentication authentication = UsernamePasswordAuthenticationToken.authenticated(
+                user, user.getPassword(), user.getAuthorities());
+
+        Map<String, Object> decoded = codec.decode(codec.encode(Map.of(CONTEXT, new SecurityContextImpl(authentication))));
+
+        SecurityContext context = assertInstanceOf(SecurityContext.class, decoded.get(CONTEXT));
+        assertTrue(context.getAuthentication().isAuthenticated());
+        assertNull(context.getAuthentication().getCredentials());
+        CustomUserDetails restored = assertInstanceOf(CustomUserDetails.class, context.getAuthentication().getPrincipal());
+        assertEquals(42, restored.getId());
+        assertEquals("passenger", restored.getUsername());
+        assertNull(restored.getPassword());
+        assertEquals(UserEntity.Role.PASSENGER, restored.getRole());
+        assertEquals("Иван", restored.getFirstName());
+        assertNull(restored.getLastName());
+        assertEquals(LocalDateTime.of(2024, 5, 1, 12, 30), restored.getCreatedAt());
+        assertEquals(List.of("ROLE_PASSENGER"), context.getAuthentication().getAuthorities().stream()
+                .map(Object::toString).toList());
+    }
+
+    @Test
+    void securityContextIsMuchSmallerThanJavaSerialization() throws Exception {
+        CustomUserDetails user = CustomUserDetails.builder()
+                .id(1).username("admin").role(UserEntity.Role.ADMIN).build();
+        SecurityContext context = new SecurityContextImpl(
+                UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities()));
+
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(serialized)) {
+            out.writeObject(context.getAuthentication().getAuthorities());
+        }
+        // Даже одни роли в сериализации Java больше всей компактной записи
+        assertTrue(codec.encode(Map.of(CONTEXT, context)).length < serialized.size());
+    }
+
+    @Test
+    void plainAttributesRoundTrip() {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("string", "x".repeat(70_000));
+        attributes.put("long", 1_700_000_000_000L);
+        attributes.put("int", 7);
+        attributes.put("flag", true);
+        attributes.put("list", new ArrayList<>(List.of("a", "b")));
+
+        assertEquals(attributes, codec.decode(codec.encode(attributes)));
+    }
+
+    @Test
+    void nonSerializableAttributeIsSkipped() {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("kept", "value");
+        attributes.put("dropped", new Object());
+
+        Map<String, Object> decoded = codec.decode(codec.encode(attributes));
+
+        assertEquals("value", decoded.get("kept"));
+        assertFalse(decoded.containsKey("dropped"));
+    }
+}
@@ -0,0 +1,118 @@
+package rut.miit.airportweb.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.mvc.support.RedirectAttributesModelMap;
+import rut.miit.airportweb.dao.repository.FlightRepository;
+import rut.miit.airportweb.dto.TicketDto;
+import rut.miit.airportweb.exception.NotPermittedOperation;
+import rut.miit.airportweb.service.FlightService;
+import rut.miit.airportweb.service.IdempotencyService;
+import rut.miit.airportweb.service.ItineraryService;
+import rut.miit.airportweb.service.PassengerService;
+import rut.miit.airportweb.service.SeatHoldService;
+import rut.miit.airportweb.service.TicketService;
+import rut.miit.airportweb.service.TripService;
+import rut.miit.airportweb.service.impl.SeatHoldServiceImpl;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Удержание места при подтверждении бронирования: снимается только то, что взяло само бронирование
+ */
+class PassengerControllerTests {
+
+    private static final String FLIGHT = "SU1001";
+
+    private final TicketService ticketService = mock(TicketService.class);
+    private final FlightRepository flightRepository = mock(FlightRepository.class);
+    private final SeatHoldService seatHoldService = new SeatHoldServiceImpl(flightRepository);
+    private final PassengerController controller = new PassengerController(mock(FlightService.class), ticketService,
+            mock(PassengerService.class), mock(ItineraryService.class), seatHoldService,
+            mock(IdempotencyService.class), mock(TripService.class));
+
+    @BeforeEach
+    void setUp() {
+        SecurityContextHolder.getContext()
+                .setAuthentication(new TestingAuthenticationToken("alice", null, "ROLE_PASSENGER"));
+        when(flightRepository.existsByFlightNumber(FLIGHT)).thenReturn(true);
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void failedBookingKeepsExplicitHold() {
+        seatHoldService.hold(FLIGHT, "12A", "alice");
+        bookingFails();
+
+        book("12a");
+
+        assertEquals("12A", seatHoldService.findHold(FLIGHT, "alice").orElseThrow().seatNumber());
+        assertEquals(List.of("12A"), seatHoldService.getHeldSeats(FLIGHT, "bob"));
+    }
+
+    @Test
+    void failedBookingOfAnotherSeatRestoresExplicitHold() {
+        seatHoldService.hold(FLIGHT, "12A", "alice");
+        bookingFails();
+
+        book("14C");
+
+        assertEquals(List.of("12A"), seatHoldService.getHeldSeats(FLIGHT, "bob"));
+    }
+
+    @Test
+    void failedBookingReleasesItsOwnHold() {
+        bookingFails();
+
+        book("12A");
+
+        assertTrue(seatHoldService.findHold(FLIGHT, "alice").isEmpty());
+    }
+
+    @Test
+    void seatHeldByAnotherPassengerIsNotTouched() {
+        seatHoldService.hold(FLIGHT, "12A", "bob");
+        seatHoldService.hold(FLIGHT, "14C", "alice");
+
+        String view = book("12A");
+
+        assertEquals("redirect:/passenger/tickets/book?flightNumber=" + FLIGHT, view);
+        assertEquals(List.of("12A"), seatHoldService.getHeldSeats(FLIGHT, "alice"));
+        assertEquals("14C", seatHoldService.findHold(FLIGHT, "alice").orElseThrow().seatNumber());
+    }
+
+    @Test
+    void bookingConvertsHoldIntoTicket() {
+        seatHoldService.hold(FLIGHT, "12A", "alice");
+        when(ticketService.createTicket(any())).thenReturn(TicketDto.builder().ticketNumber("TKT-1").build());
+
+        assertEquals("redirect:/passenger/dashboard", book("12A"));
+        assertTrue(seatHoldService.findHold(FLIGHT, "alice").isEmpty());
+    }
+
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
+    private void bookingFails() {
+        when(ticketService.createTicket(any()))
+                .thenThrow(new NotPermittedOperation("Passport does not match the passenger"));
+    }
+
+    private String book(String seatNumber) {
+        return controller.bookTicket(FLIGHT, seatNumber, "4500123456", "Alice Smith", new BigDecimal("5000"),
+                null, new RedirectAttributesModelMap());
+    }
+}
@@ -0,0 +1,221 @@
+package rut.miit.airportweb.dao;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Триггеры flight-manifest.sql: манифест следует за изменениями билетов, талонов, пассажиров,
+ * пользователей и рейсов, в том числе за пакетными изменениями одним оператором, и не создают
+ * взаимных блокировок с изменениями билетов
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class FlightManifestTriggerTests {
+
+    private final PostgreSQLContainer postgres = new PostgreSQLContainer(DockerImageName.parse("postgres:latest"));
+
+    private HikariDataSource pool;
+    private JdbcTemplate jdbcTemplate;
+    private int flightId;
+    private int passengerId;
+    private int userId;
+
+    @BeforeAll
+    void start() throws IOException {
+        postgres.start();
+        pool = new HikariDataSource();
+        pool.setJdbcUrl(postgres.getJdbcUrl());
+        pool.setUsername(postgres.getUsername());
+        pool.setPassword(postgres.getPassword());
+        // Два соединения держат параллельные транзакции, третье следит за ожиданием блокировки
+        pool.setMaximumPoolSize(3);
+        jdbcTemplate = new JdbcTemplate(pool);
+        jdbcTemplate.execute(script("db/changelog/release/init-ddl.sql"));
+        jdbcTemplate.execute(script("db/changelog/release/flight-manifest.sql"));
+    }
+
+    @AfterAll
+    void stop() {
+        pool.close();
+        postgres.stop();
+    }
+
+    @BeforeEach
+    void seed() {
+        // Манифест без внешних ключей, а TRUNCATE не вызывает строчные триггеры: очищается отдельно
+        jdbcTemplate.execute("TRUNCATE users, flights, flight_manifest RESTART IDENTITY CASCADE");
+        userId = jdbcTemplate.queryForObject("""
+                INSERT INTO users (username, password, role, first_name, last_name)
+                VALUES ('anna', 'x', 'PASSENGER', 'Анна', 'Смирнова') RETURNING id
+                """, Integer.class);
+        passengerId = jdbcTemplate.queryForObject("""
+                INSERT INTO passengers (user_id, passport_number) VALUES (?, 'AB123456') RETURNING id
+                """, Integer.class, userId);
+        flightId = jdbcTemplate.queryForObject("""
+                INSERT INTO flights (flight_number, departure_city, arrival_city, departure_time, arrival_time,
+                                     total_seats, available_seats)
+                VALUES ('SU100', 'Москва', 'Казань', now() + interval '1 day', now() + interval '26 hours', 100, 100)
+                RETURNING id
+                """, Integer.class);
+    }
+
+    @Test
+    void bookedTicketAppearsWithPassengerData() {
+        int ticketId = bookTicket("TCK-1", "12A");
+
+        Map<String, Object> row = manifestRow(ticketId);
+        assertEquals("SU100", row.get("flight_number"));
+        assertEquals("BOOKED", row.get("ticket_status"));
+        assertEquals("Анна Смирнова", row.get("passenger_name"));
+        assertEquals("AB123456", row.get("passport_number"));
+        assertEquals(false, row.get("boarded"));
+    }
+
+    @Test
+    void checkInAndBoardingPassFlagsAreTracked() {
+        int ticketId = bookTicket("TCK-2", "3C");
+        jdbcTemplate.update("UPDATE tickets SET status = 'CHECKED_IN' WHERE id = ?", ticketId);
+        jdbcTemplate.update("INSERT INTO boarding_passes (ticket_id) VALUES (?)", ticketId);
+        jdbcTemplate.update("UPDATE boarding_passes SET passport_verified = TRUE, luggage_verified = TRUE WHERE ticket_id = ?",
+                ticketId);
+
+        Map<String, Object> row = manifestRow(ticketId);
+        assertEquals("CHECKED_IN", row.get("ticket_status"));
+        assertEquals(true, row.get("passport_verified"));
+        assertEquals(true, row.get("luggage_verified"));
+        assertTrue(row.get("boarding_pass_id") != null);
+
+        jdbcTemplate.update("DELETE FROM boarding_passes WHERE ticket_id = ?", ticketId);
+        row = manifestRow(ticketId);
+        assertEquals(false, row.get("passport_verified"));
+        assertEquals(null, row.get("boarding_pass_id"));
+    }
+
+    @Test
+    void passengerUserAndFlightChangesAreTracked() {
+        int ticketId = bookTicket("TCK-3", "7F");
+
+        jdbcTemplate.update("UPDATE passengers SET luggage_checked = TRUE WHERE id = ?", passengerId);
+        jdbcTemplate.update("UPDATE users SET last_name = 'Кузнецова' WHERE id = ?", userId);
+        jdbcTemplate.update("UPDATE flights SET flight_number = 'SU101' WHERE id = ?", flightId);
+
+        Map<String, Object> row = manifestRow(ticketId);
+        assertEquals(true, row.get("luggage_checked"));
+        assertEquals("Анна Кузнецова", row.get("passenger_name"));
+        assertEquals("SU101", row.get("flight_number"));
+    }
+
+    @Test
+    void deletedTicketsAndCascadesLeaveManifest() {
+        int first = bookTicket("TCK-4", "1A");
+        bookTicket("TCK-5", "1B");
+
+        jdbcTemplate.update("DELETE FROM tickets WHERE id = ?", first);
+        assertEquals(List.of("TCK-5"), manifestTickets());
+
+        jdbcTemplate.update("DELETE FROM flights WHERE id = ?", flightId);
+        assertEquals(List.of(), manifestTickets());
+    }
+
+    @Test
+    void multiRowStatementsRefreshEveryTicket() {
+        jdbcTemplate.update("""
+                INSERT INTO tickets (flight_id, passenger_id, seat_number, price, ticket_number)
+                SELECT ?, ?, 'S' || n, 100, 'BULK-' || n FROM generate_series(1, 50) n
+                """, flightId, passengerId);
+        jdbcTemplate.update("UPDATE tickets SET status = 'CHECKED_IN' WHERE ticket_number LIKE 'BULK-%'");
+
+        assertEquals(50, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM flight_manifest WHERE flight_number = 'SU100' AND ticket_status = 'CHECKED_IN'",
+                Integer.class));
+    }
+
+    @Test
+    void boardingPassAndTicketUpdatesDoNotDeadlock() throws Exception {
+        int ticketId = bookTicket("TCK-6", "9D");
+        jdbcTemplate.update("INSERT INTO boarding_passes (ticket_id) VALUES (?)", ticketId);
+
+        // Исполнитель закрывается последним: если транзакции все же сцепятся, закрытие соединений их прервет
+        try (ExecutorService executor = Executors.newSingleThreadExecutor();
+             Connection boarding = pool.getConnection();
+             Connection seatChange = pool.getConnection()) {
+            boarding.setAutoCommit(false);
+            seatChange.setAutoCommit(false);
+
+            // Посадка меняет сначала талон, потом билет; пересчет манифеста по талону уже держит билет
+            update(boarding, "UPDATE boarding_passes SET boarded = TRUE WHERE ticket_id = ?", ticketId);
+            Future<?> waiting = executor.submit(() -> {
+                update(seatChange, "UPDATE tickets SET seat_number = '9E' WHERE id = ?", ticketId);
+                return null;
+            });
+            awaitLockWait();
+            update(boarding, "UPDATE tickets SET status = 'BOARDED' WHERE id = ?", ticketId);
+            boarding.commit();
+
+            waiting.get(10, TimeUnit.SECONDS);
+            seatChange.commit();
+        }
+
+        Map<String, Object> row = manifestRow(ticketId);
+        assertEquals(true, row.get("boarded"));
+        assertEquals("BOARDED", row.get("ticket_status"));
+        assertEquals("9E", row.get("seat_number"));
+    }
+
+    private int bookTicket(String ticketNumber, String seatNumber) {
+        return jdbcTemplate.queryForObject("""
+                INSERT INTO tickets (flight_id, passenger_id, seat_number, price, ticket_number)
+                VALUES (?, ?, ?, 5000, ?) RETURNING id
+                """, Integer.class, flightId, passengerId, seatNumber, ticketNumber);
+    }
+
+    private Map<String, Object> manifestRow(int ticketId) {
+        return jdbcTemplate.queryForMap("SELECT * FROM flight_manifest WHERE ticket_id = ?", ticketId);
+    }
+
+    private List<String> manifestTickets() {
+        return jdbcTemplate.queryForList("SELECT ticket_number FROM flight_manifest ORDER BY ticket_number", String.class);
+    }
+
+    private static void update(Connection connection, String sql, int id) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, id);
+            statement.executeUpdate();
+        }
+    }
+
+    private void awaitLockWait() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_stat_activity WHERE wait_event_type = 'Lock'", Integer.class) == 0) {
+            assertTrue(System.nanoTime() < deadline, "concurrent ticket update never waited for a lock");
+            Thread.sleep(20);
+        }
+    }
+
+    private static String script(String path) throws IOException {
+        return new ClassPathResource(path).getContentAsString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,54 @@
+package rut.miit.airportweb.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PassengerTripsDtoTests {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2026, 6, 1, 10, 0);
+
+    @Test
+    void splitsUpcomingAndPast() {
+        PassengerTripsDto trips = new PassengerTripsDto(List.of(
+                trip("TKT-1", 1, "BOARDED", false),
+                trip("TKT-2", 2, "BOARDED", false),
+                trip("TKT-3", 3, "CHECKED_IN", true),
+                trip("TKT-4", 4, "BOOKED", true)));
+
+        // Предстоящие — в порядке вылета, прошедшие — с последней
+        assertEquals(List.of("TKT-3", "TKT-4"), numbers(trips.getUpcoming()));
+        assertEquals(List.of("TKT-2", "TKT-1"), numbers(trips.getPast()));
+        assertEquals(List.of("TKT-1", "TKT-2", "TKT-3", "TKT-4"), numbers(trips.getTrips()));
+        assertEquals(2, trips.getActiveCount());
+    }
+
+    @Test
+    void passengerWithoutTicketsHasNoTrips() {
+        PassengerTripsDto trips = new PassengerTripsDto(List.of());
+
+        assertTrue(trips.isEmpty());
+        assertTrue(trips.getUpcoming().isEmpty());
+        assertTrue(trips.getPast().isEmpty());
+        assertEquals(0, trips.getActiveCount());
+    }
+
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
+    private static TripDto trip(String ticketNumber, int day, String status, boolean upcoming) {
+        return TripDto.builder()
+                .ticketNumber(ticketNumber)
+                .status(status)
+                .departureTime(DAY.plusDays(day))
+                .upcoming(upcoming)
+                .build();
+    }
+
+    private static List<String> numbers(List<TripDto> trips) {
+        return trips.stream().map(TripDto::getTicketNumber).toList();
+    }
+}
@@ -0,0 +1,91 @@
+package rut.miit.airportweb.mapper;
+
+import org.junit.jupiter.api.Test;
+import rut.miit.airportweb.dao.entity.BoardingPassEntity;
+import rut.miit.airportweb.dao.entity.FlightEntity;
+import rut.miit.airportweb.dao.entity.PassengerEntity;
+import rut.miit.airportweb.dao.entity.TicketEntity;
+import rut.miit.airportweb.dao.entity.UserEntity;
+import rut.miit.airportweb.dto.TripDto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TripMapperTests {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 6, 1, 10, 0);
+
+    @Test
+    void mapsTicketWithFlightAndBoardingPass() {
+        TicketEntity ticket = ticket(FlightEntity.FlightStatus.BOARDING, NOW.plusHours(3));
+        ticket.setStatus(TicketEntity.TicketStatus.CHECKED_IN);
+        BoardingPassEntity boardingPass = new BoardingPassEntity();
+        boardingPass.setPassportVerified(true);
+        boardingPass.setLuggageVerified(false);
+        ticket.setBoardingPass(boardingPass);
+
+        TripDto trip = TripMapper.map(ticket, NOW);
+
+        assertEquals("TKT-1", trip.getTicketNumber());
+        assertEquals("CHECKED_IN", trip.getStatus());
+        assertEquals("Alice Smith", trip.getPassengerName());
+        assertEquals("SU1001", trip.getFlightNumber());
+        assertEquals("BOARDING", trip.getFlightStatus());
+        assertTrue(trip.isBoardingPassIssued());
+        assertTrue(trip.isPassportVerified());
+        assertFalse(trip.isLuggageVerified());
+        assertFalse(trip.isBoarded());
+        assertTrue(trip.isUpcoming());
+    }
+
+    @Test
+    void ticketWithoutBoardingPassHasNoChecks() {
+        TripDto trip = TripMapper.map(ticket(FlightEntity.FlightStatus.SCHEDULED, NOW.plusDays(1)), NOW);
+
+        assertFalse(trip.isBoardingPassIssued());
+        assertFalse(trip.isPassportVerified());
+        assertFalse(trip.isLuggageVerified());
+        assertFalse(trip.isBoarded());
+    }
+
+    @Test
+    void departedOrLandedFlightIsPast() {
+        assertFalse(TripMapper.map(ticket(FlightEntity.FlightStatus.DEPARTED, NOW.plusHours(1)), NOW).isUpcoming());
+        assertFalse(TripMapper.map(ticket(FlightEntity.FlightStatus.ARRIVED, NOW.plusHours(1)), NOW).isUpcoming());
+        // Статус не обновлен, но рейс уже прибыл по расписанию
+        assertFalse(TripMapper.map(ticket(FlightEntity.FlightStatus.SCHEDULED, NOW.minusHours(1)), NOW).isUpcoming());
+    }
+
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
+    private static TicketEntity ticket(FlightEntity.FlightStatus flightStatus, LocalDateTime arrivalTime) {
+        UserEntity user = new UserEntity();
+        user.setFirstName("Alice");
+        user.setLastName("Smith");
+        PassengerEntity passenger = new PassengerEntity();
+        passenger.setUser(user);
+        passenger.setPassportNumber("4500123456");
+
+        FlightEntity flight = new FlightEntity();
+        flight.setId(1);
+        flight.setFlightNumber("SU1001");
+        flight.setDepartureCity("Moscow");
+        flight.setArrivalCity("Kazan");
+        flight.setDepartureTime(arrivalTime.minusHours(2));
+        flight.setArrivalTime(arrivalTime);
+        flight.setStatus(flightStatus);
+
+        TicketEntity ticket = new TicketEntity();
+        ticket.setId(1);
+        ticket.setFlight(flight);
+        ticket.setPassenger(passenger);
+        ticket.setSeatNumber("12A");
+        ticket.setPrice(new BigDecimal("5000.00"));
+        ticket.setTicketNumber("TKT-1");
+        return ticket;
+    }
+}
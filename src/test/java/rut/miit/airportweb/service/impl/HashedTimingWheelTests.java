@@ -0,0 +1,94 @@
+package rut.miit.airportweb.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashedTimingWheelTests {
+
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SIZE = 8;
+    private static final long START = 1_700_000_000_000L;
+
+    private final HashedTimingWheel<String> wheel = new HashedTimingWheel<>(TICK_MILLIS, WHEEL_SIZE, START);
+    private final List<String> expired = new ArrayList<>();
+
+    @Test
+    void rejectsWheelSizeThatIsNotPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new HashedTimingWheel<String>(TICK_MILLIS, 6, START));
+    }
+
+    @Test
+    void expiresTimerOnlyOnceItsDeadlineTickIsReached() {
+        wheel.schedule("a", START + 2_500);
+
+        assertEquals(0, wheel.advance(START + 1_000, expired::add));
+        assertEquals(0, wheel.advance(START + 2_000, expired::add));
+        // Срок округляется вверх до тика: 2.5 с истекают на третьем тике
+        assertEquals(1, wheel.advance(START + 3_000, expired::add));
+        assertEquals(List.of("a"), expired);
+
+        assertEquals(0, wheel.advance(START + 4_000, expired::add));
+    }
+
+    @Test
+    void expiresOverdueTimerOnNextAdvance() {
+        wheel.advance(START + 5_000, expired::add);
+        wheel.schedule("late", START + 1_000);
+
+        assertEquals(1, wheel.advance(START + 5_000, expired::add));
+        assertEquals(List.of("late"), expired);
+    }
+
+    @Test
+    void keepsTimersOfLaterRotationsInBucket() {
+        // Тики 3 и 3 + WHEEL_SIZE попадают в одну корзину
+        wheel.schedule("first", START + 3 * TICK_MILLIS);
+        wheel.schedule("second", START + (3 + WHEEL_SIZE) * TICK_MILLIS);
+
+        for (long tick = 0; tick <= 3; tick++) {
+            wheel.advance(START + tick * TICK_MILLIS, expired::add);
+        }
+        assertEquals(List.of("first"), expired);
+
+        for (long tick = 4; tick < 3 + WHEEL_SIZE; tick++) {
+            wheel.advance(START + tick * TICK_MILLIS, expired::add);
+        }
+        assertEquals(List.of("first"), expired);
+
+        wheel.advance(START + (3 + WHEEL_SIZE) * TICK_MILLIS, expired::add);
+        assertEquals(List.of("first", "second"), expired);
+    }
+
+    @Test
+    void catchesUpAfterLongPause() {
+        // Таймеры в каждой корзине; первое продвижение только через несколько оборотов
+        wheel.advance(START, expired::add);
+        for (int i = 1; i <= WHEEL_SIZE * 2; i++) {
+            wheel.schedule("t" + i, START + i * TICK_MILLIS);
+        }
+        wheel.advance(START + TICK_MILLIS / 2, expired::add);
+
+        assertEquals(WHEEL_SIZE * 2, wheel.advance(START + WHEEL_SIZE * 5 * TICK_MILLIS, expired::add));
+        assertEquals(WHEEL_SIZE * 2, expired.size());
+    }
+
+    @Test
+    void expiresEachTimerOnce() {
+        wheel.schedule("a", START + 1_000);
+        wheel.schedule("b", START + 1_000);
+
+        int total = 0;
+        for (long now = START; now <= START + (WHEEL_SIZE * 3) * TICK_MILLIS; now += TICK_MILLIS / 4) {
+            total += wheel.advance(now, expired::add);
+        }
+
+        assertEquals(2, total);
+        assertTrue(expired.containsAll(List.of("a", "b")));
+    }
+}
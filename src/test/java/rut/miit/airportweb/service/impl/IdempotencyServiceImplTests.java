@@ -0,0 +1,138 @@
+package rut.miit.airportweb.service.impl;
+
+import org.junit.jupiter.api.Test;
+import rut.miit.airportweb.service.IdempotencyService.StoredOutcome;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotencyServiceImplTests {
+
+    private static final int DUPLICATES = 32;
+
+    private final IdempotencyServiceImpl idempotencyService = new IdempotencyServiceImpl(null, false);
+
+    @Test
+    void concurrentDuplicatesExecuteActionOnce() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        StoredOutcome expected = new StoredOutcome("redirect:/passenger/dashboard",
+                Map.of("successMessage", "Билет забронирован"));
+
+        List<Future<StoredOutcome>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(DUPLICATES)) {
+            for (int i = 0; i < DUPLICATES; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return idempotencyService.execute("passenger|book:SU1001:12A|key-1", () -> {
+                        executions.incrementAndGet();
+                        sleep(100);
+                        return expected;
+                    });
+                }));
+            }
+            start.countDown();
+
+            for (Future<StoredOutcome> result : results) {
+                assertSame(expected, result.get());
+            }
+        }
+
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void repeatedKeyReplaysStoredOutcome() {
+        AtomicInteger executions = new AtomicInteger();
+        StoredOutcome first = idempotencyService.execute("staff|board:TKT-1|key-2", () ->
+                new StoredOutcome("redirect:/staff/boarding/ticket/TKT-1", Map.of("n", String.valueOf(executions.incrementAndGet()))));
+        StoredOutcome second = idempotencyService.execute("staff|board:TKT-1|key-2", () ->
+                new StoredOutcome("redirect:/staff/boarding/ticket/TKT-1", Map.of("n", String.valueOf(executions.incrementAndGet()))));
+
+        assertEquals(first, second);
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void failedActionIsNotRemembered() {
+        assertThrows(IllegalStateException.class, () -> idempotencyService.execute("passenger|checkin:TKT-2|key-3", () -> {
+            throw new IllegalStateException("Database is unavailable");
+        }));
+
+        StoredOutcome retried = idempotencyService.execute("passenger|checkin:TKT-2|key-3", () ->
+                new StoredOutcome("redirect:/passenger/tickets/TKT-2", Map.of()));
+        assertEquals("redirect:/passenger/tickets/TKT-2", retried.viewName());
+    }
+
+    @Test
+    void unsuccessfulOutcomeIsNotReplayed() {
+        AtomicInteger executions = new AtomicInteger();
+        StoredOutcome failed = idempotencyService.execute("passenger|book:SU1001:12A|key-4", () -> {
+            executions.incrementAndGet();
+            return new StoredOutcome("redirect:/passenger/tickets/book?flightNumber=SU1001",
+                    Map.of("errorMessage", "Seat 12A is already taken"), false);
+        });
+        StoredOutcome retried = idempotencyService.execute("passenger|book:SU1001:12A|key-4", () -> {
+            executions.incrementAndGet();
+            return new StoredOutcome("redirect:/passenger/dashboard", Map.of("successMessage", "Билет забронирован"));
+        });
+
+        assertFalse(failed.succeeded());
+        assertEquals("redirect:/passenger/dashboard", retried.viewName());
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void concurrentDuplicateSharesUnsuccessfulOutcome() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        StoredOutcome failed = new StoredOutcome("redirect:/staff/checkin", Map.of("errorMessage", "Not found"), false);
+
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            Future<StoredOutcome> first = executor.submit(() ->
+                    idempotencyService.execute("staff|checkin:TKT-3|key-5", () -> {
+                        started.countDown();
+                        sleep(200);
+                        return failed;
+                    }));
+            started.await();
+
+            AtomicInteger executions = new AtomicInteger();
+            StoredOutcome duplicate = idempotencyService.execute("staff|checkin:TKT-3|key-5", () -> {
+                executions.incrementAndGet();
+                return failed;
+            });
+
+            assertSame(failed, first.get());
+            assertSame(failed, duplicate);
+            assertEquals(0, executions.get());
+        }
+    }
+
+    @Test
+    void storeIsBounded() {
+        for (int i = 0; i < IdempotencyServiceImpl.MAX_ENTRIES + 500; i++) {
+            idempotencyService.execute("user|op|key-" + i, () -> new StoredOutcome("redirect:/", Map.of()));
+        }
+        assertTrue(idempotencyService.size() <= IdempotencyServiceImpl.MAX_ENTRIES);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package rut.miit.airportweb.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import rut.miit.airportweb.config.invalidation.EntityChange;
+import rut.miit.airportweb.dao.entity.FlightEntity;
+import rut.miit.airportweb.dao.repository.FlightRepository;
+import rut.miit.airportweb.dto.FlightDto;
+import rut.miit.airportweb.dto.ItineraryDto;
+import rut.miit.airportweb.event.FlightChangedEvent;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ItineraryServiceImplTests {
+
+    // Вылеты — от ближайшего часа через сутки: поиск не начинается раньше текущего момента
+    private static final LocalDateTime T0 = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+
+    private final FlightRepository flightRepository = mock(FlightRepository.class);
+    private final ItineraryServiceImpl itineraryService = new ItineraryServiceImpl(flightRepository);
+
+    @Test
+    void itinerariesAreRankedByArrivalThenStops() {
+        graph(flight("DIR1", "Москва", "Сочи", T0, T0.plusHours(6)),
+                flight("A1", "Москва", "Казань", T0, T0.plusHours(1)),
+                flight("A2", "Казань", "Сочи", T0.plusHours(2), T0.plusHours(4)),
+                flight("B1", "Москва", "Самара", T0.plusHours(1), T0.plusHours(2)),
+                flight("B2", "Самара", "Сочи", T0.plusHours(3), T0.plusHours(6)),
+                flight("DIR2", "Москва", "Сочи", T0.plusHours(2), T0.plusHours(5)));
+
+        List<ItineraryDto> itineraries = itineraryService.findItineraries("Москва", "сочи", T0, 10);
+
+        // Раньше прилет; при равном прилете — меньше пересадок, затем позже вылет
+        assertEquals(List.of("A1+A2", "DIR2", "DIR1", "B1+B2"), routes(itineraries));
+        ItineraryDto connection = itineraries.getFirst();
+        assertEquals(1, connection.getStops());
+        assertEquals(240, connection.getTotalMinutes());
+        assertEquals(60, connection.getConnectionMinutes());
+    }
+
+    @Test
+    void connectionTimeIsBounded() {
+        graph(flight("IN", "Москва", "Казань", T0, T0.plusHours(1)),
+                flight("TOO-SOON", "Казань", "Сочи", T0.plusMinutes(119), T0.plusHours(4)),
+                flight("MIN", "Казань", "Сочи", T0.plusHours(2), T0.plusHours(4)),
+                flight("MAX", "Казань", "Сочи", T0.plusHours(13).minusMinutes(1), T0.plusHours(15)),
+                flight("TOO-LATE", "Казань", "Сочи", T0.plusHours(13), T0.plusHours(15)));
+
+        // Пересадка от 60 минут включительно до 12 часов не включительно
+        assertEquals(List.of("IN+MIN", "IN+MAX"), routes(itineraryService.findItineraries("Москва", "Сочи", T0, 10)));
+    }
+
+    @Test
+    void firstLegDepartsWithinSearchHorizon() {
+        graph(flight("EARLY", "Москва", "Сочи", T0.minusMinutes(1), T0.plusHours(3)),
+                flight("FIRST", "Москва", "Сочи", T0, T0.plusHours(3)),
+                flight("LAST", "Москва", "Сочи", T0.plusDays(1).minusMinutes(1), T0.plusDays(1).plusHours(3)),
+                flight("NEXT-DAY", "Москва", "Сочи", T0.plusDays(1), T0.plusDays(1).plusHours(3)));
+
+        assertEquals(List.of("FIRST", "LAST"), routes(itineraryService.findItineraries("Москва", "Сочи", T0, 10)));
+    }
+
+    @Test
+    void soldOutFlightsAreSkipped() {
+        graph(flight("FULL", "Москва", "Сочи", T0, T0.plusHours(3), 0),
+                flight("A1", "Москва", "Казань", T0, T0.plusHours(1)),
+                flight("A2-FULL", "Казань", "Сочи", T0.plusHours(2), T0.plusHours(4), 0),
+                flight("A3", "Казань", "Сочи", T0.plusHours(3), T0.plusHours(5)));
+
+        assertEquals(List.of("A1+A3"), routes(itineraryService.findItineraries("Москва", "Сочи", T0, 10)));
+    }
+
+    @Test
+    void resultsAreLimited() {
+        List<FlightEntity> flights = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            flights.add(flight("D" + i, "Москва", "Сочи", T0.plusMinutes(i), T0.plusHours(3).plusMinutes(i)));
+        }
+        graph(flights.toArray(FlightEntity[]::new));
+
+        assertEquals(List.of("D0", "D1", "D2"), routes(itineraryService.findItineraries("Москва", "Сочи", T0, 3)));
+        assertEquals(20, itineraryService.findItineraries("Москва", "Сочи", T0, 100).size());
+        assertEquals(1, itineraryService.findItineraries("Москва", "Сочи", T0, 0).size());
+    }
+
+    @Test
+    void rejectsInvalidCities() {
+        assertThrows(IllegalArgumentException.class, () -> itineraryService.findItineraries(" ", "Сочи", T0, 5));
+        assertThrows(IllegalArgumentException.class, () -> itineraryService.findItineraries("Москва", null, T0, 5));
+        assertThrows(IllegalArgumentException.class,
+                () -> itineraryService.findItineraries("Москва", " москва", T0, 5));
+    }
+
+    @Test
+    void flightEventsUpdateGraph() {
+        graph(flight("A1", "Москва", "Казань", T0, T0.plusHours(1)));
+
+        itineraryService.onFlightChanged(event(FlightChangedEvent.ChangeType.CREATED,
+                flight("A2", "Казань", "Сочи", T0.plusHours(2), T0.plusHours(4))));
+        itineraryService.onFlightChanged(event(FlightChangedEvent.ChangeType.CREATED,
+                flight("DIR", "Москва", "Сочи", T0, T0.plusHours(3))));
+        assertEquals(List.of("DIR", "A1+A2"), routes(itineraryService.findItineraries("Москва", "Сочи", T0, 10)));
+
+        FlightEntity departed = flight("DIR", "Москва", "Сочи", T0, T0.plusHours(3));
+        departed.setStatus(FlightEntity.FlightStatus.DEPARTED);
+        itineraryService.onFlightChanged(event(FlightChangedEvent.ChangeType.STATUS_CHANGED, departed));
+        assertEquals(List.of("A1+A2"), routes(itineraryService.findItineraries("Москва", "Сочи", T0, 10)));
+
+        itineraryService.onFlightChanged(event(FlightChangedEvent.ChangeType.DELETED,
+                flight("A2", "Казань", "Сочи", T0.plusHours(2), T0.plusHours(4))));
+        assertTrue(itineraryService.findItineraries("Москва", "Сочи", T0, 10).isEmpty());
+    }
+
+    @Test
+    void invalidationReloadsChangedFlights() {
+        graph(flight("A1", "Москва", "Казань", T0, T0.plusHours(1)),
+                flight("A2", "Казань", "Сочи", T0.plusHours(2), T0.plusHours(4)),
+                flight("DIR", "Москва", "Сочи", T0, T0.plusHours(3)));
+
+        // На другом узле продали последнее место на A2 и удалили DIR
+        when(flightRepository.findAllByFlightNumberIn(List.of("A2", "DIR")))
+                .thenReturn(List.of(flight("A2", "Казань", "Сочи", T0.plusHours(2), T0.plusHours(4), 0)));
+        itineraryService.invalidate(List.of(new EntityChange(EntityChange.Type.FLIGHT, "A2", 1),
+                new EntityChange(EntityChange.Type.FLIGHT, "DIR", 1)));
+
+        assertTrue(itineraryService.findItineraries("Москва", "Сочи", T0, 10).isEmpty());
+    }
+
+    @Test
+    void flightEventIsAppliedAfterCommit() {
+        when(flightRepository.findUpcoming(any(), any())).thenReturn(List.of());
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.registerBean(FlightRepository.class, () -> flightRepository);
+            context.register(TransactionalEvents.class, ItineraryServiceImpl.class);
+            context.refresh();
+            ItineraryServiceImpl service = context.getBean(ItineraryServiceImpl.class);
+            TransactionTemplate transactionTemplate = new TransactionTemplate(
+                    context.getBean(PlatformTransactionManager.class));
+
+            transactionTemplate.executeWithoutResult(status -> {
+                context.publishEvent(event(FlightChangedEvent.ChangeType.CREATED,
+                        flight("DIR", "Москва", "Сочи", T0, T0.plusHours(3))));
+                assertTrue(service.findItineraries("Москва", "Сочи", T0, 10).isEmpty());
+            });
+            assertEquals(List.of("DIR"), routes(service.findItineraries("Москва", "Сочи", T0, 10)));
+
+            // Откат: рейса в базе нет, в графе он тоже не появляется
+            transactionTemplate.executeWithoutResult(status -> {
+                context.publishEvent(event(FlightChangedEvent.ChangeType.CREATED,
+                        flight("DIR2", "Москва", "Сочи", T0.plusHours(1), T0.plusHours(4))));
+                status.setRollbackOnly();
+            });
+            assertEquals(List.of("DIR"), routes(service.findItineraries("Москва", "Сочи", T0, 10)));
+        }
+    }
+
+    @Test
+    void searchOverLargeGraphTakesMilliseconds() {
+        // 20 000 рейсов между 50 городами на двое суток: около восьми вылетов в час из каждого города
+        String[] cities = new String[50];
+        Arrays.setAll(cities, i -> "Город-" + i);
+        List<FlightEntity> flights = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            LocalDateTime departure = T0.plusMinutes(i * 2_880L / 20_000);
+            flights.add(flight("F" + i, cities[i % cities.length], cities[(i * 7 + 3) % cities.length],
+                    departure, departure.plusMinutes(60 + i % 180)));
+        }
+        graph(flights.toArray(FlightEntity[]::new));
+
+        for (int i = 0; i < 200; i++) {
+            itineraryService.findItineraries(cities[i % cities.length], cities[(i + 1) % cities.length], T0, 10);
+        }
+        long[] samples = new long[101];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            itineraryService.findItineraries(cities[i % cities.length], cities[(i + 1) % cities.length], T0, 10);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+
+        // Около 20 тысяч проверок стыковок на поиск, медиана — порядка 2 мс; порог с пятикратным запасом
+        long median = samples[samples.length / 2];
+        assertTrue(median < Duration.ofMillis(10).toNanos(), "Median search time " + median / 1_000 + " µs");
+    }
+
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
+    private void graph(FlightEntity... flights) {
+        when(flightRepository.findUpcoming(any(), any())).thenReturn(List.of(flights));
+        itineraryService.rebuild();
+    }
+
+    private static FlightEntity flight(String number, String from, String to,
+                                       LocalDateTime departure, LocalDateTime arrival) {
+        return flight(number, from, to, departure, arrival, 10);
+    }
+
+    private static FlightEntity flight(String number, String from, String to,
+                                       LocalDateTime departure, LocalDateTime arrival, int availableSeats) {
+        FlightEntity flight = new FlightEntity();
+        flight.setFlightNumber(number);
+        flight.setDepartureCity(from);
+        flight.setArrivalCity(to);
+        flight.setDepartureTime(departure);
+        flight.setArrivalTime(arrival);
+        flight.setTotalSeats(100);
+        flight.setAvailableSeats(availableSeats);
+        flight.setStatus(FlightEntity.FlightStatus.SCHEDULED);
+        return flight;
+    }
+
+    private static FlightChangedEvent event(FlightChangedEvent.ChangeType type, FlightEntity flight) {
+        return new FlightChangedEvent(type, FlightDto.builder()
+                .flightNumber(flight.getFlightNumber())
+                .departureCity(flight.getDepartureCity())
+                .arrivalCity(flight.getArrivalCity())
+                .departureTime(flight.getDepartureTime())
+                .arrivalTime(flight.getArrivalTime())
+                .availableSeats(flight.getAvailableSeats())
+                .status(flight.getStatus().toString())
+                .build());
+    }
+
+    private static List<String> routes(List<ItineraryDto> itineraries) {
+        return itineraries.stream()
+                .map(itinerary -> String.join("+",
+                        itinerary.getLegs().stream().map(FlightDto::getFlightNumber).toList()))
+                .toList();
+    }
+
+    /**
+     * Транзакции без ресурсов: достаточно, чтобы слушатели {@code @TransactionalEventListener}
+     * срабатывали после фиксации
+     */
+    @Configuration(proxyBeanMethods = false)
+    @EnableTransactionManagement
+    static class TransactionalEvents {
+
+        @Bean
+        PlatformTransactionManager transactionManager() {
+            return new AbstractPlatformTransactionManager() {
+
+                @Override
+                protected Object doGetTransaction() {
+                    return new Object();
+                }
+
+                @Override
+                protected void doBegin(Object transaction, TransactionDefinition definition) {
+                }
+
+                @Override
+                protected void doCommit(DefaultTransactionStatus status) {
+                }
+
+                @Override
+                protected void doRollback(DefaultTransactionStatus status) {
+                }
+            };
+        }
+    }
+}
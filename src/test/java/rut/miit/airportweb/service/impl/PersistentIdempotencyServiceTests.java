@@ -0,0 +1,211 @@
+package rut.miit.airportweb.service.impl;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+import rut.miit.airportweb.service.IdempotencyService.StoredOutcome;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Два экземпляра сервиса на одной базе изображают два узла: у каждого свое хранилище в памяти,
+ * общая только таблица idempotency_keys
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PersistentIdempotencyServiceTests {
+
+    private static final int DUPLICATES = 16;
+    private static final String KEY = "passenger|book:SU1001:12A|key-1";
+    private static final StoredOutcome BOOKED = new StoredOutcome("redirect:/passenger/dashboard",
+            Map.of("successMessage", "Билет забронирован"));
+
+    private final PostgreSQLContainer postgres = new PostgreSQLContainer(DockerImageName.parse("postgres:latest"));
+
+    private HikariDataSource pool;
+    private JdbcTemplate jdbcTemplate;
+    private IdempotencyServiceImpl firstNode;
+    private IdempotencyServiceImpl secondNode;
+
+    @BeforeAll
+    void start() throws IOException {
+        postgres.start();
+        pool = new HikariDataSource();
+        pool.setJdbcUrl(postgres.getJdbcUrl());
+        pool.setUsername(postgres.getUsername());
+        pool.setPassword(postgres.getPassword());
+        pool.setMaximumPoolSize(DUPLICATES + 2);
+        jdbcTemplate = new JdbcTemplate(pool);
+        jdbcTemplate.execute(new ClassPathResource("db/changelog/release/idempotency-keys.sql")
+                .getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    @AfterAll
+    void stop() {
+        pool.close();
+        postgres.stop();
+    }
+
+    @BeforeEach
+    void clear() {
+        jdbcTemplate.update("DELETE FROM idempotency_keys");
+        firstNode = new IdempotencyServiceImpl(jdbcTemplate, true);
+        secondNode = new IdempotencyServiceImpl(jdbcTemplate, true);
+    }
+
+    @Test
+    void concurrentDuplicatesOnTwoNodesExecuteActionOnce() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<StoredOutcome>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(DUPLICATES)) {
+            for (int i = 0; i < DUPLICATES; i++) {
+                IdempotencyServiceImpl node = i % 2 == 0 ? firstNode : secondNode;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return node.execute(KEY, () -> {
+                        executions.incrementAndGet();
+                        sleep(200);
+                        return BOOKED;
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<StoredOutcome> result : results) {
+                assertEquals(BOOKED, result.get(10, TimeUnit.SECONDS));
+            }
+        }
+
+        assertEquals(1, executions.get());
+        assertEquals("DONE", status(KEY));
+    }
+
+    @Test
+    void duplicateOnOtherNodeReplaysStoredOutcome() {
+        firstNode.execute(KEY, () -> BOOKED);
+
+        StoredOutcome replayed = secondNode.execute(KEY, () -> {
+            throw new AssertionError("Action must not run for a persisted key");
+        });
+
+        assertEquals(BOOKED.viewName(), replayed.viewName());
+        assertEquals(BOOKED.flashAttributes(), replayed.flashAttributes());
+    }
+
+    @Test
+    void duplicateWaitsForInFlightRequestOnOtherNode() throws Exception {
+        CountDownLatch claimed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executions = new AtomicInteger();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            Future<StoredOutcome> first = executor.submit(() -> firstNode.execute(KEY, () -> {
+                executions.incrementAndGet();
+                claimed.countDown();
+                await(release);
+                return BOOKED;
+            }));
+            assertTrue(claimed.await(5, TimeUnit.SECONDS));
+            assertEquals("PENDING", status(KEY));
+
+            Future<StoredOutcome> duplicate = executor.submit(() -> secondNode.execute(KEY, () -> {
+                executions.incrementAndGet();
+                return new StoredOutcome("redirect:/passenger/dashboard", Map.of());
+            }));
+            sleep(300);
+            release.countDown();
+
+            assertEquals(BOOKED, first.get(5, TimeUnit.SECONDS));
+            assertEquals(BOOKED, duplicate.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void failureReleasesKeyForRetryOnOtherNode() {
+        StoredOutcome failed = new StoredOutcome("redirect:/passenger/flights",
+                Map.of("errorMessage", "Место уже занято"), false);
+        assertEquals(failed, firstNode.execute(KEY, () -> failed));
+        assertThrows(IllegalStateException.class, () -> firstNode.execute("other-key", () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        assertEquals(0, count());
+        assertEquals(BOOKED, secondNode.execute(KEY, () -> BOOKED));
+        assertEquals(BOOKED, secondNode.execute("other-key", () -> BOOKED));
+    }
+
+    @Test
+    void abandonedClaimIsTakenOver() {
+        LocalDateTime abandonedAt = LocalDateTime.now().minus(IdempotencyServiceImpl.CLAIM_TIMEOUT).minusSeconds(1);
+        jdbcTemplate.update("INSERT INTO idempotency_keys (idempotency_key, status, created_at) VALUES (?, 'PENDING', ?)",
+                KEY, Timestamp.valueOf(abandonedAt));
+
+        assertEquals(BOOKED, secondNode.execute(KEY, () -> BOOKED));
+        assertEquals("DONE", status(KEY));
+    }
+
+    @Test
+    void expiredOutcomeIsExecutedAgain() {
+        LocalDateTime expiredAt = LocalDateTime.now().minus(IdempotencyServiceImpl.KEY_TTL).minusSeconds(1);
+        jdbcTemplate.update("""
+                        INSERT INTO idempotency_keys (idempotency_key, status, view_name, flash_attributes, created_at)
+                        VALUES (?, 'DONE', 'redirect:/old', '', ?)
+                        """,
+                KEY, Timestamp.valueOf(expiredAt));
+
+        assertEquals(BOOKED, secondNode.execute(KEY, () -> BOOKED));
+    }
+
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
+    private String status(String key) {
+        return jdbcTemplate.queryForObject("SELECT status FROM idempotency_keys WHERE idempotency_key = ?",
+                String.class, key);
+    }
+
+    private int count() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM idempotency_keys", Integer.class);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
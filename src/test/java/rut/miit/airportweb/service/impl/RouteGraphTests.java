@@ -0,0 +1,82 @@
+package rut.miit.airportweb.service.impl;
+
+import org.junit.jupiter.api.Test;
+import rut.miit.airportweb.service.impl.RouteGraph.Leg;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RouteGraphTests {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 6, 1, 10, 0);
+
+    private final RouteGraph graph = new RouteGraph();
+
+    @Test
+    void departuresAreOrderedWithinHalfOpenInterval() {
+        graph.put(leg("SU3", "Москва", T0.plusHours(2)));
+        graph.put(leg("SU1", "Москва", T0));
+        graph.put(leg("SU2", "Москва", T0.plusHours(1)));
+        graph.put(leg("SU0", "Москва", T0.minusMinutes(1)));
+        graph.put(leg("KZ1", "Казань", T0.plusHours(1)));
+
+        assertEquals(List.of("SU1", "SU2"), numbers(graph.departures("Москва", T0, T0.plusHours(2))));
+        assertTrue(graph.departures("Москва", T0, T0).isEmpty());
+        assertTrue(graph.departures("Сочи", T0, T0.plusDays(1)).isEmpty());
+    }
+
+    @Test
+    void flightsDepartingAtSameTimeAreKept() {
+        graph.put(leg("SU2", "Москва", T0));
+        graph.put(leg("SU1", "Москва", T0));
+
+        assertEquals(List.of("SU1", "SU2"), numbers(graph.departures("Москва", T0, T0.plusMinutes(1))));
+    }
+
+    @Test
+    void cityLookupIgnoresCaseAndSpaces() {
+        graph.put(leg("SU1", "Москва", T0));
+
+        assertEquals(List.of("SU1"), numbers(graph.departures("  москва ", T0, T0.plusHours(1))));
+        assertTrue(leg("SU1", "Москва", T0).arrivesAt(" САНКТ-ПЕТЕРБУРГ"));
+    }
+
+    @Test
+    void putReplacesPreviousVersion() {
+        graph.put(leg("SU1", "Москва", T0));
+        // Перенос времени и города вылета: старая версия не должна остаться в прежнем месте
+        graph.put(leg("SU1", "Казань", T0.plusHours(3)));
+
+        assertEquals(1, graph.size());
+        assertTrue(graph.departures("Москва", T0, T0.plusDays(1)).isEmpty());
+        assertEquals(List.of("SU1"), numbers(graph.departures("Казань", T0, T0.plusDays(1))));
+    }
+
+    @Test
+    void removeDropsFlight() {
+        graph.put(leg("SU1", "Москва", T0));
+        graph.put(leg("SU2", "Москва", T0.plusHours(1)));
+
+        graph.remove("SU1");
+        graph.remove("XX0");
+
+        assertEquals(1, graph.size());
+        assertEquals(List.of("SU2"), numbers(graph.departures("Москва", T0, T0.plusDays(1))));
+    }
+
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
+    private static Leg leg(String flightNumber, String from, LocalDateTime departure) {
+        return new Leg(flightNumber, from, "Санкт-Петербург", departure, departure.plusHours(1), 10);
+    }
+
+    private static List<String> numbers(Iterable<Leg> legs) {
+        List<String> numbers = new ArrayList<>();
+        legs.forEach(leg -> numbers.add(leg.flightNumber()));
+        return numbers;
+    }
+}
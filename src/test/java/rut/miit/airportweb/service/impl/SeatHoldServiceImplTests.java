@@ -0,0 +1,140 @@
+package rut.miit.airportweb.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rut.miit.airportweb.dao.repository.FlightRepository;
+import rut.miit.airportweb.exception.EntityNotFoundException;
+import rut.miit.airportweb.exception.NotPermittedOperation;
+import rut.miit.airportweb.mapper.TicketMapper;
+import rut.miit.airportweb.service.SeatHoldService.SeatHold;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SeatHoldServiceImplTests {
+
+    private static final String FLIGHT = "SU1001";
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-06-01T10:00:00Z"));
+    private final FlightRepository flightRepository = mock(FlightRepository.class);
+    private final SeatHoldServiceImpl seatHoldService = new SeatHoldServiceImpl(flightRepository, clock);
+
+    @BeforeEach
+    void flightExists() {
+        when(flightRepository.existsByFlightNumber(FLIGHT)).thenReturn(true);
+    }
+
+    @Test
+    void holdsSeatInTicketForm() {
+        SeatHold hold = seatHoldService.hold(FLIGHT, " 12a ", "alice");
+
+        assertEquals("12A", hold.seatNumber());
+        assertEquals(TicketMapper.normalizeSeatNumber(" 12a "), hold.seatNumber());
+        assertEquals(List.of("12A"), seatHoldService.getHeldSeats(FLIGHT, "bob"));
+    }
+
+    @Test
+    void rejectsSeatHeldByAnotherPassengerInAnyForm() {
+        seatHoldService.hold(FLIGHT, "12A", "alice");
+
+        assertThrows(NotPermittedOperation.class, () -> seatHoldService.hold(FLIGHT, "12a", "bob"));
+        assertThrows(NotPermittedOperation.class, () -> seatHoldService.hold(FLIGHT, " 12A", "bob"));
+    }
+
+    @Test
+    void rejectsHoldOnUnknownFlight() {
+        when(flightRepository.existsByFlightNumber("XX0000")).thenReturn(false);
+
+        assertThrows(EntityNotFoundException.class, () -> seatHoldService.hold("XX0000", "1A", "alice"));
+        assertTrue(seatHoldService.getHeldSeats("XX0000", "bob").isEmpty());
+    }
+
+    @Test
+    void keepsOneHoldPerPassengerOnFlight() {
+        seatHoldService.hold(FLIGHT, "12A", "alice");
+        seatHoldService.hold(FLIGHT, "14C", "alice");
+
+        assertEquals(List.of("14C"), seatHoldService.getHeldSeats(FLIGHT, "bob"));
+        assertEquals("14C", seatHoldService.findHold(FLIGHT, "alice").orElseThrow().seatNumber());
+    }
+
+    @Test
+    void releasesOnlyOwnHold() {
+        seatHoldService.hold(FLIGHT, "12A", "alice");
+
+        seatHoldService.release(FLIGHT, "12a", "bob");
+        assertEquals(List.of("12A"), seatHoldService.getHeldSeats(FLIGHT, "bob"));
+
+        seatHoldService.release(FLIGHT, "12a", "alice");
+        assertTrue(seatHoldService.getHeldSeats(FLIGHT, "bob").isEmpty());
+    }
+
+    @Test
+    void expiredHoldFreesSeat() {
+        seatHoldService.hold(FLIGHT, "12A", "alice");
+
+        clock.advance(Duration.ofMinutes(5).plusSeconds(1));
+        // Истекшее удержание не действует и до срабатывания таймера
+        assertTrue(seatHoldService.getHeldSeats(FLIGHT, "bob").isEmpty());
+        assertTrue(seatHoldService.findHold(FLIGHT, "alice").isEmpty());
+
+        seatHoldService.expireHolds();
+        assertEquals("bob", seatHoldService.hold(FLIGHT, "12A", "bob").owner());
+    }
+
+    @Test
+    void timerOfExtendedHoldDoesNotReleaseIt() {
+        seatHoldService.hold(FLIGHT, "12A", "alice");
+        clock.advance(Duration.ofMinutes(4));
+        seatHoldService.expireHolds();
+        seatHoldService.hold(FLIGHT, "12A", "alice");
+
+        // Срок первого удержания прошел, продленное действует еще 4 минуты
+        clock.advance(Duration.ofMinutes(1).plusSeconds(1));
+        seatHoldService.expireHolds();
+
+        assertEquals(List.of("12A"), seatHoldService.getHeldSeats(FLIGHT, "bob"));
+        assertThrows(NotPermittedOperation.class, () -> seatHoldService.hold(FLIGHT, "12A", "bob"));
+
+        clock.advance(Duration.ofMinutes(4));
+        seatHoldService.expireHolds();
+        assertTrue(seatHoldService.getHeldSeats(FLIGHT, "bob").isEmpty());
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
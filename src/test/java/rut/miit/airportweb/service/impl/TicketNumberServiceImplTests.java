@@ -0,0 +1,193 @@
+package rut.miit.airportweb.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TicketNumberServiceImplTests {
+
+    private static final String ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+    private static final long[] SAMPLES = {0, 1, 31, 32, 1_000, 123_456_789, (1L << 40) - 1};
+
+    private final SequenceStub sequence = new SequenceStub();
+    private final TicketNumberServiceImpl ticketNumberService = new TicketNumberServiceImpl(sequence);
+
+    @Test
+    void encodesPayloadAndCheckCharacter() {
+        assertEquals("TKT-000000000", TicketNumberServiceImpl.encode(0));
+        assertEquals("TKT-00000001Y", TicketNumberServiceImpl.encode(1));
+        assertEquals("TKT-00000010Z", TicketNumberServiceImpl.encode(32));
+        assertEquals("TKT-ZZZZZZZZ", TicketNumberServiceImpl.encode((1L << 40) - 1).substring(0, 12));
+    }
+
+    @Test
+    void rejectsValuesBeyondPayload() {
+        assertThrows(IllegalStateException.class, () -> TicketNumberServiceImpl.encode(1L << 40));
+    }
+
+    @Test
+    void encodedNumbersAreValid() {
+        for (long value : SAMPLES) {
+            String ticketNumber = TicketNumberServiceImpl.encode(value);
+            assertTrue(ticketNumberService.isValid(ticketNumber), ticketNumber);
+        }
+    }
+
+    @Test
+    void rejectsMalformedNumbers() {
+        String valid = TicketNumberServiceImpl.encode(1_000);
+
+        assertFalse(ticketNumberService.isValid(null));
+        assertFalse(ticketNumberService.isValid(""));
+        assertFalse(ticketNumberService.isValid("TKT-" + valid.substring(5)));
+        assertFalse(ticketNumberService.isValid(valid + "0"));
+        assertFalse(ticketNumberService.isValid("ABC-" + valid.substring(4)));
+        assertFalse(ticketNumberService.isValid(valid.toLowerCase()));
+        // Символы, исключенные из Crockford Base32
+        for (char excluded : new char[]{'I', 'L', 'O', 'U'}) {
+            assertFalse(ticketNumberService.isValid(valid.substring(0, 4) + excluded + valid.substring(5)));
+        }
+    }
+
+    @Test
+    void detectsEverySingleCharacterError() {
+        for (long value : SAMPLES) {
+            char[] code = TicketNumberServiceImpl.encode(value).substring(4).toCharArray();
+            for (int position = 0; position < code.length; position++) {
+                char original = code[position];
+                for (char replacement : ALPHABET.toCharArray()) {
+                    if (replacement == original) {
+                        continue;
+                    }
+                    code[position] = replacement;
+                    String corrupted = "TKT-" + new String(code);
+                    assertFalse(ticketNumberService.isValid(corrupted), corrupted);
+                }
+                code[position] = original;
+            }
+        }
+    }
+
+    @Test
+    void detectsAdjacentTranspositions() {
+        for (long value : SAMPLES) {
+            char[] code = TicketNumberServiceImpl.encode(value).substring(4).toCharArray();
+            for (int position = 0; position + 1 < code.length; position++) {
+                char left = code[position];
+                char right = code[position + 1];
+                // Единственная неразличимая пара Luhn mod 32, как 09/90 у десятичного Luhn
+                if (left == right || isZeroAndZ(left, right)) {
+                    continue;
+                }
+                String swapped = swap(code, position);
+                assertFalse(ticketNumberService.isValid(swapped), swapped);
+            }
+        }
+
+        // Все пары соседних символов полезной части
+        for (int position = 0; position + 1 < 8; position++) {
+            for (char left : ALPHABET.toCharArray()) {
+                for (char right : ALPHABET.toCharArray()) {
+                    if (left == right || isZeroAndZ(left, right)) {
+                        continue;
+                    }
+                    String swapped = swap(withCheckCharacter(left, right, position), position);
+                    assertFalse(ticketNumberService.isValid(swapped), swapped);
+                }
+            }
+        }
+    }
+
+    @Test
+    void issuesNumbersInOrderAcrossBlockRollover() {
+        int count = TicketNumberServiceImpl.BLOCK_SIZE * 2 + 50;
+        List<String> issued = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            issued.add(ticketNumberService.nextTicketNumber());
+        }
+
+        for (int i = 0; i < count; i++) {
+            assertEquals(TicketNumberServiceImpl.encode(i + 1), issued.get(i));
+        }
+        assertEquals(3, sequence.reservations.get());
+    }
+
+    @Test
+    void concurrentCallersGetUniqueValidNumbers() throws Exception {
+        int threads = 8;
+        int perThread = 1_000;
+        Set<String> issued = ConcurrentHashMap.newKeySet();
+
+        List<Future<?>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        String ticketNumber = ticketNumberService.nextTicketNumber();
+                        assertTrue(ticketNumberService.isValid(ticketNumber), ticketNumber);
+                        assertTrue(issued.add(ticketNumber), ticketNumber);
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        }
+
+        assertEquals(threads * perThread, issued.size());
+    }
+
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
+    private static boolean isZeroAndZ(char left, char right) {
+        return (left == '0' && right == 'Z') || (left == 'Z' && right == '0');
+    }
+
+    private static String swap(char[] code, int position) {
+        char[] swapped = code.clone();
+        swapped[position] = code[position + 1];
+        swapped[position + 1] = code[position];
+        return "TKT-" + new String(swapped);
+    }
+
+    /**
+     * Корректный номер с парой left, right в позиции position полезной части
+     */
+    private static char[] withCheckCharacter(char left, char right, int position) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            char digit = i == position ? left : i == position + 1 ? right : '7';
+            value = value * 32 + ALPHABET.indexOf(digit);
+        }
+        return TicketNumberServiceImpl.encode(value).substring(4).toCharArray();
+    }
+
+    /**
+     * ticket_number_seq: START WITH 1 INCREMENT BY BLOCK_SIZE
+     */
+    private static final class SequenceStub extends JdbcTemplate {
+
+        private final AtomicLong next = new AtomicLong(1);
+        private final AtomicInteger reservations = new AtomicInteger();
+
+        @Override
+        public <T> T queryForObject(String sql, Class<T> requiredType) {
+            reservations.incrementAndGet();
+            return requiredType.cast(next.getAndAdd(TicketNumberServiceImpl.BLOCK_SIZE));
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package rut.miit.airportweb.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import rut.miit.airportweb.config.invalidation.EntityChange;
+import rut.miit.airportweb.config.invalidation.InvalidationPublisher;
+import rut.miit.airportweb.dao.entity.FlightEntity;
+import rut.miit.airportweb.dao.entity.PassengerEntity;
+import rut.miit.airportweb.dao.entity.TicketEntity;
+import rut.miit.airportweb.dao.entity.UserEntity;
+import rut.miit.airportweb.dao.repository.TicketRepository;
+import rut.miit.airportweb.dto.PassengerTripsDto;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TripServiceImplTests {
+
+    private static final String USER = "alice";
+
+    private final TicketRepository ticketRepository = mock(TicketRepository.class);
+    private final InvalidationPublisher invalidationPublisher = mock(InvalidationPublisher.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final TripServiceImpl tripService = new TripServiceImpl(ticketRepository, invalidationPublisher,
+            transactionManager, Duration.ofMinutes(1), 100);
+
+    private SimpleTransactionStatus status;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+            status = new SimpleTransactionStatus();
+            return status;
+        });
+        when(ticketRepository.findTripsByUsername(USER)).thenReturn(List.of(ticket("SU1001")));
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void cachesTripsPerUser() {
+        PassengerTripsDto trips = tripService.getTrips(USER);
+
+        assertSame(trips, tripService.getTrips(USER));
+        assertEquals("SU1001", trips.getTrips().getFirst().getFlightNumber());
+        verify(ticketRepository, times(1)).findTripsByUsername(USER);
+        assertEquals(1, tripService.getCacheHits());
+        assertEquals(1, tripService.getCacheMisses());
+    }
+
+    @Test
+    void missIsReadFromPrimaryWithoutCommit() {
+        tripService.getTrips(USER);
+
+        // Пишущая транзакция уходит в основную базу; откат не привязывает сессию к ней после чтения
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager).getTransaction(definition.capture());
+        assertFalse(definition.getValue().isReadOnly());
+        assertTrue(status.isRollbackOnly());
+    }
+
+    @Test
+    void tripsEvictedDuringLoadAreNotCached() {
+        when(ticketRepository.findTripsByUsername(USER)).thenAnswer(invocation -> {
+            // Уведомление другого узла пришло, пока шел запрос: прочитанное может быть уже устаревшим
+            tripService.invalidate(List.of(new EntityChange(EntityChange.Type.TRIPS, USER, 1)));
+            return List.of(ticket("SU1001"));
+        });
+
+        tripService.getTrips(USER);
+
+        assertEquals(0, tripService.getCacheSize());
+    }
+
+    @Test
+    void ownChangeEvictsAfterCommit() {
+        tripService.getTrips(USER);
+        TransactionSynchronizationManager.initSynchronization();
+
+        tripService.invalidateTrips(USER);
+        verify(invalidationPublisher).publish(EntityChange.Type.TRIPS, USER);
+        assertEquals(1, tripService.getCacheSize());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(0, tripService.getCacheSize());
+        tripService.getTrips(USER);
+        verify(ticketRepository, times(2)).findTripsByUsername(USER);
+    }
+
+    @Test
+    void otherUsersStayCached() {
+        when(ticketRepository.findTripsByUsername("bob")).thenReturn(List.of(ticket("SU1002")));
+        tripService.getTrips(USER);
+        tripService.getTrips("bob");
+
+        tripService.invalidate(List.of(new EntityChange(EntityChange.Type.TRIPS, "bob", 1)));
+
+        tripService.getTrips(USER);
+        assertEquals(1, tripService.getCacheHits());
+        assertEquals(1, tripService.getCacheSize());
+    }
+
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
+    private static TicketEntity ticket(String flightNumber) {
+        UserEntity user = new UserEntity();
+        user.setUsername(USER);
+        user.setFirstName("Alice");
+        user.setLastName("Smith");
+        PassengerEntity passenger = new PassengerEntity();
+        passenger.setUser(user);
+        passenger.setPassportNumber("4500123456");
+
+        FlightEntity flight = new FlightEntity();
+        flight.setId(1);
+        flight.setFlightNumber(flightNumber);
+        flight.setDepartureCity("Moscow");
+        flight.setArrivalCity("Kazan");
+        flight.setDepartureTime(LocalDateTime.now().plusDays(1));
+        flight.setArrivalTime(LocalDateTime.now().plusDays(1).plusHours(2));
+        flight.setStatus(FlightEntity.FlightStatus.SCHEDULED);
+
+        TicketEntity ticket = new TicketEntity();
+        ticket.setId(1);
+        ticket.setFlight(flight);
+        ticket.setPassenger(passenger);
+        ticket.setSeatNumber("12A");
+        ticket.setPrice(new BigDecimal("5000.00"));
+        ticket.setTicketNumber("TKT-" + flightNumber);
+        return ticket;
+    }
+}
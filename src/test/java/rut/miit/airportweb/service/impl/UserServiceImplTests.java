@@ -0,0 +1,183 @@
+package rut.miit.airportweb.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import rut.miit.airportweb.dao.entity.UserEntity;
+import rut.miit.airportweb.dao.repository.PassengerRepository;
+import rut.miit.airportweb.dao.repository.UserDirectoryRepository.Order;
+import rut.miit.airportweb.dao.repository.UserDirectoryRepository.Position;
+import rut.miit.airportweb.dao.repository.UserRepository;
+import rut.miit.airportweb.dto.UserDto;
+import rut.miit.airportweb.dto.UserPageDto;
+import rut.miit.airportweb.dto.UserSearchDto;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserServiceImplTests {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserServiceImpl userService = new UserServiceImpl(userRepository, mock(PasswordEncoder.class),
+            mock(PassengerRepository.class));
+
+    @Test
+    void nextCursorResumesAfterLastUserOfPage() {
+        // Одинаковые фамилия и имя: позицию различает только id
+        page(Order.NAME, false, null, user(7, "Иванов", "Петр"), user(9, "Иванов", "Петр"), user(12, "Иванов", "Петр"));
+
+        UserPageDto first = userService.searchUsers(search("name", false, null, 2));
+        assertEquals(2, first.getUsers().size());
+        assertNotNull(first.getNextCursor());
+
+        page(Order.NAME, false, new Position(9, "Иванов", "Петр", null), user(12, "Иванов", "Петр"));
+        UserPageDto second = userService.searchUsers(search("name", false, first.getNextCursor(), 2));
+
+        assertEquals(List.of("user12"), second.getUsers().stream().map(UserDto::getUsername).toList());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void cursorKeepsKeysOfEveryOrder() {
+        for (Order order : Order.values()) {
+            page(order, true, null, user(5, "Петров", "Иван"), user(3, "Петров", "Иван"));
+            String cursor = userService.searchUsers(search(order.name(), true, null, 1)).getNextCursor();
+
+            userService.searchUsers(search(order.name(), true, cursor, 1));
+
+            Position expected = switch (order) {
+                case REGISTERED -> new Position(5, null, null, null);
+                case NAME -> new Position(5, "Петров", "Иван", null);
+                case USERNAME -> new Position(null, null, null, "user5");
+            };
+            verify(userRepository).findDirectoryPage(null, null, order, true, expected, 2);
+        }
+    }
+
+    @Test
+    void cursorOfOtherOrderOrDirectionIsRejected() {
+        page(Order.NAME, false, null, user(1, "Антонов", "Олег"), user(2, "Борисов", "Олег"));
+        String cursor = userService.searchUsers(search("name", false, null, 1)).getNextCursor();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> userService.searchUsers(search("username", false, cursor, 1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> userService.searchUsers(search("name", true, cursor, 1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> userService.searchUsers(search("name", false, "not-a-cursor", 1)));
+        verify(userRepository, never()).findDirectoryPage(any(), any(), any(), anyBoolean(), any(Position.class), anyInt());
+    }
+
+    @Test
+    void newestUsersComeFirstByDefault() {
+        when(userRepository.findDirectoryPage(any(), any(), any(), anyBoolean(), any(), anyInt())).thenReturn(List.of());
+        when(userRepository.estimateUserCount()).thenReturn(-1L);
+
+        userService.searchUsers(new UserSearchDto());
+        userService.searchUsers(search("name", null, null, 1_000));
+
+        verify(userRepository).findDirectoryPage(null, null, Order.REGISTERED, true, null, 51);
+        verify(userRepository).findDirectoryPage(null, null, Order.NAME, false, null, 201);
+    }
+
+    @Test
+    void filtersArePassedToRepository() {
+        when(userRepository.findDirectoryPage(any(), any(), any(), anyBoolean(), any(), anyInt())).thenReturn(List.of());
+
+        UserSearchDto search = search("name", false, null, 10);
+        search.setRole("airport_staff");
+        search.setName("  Ив ");
+        userService.searchUsers(search);
+
+        verify(userRepository).findDirectoryPage(UserEntity.Role.AIRPORT_STAFF, "Ив", Order.NAME, false, null, 11);
+        verify(userRepository).countDirectory(eq(UserEntity.Role.AIRPORT_STAFF), eq("Ив"), anyLong());
+
+        search.setRole("pilot");
+        assertThrows(IllegalArgumentException.class, () -> userService.searchUsers(search));
+    }
+
+    @Test
+    void totalIsExactBelowCap() {
+        when(userRepository.findDirectoryPage(any(), any(), any(), anyBoolean(), any(), anyInt())).thenReturn(List.of());
+        when(userRepository.estimateUserCount()).thenReturn(120L);
+        when(userRepository.countDirectory(isNull(), isNull(), anyLong())).thenReturn(118L);
+
+        UserPageDto page = userService.searchUsers(new UserSearchDto());
+
+        assertEquals(118, page.getTotal());
+        assertEquals(UserPageDto.TotalKind.EXACT, page.getTotalKind());
+    }
+
+    @Test
+    void totalIsLowerBoundWhenCountReachesCap() {
+        when(userRepository.findDirectoryPage(any(), any(), any(), anyBoolean(), any(), anyInt())).thenReturn(List.of());
+        ArgumentCaptor<Long> cap = ArgumentCaptor.forClass(Long.class);
+        when(userRepository.countDirectory(eq(UserEntity.Role.PASSENGER), isNull(), cap.capture()))
+                .thenAnswer(invocation -> invocation.getArgument(2));
+
+        UserSearchDto search = new UserSearchDto();
+        search.setRole("PASSENGER");
+        UserPageDto page = userService.searchUsers(search);
+
+        assertEquals(cap.getValue() - 1, page.getTotal());
+        assertEquals(UserPageDto.TotalKind.AT_LEAST, page.getTotalKind());
+        // С фильтром статистика таблицы не подходит
+        verify(userRepository, never()).estimateUserCount();
+    }
+
+    @Test
+    void totalIsEstimatedForLargeUnfilteredDirectory() {
+        when(userRepository.findDirectoryPage(any(), any(), any(), anyBoolean(), any(), anyInt())).thenReturn(List.of());
+        when(userRepository.estimateUserCount()).thenReturn(2_500_000L);
+
+        UserPageDto page = userService.searchUsers(new UserSearchDto());
+
+        assertEquals(2_500_000, page.getTotal());
+        assertEquals(UserPageDto.TotalKind.ESTIMATE, page.getTotalKind());
+        verify(userRepository, never()).countDirectory(any(), any(), anyLong());
+    }
+
+    // ========== ВСПОМОГАТЕЛЬНЫЕ МЕТОДЫ ==========
+
+    private void page(Order order, boolean descending, Position after, UserEntity... users) {
+        when(userRepository.findDirectoryPage(isNull(), isNull(), eq(order), eq(descending),
+                after == null ? isNull() : eq(after), anyInt()))
+                .thenAnswer(invocation -> List.of(users).subList(0,
+                        Math.min(users.length, invocation.<Integer>getArgument(5))));
+    }
+
+    private static UserSearchDto search(String sort, Boolean descending, String cursor, int limit) {
+        return UserSearchDto.builder()
+                .sort(sort)
+                .descending(descending)
+                .cursor(cursor)
+                .limit(limit)
+                .build();
+    }
+
+    private static UserEntity user(int id, String lastName, String firstName) {
+        UserEntity user = UserEntity.builder()
+                .username("user" + id)
+                .password("hash")
+                .role(UserEntity.Role.PASSENGER)
+                .firstName(firstName)
+                .lastName(lastName)
+                .build();
+        user.setId(id);
+        return user;
+    }
+}